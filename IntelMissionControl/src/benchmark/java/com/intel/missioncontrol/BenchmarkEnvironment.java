@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+import com.intel.missioncontrol.airspaces.sources.AirspaceSource;
+import com.intel.missioncontrol.common.IPathProvider;
+import com.intel.missioncontrol.hardware.DescriptionProvider;
+import com.intel.missioncontrol.hardware.HardwareConfigurationManager;
+import com.intel.missioncontrol.hardware.IDescriptionProvider;
+import com.intel.missioncontrol.hardware.IHardwareConfigurationManager;
+import com.intel.missioncontrol.helper.ILanguageHelper;
+import com.intel.missioncontrol.helper.LanguageHelper;
+import com.intel.missioncontrol.map.ISelectionManager;
+import com.intel.missioncontrol.map.SelectionManager;
+import com.intel.missioncontrol.map.elevation.EgmModel;
+import com.intel.missioncontrol.map.elevation.IEgmModel;
+import com.intel.missioncontrol.map.elevation.IElevationModel;
+import com.intel.missioncontrol.map.worldwind.IWWGlobes;
+import com.intel.missioncontrol.map.worldwind.IWWMapView;
+import com.intel.missioncontrol.map.worldwind.WWElevationModel;
+import com.intel.missioncontrol.modules.MapModule;
+import com.intel.missioncontrol.modules.SettingsModule;
+import com.intel.missioncontrol.networking.INetworkInformation;
+import com.intel.missioncontrol.settings.ElevationModelSettings;
+import com.intel.missioncontrol.utils.IVersionProvider;
+import com.intel.missioncontrol.utils.VersionProvider;
+import eu.mavinci.airspace.EAirspaceManager;
+import eu.mavinci.airspace.IAirspace;
+import eu.mavinci.core.flightplan.FlightplanContainerFullException;
+import eu.mavinci.core.flightplan.FlightplanContainerWrongAddingException;
+import eu.mavinci.core.flightplan.FlightplanFactory;
+import eu.mavinci.core.flightplan.PlanType;
+import eu.mavinci.core.helper.GeoFenceDetector;
+import eu.mavinci.core.helper.IGeoFenceDetector;
+import eu.mavinci.core.licence.ILicenceManager;
+import eu.mavinci.core.licence.LicenceManager;
+import eu.mavinci.desktop.gui.wwext.FastEarth;
+import eu.mavinci.desktop.gui.wwext.MFlatEarth;
+import eu.mavinci.flightplan.Flightplan;
+import eu.mavinci.flightplan.FlightplanFactoryBase;
+import eu.mavinci.flightplan.PicArea;
+import eu.mavinci.flightplan.Point;
+import eu.mavinci.geo.CountryDetector;
+import eu.mavinci.geo.ICountryDetector;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globes.Globe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.application.Platform;
+import org.asyncfx.beans.property.AsyncBooleanProperty;
+import org.asyncfx.beans.property.PropertyMetadata;
+import org.asyncfx.beans.property.ReadOnlyAsyncBooleanProperty;
+import org.asyncfx.beans.property.ReadOnlyAsyncSetProperty;
+import org.asyncfx.beans.property.ReadOnlyAsyncSetWrapper;
+import org.asyncfx.beans.property.SimpleAsyncBooleanProperty;
+import org.asyncfx.collections.AsyncObservableSet;
+import org.asyncfx.collections.FXAsyncCollections;
+import org.asyncfx.concurrent.Dispatcher;
+
+/**
+ * Sets up the services which are needed to plan and simulate missions without a UI, a map or a network connection.
+ * The terrain is flat, so the results do not depend on downloaded elevation data.
+ */
+public class BenchmarkEnvironment {
+
+    /** A field of about 450 m x 450 m. */
+    public static final double[][] FIELD = {
+        {47.3700, 8.5400}, {47.3745, 8.5405}, {47.3740, 8.5462}, {47.3702, 8.5458}
+    };
+
+    /** A road of about 1.6 km. */
+    public static final double[][] ROAD = {
+        {47.3700, 8.5400}, {47.3750, 8.5450}, {47.3760, 8.5550}, {47.3800, 8.5600}
+    };
+
+    /** Three sides of a building of about 45 m x 45 m. */
+    public static final double[][] BUILDING_SIDES = {{47.3700, 8.5400}, {47.3704, 8.5400}, {47.3704, 8.5406}};
+
+    private static Injector injector;
+
+    private static class NoAirspaces implements AirspaceSource {
+        @Override
+        public List<IAirspace> getAirspacesWithin(Sector boundingBox) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<IAirspace> getCachedAirspacesWithin(Sector boundingBox) {
+            return new ArrayList<>();
+        }
+    }
+
+    /** No host is ever reachable, but none is reported as unreachable either, since none is probed. */
+    private static class OfflineNetworkInformation implements INetworkInformation {
+        private final AsyncBooleanProperty networkAvailable = new SimpleAsyncBooleanProperty(this);
+        private final AsyncBooleanProperty internetAvailable = new SimpleAsyncBooleanProperty(this);
+        private final ReadOnlyAsyncSetWrapper<String> unreachableHosts =
+            new ReadOnlyAsyncSetWrapper<>(
+                this,
+                new PropertyMetadata.Builder<AsyncObservableSet<String>>()
+                    .initialValue(FXAsyncCollections.emptyObservableSet())
+                    .create());
+
+        @Override
+        public void invalidate() {}
+
+        @Override
+        public ReadOnlyAsyncBooleanProperty networkAvailableProperty() {
+            return networkAvailable;
+        }
+
+        @Override
+        public ReadOnlyAsyncBooleanProperty internetAvailableProperty() {
+            return internetAvailable;
+        }
+
+        @Override
+        public ReadOnlyAsyncSetProperty<String> unreachableHostsProperty() {
+            return unreachableHosts.getReadOnlyProperty();
+        }
+
+        @Override
+        public boolean isHostReachable(URL url) {
+            return false;
+        }
+    }
+
+    /**
+     * The globes without a map view. The active globe is always the round one, while the globes of the application
+     * switch to the flat one with the map view, which does not exist here.
+     */
+    private static class ViewlessGlobes implements IWWGlobes {
+        private final Globe defaultGlobe = new FastEarth();
+        private final Globe flatGlobe = new MFlatEarth();
+
+        @Override
+        public Globe getActiveGlobe() {
+            return defaultGlobe;
+        }
+
+        @Override
+        public Globe getDefaultGlobe() {
+            return defaultGlobe;
+        }
+
+        @Override
+        public Globe getFlatGlobe() {
+            return flatGlobe;
+        }
+    }
+
+    public static synchronized Injector initialize() {
+        if (injector != null) {
+            return injector;
+        }
+
+        // the recomputations report their results on the UI thread, so the toolkit runs headless like in the tests
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        System.setProperty("java.awt.headless", "true");
+        Platform.startup(() -> {});
+        WorldWind.setOfflineMode(true);
+        TestPathProvider pathProvider;
+        try {
+            pathProvider = new TestPathProvider(Files.createTempDirectory("imc-benchmark"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        injector =
+            Guice.createInjector(
+                new SettingsModule(),
+                new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(IVersionProvider.class).toInstance(new VersionProvider());
+                        bind(IPathProvider.class).toInstance(pathProvider);
+                        bind(ILanguageHelper.class).to(LanguageHelper.class).in(Singleton.class);
+                        bind(IHardwareConfigurationManager.class)
+                            .to(HardwareConfigurationManager.class)
+                            .in(Singleton.class);
+                        bind(IDescriptionProvider.class).to(DescriptionProvider.class).in(Singleton.class);
+                        bind(IFileExtractor.class).to(FileExtractor.class);
+                        bind(ILicenceManager.class).to(LicenceManager.class).in(Singleton.class);
+                        bind(Dispatcher.class)
+                            .annotatedWith(Names.named(MapModule.DISPATCHER))
+                            .toInstance(Dispatcher.background());
+                        // nothing which is benchmarked needs a map view, the globes which would ask for one are
+                        // replaced, so only code which draws the map reaches this and fails with a clear message
+                        bind(IWWMapView.class)
+                            .toProvider(
+                                () -> {
+                                    throw new UnsupportedOperationException(
+                                        "There is no map view in benchmarks, only planning and simulation can be "
+                                            + "benchmarked");
+                                });
+                        bind(WWElevationModel.class).in(Singleton.class);
+                        bind(IElevationModel.class).to(WWElevationModel.class);
+                        bind(IWWGlobes.class).to(ViewlessGlobes.class).in(Singleton.class);
+                        bind(IEgmModel.class).to(EgmModel.class).in(Singleton.class);
+                        bind(ICountryDetector.class).to(CountryDetector.class).in(Singleton.class);
+                        bind(IGeoFenceDetector.class).to(GeoFenceDetector.class).in(Singleton.class);
+                        bind(INetworkInformation.class).to(OfflineNetworkInformation.class).in(Singleton.class);
+                        bind(ISelectionManager.class).to(SelectionManager.class).in(Singleton.class);
+                    }
+                });
+
+        StaticInjector.initialize(injector);
+        EAirspaceManager.install(new NoAirspaces());
+        // the elevation model only switches to flat terrain when the setting changes after it has been created
+        injector.getInstance(IElevationModel.class);
+        injector.getInstance(ElevationModelSettings.class).useSurfaceDataForPlanningProperty().set(false);
+        FlightplanFactory.setFactory(new FlightplanFactoryBase());
+        return injector;
+    }
+
+    /**
+     * Creates a mission with a single area of interest which is computed completely before it is returned.
+     *
+     * @param objectHeightInMeter the height of the building for facades, ignored by other types
+     * @param corners latitude and longitude of every corner in degrees
+     */
+    public static PicArea createPicArea(
+            PlanType planType, double gsdInMeter, double objectHeightInMeter, double[]... corners)
+            throws FlightplanContainerFullException, FlightplanContainerWrongAddingException {
+        initialize();
+        Flightplan flightplan = (Flightplan)FlightplanFactory.getFactory().newFlightplan();
+        flightplan.setMute(true);
+        PicArea picArea = (PicArea)FlightplanFactory.getFactory().newPicArea(flightplan);
+        picArea.setPlanType(planType);
+        flightplan.addToFlightplanContainer(picArea);
+        for (double[] corner : corners) {
+            picArea.getCorners().addToFlightplanContainer(new Point(picArea, corner[0], corner[1]));
+        }
+
+        picArea.setGsd(gsdInMeter);
+        picArea.setObjectHeight(objectHeightInMeter);
+        flightplan.setSilentUnmute();
+        flightplan.doFlightplanCalculation();
+        return picArea;
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.drone.connection.mavlink;
+
+import io.dronefleet.mavlink.annotations.MavlinkMessageInfo;
+import io.dronefleet.mavlink.common.Attitude;
+import io.dronefleet.mavlink.common.GlobalPositionInt;
+import io.dronefleet.mavlink.common.GpsFixType;
+import io.dronefleet.mavlink.common.GpsRawInt;
+import io.dronefleet.mavlink.common.Heartbeat;
+import io.dronefleet.mavlink.common.MavAutopilot;
+import io.dronefleet.mavlink.common.MavState;
+import io.dronefleet.mavlink.common.MavType;
+import io.dronefleet.mavlink.common.SysStatus;
+import io.dronefleet.mavlink.common.VfrHud;
+import io.dronefleet.mavlink.grayhawk.GrayhawkDialect;
+import io.dronefleet.mavlink.protocol.MavlinkPacket;
+import io.dronefleet.mavlink.serialization.payload.MavlinkPayloadSerializer;
+import io.dronefleet.mavlink.serialization.payload.reflection.ReflectionPayloadSerializer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Decodes one second of the telemetry of a PX4 drone, received in a single datagram. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MavlinkHandlerBenchmark {
+
+    private static final int SYSTEM_ID = 1;
+    private static final int COMPONENT_ID = 1;
+
+    @State(Scope.Thread)
+    public static class MyState {
+        final InetSocketAddress sender = new InetSocketAddress("127.0.0.1", 14550);
+        final InetSocketAddress recipient = new InetSocketAddress("127.0.0.1", 14540);
+        final MavlinkPayloadSerializer serializer = new ReflectionPayloadSerializer();
+        MavlinkHandler handler;
+        byte[] datagram;
+        int sequence;
+
+        @Setup
+        public void setup() {
+            handler = new MavlinkHandler(new EmbeddedChannel());
+            handler.registerSystemDialect(SYSTEM_ID, new GrayhawkDialect());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(
+                out,
+                Heartbeat.builder()
+                    .type(MavType.MAV_TYPE_QUADROTOR)
+                    .autopilot(MavAutopilot.MAV_AUTOPILOT_PX4)
+                    .systemStatus(MavState.MAV_STATE_ACTIVE)
+                    .mavlinkVersion(3)
+                    .build());
+            write(out, SysStatus.builder().voltageBattery(15800).currentBattery(1200).batteryRemaining(80).build());
+            for (int i = 0; i != 50; i++) {
+                write(out, Attitude.builder().timeBootMs(20 * i).roll(0.01f).pitch(-0.02f).yaw(1.5f).build());
+                if (i % 5 == 0) {
+                    write(
+                        out,
+                        GlobalPositionInt.builder()
+                            .timeBootMs(20 * i)
+                            .lat(473700000 + i)
+                            .lon(85400000 + i)
+                            .alt(500000)
+                            .relativeAlt(100000)
+                            .vx(800)
+                            .hdg(9000)
+                            .build());
+                }
+
+                if (i % 10 == 0) {
+                    write(
+                        out,
+                        GpsRawInt.builder()
+                            .timeUsec(BigInteger.valueOf(20000L * i))
+                            .fixType(GpsFixType.GPS_FIX_TYPE_RTK_FIXED)
+                            .lat(473700000 + i)
+                            .lon(85400000 + i)
+                            .alt(500000)
+                            .satellitesVisible(17)
+                            .build());
+                    write(out, VfrHud.builder().groundspeed(8).heading(90).throttle(55).alt(500).build());
+                }
+            }
+
+            datagram = out.toByteArray();
+        }
+
+        private void write(ByteArrayOutputStream out, Object payload) {
+            MavlinkMessageInfo messageInfo = payload.getClass().getAnnotation(MavlinkMessageInfo.class);
+            MavlinkPacket packet =
+                MavlinkPacket.create(
+                    0,
+                    0,
+                    sequence++ & 0xFF,
+                    SYSTEM_ID,
+                    COMPONENT_ID,
+                    messageInfo.id(),
+                    messageInfo.crc(),
+                    serializer.serialize(payload));
+            out.writeBytes(packet.getRawBytes());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void channelRead(MyState state) {
+        state.handler.channelRead(
+            null, new DatagramPacket(Unpooled.wrappedBuffer(state.datagram), state.recipient, state.sender));
+    }
+
+}
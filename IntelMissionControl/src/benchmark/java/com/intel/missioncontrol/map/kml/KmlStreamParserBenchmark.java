@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Loads a cadastral export, small parcels with a few points each, and queries it like the map view does. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class KmlStreamParserBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"10000", "100000"})
+        int parcels;
+
+        byte[] kml;
+        KmlTileIndex index;
+
+        @Setup
+        public void setup() throws Exception {
+            Random random = new Random(1);
+            StringBuilder builder = new StringBuilder("<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>\n");
+            for (int i = 0; i != parcels; i++) {
+                double lat = 47 + random.nextDouble();
+                double lon = 11 + random.nextDouble();
+                builder.append("<Placemark><name>parcel ").append(i).append("</name><Polygon><outerBoundaryIs>");
+                builder.append("<LinearRing><coordinates>");
+                for (int j = 0; j != 8; j++) {
+                    builder.append(lon + j * 1e-5).append(',').append(lat + (j % 3) * 1e-5).append(",0 ");
+                }
+
+                builder.append("</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>\n");
+            }
+
+            builder.append("</Document></kml>\n");
+            kml = builder.toString().getBytes(StandardCharsets.UTF_8);
+            index = load(kml);
+        }
+    }
+
+    private static KmlTileIndex load(byte[] kml) throws Exception {
+        KmlTileIndex index = new KmlTileIndex();
+        List<KmlFeature> batch = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(new ByteArrayInputStream(kml), 1 << 16)) {
+            new KmlStreamParser(
+                    feature -> {
+                        batch.add(feature);
+                        if (batch.size() == 2048) {
+                            index.addAll(batch);
+                            batch.clear();
+                        }
+                    },
+                    () -> false)
+                .parse(in);
+        }
+
+        index.addAll(batch);
+        return index;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public KmlTileIndex parse(MyState state) throws Exception {
+        return load(state.kml);
+    }
+
+    /** 100 views of 0.1 degrees, moving across the parcels. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int query(MyState state) {
+        List<KmlFeature> result = new ArrayList<>();
+        int count = 0;
+        int size = KmlFeature.toUnits(0.1);
+        for (int i = 0; i != 100; i++) {
+            result.clear();
+            int lat = KmlFeature.toUnits(47 + i / 200.);
+            int lon = KmlFeature.toUnits(11 + i / 200.);
+            state.index.query(lat, lat + size, lon, lon + size, 0, 20_000, result);
+            count += result.size();
+        }
+
+        return count;
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.listeners;
+
+import eu.mavinci.core.plane.protocol.ObjectPacking;
+import eu.mavinci.core.plane.protocol.ProtocolInvoker;
+import eu.mavinci.core.plane.protocol.ProtocolTokens;
+import eu.mavinci.core.plane.sendableobjects.PositionData;
+import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Replays the telemetry of a log to 20 listeners, as the position and orientation views do during a flight. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class AirplaneListenerDelegatorBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    public static class CountingListener implements IAirplaneListenerPosition, IAirplaneListenerPositionOrientation {
+        int count;
+
+        @Override
+        public void recv_position(PositionData p) {
+            count++;
+        }
+
+        @Override
+        public void recv_positionOrientation(PositionOrientationData po) {
+            count++;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MyState {
+        final AirplaneListenerDelegator delegator = new AirplaneListenerDelegator();
+        final ProtocolInvoker invoker = new ProtocolInvoker();
+        // the delegator only keeps weak references
+        final List<CountingListener> listeners = new ArrayList<>();
+        final List<String> log = new ArrayList<>();
+        PositionOrientationData positionOrientation;
+
+        @Setup
+        public void setup() throws Exception {
+            for (int i = 0; i != 20; i++) {
+                CountingListener listener = new CountingListener();
+                listeners.add(listener);
+                delegator.addListener(listener);
+            }
+
+            // mostly position/orientation packages, as the connector writes them
+            Random random = new Random(3);
+            while (log.size() < MESSAGES) {
+                PositionOrientationData po = new PositionOrientationData();
+                po.time_sec = 1_600_000_000 + log.size() / 10;
+                po.altitude = random.nextInt(20_000);
+                po.lat = 47 + random.nextDouble() / 100;
+                po.lon = 11 + random.nextDouble() / 100;
+                po.roll = random.nextGaussian() * 10;
+                po.pitch = random.nextGaussian() * 5;
+                po.yaw = random.nextDouble() * 360;
+                po.batteryVoltage = 14 + random.nextFloat() * 3;
+                log.add(encodePositionOrientation(po));
+                if (log.size() % 5 == 0) {
+                    log.add(ObjectPacking.encodeFkt("recv_position", po.getPositionData(null), "p"));
+                }
+
+                positionOrientation = po;
+            }
+        }
+
+        /** The connector doesn't send the flight time. */
+        private static String encodePositionOrientation(PositionOrientationData po) throws Exception {
+            StringBuffer members = new StringBuffer();
+            for (Field field : PositionOrientationData.class.getFields()) {
+                if (field.getType() == long.class) {
+                    continue;
+                }
+
+                if (members.length() > 0) {
+                    members.append(ProtocolTokens.sepael);
+                }
+
+                new ObjectPacking().encodeObject(field.get(po), field.getName(), members);
+            }
+
+            return ProtocolTokens.mbegin
+                + "recv_positionOrientation"
+                + ProtocolTokens.sep
+                + "PositionOrientationData"
+                + ProtocolTokens.seppar
+                + "po"
+                + ProtocolTokens.seppar
+                + ProtocolTokens.sbegin
+                + members
+                + ProtocolTokens.send;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int replay(MyState state) throws Exception {
+        for (String message : state.log) {
+            state.invoker.processMessage(message, null);
+            state.invoker.fireEventsDirectly(state.delegator);
+        }
+
+        return state.listeners.get(0).count;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int fanOut(MyState state) {
+        for (int i = 0; i != MESSAGES; i++) {
+            state.delegator.recv_positionOrientation(state.positionOrientation);
+        }
+
+        return state.listeners.get(0).count;
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.protocol;
+
+import eu.mavinci.core.plane.sendableobjects.DebugData;
+import eu.mavinci.core.plane.sendableobjects.HealthData;
+import eu.mavinci.core.plane.sendableobjects.OrientationData;
+import eu.mavinci.core.plane.sendableobjects.PositionData;
+import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Decodes the telemetry messages of the connector, with the codec and with the generic parser it replaces. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ProtocolCodecBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    @State(Scope.Thread)
+    public static class MyState {
+        final ProtocolCodec codec = new ProtocolCodec();
+        String[] messages;
+        String[] arguments;
+
+        @Setup
+        public void setup() throws Exception {
+            Random random = new Random(5);
+            Object[] values = {
+                new PositionData(), new OrientationData(), new PositionOrientationData(), new DebugData(),
+                new HealthData()
+            };
+            messages = new String[MESSAGES];
+            arguments = new String[MESSAGES];
+            for (int i = 0; i != MESSAGES; i++) {
+                Object value = values[i % values.length];
+                setNumbers(value, random);
+                messages[i] = "#recv_test" + ProtocolTokens.sep + encode(value, "v");
+                arguments[i] = messages[i].substring(messages[i].indexOf(ProtocolTokens.sep) + 1);
+            }
+        }
+
+        /** Values with a few digits, like most values the connector sends. */
+        private static void setNumbers(Object value, Random random) throws ReflectiveOperationException {
+            for (Field field : value.getClass().getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+
+                if (field.getType() == int.class) {
+                    field.setInt(value, random.nextInt(1000) - 500);
+                } else if (field.getType() == double.class) {
+                    field.setDouble(value, Math.round(random.nextGaussian() * 1e6) / 1e3);
+                } else if (field.getType() == float.class) {
+                    field.setFloat(value, Math.round(random.nextGaussian() * 1e4) / 1e2f);
+                }
+            }
+        }
+
+        /** Like ObjectPacking, but only the members the connector sends. */
+        private static String encode(Object value, String name) throws Exception {
+            StringBuffer members = new StringBuffer();
+            for (Field field : value.getClass().getFields()) {
+                Object member = field.get(value);
+                if (Modifier.isStatic(field.getModifiers())
+                        || member == null
+                        || member instanceof Long
+                        || member instanceof Enum
+                        || (member instanceof Vector && ((Vector<?>)member).isEmpty())) {
+                    continue;
+                }
+
+                if (members.length() > 0) {
+                    members.append(ProtocolTokens.sepael);
+                }
+
+                new ObjectPacking().encodeObject(member, field.getName(), members);
+            }
+
+            return value.getClass().getSimpleName()
+                + ProtocolTokens.seppar
+                + name
+                + ProtocolTokens.seppar
+                + ProtocolTokens.sbegin
+                + members
+                + ProtocolTokens.send;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void decode(MyState state, Blackhole blackhole) {
+        for (String message : state.messages) {
+            blackhole.consume(state.codec.decode(message));
+            blackhole.consume(state.codec.getArguments());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void decodeGeneric(MyState state, Blackhole blackhole) throws Exception {
+        for (String argument : state.arguments) {
+            ObjectParser parser = new ObjectParser();
+            parser.decodeObject(argument);
+            blackhole.consume(parser.value);
+        }
+    }
+
+}
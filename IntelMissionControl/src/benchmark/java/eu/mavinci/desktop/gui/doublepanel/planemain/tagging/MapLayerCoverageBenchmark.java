@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.intel.missioncontrol.BenchmarkEnvironment;
+import eu.mavinci.core.flightplan.PlanType;
+import eu.mavinci.desktop.gui.doublepanel.planemain.wwd.FPcoveragePreview;
+import eu.mavinci.flightplan.Flightplan;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Computes the coverage preview of a simulated mission. */
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class MapLayerCoverageBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        AMapLayerCoverage coverage;
+
+        @Setup
+        public void setup() throws Exception {
+            BenchmarkEnvironment.initialize();
+            Flightplan flightplan =
+                BenchmarkEnvironment.createPicArea(PlanType.POLYGON, 0.02, 0, BenchmarkEnvironment.FIELD)
+                    .getFlightplan();
+            coverage = new FPcoveragePreview(flightplan);
+
+            // the image corners are taken from the simulation, which runs in the background
+            while (coverage.computeCorners() == null
+                    || flightplan.getFPsim().isRunningRecompute()
+                    || coverage.recompCoverage.isRunningRecompute()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double recomputeCoverage(MyState state) {
+        state.coverage.recomputeCoverageBlocking();
+        return state.coverage.getCoverageRatioOrtho();
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.google.inject.Injector;
+import com.intel.missioncontrol.BenchmarkEnvironment;
+import com.intel.missioncontrol.hardware.IHardwareConfigurationManager;
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.GPSFixType;
+import eu.mavinci.core.flightplan.Orientation;
+import eu.mavinci.core.flightplan.PhotoLogLineType;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Loads the XML of a dataset, as written by {@link MatchingDataWriter}. */
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class MatchingDataReaderBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"1000", "5000"})
+        int imageCount;
+
+        IHardwareConfigurationManager hardwareConfigurationManager;
+        File file;
+
+        @Setup
+        public void setup() throws Exception {
+            Injector injector = BenchmarkEnvironment.initialize();
+            hardwareConfigurationManager = injector.getInstance(IHardwareConfigurationManager.class);
+            File folder = Files.createTempDirectory("imc-benchmark-dataset").toFile();
+            file = new File(folder, MapLayerMatching.DEFAULT_FILENAME);
+
+            MapLayerMatching data =
+                new MapLayerMatching(hardwareConfigurationManager.getImmutableDefault().deepCopy());
+            Random random = new Random(42);
+            for (int i = 0; i != imageCount; i++) {
+                double time = 1.5e9 + i * 1.5;
+                CPhotoLogLine line =
+                    new CPhotoLogLine(
+                        47.37 + random.nextDouble() * 0.01,
+                        8.54 + random.nextDouble() * 0.01,
+                        100 + random.nextGaussian(),
+                        new Orientation(random.nextGaussian(), random.nextGaussian(), random.nextDouble() * 360));
+                line.imageNumber = i;
+                line.lineNumber = i / 40;
+                line.groundSpeed_cms = 800 + random.nextInt(100);
+                line.heading = random.nextDouble() * 360;
+                line.gps_altitude_cm = 50000 + random.nextGaussian() * 100;
+                line.gps_ellipsoid_cm = 4800;
+                line.latTakeoff = 47.37;
+                line.lonTakeoff = 8.54;
+                line.gps_altitude_takeoff_cm = 40000;
+                line.type = PhotoLogLineType.TIGGER;
+                line.fixType = GPSFixType.rtkFixedBL;
+                line.setTimestampRaw(time);
+
+                ExifInfos exif = new ExifInfos();
+                exif.timestamp = time - 42.3;
+                exif.focalLengthMM = 35;
+                exif.exposureSec = 1 / 1000.;
+                exif.model = "Benchmark Camera";
+                exif.aperture = 2.8;
+                exif.iso = 100;
+                File image = new File(folder, String.format("images/IMG_%05d.JPG", i));
+                data.getPicsLayer()
+                    .addMapLayer(new MapLayerMatch(new PhotoCube(new PhotoFile(image, exif)), line, data));
+            }
+
+            new MatchingDataWriter().writeMatchingData(data, file);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AMapLayerMatching readMatchingData(MyState state) throws Exception {
+        MapLayerMatching data =
+            new MapLayerMatching(state.hardwareConfigurationManager.getImmutableDefault().deepCopy());
+        return new MatchingDataReader().readMatchingData(data, state.file, state.hardwareConfigurationManager);
+    }
+
+}
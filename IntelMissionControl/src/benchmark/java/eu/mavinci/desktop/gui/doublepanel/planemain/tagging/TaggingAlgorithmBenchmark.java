@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.intel.missioncontrol.BenchmarkEnvironment;
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.Orientation;
+import eu.mavinci.core.flightplan.PhotoLogLineType;
+import eu.mavinci.core.flightplan.camera.GPStype;
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Matches the images of a synthetic flight to its trigger log, like when a dataset is created. */
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class TaggingAlgorithmBenchmark {
+
+    private static final double TRIGGER_INTERVAL = 1.5;
+    private static final double CAMERA_CLOCK_OFFSET = -42.3;
+    private static final double MAX_TIME_VARIATION = 1;
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"1000", "10000"})
+        int imageCount;
+
+        /** every 100th image is lost, and in the second case also every 150th line of the log */
+        @Param({"images", "imagesAndLogs"})
+        String missing;
+
+        ITaggingAlgorithm algorithm;
+
+        @Setup
+        public void setup() {
+            BenchmarkEnvironment.initialize();
+        }
+
+        @Setup(Level.Iteration)
+        public void createFlight() {
+            Random random = new Random(imageCount);
+            algorithm = TaggingAlgorithmA.createNewDefaultTaggingAlgorithm();
+            double time = 1.5e9;
+            for (int i = 0; i != imageCount; i++) {
+                time += TRIGGER_INTERVAL + 0.3 * (random.nextDouble() - 0.5);
+                if (!missing.equals("imagesAndLogs") || i % 150 != 75) {
+                    CPhotoLogLine line =
+                        new CPhotoLogLine(
+                            47.37 + i * 1e-5, 8.54, 100, new Orientation(0, 0, random.nextDouble() * 360));
+                    line.imageNumber = i;
+                    line.type = PhotoLogLineType.TIGGER;
+                    line.setTimestampRaw(time);
+                    algorithm.getLogsAll().add(line);
+                }
+
+                if (i % 100 != 50) {
+                    ExifInfos exif = new ExifInfos();
+                    exif.timestamp = time + CAMERA_CLOCK_OFFSET + 0.2 * (random.nextDouble() - 0.5);
+                    File file = new File(String.format("IMG_%05d.JPG", i));
+                    algorithm.getPhotosAll().add(new PhotoCube(new PhotoFile(file, exif)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int optimizeMatching(MyState state) throws Exception {
+        state.algorithm.optimizeMatching(MAX_TIME_VARIATION, GPStype.GPS, null, null);
+        return state.algorithm.getPhotosMatched().size();
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.layers.mercator.MercatorSector;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Reprojects a downloaded JPEG tile of 256x256 pixels, in memory and into the texture cache. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MercatorTileReprojectionBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        BufferedImage tile;
+        int[] rowMap;
+        File file;
+
+        @Setup
+        public void setup() throws IOException {
+            Random random = new Random(1);
+            tile = new BufferedImage(256, 256, BufferedImage.TYPE_3BYTE_BGR);
+            for (int y = 0; y < 256; y++) {
+                for (int x = 0; x < 256; x++) {
+                    tile.setRGB(x, y, random.nextInt());
+                }
+            }
+
+            rowMap =
+                MercatorTileReprojection.computeRowMap(
+                    new MercatorSector(0.25, 0.5, Angle.ZERO, Angle.fromDegrees(45)), 256);
+            file = File.createTempFile("tile", ".dds");
+        }
+
+        @TearDown
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BufferedImage reproject(MyState state) {
+        return MercatorTileReprojection.reproject(state.tile, state.rowMap);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void saveRawTexture(MyState state) throws IOException {
+        MercatorTileReprojection.saveRawTexture(state.tile, state.rowMap, state.file);
+    }
+
+}
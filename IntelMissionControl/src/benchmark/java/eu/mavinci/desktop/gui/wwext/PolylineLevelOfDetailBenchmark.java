@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import gov.nasa.worldwind.geom.Position;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Builds the track of a long flight position by position, and switches the rendered level like zooming does. */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class PolylineLevelOfDetailBenchmark {
+
+    private static final double METERS_PER_DEGREE = 6378137 * Math.PI / 180;
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"100000", "1000000"})
+        int size;
+
+        List<Position> track;
+        PolylineLevelOfDetail levelOfDetail;
+
+        @Setup
+        public void setup() {
+            // a drone flying lines with some noise, turning every 500 positions
+            Random random = new Random(5);
+            track = new ArrayList<>(size);
+            double lat = 47;
+            double lon = 11;
+            double heading = 0;
+            for (int i = 0; i != size; i++) {
+                if (i % 500 == 0) {
+                    heading = random.nextDouble() * 2 * Math.PI;
+                }
+
+                lat += (Math.cos(heading) + random.nextGaussian() * 0.1) / METERS_PER_DEGREE;
+                lon += (Math.sin(heading) + random.nextGaussian() * 0.1) / METERS_PER_DEGREE / Math.cos(0.82);
+                track.add(Position.fromDegrees(lat, lon, 500 + random.nextGaussian()));
+            }
+
+            levelOfDetail = new PolylineLevelOfDetail();
+            levelOfDetail.setPositions(track);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PolylineLevelOfDetail append(MyState state) {
+        PolylineLevelOfDetail levelOfDetail = new PolylineLevelOfDetail();
+        for (Position position : state.track) {
+            levelOfDetail.addPosition(position);
+        }
+
+        return levelOfDetail;
+    }
+
+    /** Appends to a line which is rendered at a level of a few meters, as a live track usually is. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PolylineWithUserData appendToRenderedLine(MyState state) {
+        PolylineWithUserData polyline = new PolylineWithUserData();
+        polyline.setLevelOfDetailEnabled(true);
+        polyline.setRenderedLevel(5);
+        for (Position position : state.track) {
+            polyline.addPosition(position);
+        }
+
+        return polyline;
+    }
+
+    /** What a frame costs when the level changes, the tessellation of the positions comes on top of this. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int switchLevels(MyState state) {
+        int count = 0;
+        for (int level = 0; level < PolylineLevelOfDetail.LEVEL_COUNT; level += 2) {
+            count += state.levelOfDetail.getPositions(level).size();
+        }
+
+        return count;
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan;
+
+import com.intel.missioncontrol.BenchmarkEnvironment;
+import eu.mavinci.core.flightplan.PlanType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class PicAreaBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"POLYGON", "CORRIDOR", "FACADE"})
+        String planType;
+
+        PicArea picArea;
+
+        @Setup
+        public void setup() throws Exception {
+            BenchmarkEnvironment.initialize();
+            switch (PlanType.valueOf(planType)) {
+            case CORRIDOR:
+                picArea = BenchmarkEnvironment.createPicArea(PlanType.CORRIDOR, 0.02, 0, BenchmarkEnvironment.ROAD);
+                break;
+            case FACADE:
+                picArea =
+                    BenchmarkEnvironment.createPicArea(
+                        PlanType.FACADE, 0.01, 30, BenchmarkEnvironment.BUILDING_SIDES);
+                break;
+            default:
+                picArea = BenchmarkEnvironment.createPicArea(PlanType.POLYGON, 0.02, 0, BenchmarkEnvironment.FIELD);
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean computeFlightLines(MyState state) {
+        return state.picArea.computeFlightLines(true);
+    }
+
+}
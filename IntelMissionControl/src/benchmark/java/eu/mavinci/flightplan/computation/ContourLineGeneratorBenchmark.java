@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ContourLineGeneratorBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"512", "2048", "4096"})
+        int size;
+
+        double[][] zdata;
+        double[] levels;
+
+        @Setup
+        public void setup() {
+            // hills of a few hundred meters with some roughness, contour lines every 10 m
+            Random random = new Random(1);
+            zdata = new double[size][size];
+            for (int i = 0; i != size; i++) {
+                for (int j = 0; j != size; j++) {
+                    zdata[i][j] =
+                        200 * Math.sin(i / 97.) * Math.cos(j / 61.)
+                            + 20 * Math.sin((i + 2 * j) / 17.)
+                            + random.nextDouble();
+                }
+            }
+
+            levels = new double[46];
+            for (int i = 0; i != levels.length; i++) {
+                levels[i] = -225 + i * 10;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ContourLineGenerator.Polyline> getContours(MyState state) {
+        return ContourLineGenerator.getContours(state.zdata, state.levels);
+    }
+
+}
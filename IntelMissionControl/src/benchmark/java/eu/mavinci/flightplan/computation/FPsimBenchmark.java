@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import com.intel.missioncontrol.BenchmarkEnvironment;
+import eu.mavinci.core.flightplan.PlanType;
+import eu.mavinci.flightplan.Flightplan;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class FPsimBenchmark {
+
+    @State(Scope.Thread)
+    public static class MyState {
+        FPsim fpSim;
+
+        @Setup
+        public void setup() throws Exception {
+            BenchmarkEnvironment.initialize();
+            Flightplan flightplan =
+                BenchmarkEnvironment.createPicArea(PlanType.POLYGON, 0.02, 0, BenchmarkEnvironment.FIELD)
+                    .getFlightplan();
+
+            fpSim = flightplan.getFPsim();
+
+            // no more runs in the background, and as the mission is not saved, every run simulates the whole mission
+            FPsim.computePreviewSim = false;
+            while (fpSim.isRunningRecompute()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int simulate(MyState state) {
+        state.fpSim.runnable.run();
+        return state.fpSim.tmpSimResult.photos.size();
+    }
+
+}
@@ -14,6 +14,7 @@ import com.google.inject.Module;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.google.inject.matcher.Matchers;
 import com.google.inject.name.Names;
 import com.intel.missioncontrol.airspaces.services.Airmap2AirspaceService;
 import com.intel.missioncontrol.airspaces.services.AirspaceServiceProvider;
@@ -39,6 +40,9 @@ import com.intel.missioncontrol.diagnostics.Debugger;
 import com.intel.missioncontrol.diagnostics.PerformanceMonitorView;
 import com.intel.missioncontrol.diagnostics.PerformanceMonitorViewModel;
 import com.intel.missioncontrol.diagnostics.PerformanceTracker;
+import com.intel.missioncontrol.diagnostics.FlightRecording;
+import com.intel.missioncontrol.diagnostics.LatencyHistograms;
+import com.intel.missioncontrol.diagnostics.StartupProfiler;
 import com.intel.missioncontrol.drone.connection.ConnectionListenerService;
 import com.intel.missioncontrol.drone.connection.DroneConnectionService;
 import com.intel.missioncontrol.drone.connection.IConnectionListenerService;
@@ -60,6 +64,7 @@ import com.intel.missioncontrol.linkbox.LinkBoxConnectionService;
 import com.intel.missioncontrol.livevideo.ILiveVideoService;
 import com.intel.missioncontrol.livevideo.LiveVideoService;
 import com.intel.missioncontrol.map.elevation.ElevationModelFactoryEGM;
+import com.intel.missioncontrol.map.elevation.IElevationModel;
 import com.intel.missioncontrol.map.worldwind.WWDispatcher;
 import com.intel.missioncontrol.mission.IMissionInfoManager;
 import com.intel.missioncontrol.mission.IMissionManager;
@@ -222,6 +227,7 @@ import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import org.apache.commons.io.FileUtils;
+import org.asyncfx.AsyncFX;
 import org.asyncfx.collections.LockedList;
 import org.asyncfx.concurrent.Dispatcher;
 import org.asyncfx.concurrent.FutureExecutorService;
@@ -238,6 +244,7 @@ public class Bootstrapper extends javafx.application.Application {
     private static final long START_TIME = System.currentTimeMillis();
     private static final Logger LOGGER = LoggerFactory.getLogger(Bootstrapper.class);
     private final InterProcessHandler interProcessHandler = new InterProcessHandler();
+    private final StartupProfiler startupProfiler = new StartupProfiler();
     private Injector injector; // dont init here, otherwise the ProxySetup happens too late
     private Throwable startupException;
     private MailslotClient mailslotClient;
@@ -320,7 +327,7 @@ public class Bootstrapper extends javafx.application.Application {
                     bind(IVeryUglyDialogHelper.class).to(VeryUglyDialogHelper.class).in(Singleton.class);
                     bind(IDescriptionProvider.class).to(DescriptionProvider.class);
                     bind(IElevationModelUpdateHelper.class).to(MapDataChangedHelper.class).in(Singleton.class);
-                    bind(IGeoFenceDetector.class).to(GeoFenceDetector.class).asEagerSingleton();
+                    bind(IGeoFenceDetector.class).to(GeoFenceDetector.class).in(Singleton.class);
                     bind(ISrsManager.class).to(SrsManager.class).in(Singleton.class);
                     bind(IMissionInfoManager.class).to(MissionInfoManager.class).in(Singleton.class);
                     bind(IFlightplanExporterFactory.class).to(FlightplanExporterFactory.class).in(Singleton.class);
@@ -328,6 +335,7 @@ public class Bootstrapper extends javafx.application.Application {
                     bind(IFlightValidationService.class).to(FlightValidationService.class).in(Singleton.class);
 
                     install(new FactoryModuleBuilder().build(Mission.Factory.class));
+                    bindListener(Matchers.any(), startupProfiler);
                 }
 
                 @Provides
@@ -337,6 +345,16 @@ public class Bootstrapper extends javafx.application.Application {
                         pathProvider.getProfilingDirectory().toFile(),
                         settingsManager.getSection(GeneralSettings.class).getProfilingEnabled());
                 }
+
+                @Provides
+                @Singleton
+                FlightRecording flightRecording(ISettingsManager settingsManager) {
+                    FlightRecording flightRecording =
+                        new FlightRecording(
+                            settingsManager.getSection(GeneralSettings.class).getFlightRecordingEnabled());
+                    flightRecording.start();
+                    return flightRecording;
+                }
             });
         modules.add(new AirspacesModule());
         modules.add(new MvvmfxModule());
@@ -361,20 +379,22 @@ public class Bootstrapper extends javafx.application.Application {
     private class AirspacesModule extends AbstractModule {
         @Override
         protected void configure() {
-            bind(IAirTrafficManager.class).to(AirTrafficManager.class).asEagerSingleton();
+            // constructed concurrently with other services by initializeServices
+            bind(IAirTrafficManager.class).to(AirTrafficManager.class).in(Singleton.class);
 
-            bind(LocationAwareAirspaceService.class).toProvider(AirspaceServiceProvider.class).asEagerSingleton();
+            bind(LocationAwareAirspaceService.class).toProvider(AirspaceServiceProvider.class).in(Singleton.class);
             // bind(AirMap2Source.class).toInstance(new AirMap2Source()); //< todo: lazily load AirMap2Source from
             // provider
+            // only the service of the selected provider is constructed
             bind(LocationAwareAirspaceService.class)
                 .annotatedWith(Names.named("AirMap2AirspaceService"))
                 .to(Airmap2AirspaceService.class)
-                .asEagerSingleton();
+                .in(Singleton.class);
             bind(LocationAwareAirspaceService.class)
                 .annotatedWith(Names.named("BundledAirspaceService"))
                 .to(BundledAirspaceService.class)
-                .asEagerSingleton();
-            bind(LegacyAirspaceManagerConfiguration.class).asEagerSingleton();
+                .in(Singleton.class);
+            bind(LegacyAirspaceManagerConfiguration.class).in(Singleton.class);
         }
     }
 
@@ -569,25 +589,37 @@ public class Bootstrapper extends javafx.application.Application {
             LOGGER.warn("IMC starting up!");
 
             mailslotClient = new MailslotClient(MAILSLOT_NAME);
+            AsyncFX.setPlatformQueueDelayListener(LatencyHistograms.PLATFORM_QUEUE_DELAY::record);
+            AsyncFX.setPlatformSubmitListener(LatencyHistograms.PLATFORM_TASK::record);
+
+            IPathProvider pathProvider;
+            try (StartupProfiler.Phase phase = startupProfiler.phase("environment")) {
+                checkPrerequisites();
+                initializeBootstrapAgent();
+                initializeEnvironment();
+
+                // as it is stated in the method description " * <p><b>Must be called early in the Application
+                // lifecycle, before network clients are crated!</b>"
+                // so before airspaces, worldwind etc (everything that might init networking)
+                ProxyManager.install();
+                pathProvider = new PathProvider();
+            }
 
-            checkPrerequisites();
-            initializeBootstrapAgent();
-            initializeEnvironment();
+            try (StartupProfiler.Phase phase = startupProfiler.phase("world wind configuration")) {
+                initializeWorldWindConfiguration(pathProvider);
+            }
 
-            // as it is stated in the method description " * <p><b>Must be called early in the Application lifecycle,
-            // before network clients are crated!</b>"
-            // so before airspaces, worldwind etc (everything that might init networking)
-            ProxyManager.install();
-            IPathProvider pathProvider = new PathProvider();
+            try (StartupProfiler.Phase phase = startupProfiler.phase("injector")) {
+                initializeInjector(pathProvider);
+            }
 
-            initializeWorldWindConfiguration(pathProvider);
-            initializeInjector(pathProvider);
-            initializeGlobals(pathProvider);
-            initializeRecentMissions();
-            // this has to be called before flightplan templates --- because it has to initialize
-            // networkStatusProvider before it might be called
-            // in the templates initialization
-            WWFactory.configWW(injector.getInstance(ExpertSettings.class));
+            try (StartupProfiler.Phase phase = startupProfiler.phase("globals")) {
+                initializeGlobals(pathProvider);
+            }
+
+            try (StartupProfiler.Phase phase = startupProfiler.phase("services")) {
+                initializeServices();
+            }
 
             Dispatcher background = Dispatcher.background();
             background.run(
@@ -682,6 +714,7 @@ public class Bootstrapper extends javafx.application.Application {
             WindowHelper.setCloaked(primaryStage, false);
 
             LOGGER.info("Startup: " + (System.currentTimeMillis() - START_TIME) + "ms");
+            writeStartupTimeline();
             FreezeWatchdog.spawnUnlessDebugger(Dispatcher.platform(), injector.getInstance(Key.get(Dispatcher.class, Names.named(MapModule.DISPATCHER))));
         } catch (Throwable ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -690,6 +723,21 @@ public class Bootstrapper extends javafx.application.Application {
         }
     }
 
+    private void writeStartupTimeline() {
+        startupProfiler.finish();
+        File directory = injector.getInstance(IPathProvider.class).getProfilingDirectory().toFile();
+        Dispatcher.background()
+            .run(
+                () -> {
+                    LOGGER.info(startupProfiler.formatTimeline());
+                    try {
+                        startupProfiler.write(directory);
+                    } catch (IOException e) {
+                        LOGGER.warn("cant write the startup timeline to " + directory, e);
+                    }
+                });
+    }
+
     @Override
     public void stop() throws Exception {
         interProcessHandler.close();
@@ -697,6 +745,24 @@ public class Bootstrapper extends javafx.application.Application {
         super.stop();
     }
 
+    /** Constructs the services the main window needs, the independent ones concurrently. */
+    private void initializeServices() throws Exception {
+        new InitializationGraph(startupProfiler)
+            .add("flight recording", () -> injector.getInstance(FlightRecording.class))
+            // this has to be called before flightplan templates --- because it has to initialize
+            // networkStatusProvider before it might be called
+            // in the templates initialization
+            .add("world wind", () -> WWFactory.configWW(injector.getInstance(ExpertSettings.class)))
+            .add("recent missions", this::initializeRecentMissions, "world wind")
+            .add("elevation models", () -> injector.getInstance(IElevationModel.class), "world wind")
+            .add("SRS database", () -> injector.getInstance(ISrsManager.class))
+            .add("hardware descriptions", () -> injector.getInstance(IHardwareConfigurationManager.class))
+            .add("airspaces", () -> injector.getInstance(LegacyAirspaceManagerConfiguration.class))
+            .add("air traffic", () -> injector.getInstance(IAirTrafficManager.class))
+            .add("geofences", () -> injector.getInstance(IGeoFenceDetector.class))
+            .run(Runtime.getRuntime().availableProcessors());
+    }
+
     private void initializeRecentMissions() {
         try (LockedList<MissionInfo> missionInfos =
             injector.getInstance(IMissionManager.class).recentMissionInfosProperty().lock()) {
@@ -6,6 +6,7 @@
 
 package com.intel.missioncontrol;
 
+import com.intel.missioncontrol.diagnostics.UiStallEvent;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.util.Arrays;
@@ -49,7 +50,7 @@ public class FreezeWatchdog extends Thread {
     }
 
     private Map<Dispatcher, Runnable> dispatchers;
-    private ConcurrentHashMap<Dispatcher, Object> pending = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Dispatcher, UiStallEvent> pending = new ConcurrentHashMap<>();
 
     public FreezeWatchdog(Dispatcher... dispatchers) {
         super("freeze-watchdog");
@@ -58,7 +59,12 @@ public class FreezeWatchdog extends Thread {
             this.dispatchers.put(
                 dispatcher,
                 () -> {
-                    FreezeWatchdog.this.pending.remove(dispatcher);
+                    UiStallEvent event = FreezeWatchdog.this.pending.remove(dispatcher);
+                    if (event != null) {
+                        // only committed if the dispatcher took longer than the threshold of the event
+                        event.commit();
+                    }
+
                     LockSupport.unpark(FreezeWatchdog.this);
                 });
         }
@@ -69,7 +75,12 @@ public class FreezeWatchdog extends Thread {
         try {
             while (watchdog == this) {
                 long deadline = System.nanoTime() + FREEZE_TOLERANCE_NANOS;
-                pending.putAll(dispatchers);
+                for (Map.Entry<Dispatcher, Runnable> entry : dispatchers.entrySet()) {
+                    UiStallEvent event = new UiStallEvent(entry.getKey().toString());
+                    event.begin();
+                    pending.put(entry.getKey(), event);
+                }
+
                 for (Map.Entry<Dispatcher, Runnable> entry : dispatchers.entrySet()) {
                     entry.getKey().runLater(entry.getValue());
                 }
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.intel.missioncontrol.diagnostics.StartupProfiler;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the initialization steps of the application concurrently. A step starts as soon as the steps it depends on are
+ * done, every step is recorded as a phase of the startup timeline.
+ */
+public class InitializationGraph {
+
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private final StartupProfiler profiler;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final Map<String, String[]> dependencies = new LinkedHashMap<>();
+
+    public InitializationGraph(StartupProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Adds a step, the steps it depends on have to be added before, so there are no cycles.
+     *
+     * @throws IllegalArgumentException if a step with this name was already added or a dependency is unknown
+     */
+    public InitializationGraph add(String name, Step step, String... dependsOn) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("step already added: " + name);
+        }
+
+        for (String dependency : dependsOn) {
+            if (!steps.containsKey(dependency)) {
+                throw new IllegalArgumentException("unknown dependency of " + name + ": " + dependency);
+            }
+        }
+
+        steps.put(name, step);
+        dependencies.put(name, dependsOn);
+        return this;
+    }
+
+    /**
+     * Runs all steps and waits until they are done. If steps fail, the steps depending on them are skipped and the
+     * exception of the first one is thrown, after all other steps are done.
+     */
+    public void run(int threads) throws Exception {
+        ExecutorService executor =
+            Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, steps.size())),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("initialization-%d").build());
+        try {
+            Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Step> entry : steps.entrySet()) {
+                String name = entry.getKey();
+                Step step = entry.getValue();
+                CompletableFuture<?>[] required =
+                    Arrays.stream(dependencies.get(name)).map(futures::get).toArray(CompletableFuture<?>[]::new);
+                futures.put(
+                    name,
+                    CompletableFuture.allOf(required)
+                        .thenRunAsync(
+                            () -> {
+                                try (StartupProfiler.Phase phase = profiler.phase(name)) {
+                                    step.run();
+                                } catch (Exception e) {
+                                    throw new CompletionException(e);
+                                }
+                            },
+                            executor));
+            }
+
+            Exception failure = null;
+            for (CompletableFuture<Void> future : futures.values()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = unwrap(e);
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof Exception) {
+            return (Exception)cause;
+        }
+
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+
+        return e;
+    }
+
+}
@@ -0,0 +1,518 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airspaces.cache.airspace;
+
+import com.google.common.hash.Hashing;
+import eu.mavinci.airspace.Airspace;
+import eu.mavinci.airspace.AirspaceTypes;
+import eu.mavinci.airspace.CircleAirspace;
+import eu.mavinci.airspace.IAirspace;
+import eu.mavinci.airspace.PolygonAndArcAirspace;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Sector;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiled copy of the airspaces parsed from one OpenAir file, kept in the cache folder under the hash of the file. A
+ * changed file has another hash, so its old cache is not found and the file is parsed and cached again. The header also
+ * holds a hash of the application build which wrote the cache, so after an update which may parse files differently
+ * the old caches are ignored and replaced.
+ *
+ * <p>The cache is memory mapped, and opening it only checks its header and layout. The index gets the bounding boxes,
+ * and an airspace is only created from its record when a search of the index first finds it. Only caches of the
+ * running build are mapped, and for these the name of a cache file never changes its content, so a file which is still
+ * mapped is never replaced.
+ *
+ * <p>Layout (little endian, every column 8 / 4 byte aligned, so the file can be mapped as it is):
+ *
+ * <pre>
+ * header       magic, version, airspace count, vertex count, name byte count, hash of the build, hash of the source
+ *              (48 bytes)
+ * doubles      one column per airspace value: bounding box, floor and ceiling, center and radius of circles,
+ *              then the latitudes and longitudes of all vertices in degrees
+ * ints         airspace count + 1 offsets into the vertex columns, then airspace count + 1 offsets into the names
+ * bytes        kind, type and altitude references of every airspace, then the UTF-8 bytes of all names
+ * </pre>
+ */
+public final class AirspacesBinaryCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AirspacesBinaryCache.class);
+
+    public static final String FILE_EXTENSION = ".bin";
+
+    static final int MAGIC = 0x5241414F; // "OAAR"
+    static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 48;
+    private static final int POS_VERSION = 4;
+    private static final int POS_COUNT = 8;
+    private static final int POS_VERTEX_COUNT = 12;
+    private static final int POS_NAME_BYTES = 16;
+    private static final int POS_BUILD = 24;
+    private static final int POS_HASH = 32;
+    private static final int HASH_SIZE = 16;
+
+    // double columns of every airspace
+    private static final int MIN_LAT = 0;
+    private static final int MAX_LAT = 1;
+    private static final int MIN_LON = 2;
+    private static final int MAX_LON = 3;
+    private static final int FLOOR_GROUND = 4;
+    private static final int FLOOR_SEA_LEVEL = 5;
+    private static final int CEILING_GROUND = 6;
+    private static final int CEILING_SEA_LEVEL = 7;
+    private static final int CENTER_LAT = 8;
+    private static final int CENTER_LON = 9;
+    private static final int RADIUS = 10;
+    private static final int AIRSPACE_DOUBLES = 11;
+
+    // byte columns of every airspace
+    private static final int KIND = 0;
+    private static final int TYPE = 1;
+    private static final int REFERENCES = 2;
+    private static final int AIRSPACE_BYTES = 3;
+
+    // kinds of airspaces, the same ones as created by the OpenAir parser
+    private static final byte KIND_POLYGON = 0;
+    private static final byte KIND_CIRCLE = 1;
+    private static final byte KIND_POLYGON_AND_ARC = 2;
+
+    // bits of the altitude references which are set
+    private static final int FLOOR_GROUND_SET = 1;
+    private static final int FLOOR_SEA_LEVEL_SET = 2;
+    private static final int CEILING_GROUND_SET = 4;
+    private static final int CEILING_SEA_LEVEL_SET = 8;
+
+    private static final AirspaceTypes[] TYPES = AirspaceTypes.values();
+
+    private final ByteBuffer buffer;
+    private final Layout layout;
+    private final AtomicReferenceArray<IAirspace> airspaces;
+
+    private AirspacesBinaryCache(ByteBuffer buffer, Layout layout) {
+        this.buffer = buffer;
+        this.layout = layout;
+        airspaces = new AtomicReferenceArray<>(layout.count);
+    }
+
+    /**
+     * @return the hash of the content of an airspace file, which is the key of its cache. A fast non-cryptographic
+     *     hash is enough to notice changed files, and unlike a message digest it doesn't have to look up security
+     *     providers on the class path first.
+     */
+    public static byte[] hash(File source) throws IOException {
+        return com.google.common.io.Files.asByteSource(source).hash(Hashing.murmur3_128()).asBytes();
+    }
+
+    /** @return the hash of the application build, which is stored in the header of the caches it writes */
+    private static long hashBuild(String build) {
+        return Hashing.murmur3_128().hashString(build, StandardCharsets.UTF_8).asLong();
+    }
+
+    public static File getCacheFile(Path folder, byte[] hash) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash) {
+            name.append(String.format("%02x", b));
+        }
+
+        return folder.resolve(name + FILE_EXTENSION).toFile();
+    }
+
+    /**
+     * Maps the cache of the airspace file with the given hash.
+     *
+     * @param build the version and commit of the application, caches written by another build are ignored
+     * @return the cache, or null if there is none, or it is of another version or build, or broken
+     */
+    public static AirspacesBinaryCache open(Path folder, byte[] hash, String build) {
+        File cacheFile = getCacheFile(folder, hash);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            // the header is read without mapping the file, since a file which is still mapped can't be replaced on
+            // Windows, and a cache of another build is replaced right away
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return null;
+                }
+            }
+
+            if (header.getInt(0) != MAGIC
+                    || header.getInt(POS_VERSION) != VERSION
+                    || header.getLong(POS_BUILD) != hashBuild(build)) {
+                LOG.debug("ignoring airspace cache of another version {}", cacheFile);
+                return null;
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] cachedHash = new byte[HASH_SIZE];
+            buffer.duplicate().position(POS_HASH).get(cachedHash);
+            Layout layout =
+                new Layout(buffer.getInt(POS_COUNT), buffer.getInt(POS_VERTEX_COUNT), buffer.getInt(POS_NAME_BYTES));
+            if (!Arrays.equals(cachedHash, hash) || layout.size != size || !isValid(buffer, layout)) {
+                LOG.warn("ignoring broken airspace cache {}", cacheFile);
+                return null;
+            }
+
+            return new AirspacesBinaryCache(buffer, layout);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("could not read airspace cache " + cacheFile, e);
+            return null;
+        }
+    }
+
+    /** Checks the offsets, kinds and types, so creating an airspace can't read outside of its record. */
+    private static boolean isValid(ByteBuffer buffer, Layout layout) {
+        if (buffer.getInt(layout.vertexOffset(0)) != 0 || buffer.getInt(layout.nameOffset(0)) != 0) {
+            return false;
+        }
+
+        for (int i = 0; i < layout.count; i++) {
+            int vertexStart = buffer.getInt(layout.vertexOffset(i));
+            int nameStart = buffer.getInt(layout.nameOffset(i));
+            int kind = buffer.get(layout.airspaceByte(KIND, i));
+            int type = buffer.get(layout.airspaceByte(TYPE, i));
+            if (buffer.getInt(layout.vertexOffset(i + 1)) < vertexStart
+                    || buffer.getInt(layout.nameOffset(i + 1)) < nameStart
+                    || kind < KIND_POLYGON
+                    || kind > KIND_POLYGON_AND_ARC
+                    || type < 0
+                    || type >= TYPES.length) {
+                return false;
+            }
+        }
+
+        return buffer.getInt(layout.vertexOffset(layout.count)) == layout.vertexCount
+            && buffer.getInt(layout.nameOffset(layout.count)) == layout.nameByteCount;
+    }
+
+    public int size() {
+        return layout.count;
+    }
+
+    public Sector getBoundingBox(int i) {
+        return Sector.fromDegrees(
+            airspaceDouble(MIN_LAT, i),
+            airspaceDouble(MAX_LAT, i),
+            airspaceDouble(MIN_LON, i),
+            airspaceDouble(MAX_LON, i));
+    }
+
+    /** @return airspace i, created from its record the first time it is requested */
+    public IAirspace get(int i) {
+        IAirspace airspace = airspaces.get(i);
+        if (airspace == null) {
+            airspaces.compareAndSet(i, null, createAirspace(i));
+            airspace = airspaces.get(i);
+        }
+
+        return airspace;
+    }
+
+    /** Adds all airspaces to the index, which creates them when a search first finds them. */
+    public void addTo(AirspacesGeometryIndex index) {
+        for (int i = 0; i < layout.count; i++) {
+            final int airspace = i;
+            index.add(getBoundingBox(i), () -> get(airspace));
+        }
+    }
+
+    /** Creates an airspace the same way as the OpenAir parser does, so it equals the parsed one. */
+    private IAirspace createAirspace(int i) {
+        String name = getName(i);
+        AirspaceTypes type = TYPES[buffer.get(layout.airspaceByte(TYPE, i))];
+        Airspace airspace;
+        switch (buffer.get(layout.airspaceByte(KIND, i))) {
+        case KIND_CIRCLE:
+            // the vertices of a circle are not stored, since they are interpolated by the constructor
+            LatLon center = LatLon.fromDegrees(airspaceDouble(CENTER_LAT, i), airspaceDouble(CENTER_LON, i));
+            airspace = new CircleAirspace(name, type, center, airspaceDouble(RADIUS, i));
+            break;
+        case KIND_POLYGON_AND_ARC:
+            // the arcs are stored as the vertices they were interpolated to, which are added as straight lines
+            airspace = new PolygonAndArcAirspace(name, type);
+            addVertices(airspace, i);
+            break;
+        default:
+            airspace = new Airspace(name, type);
+            addVertices(airspace, i);
+            break;
+        }
+
+        int references = buffer.get(layout.airspaceByte(REFERENCES, i));
+        if ((references & FLOOR_GROUND_SET) != 0) {
+            airspace.setFloor(airspaceDouble(FLOOR_GROUND, i), true);
+        }
+
+        if ((references & FLOOR_SEA_LEVEL_SET) != 0) {
+            airspace.setFloor(airspaceDouble(FLOOR_SEA_LEVEL, i), false);
+        }
+
+        if ((references & CEILING_GROUND_SET) != 0) {
+            airspace.setCeiling(airspaceDouble(CEILING_GROUND, i), true);
+        }
+
+        if ((references & CEILING_SEA_LEVEL_SET) != 0) {
+            airspace.setCeiling(airspaceDouble(CEILING_SEA_LEVEL, i), false);
+        }
+
+        airspace.getPolygon();
+        return airspace;
+    }
+
+    private void addVertices(Airspace airspace, int i) {
+        int end = buffer.getInt(layout.vertexOffset(i + 1));
+        for (int vertex = buffer.getInt(layout.vertexOffset(i)); vertex < end; vertex++) {
+            airspace.addVertex(
+                LatLon.fromDegrees(
+                    buffer.getDouble(layout.vertexLat(vertex)), buffer.getDouble(layout.vertexLon(vertex))));
+        }
+    }
+
+    private String getName(int i) {
+        int start = buffer.getInt(layout.nameOffset(i));
+        byte[] bytes = new byte[buffer.getInt(layout.nameOffset(i + 1)) - start];
+        // a duplicate, since relative reads on the shared buffer would not be thread safe
+        buffer.duplicate().position(layout.nameBytesPos + start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private double airspaceDouble(int column, int i) {
+        return buffer.getDouble(layout.airspaceDouble(column, i));
+    }
+
+    /**
+     * Writes the cache of the airspaces parsed from the airspace file with the given hash. The cache is written to a
+     * temporary file first, which then gets its final name.
+     *
+     * @param build the version and commit of the application
+     * @return false if nothing was written, since some of the airspaces were not created by the OpenAir parser
+     */
+    public static boolean write(Path folder, byte[] hash, String build, List<IAirspace> airspaces) throws IOException {
+        for (IAirspace airspace : airspaces) {
+            if (getKind(airspace) < 0) {
+                return false;
+            }
+        }
+
+        ByteBuffer buffer = encode(hash, build, airspaces);
+        Files.createDirectories(folder);
+        Path cachePath = getCacheFile(folder, hash).toPath();
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (FileChannel channel =
+            FileChannel.open(
+                tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        try {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return true;
+    }
+
+    /** @return the kind of the airspace, or -1 if it has another class than the ones created by the parser */
+    private static byte getKind(IAirspace airspace) {
+        if (airspace.getClass() == Airspace.class) {
+            return KIND_POLYGON;
+        } else if (airspace.getClass() == CircleAirspace.class) {
+            return KIND_CIRCLE;
+        } else if (airspace.getClass() == PolygonAndArcAirspace.class) {
+            return KIND_POLYGON_AND_ARC;
+        }
+
+        return -1;
+    }
+
+    private static ByteBuffer encode(byte[] hash, String build, List<IAirspace> airspaces) {
+        int count = airspaces.size();
+        int vertexCount = 0;
+        List<byte[]> names = new ArrayList<>(count);
+        int nameByteCount = 0;
+        for (IAirspace airspace : airspaces) {
+            if (getKind(airspace) != KIND_CIRCLE) {
+                vertexCount += airspace.getPolygon().size();
+            }
+
+            byte[] name = airspace.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            nameByteCount += name.length;
+        }
+
+        Layout layout = new Layout(count, vertexCount, nameByteCount);
+        ByteBuffer buffer = ByteBuffer.allocate(layout.size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(POS_VERSION, VERSION);
+        buffer.putInt(POS_COUNT, count);
+        buffer.putInt(POS_VERTEX_COUNT, vertexCount);
+        buffer.putInt(POS_NAME_BYTES, nameByteCount);
+        buffer.putLong(POS_BUILD, hashBuild(build));
+        buffer.duplicate().position(POS_HASH).put(hash, 0, HASH_SIZE);
+
+        int vertex = 0;
+        int nameStart = 0;
+        for (int i = 0; i < count; i++) {
+            Airspace airspace = (Airspace)airspaces.get(i);
+            Sector boundingBox = airspace.getBoundingBox();
+            buffer.putDouble(layout.airspaceDouble(MIN_LAT, i), boundingBox.getMinLatitude().degrees);
+            buffer.putDouble(layout.airspaceDouble(MAX_LAT, i), boundingBox.getMaxLatitude().degrees);
+            buffer.putDouble(layout.airspaceDouble(MIN_LON, i), boundingBox.getMinLongitude().degrees);
+            buffer.putDouble(layout.airspaceDouble(MAX_LON, i), boundingBox.getMaxLongitude().degrees);
+
+            int references = 0;
+            references |= putReference(buffer, layout, FLOOR_GROUND, i, airspace.getFloorReferenceGround());
+            references |= putReference(buffer, layout, FLOOR_SEA_LEVEL, i, airspace.getFloorReferenceSeaLevel());
+            references |= putReference(buffer, layout, CEILING_GROUND, i, airspace.getCeilingReferenceGround());
+            references |= putReference(buffer, layout, CEILING_SEA_LEVEL, i, airspace.getCeilingReferenceSeaLevel());
+
+            byte kind = getKind(airspace);
+            buffer.put(layout.airspaceByte(KIND, i), kind);
+            buffer.put(layout.airspaceByte(TYPE, i), (byte)airspace.getType().ordinal());
+            buffer.put(layout.airspaceByte(REFERENCES, i), (byte)references);
+
+            buffer.putInt(layout.vertexOffset(i), vertex);
+            if (kind == KIND_CIRCLE) {
+                CircleAirspace circle = (CircleAirspace)airspace;
+                buffer.putDouble(layout.airspaceDouble(CENTER_LAT, i), circle.getCenter().getLatitude().degrees);
+                buffer.putDouble(layout.airspaceDouble(CENTER_LON, i), circle.getCenter().getLongitude().degrees);
+                buffer.putDouble(layout.airspaceDouble(RADIUS, i), circle.getRadiusMeters());
+            } else {
+                for (LatLon latLon : airspace.getPolygon()) {
+                    buffer.putDouble(layout.vertexLat(vertex), latLon.getLatitude().degrees);
+                    buffer.putDouble(layout.vertexLon(vertex), latLon.getLongitude().degrees);
+                    vertex++;
+                }
+            }
+
+            byte[] name = names.get(i);
+            buffer.putInt(layout.nameOffset(i), nameStart);
+            buffer.duplicate().position(layout.nameBytesPos + nameStart).put(name);
+            nameStart += name.length;
+        }
+
+        buffer.putInt(layout.vertexOffset(count), vertex);
+        buffer.putInt(layout.nameOffset(count), nameStart);
+        return buffer;
+    }
+
+    /** @return the bit of the reference if it is set, 0 otherwise */
+    private static int putReference(ByteBuffer buffer, Layout layout, int column, int i, Double meters) {
+        if (meters == null) {
+            return 0;
+        }
+
+        buffer.putDouble(layout.airspaceDouble(column, i), meters);
+        return 1 << (column - FLOOR_GROUND);
+    }
+
+    /** Deletes the caches in the folder which don't belong to any of the given hashes. */
+    public static void deleteUnused(Path folder, Collection<byte[]> hashes) {
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+
+        List<Path> used = hashes.stream().map(hash -> getCacheFile(folder, hash).toPath()).collect(Collectors.toList());
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>)files::iterator) {
+                if (file.getFileName().toString().endsWith(FILE_EXTENSION) && !used.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("could not delete unused airspace caches in {}", folder, e);
+        }
+    }
+
+    /** Byte positions of the columns, which follow from the counts in the header. */
+    private static final class Layout {
+
+        final int count;
+        final int vertexCount;
+        final int nameByteCount;
+        final int airspaceDoublesPos;
+        final int vertexDoublesPos;
+        final int vertexOffsetsPos;
+        final int nameOffsetsPos;
+        final int airspaceBytesPos;
+        final int nameBytesPos;
+        final int size;
+
+        Layout(int count, int vertexCount, int nameByteCount) {
+            if (count < 0 || vertexCount < 0 || nameByteCount < 0) {
+                throw new IllegalArgumentException("invalid counts " + count + " " + vertexCount + " " + nameByteCount);
+            }
+
+            this.count = count;
+            this.vertexCount = vertexCount;
+            this.nameByteCount = nameByteCount;
+            airspaceDoublesPos = HEADER_SIZE;
+            vertexDoublesPos = Math.addExact(airspaceDoublesPos, Math.multiplyExact(AIRSPACE_DOUBLES * 8, count));
+            vertexOffsetsPos = Math.addExact(vertexDoublesPos, Math.multiplyExact(2 * 8, vertexCount));
+            nameOffsetsPos = Math.addExact(vertexOffsetsPos, Math.multiplyExact(4, count + 1));
+            airspaceBytesPos = Math.addExact(nameOffsetsPos, Math.multiplyExact(4, count + 1));
+            nameBytesPos = Math.addExact(airspaceBytesPos, Math.multiplyExact(AIRSPACE_BYTES, count));
+            size = Math.addExact(nameBytesPos, nameByteCount);
+        }
+
+        int airspaceDouble(int column, int i) {
+            return airspaceDoublesPos + (column * count + i) * 8;
+        }
+
+        int vertexLat(int vertex) {
+            return vertexDoublesPos + vertex * 8;
+        }
+
+        int vertexLon(int vertex) {
+            return vertexDoublesPos + (vertexCount + vertex) * 8;
+        }
+
+        int vertexOffset(int i) {
+            return vertexOffsetsPos + i * 4;
+        }
+
+        int nameOffset(int i) {
+            return nameOffsetsPos + i * 4;
+        }
+
+        int airspaceByte(int column, int i) {
+            return airspaceBytesPos + column * count + i;
+        }
+    }
+
+}
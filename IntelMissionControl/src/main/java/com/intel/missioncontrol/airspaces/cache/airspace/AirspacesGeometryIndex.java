@@ -6,7 +6,6 @@
 
 package com.intel.missioncontrol.airspaces.cache.airspace;
 
-import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.RTree;
 import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Rectangle;
@@ -15,13 +14,22 @@ import eu.mavinci.airspace.IAirspace;
 import gov.nasa.worldwind.geom.Sector;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class AirspacesGeometryIndex {
-    private RTree<IAirspace, Rectangle> index = RTree.create();
+    private RTree<Supplier<IAirspace>, Rectangle> index = RTree.create();
 
     public void add(IAirspace airspace) {
-        index = index.add(airspace, toIndexGeometry(airspace.getBoundingBox()));
+        index = index.add(() -> airspace, toIndexGeometry(airspace.getBoundingBox()));
+    }
+
+    /**
+     * Adds an airspace which is only created once a search finds it, so airspaces far away from every searched region
+     * are never built. The supplier has to return the same airspace every time.
+     */
+    public void add(Sector boundingBox, Supplier<? extends IAirspace> airspace) {
+        index = index.add(airspace::get, toIndexGeometry(boundingBox));
     }
 
     private Rectangle toIndexGeometry(Sector boundingBox) {
@@ -35,7 +43,7 @@ public class AirspacesGeometryIndex {
     @SafeVarargs
     public final List<IAirspace> search(Sector searchBoundingBox, Consumer<IAirspace>... actions) {
         return index.search(toIndexGeometry(searchBoundingBox))
-            .map(Entry::value)
+            .map(entry -> entry.value().get())
             .doOnNext(a -> invokeActions(a, actions))
             .toList()
             .toBlocking()
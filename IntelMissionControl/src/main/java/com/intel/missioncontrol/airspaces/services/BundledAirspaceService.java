@@ -11,20 +11,26 @@ import com.intel.missioncontrol.airspaces.cache.airspace.AirspacesGeometryIndex;
 import com.intel.missioncontrol.airspaces.sources.AirspaceSource;
 import com.intel.missioncontrol.airspaces.sources.OpenAirAirspacesSource;
 import com.intel.missioncontrol.common.IPathProvider;
+import com.intel.missioncontrol.utils.IVersionProvider;
 import eu.mavinci.airspace.IAirspace;
 import gov.nasa.worldwind.geom.Sector;
 import java.util.List;
 
 public class BundledAirspaceService implements LocationAwareAirspaceService, SourceAwareAirspaceService {
+    private static final String CACHE_FOLDER = "airspaces";
+
     private OpenAirAirspacesSource bundledAirspacesSource;
 
     final IPathProvider pathProvider;
     final AirspacesGeometryIndex geometryIndex;
+    final IVersionProvider versionProvider;
 
     @Inject
-    public BundledAirspaceService(IPathProvider pathProvider, AirspacesGeometryIndex geometryIndex) {
+    public BundledAirspaceService(
+            IPathProvider pathProvider, AirspacesGeometryIndex geometryIndex, IVersionProvider versionProvider) {
         this.pathProvider = pathProvider;
         this.geometryIndex = geometryIndex;
+        this.versionProvider = versionProvider;
     }
 
     @Override
@@ -38,7 +44,11 @@ public class BundledAirspaceService implements LocationAwareAirspaceService, Sou
         // selected
         if (bundledAirspacesSource == null) {
             bundledAirspacesSource =
-                new OpenAirAirspacesSource(pathProvider.getLocalAirspacesFolder().toFile(), geometryIndex);
+                new OpenAirAirspacesSource(
+                    pathProvider.getLocalAirspacesFolder().toFile(),
+                    geometryIndex,
+                    pathProvider.getCacheDirectory().resolve(CACHE_FOLDER),
+                    versionProvider.getAppVersion() + '|' + versionProvider.getCommitID());
         }
 
         return bundledAirspacesSource;
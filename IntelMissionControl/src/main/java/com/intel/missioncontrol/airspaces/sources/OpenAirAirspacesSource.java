@@ -6,6 +6,7 @@
 
 package com.intel.missioncontrol.airspaces.sources;
 
+import com.intel.missioncontrol.airspaces.cache.airspace.AirspacesBinaryCache;
 import com.intel.missioncontrol.airspaces.cache.airspace.AirspacesGeometryIndex;
 import eu.mavinci.airspace.IAirspace;
 import eu.mavinci.airspace.OpenAirspaceParser;
@@ -17,6 +18,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -25,12 +28,32 @@ public class OpenAirAirspacesSource implements AirspaceSource {
 
     private final File airspacesFolder;
     private final AirspacesGeometryIndex geometryIndex;
+    private final Path cacheFolder;
+    private final String build;
 
     public OpenAirAirspacesSource(File airspacesFolder, AirspacesGeometryIndex geometryIndex) {
+        this(airspacesFolder, geometryIndex, null, null);
+    }
+
+    /**
+     * @param cacheFolder the folder the parsed airspaces of every file are compiled to, so they don't have to be parsed
+     *     again on the next start, or null to always parse the files. Caches of files which are no longer in the
+     *     airspaces folder are deleted from it, so it must not be shared with other sources.
+     * @param build the version and commit of the application, which may parse the files differently than the build
+     *     which wrote the caches, so caches of other builds are parsed again
+     */
+    public OpenAirAirspacesSource(
+            File airspacesFolder, AirspacesGeometryIndex geometryIndex, Path cacheFolder, String build) {
         this.airspacesFolder = airspacesFolder;
         this.geometryIndex = geometryIndex;
+        this.cacheFolder = cacheFolder;
+        this.build = build;
 
-        getAirspacesFilesStream().flatMap(this::toStreamOfAirspaces).forEach(geometryIndex::add);
+        List<byte[]> hashes = new ArrayList<>();
+        getAirspacesFilesStream().forEach(file -> addAirspaces(file, hashes));
+        if (cacheFolder != null) {
+            AirspacesBinaryCache.deleteUnused(cacheFolder, hashes);
+        }
     }
 
     @Override
@@ -48,13 +71,40 @@ public class OpenAirAirspacesSource implements AirspaceSource {
         return files != null ? Stream.of(files) : Stream.empty();
     }
 
-    private Stream<IAirspace> toStreamOfAirspaces(File airspaceFile) {
+    /** Adds the airspaces of the file from its cache if there is one, otherwise they are parsed and cached. */
+    private void addAirspaces(File airspaceFile, List<byte[]> hashes) {
+        byte[] hash = null;
+        if (cacheFolder != null) {
+            try {
+                hash = AirspacesBinaryCache.hash(airspaceFile);
+                hashes.add(hash);
+                AirspacesBinaryCache cache = AirspacesBinaryCache.open(cacheFolder, hash, build);
+                if (cache != null) {
+                    LOG.debug("OpenAir airspaces bundle {} loaded from cache", airspaceFile.getName());
+                    cache.addTo(geometryIndex);
+                    return;
+                }
+            } catch (IOException e) {
+                LOG.warn("Could not read airspace bundle: " + airspaceFile.getAbsolutePath(), e);
+            }
+        }
+
+        List<IAirspace> airspaces;
         try (InputStream is = new FileInputStream(airspaceFile)) {
             LOG.debug("OpenAir airspaces bundle detected {}", airspaceFile.getName());
-            return parseBundle(is).stream();
+            airspaces = parseBundle(is);
         } catch (IOException e) {
             LOG.error("Error occurred during parsing airspace bundle: " + airspaceFile.getAbsolutePath(), e);
-            return Stream.empty();
+            return;
+        }
+
+        airspaces.forEach(geometryIndex::add);
+        if (hash != null) {
+            try {
+                AirspacesBinaryCache.write(cacheFolder, hash, build, airspaces);
+            } catch (IOException e) {
+                LOG.warn("Could not cache airspace bundle: " + airspaceFile.getAbsolutePath(), e);
+            }
         }
     }
 
@@ -24,11 +24,15 @@ import com.intel.missioncontrol.ui.notifications.ToastType;
 import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
-import gov.nasa.worldwind.globes.Earth;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.OptionalDouble;
 import org.asyncfx.beans.property.AsyncListProperty;
 import org.asyncfx.beans.property.PropertyMetadata;
@@ -45,6 +49,8 @@ public class AirTrafficManager implements IAirTrafficManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(AirTrafficManager.class);
 
     public final double RADIUS = 500_000; // meters
+    /** aircraft which are not reported anymore are kept for a few polls, the service may miss them once */
+    private static final long TRACK_MAX_AGE_MS = 15_000;
     private final SimpleAsyncListProperty<AirtrafficObject> airtrafficObjects =
             new SimpleAsyncListProperty<>(
                     this,
@@ -53,6 +59,11 @@ public class AirTrafficManager implements IAirTrafficManager {
                             .create());
     private final IDroneConnectionService droneConnectionService;
     private final IAirtrafficService ats;
+    private final TrafficTrackStore trackStore = new TrafficTrackStore(TRACK_MAX_AGE_MS);
+    // the published report of every track, so the list is only changed where the traffic changed
+    private final Map<String, AirtrafficObject> publishedObjects = new HashMap<>();
+    // only accessed by the polling loop
+    private final Map<IDrone, TrafficTrack> droneTracks = new HashMap<>();
     private Toast lastToast;
 
     @Inject
@@ -82,7 +93,8 @@ public class AirTrafficManager implements IAirTrafficManager {
         dispatcher.runLaterAsync(
                 () -> {
                     try {
-                        List<Position> positions = new ArrayList<Position>();
+                        long now = System.currentTimeMillis();
+                        Map<IDrone, Position> positions = new LinkedHashMap<>();
                         // get list of all drone positions, and ask around them for traffic
                         try (LockedList<IReadOnlyConnectionItem> connectionItemLockedList =
                                      droneConnectionService.connectedDroneConnectionItemsProperty().lock()) {
@@ -90,78 +102,82 @@ public class AirTrafficManager implements IAirTrafficManager {
                                 IDrone drone = droneConnectionService.getConnectedDrone(connectionItem);
                                 Position pos = drone.positionProperty().get();
                                 if (pos != null) {
-                                    positions.add(pos);
+                                    positions.put(drone, pos);
                                 }
                             }
                         }
 
-                        // positions.add(Position.fromDegrees(50.0379, 8.5622, 0)); // TODO REMOVE ME!
-
-                        HashSet<LatLon> allPoints = new HashSet<>();
-                        double min2d = Double.POSITIVE_INFINITY;
-                        double minElevation = Double.POSITIVE_INFINITY;
-
-                        try (var atos = airtrafficObjects.lock()) {
-                            atos.clear();
-                            for (Position pos : positions) {
-                                try {
-                                    atos.addAll(ats.getTraffic(pos.latitude.degrees, pos.longitude.degrees, RADIUS, 10));
-                                } catch (Exception e) {
-                                    LOGGER.error("cant get air traffic", e);
-                                }
+                        // the drones don't report their velocity, it is estimated from their positions of every poll
+                        droneTracks.keySet().retainAll(positions.keySet());
+                        List<AirtrafficObject> reports = new ArrayList<>();
+                        for (Map.Entry<IDrone, Position> entry : positions.entrySet()) {
+                            Position pos = entry.getValue();
+                            droneTracks
+                                    .computeIfAbsent(entry.getKey(), drone -> new TrafficTrack("drone"))
+                                    .updatePosition(pos.latitude.degrees, pos.longitude.degrees, pos.elevation, now);
+                            try {
+                                reports.addAll(ats.getTraffic(pos.latitude.degrees, pos.longitude.degrees, RADIUS, 10));
+                            } catch (Exception e) {
+                                LOGGER.error("cant get air traffic", e);
                             }
+                        }
 
-                            // check intersection of all drones and all airtraffic objects
-                            for (Position pos : positions) {
-                                for (var ato : atos) {
-                                    double distAlt = Math.abs(pos.elevation - ato.getProperties().getWgs84Altitude());
-                                    LatLon posTraffic =
-                                            LatLon.fromDegrees(
-                                                    ato.geometry.coordinates.get(1), ato.geometry.coordinates.get(0));
-                                    double dist2d =
-                                            LatLon.ellipsoidalDistance(
-                                                    pos, posTraffic, Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS);
-                                    if (min2d > dist2d) {
-                                        min2d = dist2d;
-                                    }
+                        publishChanges(trackStore.merge(reports, now));
 
-                                    if (minElevation > distAlt) {
-                                        minElevation = distAlt;
-                                    }
-
-                                    if (dist2d < airspacesProvidersSettings.getMinimumHorizontalDistance().doubleValue()
-                                            && distAlt
-                                            < airspacesProvidersSettings.getMinimumVerticalDistance().doubleValue()) {
-                                        allPoints.add(pos);
-                                        allPoints.add(posTraffic);
-                                    }
+                        // check for predicted conflicts of all drones with the traffic around them
+                        ConflictPredictor conflictPredictor =
+                                new ConflictPredictor(
+                                        airspacesProvidersSettings.getMinimumHorizontalDistance().doubleValue(),
+                                        airspacesProvidersSettings.getMinimumVerticalDistance().doubleValue(),
+                                        airspacesProvidersSettings.getConflictPredictionHorizon().doubleValue());
+                        HashSet<LatLon> allPoints = new HashSet<>();
+                        ConflictPredictor.Conflict firstConflict = null;
+                        for (Map.Entry<IDrone, TrafficTrack> entry : droneTracks.entrySet()) {
+                            for (ConflictPredictor.Conflict conflict :
+                                    conflictPredictor.predict(entry.getValue(), trackStore, now)) {
+                                allPoints.add(positions.get(entry.getKey()));
+                                allPoints.add(conflict.getOwnLocation());
+                                allPoints.add(conflict.getTrafficLocation());
+                                if (firstConflict == null
+                                        || conflict.getTimeToConflict() < firstConflict.getTimeToConflict()) {
+                                    firstConflict = conflict;
                                 }
                             }
+                        }
 
-                            if (!allPoints.isEmpty()) {
-                                Sector bounding = Sector.boundingSector(allPoints);
-                                if (lastToast != null) {
-                                    lastToast.dismiss();
-                                }
-
-                                lastToast =
-                                        Toast.of(ToastType.ALERT)
-                                                .setText(
-                                                        languageHelper.getString(
-                                                                AirTrafficManager.class,
-                                                                "alertText",
-                                                                quantityFormat.format(Quantity.of(min2d, Unit.METER)),
-                                                                quantityFormat.format(Quantity.of(minElevation, Unit.METER))))
-                                                .setCloseable(false)
-                                                .setShowIcon(true)
-                                                .setAction(
-                                                        languageHelper.getString(AirTrafficManager.class, "show"),
-                                                        false,
-                                                        false,
-                                                        () -> mapView.goToSectorAsync(bounding, OptionalDouble.empty()))
-                                                .create();
-                                applicationContext.addToast(lastToast);
+                        if (firstConflict != null) {
+                            Sector bounding = Sector.boundingSector(allPoints);
+                            if (lastToast != null) {
+                                lastToast.dismiss();
                             }
+
+                            String horizontal =
+                                    quantityFormat.format(Quantity.of(firstConflict.getHorizontalDistance(), Unit.METER));
+                            String vertical =
+                                    quantityFormat.format(Quantity.of(firstConflict.getVerticalDistance(), Unit.METER));
+                            String text =
+                                    firstConflict.getTimeToConflict() > 0
+                                            ? languageHelper.getString(
+                                                    AirTrafficManager.class,
+                                                    "predictedAlertText",
+                                                    quantityFormat.format(
+                                                            Quantity.of(firstConflict.getTimeToConflict(), Unit.SECOND)),
+                                                    horizontal,
+                                                    vertical)
+                                            : languageHelper.getString(
+                                                    AirTrafficManager.class, "alertText", horizontal, vertical);
+                            lastToast =
+                                    Toast.of(ToastType.ALERT)
+                                            .setText(text)
+                                            .setCloseable(false)
+                                            .setShowIcon(true)
+                                            .setAction(
+                                                    languageHelper.getString(AirTrafficManager.class, "show"),
+                                                    false,
+                                                    false,
+                                                    () -> mapView.goToSectorAsync(bounding, OptionalDouble.empty()))
+                                            .create();
+                            applicationContext.addToast(lastToast);
                         }
                     } catch (Exception e) {
                         e.printStackTrace();
@@ -213,6 +229,40 @@ public class AirTrafficManager implements IAirTrafficManager {
 
     }
 
+    private void publishChanges(TrafficTrackStore.Changes changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Map<AirtrafficObject, AirtrafficObject> replaced = new IdentityHashMap<>();
+        for (TrafficTrack track : changes.updated) {
+            replaced.put(publishedObjects.put(track.getKey(), track.getAirtrafficObject()), track.getAirtrafficObject());
+        }
+
+        Map<AirtrafficObject, Boolean> removed = new IdentityHashMap<>();
+        for (TrafficTrack track : changes.removed) {
+            removed.put(publishedObjects.remove(track.getKey()), true);
+        }
+
+        try (LockedList<AirtrafficObject> atos = airtrafficObjects.lock()) {
+            if (!replaced.isEmpty() || !removed.isEmpty()) {
+                for (ListIterator<AirtrafficObject> it = atos.listIterator(); it.hasNext(); ) {
+                    AirtrafficObject ato = it.next();
+                    if (removed.containsKey(ato)) {
+                        it.remove();
+                    } else if (replaced.containsKey(ato)) {
+                        it.set(replaced.get(ato));
+                    }
+                }
+            }
+
+            for (TrafficTrack track : changes.added) {
+                publishedObjects.put(track.getKey(), track.getAirtrafficObject());
+                atos.add(track.getAirtrafficObject());
+            }
+        }
+    }
+
     @Override
     public AsyncListProperty<AirtrafficObject> relevantTrafficProperty() {
         return airtrafficObjects;
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airtraffic;
+
+import gov.nasa.worldwind.geom.LatLon;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicts losses of separation between a drone and the surrounding traffic by extrapolating both with their current
+ * velocity. Two tracks are in conflict if, within the prediction horizon, they are closer than the minimum horizontal
+ * distance and at the same time closer than the minimum vertical distance.
+ *
+ * <p>The motion is computed in the tangent plane at the drone, which is accurate for the few kilometers a conflict
+ * within a minute can be away.
+ */
+public class ConflictPredictor {
+
+    // reports older than this are not extrapolated further, their velocity is too uncertain
+    static final double TRACK_LATENCY_S = 30;
+
+    /** A predicted loss of separation. */
+    public static class Conflict {
+        private final TrafficTrack traffic;
+        private final double timeToConflict;
+        private final double timeOfClosestApproach;
+        private final double horizontalDistance;
+        private final double verticalDistance;
+        private final LatLon ownLocation;
+        private final LatLon trafficLocation;
+
+        Conflict(
+                TrafficTrack traffic,
+                double timeToConflict,
+                double timeOfClosestApproach,
+                double horizontalDistance,
+                double verticalDistance,
+                LatLon ownLocation,
+                LatLon trafficLocation) {
+            this.traffic = traffic;
+            this.timeToConflict = timeToConflict;
+            this.timeOfClosestApproach = timeOfClosestApproach;
+            this.horizontalDistance = horizontalDistance;
+            this.verticalDistance = verticalDistance;
+            this.ownLocation = ownLocation;
+            this.trafficLocation = trafficLocation;
+        }
+
+        public TrafficTrack getTraffic() {
+            return traffic;
+        }
+
+        /** @return seconds from now until the separation is lost, 0 if it is lost already */
+        public double getTimeToConflict() {
+            return timeToConflict;
+        }
+
+        /** @return seconds from now until the closest approach during the conflict */
+        public double getTimeOfClosestApproach() {
+            return timeOfClosestApproach;
+        }
+
+        /** @return horizontal distance at the closest approach in meters */
+        public double getHorizontalDistance() {
+            return horizontalDistance;
+        }
+
+        /** @return vertical distance at the closest approach in meters */
+        public double getVerticalDistance() {
+            return verticalDistance;
+        }
+
+        /** @return predicted location of the drone at the closest approach */
+        public LatLon getOwnLocation() {
+            return ownLocation;
+        }
+
+        /** @return predicted location of the traffic at the closest approach */
+        public LatLon getTrafficLocation() {
+            return trafficLocation;
+        }
+    }
+
+    private final double minHorizontalDistance;
+    private final double minVerticalDistance;
+    private final double horizon;
+
+    /**
+     * @param minHorizontalDistance meters
+     * @param minVerticalDistance meters
+     * @param horizon how far ahead conflicts are predicted in seconds, 0 only checks the current positions
+     */
+    public ConflictPredictor(double minHorizontalDistance, double minVerticalDistance, double horizon) {
+        this.minHorizontalDistance = minHorizontalDistance;
+        this.minVerticalDistance = minVerticalDistance;
+        this.horizon = Math.max(0, horizon);
+    }
+
+    /** @return the conflicts of a drone with any track of the store, ordered by the time until they start */
+    public List<Conflict> predict(TrafficTrack own, TrafficTrackStore store, long nowMs) {
+        double radius =
+            minHorizontalDistance + horizon * (own.getGroundSpeed() + store.getMaxGroundSpeed())
+                // the positions are extrapolated from the time they were reported
+                + (store.getMaxGroundSpeed() + own.getGroundSpeed()) * TRACK_LATENCY_S;
+        List<Conflict> conflicts = new ArrayList<>();
+        for (TrafficTrack traffic : store.query(own.getLat(), own.getLon(), radius)) {
+            Conflict conflict = predict(own, traffic, nowMs);
+            if (conflict != null) {
+                conflicts.add(conflict);
+            }
+        }
+
+        conflicts.sort((a, b) -> Double.compare(a.timeToConflict, b.timeToConflict));
+        return conflicts;
+    }
+
+    /** @return the conflict of two tracks, or null if they stay separated within the horizon */
+    public Conflict predict(TrafficTrack own, TrafficTrack traffic, long nowMs) {
+        double cosLat = Math.cos(Math.toRadians(own.getLat()));
+        double ownAge = age(own, nowMs);
+        double trafficAge = age(traffic, nowMs);
+
+        // positions now, relative to where the drone was reported
+        double ownEast = own.getVelocityEast() * ownAge;
+        double ownNorth = own.getVelocityNorth() * ownAge;
+        double ownUp = own.getVelocityUp() * ownAge;
+        double east =
+            TrafficTrackStore.wrapLongitude(traffic.getLon() - own.getLon()) * TrafficTrack.METERS_PER_DEGREE * cosLat
+                + traffic.getVelocityEast() * trafficAge
+                - ownEast;
+        double north =
+            (traffic.getLat() - own.getLat()) * TrafficTrack.METERS_PER_DEGREE
+                + traffic.getVelocityNorth() * trafficAge
+                - ownNorth;
+        double up = traffic.getAlt() + traffic.getVelocityUp() * trafficAge - own.getAlt() - ownUp;
+        double velocityEast = traffic.getVelocityEast() - own.getVelocityEast();
+        double velocityNorth = traffic.getVelocityNorth() - own.getVelocityNorth();
+        double velocityUp = traffic.getVelocityUp() - own.getVelocityUp();
+
+        // horizontally too close while |r + v t|^2 < minH^2
+        double a = velocityEast * velocityEast + velocityNorth * velocityNorth;
+        double b = 2 * (east * velocityEast + north * velocityNorth);
+        double c = east * east + north * north - minHorizontalDistance * minHorizontalDistance;
+        double start;
+        double end;
+        if (a < 1e-9) {
+            if (c >= 0) {
+                return null;
+            }
+
+            start = 0;
+            end = horizon;
+        } else {
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant <= 0) {
+                return null;
+            }
+
+            double root = Math.sqrt(discriminant);
+            start = Math.max(0, (-b - root) / (2 * a));
+            end = Math.min(horizon, (-b + root) / (2 * a));
+        }
+
+        // vertically too close while |up + velocityUp t| < minV
+        if (Math.abs(velocityUp) < 1e-9) {
+            if (Math.abs(up) >= minVerticalDistance) {
+                return null;
+            }
+        } else {
+            double t1 = (-minVerticalDistance - up) / velocityUp;
+            double t2 = (minVerticalDistance - up) / velocityUp;
+            start = Math.max(start, Math.min(t1, t2));
+            end = Math.min(end, Math.max(t1, t2));
+        }
+
+        if (start > end) {
+            return null;
+        }
+
+        double closest = a < 1e-9 ? start : Math.max(start, Math.min(end, -b / (2 * a)));
+        double ownEastAtClosest = ownEast + own.getVelocityEast() * closest;
+        double ownNorthAtClosest = ownNorth + own.getVelocityNorth() * closest;
+        double eastAtClosest = east + velocityEast * closest;
+        double northAtClosest = north + velocityNorth * closest;
+        return new Conflict(
+            traffic,
+            start,
+            closest,
+            Math.hypot(eastAtClosest, northAtClosest),
+            Math.abs(up + velocityUp * closest),
+            toLatLon(own, ownEastAtClosest, ownNorthAtClosest, cosLat),
+            toLatLon(own, ownEastAtClosest + eastAtClosest, ownNorthAtClosest + northAtClosest, cosLat));
+    }
+
+    private static double age(TrafficTrack track, long nowMs) {
+        return Math.max(0, Math.min(TRACK_LATENCY_S, (nowMs - track.getTimeMs()) / 1000.));
+    }
+
+    private static LatLon toLatLon(TrafficTrack origin, double east, double north, double cosLat) {
+        return LatLon.fromDegrees(
+            origin.getLat() + north / TrafficTrack.METERS_PER_DEGREE,
+            origin.getLon() + east / (TrafficTrack.METERS_PER_DEGREE * Math.max(cosLat, 1e-6)));
+    }
+
+}
@@ -6,39 +6,111 @@
 
 package com.intel.missioncontrol.airtraffic;
 
-import com.intel.insight.datastructures.Feature;
 import com.intel.missioncontrol.airtraffic.dto.AirtrafficObject;
-import com.intel.missioncontrol.airtraffic.dto.AirtrafficObjectAltitude;
+import com.intel.missioncontrol.airtraffic.dto.AittrafficObjectProperties;
+import com.intel.missioncontrol.airtraffic.dto.Geometry;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 
+/**
+ * Air traffic service without a server. By default there is no traffic at all, for testing it can also simulate a
+ * fleet of aircraft flying straight around the first requested position.
+ */
 public class MockAirtraffic implements IAirtrafficService {
+
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final int[] AIRCRAFT_TYPES = {1, 3, 5, 10, 11, 13};
+
+    private final int count;
+    private final Random random;
+    private double[] lat;
+    private double[] lon;
+    private double[] alt;
+    private double[] course;
+    private double[] speed;
+    private double[] verticalSpeed;
+    private long startMs;
+
+    public MockAirtraffic() {
+        this(0, 0);
+    }
+
+    /** @param count number of simulated aircraft, spread over 100 km around the first requested position */
+    public MockAirtraffic(int count, long seed) {
+        this.count = count;
+        this.random = new Random(seed);
+    }
+
     @Override
-    public List<AirtrafficObject> getTraffic(double latitude, double longitude, double radius, double time) {
+    public synchronized List<AirtrafficObject> getTraffic(double latitude, double longitude, double radius, double time) {
         var aoList = new ArrayList<AirtrafficObject>();
-        Feature pos = new Feature();
-        Feature pos2 = new Feature();
+        if (count == 0) {
+            return aoList;
+        }
 
-        // pos.getGeometry().setCoordinates(); = LatLon.fromDegrees(latitude, longitude);
-        // pos2.coordinates = LatLon.fromDegrees(latitude + 0.0001, longitude);
+        long nowMs = System.currentTimeMillis();
+        if (lat == null) {
+            createFleet(latitude, longitude, nowMs);
+        }
 
-        var date1 = new Date();
-        var date2 = new Date();
+        double seconds = (nowMs - startMs) / 1000.;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        for (int i = 0; i != count; i++) {
+            double distance = speed[i] * seconds;
+            double north = distance * Math.cos(Math.toRadians(course[i]));
+            double east = distance * Math.sin(Math.toRadians(course[i]));
+            double aircraftLat = lat[i] + north / METERS_PER_DEGREE;
+            double aircraftLon = lon[i] + east / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat[i])));
+            double dNorth = (aircraftLat - latitude) * METERS_PER_DEGREE;
+            double dEast = (aircraftLon - longitude) * METERS_PER_DEGREE * cosLat;
+            double distanceTo = Math.hypot(dNorth, dEast);
+            if (distanceTo > radius) {
+                continue;
+            }
 
-        AirtrafficObjectAltitude alt = new AirtrafficObjectAltitude(1000, 1000);
-        AirtrafficObjectAltitude alt2 = new AirtrafficObjectAltitude(1000, 1000);
+            int wgs84Altitude = (int)Math.round(alt[i] + verticalSpeed[i] * seconds);
+            var properties =
+                new AittrafficObjectProperties(
+                    wgs84Altitude - 50,
+                    wgs84Altitude,
+                    distanceTo,
+                    "MOCK" + i,
+                    1,
+                    String.format("%06X", i),
+                    new Date(nowMs),
+                    false,
+                    AIRCRAFT_TYPES[i % AIRCRAFT_TYPES.length],
+                    course[i],
+                    speed[i],
+                    verticalSpeed[i]);
+            aoList.add(new AirtrafficObject(new Geometry(List.of(aircraftLon, aircraftLat), "Point"), i, properties));
+        }
 
-        // AittrafficObjectProperties prop = new AittrafficObjectProperties(alt, 10, "1", "1", "test1", date1, 1);
-        // AittrafficObjectProperties prop2 = new AittrafficObjectProperties(alt2, 100, "22", "1", "test123", date2, 1);
-
-        // var ao1 = new AirtrafficObject(pos, 1, prop);
-        // var ao2 = new AirtrafficObject(pos2, 2, prop2);
-        // aoList.add(ao1);
-        // aoList.add(ao2);
         return aoList;
     }
 
+    private void createFleet(double latitude, double longitude, long nowMs) {
+        lat = new double[count];
+        lon = new double[count];
+        alt = new double[count];
+        course = new double[count];
+        speed = new double[count];
+        verticalSpeed = new double[count];
+        startMs = nowMs;
+        for (int i = 0; i != count; i++) {
+            double distance = 100_000 * Math.sqrt(random.nextDouble());
+            double bearing = 2 * Math.PI * random.nextDouble();
+            lat[i] = latitude + distance * Math.cos(bearing) / METERS_PER_DEGREE;
+            lon[i] = longitude + distance * Math.sin(bearing) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+            alt[i] = 150 + 11_000 * random.nextDouble();
+            course[i] = 360 * random.nextDouble();
+            speed[i] = 20 + 230 * random.nextDouble();
+            verticalSpeed[i] = random.nextGaussian() * 2;
+        }
+    }
+
     @Override
     public String publishUavPosition(double lon, double lat, int baroAltitude, int courseOverGround, int idType, String identifier, boolean onGround, int speedOverGround, String timestamp, int type, double verticalSpeed, int wgs84Altitude) {
         return "nope";
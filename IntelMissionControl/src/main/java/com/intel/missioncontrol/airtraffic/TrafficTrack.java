@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airtraffic;
+
+import com.intel.missioncontrol.airtraffic.dto.AirtrafficObject;
+import com.intel.missioncontrol.airtraffic.dto.AittrafficObjectProperties;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Last known state of one aircraft, which is updated in place by every new report of it. Positions are in degrees and
+ * meters WGS84, the velocity is in m/s in the local east/north/up frame of the position.
+ */
+public class TrafficTrack {
+
+    static final double METERS_PER_DEGREE = 111_320;
+
+    private final String key;
+    private AirtrafficObject airtrafficObject;
+    private double lat;
+    private double lon;
+    private double alt;
+    private double velocityEast;
+    private double velocityNorth;
+    private double velocityUp;
+    private long timeMs;
+    private long lastSeenMs;
+
+    // spatial index cell, maintained by the TrafficTrackStore
+    long cell;
+
+    TrafficTrack(String key) {
+        this.key = key;
+    }
+
+    /**
+     * The same aircraft is reported with a different object every time, so tracks are merged by the identifier of the
+     * transponder and only fall back to the id of the report if there is none.
+     */
+    public static String keyOf(AirtrafficObject ato) {
+        AittrafficObjectProperties properties = ato.getProperties();
+        if (properties != null && properties.getIdentifier() != null && !properties.getIdentifier().isEmpty()) {
+            return properties.getIdType() + ":" + properties.getIdentifier();
+        }
+
+        return "#" + ato.getId();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /** @return the latest report of this aircraft, or null for a track which isn't fed by reports */
+    public AirtrafficObject getAirtrafficObject() {
+        return airtrafficObject;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public double getAlt() {
+        return alt;
+    }
+
+    public double getVelocityEast() {
+        return velocityEast;
+    }
+
+    public double getVelocityNorth() {
+        return velocityNorth;
+    }
+
+    public double getVelocityUp() {
+        return velocityUp;
+    }
+
+    public double getGroundSpeed() {
+        return Math.hypot(velocityEast, velocityNorth);
+    }
+
+    /** @return time of the position in ms since epoch */
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public long getLastSeenMs() {
+        return lastSeenMs;
+    }
+
+    /**
+     * Takes over a new report of this aircraft.
+     *
+     * @return false if the report doesn't differ from the previous one in anything that is displayed or predicted
+     */
+    boolean update(AirtrafficObject ato, long nowMs) {
+        lastSeenMs = nowMs;
+        AirtrafficObject previous = airtrafficObject;
+        airtrafficObject = ato;
+
+        AittrafficObjectProperties properties = ato.getProperties();
+        double newLat = ato.geometry.coordinates.get(1);
+        double newLon = ato.geometry.coordinates.get(0);
+        double newAlt = properties.getWgs84Altitude();
+        double course = Math.toRadians(properties.getCourseOverGround());
+        double speed = properties.getSpeedOverGround();
+        double newVelocityEast = speed * Math.sin(course);
+        double newVelocityNorth = speed * Math.cos(course);
+        double newVelocityUp = properties.getVerticalSpeed();
+        Date time = properties.getTime();
+        long newTimeMs = time != null ? time.getTime() : nowMs;
+
+        boolean changed =
+            previous == null
+                || newLat != lat
+                || newLon != lon
+                || newAlt != alt
+                || newVelocityEast != velocityEast
+                || newVelocityNorth != velocityNorth
+                || newVelocityUp != velocityUp
+                || newTimeMs != timeMs
+                || properties.getType() != previous.getProperties().getType()
+                || properties.getBaroAltitude() != previous.getProperties().getBaroAltitude()
+                || !Objects.equals(properties.getIdentifier(), previous.getProperties().getIdentifier());
+
+        lat = newLat;
+        lon = newLon;
+        alt = newAlt;
+        velocityEast = newVelocityEast;
+        velocityNorth = newVelocityNorth;
+        velocityUp = newVelocityUp;
+        timeMs = newTimeMs;
+        return changed;
+    }
+
+    /**
+     * Updates a track of which only positions are known, like one of our own drones, and estimates its velocity from the
+     * distance to the previous position.
+     */
+    void updatePosition(double newLat, double newLon, double newAlt, long newTimeMs) {
+        double dt = (newTimeMs - timeMs) / 1000.;
+        if (lastSeenMs != 0 && dt > 0) {
+            velocityEast = (newLon - lon) * METERS_PER_DEGREE * Math.cos(Math.toRadians(newLat)) / dt;
+            velocityNorth = (newLat - lat) * METERS_PER_DEGREE / dt;
+            velocityUp = (newAlt - alt) / dt;
+        } else if (lastSeenMs == 0) {
+            velocityEast = 0;
+            velocityNorth = 0;
+            velocityUp = 0;
+        }
+
+        lat = newLat;
+        lon = newLon;
+        alt = newAlt;
+        timeMs = newTimeMs;
+        lastSeenMs = newTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficTrack{" + key + " " + lat + "," + lon + " " + alt + "m}";
+    }
+
+}
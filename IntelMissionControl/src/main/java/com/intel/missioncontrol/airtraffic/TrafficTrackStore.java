@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airtraffic;
+
+import com.intel.missioncontrol.airtraffic.dto.AirtrafficObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All currently known aircraft, merged by {@link TrafficTrack#keyOf(AirtrafficObject)} so every poll only touches the
+ * tracks that actually changed. The tracks are bucketed in a grid of {@link #CELL_SIZE_DEG} cells, so the traffic
+ * around a drone is found without looking at every aircraft.
+ */
+public class TrafficTrackStore {
+
+    static final double CELL_SIZE_DEG = 0.1;
+
+    private static final int COLUMNS = (int)Math.round(360 / CELL_SIZE_DEG);
+    private static final int ROWS = (int)Math.round(180 / CELL_SIZE_DEG);
+
+    /** Tracks which changed with one {@link #merge(Collection, long)}. */
+    public static class Changes {
+        public final List<TrafficTrack> added = new ArrayList<>();
+        public final List<TrafficTrack> updated = new ArrayList<>();
+        public final List<TrafficTrack> removed = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final Map<String, TrafficTrack> tracks = new HashMap<>();
+    private final Map<Long, List<TrafficTrack>> cells = new HashMap<>();
+    private final long maxAgeMs;
+    private double maxGroundSpeed;
+
+    /** @param maxAgeMs time after which a track that isn't reported anymore is dropped */
+    public TrafficTrackStore(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Merges the reports of one poll into the tracks. An aircraft may be reported several times, e.g. when it is near
+     * more than one drone, the last report wins.
+     */
+    public synchronized Changes merge(Collection<AirtrafficObject> reports, long nowMs) {
+        Changes changes = new Changes();
+        Set<TrafficTrack> touched = new HashSet<>();
+        for (AirtrafficObject ato : reports) {
+            if (ato == null || ato.getProperties() == null || ato.geometry == null || ato.geometry.coordinates.size() < 2) {
+                continue;
+            }
+
+            String key = TrafficTrack.keyOf(ato);
+            TrafficTrack track = tracks.get(key);
+            if (track == null) {
+                track = new TrafficTrack(key);
+                track.update(ato, nowMs);
+                tracks.put(key, track);
+                addToCell(track);
+                touched.add(track);
+                changes.added.add(track);
+            } else if (track.update(ato, nowMs)) {
+                moveToCell(track);
+                if (touched.add(track)) {
+                    changes.updated.add(track);
+                }
+            }
+        }
+
+        maxGroundSpeed = 0;
+        for (Iterator<TrafficTrack> it = tracks.values().iterator(); it.hasNext(); ) {
+            TrafficTrack track = it.next();
+            if (nowMs - track.getLastSeenMs() > maxAgeMs) {
+                it.remove();
+                removeFromCell(track);
+                changes.removed.add(track);
+            } else {
+                maxGroundSpeed = Math.max(maxGroundSpeed, track.getGroundSpeed());
+            }
+        }
+
+        return changes;
+    }
+
+    public synchronized int size() {
+        return tracks.size();
+    }
+
+    /** @return the highest ground speed of all tracks in m/s, which bounds how far away a future conflict can be */
+    public synchronized double getMaxGroundSpeed() {
+        return maxGroundSpeed;
+    }
+
+    public synchronized TrafficTrack get(String key) {
+        return tracks.get(key);
+    }
+
+    public synchronized List<TrafficTrack> getTracks() {
+        return new ArrayList<>(tracks.values());
+    }
+
+    /**
+     * @return all tracks within the given distance of a position, measured in the tangent plane at the position, which
+     *     is accurate enough for the few kilometers the conflict prediction looks at
+     */
+    public synchronized List<TrafficTrack> query(double lat, double lon, double radiusMeters) {
+        List<TrafficTrack> result = new ArrayList<>();
+        double dLat = radiusMeters / TrafficTrack.METERS_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(Math.min(89, Math.abs(lat) + dLat)));
+        double dLon = Math.min(180, dLat / Math.max(cosLat, 0.01));
+
+        int minRow = Math.max(0, row(lat - dLat));
+        int maxRow = Math.min(ROWS - 1, row(lat + dLat));
+        int minColumn = column(lon - dLon);
+        int columnCount = Math.min(COLUMNS, column(lon + dLon) - minColumn + 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int i = 0; i != columnCount; i++) {
+                List<TrafficTrack> cell = cells.get(cellOf(row, Math.floorMod(minColumn + i, COLUMNS)));
+                if (cell == null) {
+                    continue;
+                }
+
+                for (TrafficTrack track : cell) {
+                    double north = (track.getLat() - lat) * TrafficTrack.METERS_PER_DEGREE;
+                    double east =
+                        wrapLongitude(track.getLon() - lon)
+                            * TrafficTrack.METERS_PER_DEGREE
+                            * Math.cos(Math.toRadians(lat));
+                    if (north * north + east * east <= radiusMeters * radiusMeters) {
+                        result.add(track);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    static double wrapLongitude(double dLon) {
+        if (dLon > 180) {
+            return dLon - 360;
+        }
+
+        if (dLon < -180) {
+            return dLon + 360;
+        }
+
+        return dLon;
+    }
+
+    private static int row(double lat) {
+        return (int)Math.floor((lat + 90) / CELL_SIZE_DEG);
+    }
+
+    // not wrapped, so that a range of columns across the antimeridian stays ascending
+    private static int column(double lon) {
+        return (int)Math.floor((lon + 180) / CELL_SIZE_DEG);
+    }
+
+    private static long cellOf(int row, int column) {
+        return (long)row * COLUMNS + column;
+    }
+
+    private static long cellOf(TrafficTrack track) {
+        int row = Math.max(0, Math.min(ROWS - 1, row(track.getLat())));
+        return cellOf(row, Math.floorMod(column(track.getLon()), COLUMNS));
+    }
+
+    private void addToCell(TrafficTrack track) {
+        track.cell = cellOf(track);
+        cells.computeIfAbsent(track.cell, k -> new ArrayList<>()).add(track);
+    }
+
+    private void removeFromCell(TrafficTrack track) {
+        List<TrafficTrack> cell = cells.get(track.cell);
+        if (cell != null) {
+            cell.remove(track);
+            if (cell.isEmpty()) {
+                cells.remove(track.cell);
+            }
+        }
+    }
+
+    private void moveToCell(TrafficTrack track) {
+        if (track.cell != cellOf(track)) {
+            removeFromCell(track);
+            addToCell(track);
+        }
+    }
+
+}
@@ -6,6 +6,8 @@
 
 package com.intel.missioncontrol.api;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.GsonBuilder;
 import com.google.inject.Inject;
 import com.intel.insight.InsightContext;
@@ -56,6 +58,7 @@ import eu.mavinci.core.xml.XMLWriter;
 import eu.mavinci.desktop.gui.doublepanel.camerasettings.CameraHelper;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.AMapLayerMatching;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.ExifInfos;
+import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.InPlaceExifWriter;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.MapLayerMatch;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.MapLayerPicArea;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.PhotoFile;
@@ -111,7 +114,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
@@ -122,6 +131,7 @@ import java.util.regex.Pattern;
 import org.asyncfx.concurrent.Dispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import thebuzzmedia.exiftool.ExifTool;
 
 public class ExportService implements IExportService {
     private static final Logger LOG = LoggerFactory.getLogger(ExportService.class);
@@ -2226,30 +2236,98 @@ public class ExportService implements IExportService {
             Matching matching)
             throws Exception {
         final IHardwareConfiguration hardwareConfiguration = matching.getHardwareConfiguration();
+        final InPlaceExifWriter writer = new InPlaceExifWriter();
+        final AtomicBoolean useInPlaceWriter = new AtomicBoolean(expertSettings.getUseInPlaceExifWriter());
+        final AtomicBoolean inPlaceWriterVerified = new AtomicBoolean(false);
 
         List<IMapLayer> pictures = matching.getPictures();
         IBackgroundTaskManager.ProgressStageFirer firer =
             new IBackgroundTaskManager.ProgressStageFirer(pictures.size());
         final AtomicInteger counter = new AtomicInteger(0);
-        for (IMapLayer layer : pictures) {
-            if (cancelIndicator.getAsBoolean()) {
-                return;
+        ExecutorService executor =
+            Executors.newFixedThreadPool(
+                Math.max(1, expertSettings.getExifWriterThreads()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("exif-writer-%d").build());
+        try {
+            ExecutorCompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            for (IMapLayer layer : pictures) {
+                MapLayerMatch picture = (MapLayerMatch)layer;
+                completionService.submit(
+                    () -> {
+                        for (PhotoFile pf : picture.getResourceCube()) {
+                            if (cancelIndicator.getAsBoolean()) {
+                                return null;
+                            }
+
+                            if (pf.getMatch().isExportPassFilter()) {
+                                writeExifData(
+                                    pf, hardwareConfiguration, writer, useInPlaceWriter, inPlaceWriterVerified);
+                            }
+                        }
+
+                        return null;
+                    });
             }
 
-            MapLayerMatch picture = (MapLayerMatch)layer;
-            for (PhotoFile pf : picture.getResourceCube()) {
-                if (cancelIndicator.getAsBoolean()) {
-                    return;
+            for (int i = 0; i < pictures.size(); i++) {
+                Future<Void> future;
+                while ((future = completionService.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    if (cancelIndicator.getAsBoolean()) {
+                        return;
+                    }
                 }
 
-                if (pf.getMatch().isExportPassFilter()) {
-                    pf.writeMetadata(hardwareConfiguration);
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+                    throw e;
                 }
+
+                firer.setCurrentStage(counter.getAndAdd(1));
+                callback.accept(firer);
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeExifData(
+            PhotoFile pf,
+            IHardwareConfiguration hardwareConfiguration,
+            InPlaceExifWriter writer,
+            AtomicBoolean useInPlaceWriter,
+            AtomicBoolean inPlaceWriterVerified)
+            throws Exception {
+        if (useInPlaceWriter.get()) {
+            Map<ExifTool.Tag, String> tags = pf.writeMetadataInPlace(hardwareConfiguration, writer);
+            if (tags != null) {
+                List<ExifTool.Tag> mismatches = writer.verify(pf.getFile(), tags);
+                if (mismatches.isEmpty()) {
+                    // the first image tagged in place is read back by ExifTool as well, if it doesn't see the new
+                    // geotag (e.g. shadowed by some maker specific block) all images are tagged by ExifTool instead
+                    synchronized (inPlaceWriterVerified) {
+                        if (useInPlaceWriter.get() && !inPlaceWriterVerified.get()) {
+                            if (writer.verifyWithExifInfos(pf.getFile(), tags)) {
+                                inPlaceWriterVerified.set(true);
+                            } else {
+                                LOG.warn(
+                                    "Geotag written to " + pf.getFile() + " not read back by ExifTool, using ExifTool");
+                                useInPlaceWriter.set(false);
+                            }
+                        }
 
-            firer.setCurrentStage(counter.getAndAdd(1));
-            callback.accept(firer);
+                        if (useInPlaceWriter.get()) {
+                            return;
+                        }
+                    }
+                } else {
+                    LOG.warn("Tags " + mismatches + " of " + pf.getFile() + " don't round trip, using ExifTool");
+                }
+            }
         }
+
+        pf.writeMetadata(hardwareConfiguration);
     }
 
     @Override
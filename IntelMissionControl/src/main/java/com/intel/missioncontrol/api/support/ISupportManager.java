@@ -11,6 +11,8 @@ import com.intel.missioncontrol.ui.dialogs.MatchingsTableRowData;
 import eu.mavinci.core.helper.MProperties;
 import eu.mavinci.desktop.gui.widgets.IMProgressMonitor;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import javafx.beans.property.ReadOnlyBooleanProperty;
@@ -134,4 +136,12 @@ public interface ISupportManager {
     void scanReportFolder(boolean showToast);
 
     void checkErrorReports();
+
+    /**
+     * Writes the flight recording, which shows what the application did in the last hour, e.g. to analyze a slowdown
+     * after it happened. It is also added to support requests with the application settings.
+     *
+     * @throws IllegalStateException if the flight recording is disabled
+     */
+    void exportFlightRecording(Path file) throws IOException;
 }
@@ -9,6 +9,7 @@ package com.intel.missioncontrol.api.support;
 import com.google.inject.Inject;
 import com.intel.missioncontrol.IApplicationContext;
 import com.intel.missioncontrol.common.IPathProvider;
+import com.intel.missioncontrol.diagnostics.FlightRecording;
 import com.intel.missioncontrol.helper.Expect;
 import com.intel.missioncontrol.helper.ILanguageHelper;
 import com.intel.missioncontrol.helper.WindowHelper;
@@ -49,6 +50,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
@@ -90,6 +92,7 @@ public class SupportManager implements ISupportManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(SupportManager.class);
 
     private static final String ERROR_DOWNLOADS_FOLDER = "errorDownloads";
+    private static final String FLIGHT_RECORDING_FILE = "flight-recording" + FlightRecording.FILE_EXTENSION;
 
     private final BooleanProperty hasOldSupportRequests = new SimpleBooleanProperty();
 
@@ -104,6 +107,7 @@ public class SupportManager implements ISupportManager {
     private final ILicenceManager licenceManager;
     private final GeneralSettings generalSettings;
     private final Mission.Factory missionFactory;
+    private final FlightRecording flightRecording;
 
     private int curIdx = 0;
     private MProperties prop = new MProperties();
@@ -120,7 +124,8 @@ public class SupportManager implements ISupportManager {
             IVersionProvider versionProvider,
             ILicenceManager licenceManager,
             ISettingsManager settingsManager,
-            Mission.Factory missionFactory) {
+            Mission.Factory missionFactory,
+            FlightRecording flightRecording) {
         this.applicationContext = applicationContext;
         this.languageHelper = languageHelper;
         this.missionManager = missionManager;
@@ -132,6 +137,7 @@ public class SupportManager implements ISupportManager {
         this.generalSettings = settingsManager.getSection(GeneralSettings.class);
         this.appLogsCollector = new AppLogsCollector(pathProvider.getLogDirectory());
         this.missionFactory = missionFactory;
+        this.flightRecording = flightRecording;
         Dispatcher.platform().runLater(this::scanReportFolder, Duration.ofSeconds(15));
 
         // FIXME use normal trusted certificate import instead
@@ -290,6 +296,16 @@ public class SupportManager implements ISupportManager {
 
             // TODO FIXME: add all HW description files to the support request
 
+            if (flightRecording.isRecording()) {
+                try {
+                    File to = new File(folder, FLIGHT_RECORDING_FILE);
+                    flightRecording.dump(to.toPath());
+                    fileToProp(to, null);
+                } catch (IOException e) {
+                    LOGGER.warn("could not snapshot flight recording", e);
+                }
+            }
+
             if (profilingManager.isActive()) {
                 for (final File f :
                     FileHelper.scanFiles(
@@ -940,6 +956,11 @@ public class SupportManager implements ISupportManager {
         FileHelper.sendEMail(receiver, recipients, emailSubjectPrefix + " " + prio + " " + ticketId, body);
     }
 
+    @Override
+    public void exportFlightRecording(Path file) throws IOException {
+        flightRecording.dump(file);
+    }
+
     @Override
     public MProperties getReportProperties(File errorReportFolder) {
         MProperties prop = new MProperties();
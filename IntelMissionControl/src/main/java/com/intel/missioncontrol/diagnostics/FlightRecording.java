@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Java Flight Recording which runs all the time, so slowdowns can be analyzed after they happened. It uses the
+ * low-overhead default settings of the JDK, plus the events of the application (see {@link #CATEGORY}) with the
+ * settings of their annotations, and keeps the last hour on disk.
+ */
+public class FlightRecording implements AutoCloseable {
+
+    /** the category of the events of the application */
+    public static final String CATEGORY = "Open Mission Control";
+
+    public static final String FILE_EXTENSION = ".jfr";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecording.class);
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+    private static final long MAX_SIZE = 200L * 1024 * 1024;
+
+    static {
+        if (FlightRecorder.isAvailable()) {
+            // the hook only runs while a recording has the event enabled
+            FlightRecorder.addPeriodicEvent(MavlinkMessageRateEvent.class, MavlinkMessageRateEvent::emit);
+        }
+    }
+
+    private final Recording recording;
+
+    /** @param enabled if false, nothing is recorded, e.g. if the user switched it off */
+    public FlightRecording(boolean enabled) {
+        recording = enabled && FlightRecorder.isAvailable() ? createRecording() : null;
+    }
+
+    private static Recording createRecording() {
+        Map<String, String> settings = new HashMap<>();
+        try {
+            settings.putAll(Configuration.getConfiguration("default").getSettings());
+        } catch (IOException | ParseException e) {
+            LOGGER.warn("cannot read the default flight recorder settings, only recording the application", e);
+        }
+
+        Recording recording = new Recording(settings);
+        recording.setName(CATEGORY);
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        recording.setMaxSize(MAX_SIZE);
+        return recording;
+    }
+
+    public void start() {
+        if (recording == null) {
+            LOGGER.info("flight recording is disabled");
+            return;
+        }
+
+        try {
+            recording.start();
+        } catch (IllegalStateException | SecurityException e) {
+            LOGGER.warn("cannot start the flight recording", e);
+        }
+    }
+
+    public boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * Writes what was recorded up to now to the file, the recording keeps running.
+     *
+     * @throws IllegalStateException if nothing is recorded
+     */
+    public void dump(Path file) throws IOException {
+        if (!isRecording()) {
+            throw new IllegalStateException("flight recording is not running");
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        recording.dump(file);
+    }
+
+    @Override
+    public void close() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets of logarithmic size, like HdrHistogram: every power of two is split into {@link
+ * #SUB_BUCKET_COUNT} linear buckets, so a percentile is accurate to about 3%. Latencies are counted in microseconds up
+ * to about 13 days. Recording does not lock or allocate, so it can be used on hot paths and from any thread.
+ */
+public class LatencyHistogram {
+
+    /** An immutable copy of the counts of a histogram. */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long maxMicros;
+        private final long sumMicros;
+
+        private Snapshot(long[] counts, long totalCount, long maxMicros, long sumMicros) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.maxMicros = maxMicros;
+            this.sumMicros = sumMicros;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the highest latency of the bucket which contains the percentile, 0 if nothing was recorded
+         */
+        public double getValueAtPercentileMillis(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long)Math.ceil(percentile / 100 * totalCount));
+            long count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                count += counts[i];
+                if (count >= rank) {
+                    // the maximum is exact, the bucket may be larger
+                    return toMillis(Math.min(highestValueOfBucket(i), maxMicros));
+                }
+            }
+
+            return getMaxMillis();
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxMicros);
+        }
+
+        public double getMeanMillis() {
+            return totalCount == 0 ? 0 : toMillis(sumMicros) / totalCount;
+        }
+
+        private static double toMillis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 40;
+    static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(bucketOf(value));
+        sumMicros.addAndGet(value);
+        long max = maxMicros.get();
+        while (value > max && !maxMicros.compareAndSet(max, value)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /** Copies the counts, latencies which are recorded at the same time may be missing in some of the figures. */
+    public Snapshot getSnapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+
+        return new Snapshot(copy, total, maxMicros.get(), sumMicros.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+
+        maxMicros.set(0);
+        sumMicros.set(0);
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} have a bucket each. Above, the bucket is given by the position of the
+     * highest bit and the {@link #SUB_BUCKET_BITS} bits below it.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowestValueOfBucket(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        return (long)(SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+    }
+
+    static long highestValueOfBucket(int bucket) {
+        return bucket + 1 < BUCKET_COUNT ? lowestValueOfBucket(bucket + 1) - 1 : MAX_VALUE;
+    }
+
+}
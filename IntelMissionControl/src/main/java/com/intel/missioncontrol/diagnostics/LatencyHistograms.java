@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/** The latencies of the application which are shown in the performance monitor. */
+public class LatencyHistograms {
+
+    public static final LatencyHistogram FRAME_TIME = new LatencyHistogram("Frame time");
+
+    /** how long the tasks of the platform dispatcher wait until the UI thread starts to run them */
+    public static final LatencyHistogram PLATFORM_QUEUE_DELAY = new LatencyHistogram("Platform dispatcher queue delay");
+
+    /** how long the tasks which are run on the UI thread by the platform dispatcher take */
+    public static final LatencyHistogram PLATFORM_TASK = new LatencyHistogram("Platform dispatcher task");
+
+    /** from receiving a MAVLink message until the properties of the drone are updated */
+    public static final LatencyHistogram MAVLINK_RECEIVE = new LatencyHistogram("MAVLink receive to property");
+
+    public static final LatencyHistogram TILE_REQUEST = new LatencyHistogram("Tile request");
+
+    public static final LatencyHistogram RECOMPUTE = new LatencyHistogram("Recompute");
+
+    private static final List<LatencyHistogram> all =
+        List.of(FRAME_TIME, PLATFORM_QUEUE_DELAY, PLATFORM_TASK, MAVLINK_RECEIVE, TILE_REQUEST, RECOMPUTE);
+
+    private static final double[] CSV_PERCENTILES = {50, 90, 99, 99.9};
+
+    public static List<LatencyHistogram> getAll() {
+        return all;
+    }
+
+    public static void resetAll() {
+        for (LatencyHistogram histogram : all) {
+            histogram.reset();
+        }
+    }
+
+    /** Writes a line per histogram with the count, the mean, some percentiles and the maximum in milliseconds. */
+    public static void writeCsv(Writer writer) throws IOException {
+        writer.write("name,count,mean");
+        for (double percentile : CSV_PERCENTILES) {
+            writer.write(",p" + formatPercentile(percentile));
+        }
+
+        writer.write(",max\n");
+        for (LatencyHistogram histogram : all) {
+            LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+            writer.write(histogram.getName());
+            writer.write("," + snapshot.getTotalCount());
+            writer.write("," + formatMillis(snapshot.getMeanMillis()));
+            for (double percentile : CSV_PERCENTILES) {
+                writer.write("," + formatMillis(snapshot.getValueAtPercentileMillis(percentile)));
+            }
+
+            writer.write("," + formatMillis(snapshot.getMaxMillis()) + "\n");
+        }
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Integer.toString((int)percentile) : Double.toString(percentile);
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * The number of MAVLink messages of a type which were received since the last event. The messages are counted by
+ * {@link #count(Class)}, the events are emitted periodically while a flight recording is running.
+ */
+@Name("com.intel.missioncontrol.MavlinkMessageRate")
+@Label("MAVLink Message Rate")
+@Category({FlightRecording.CATEGORY, "Drone"})
+@Period("5 s")
+@StackTrace(false)
+public class MavlinkMessageRateEvent extends Event {
+
+    private static final Map<Class<?>, LongAdder> counts = new ConcurrentHashMap<>();
+    private static long lastEmitted = System.nanoTime();
+
+    @Label("Message")
+    private String message;
+
+    @Label("Count")
+    private long count;
+
+    @Label("Rate")
+    @Description("Messages per second")
+    private double rate;
+
+    /** Counts a received message, this is cheap enough to be called for every message. */
+    public static void count(Class<?> messageType) {
+        counts.computeIfAbsent(messageType, type -> new LongAdder()).increment();
+    }
+
+    /** Emits an event for every message type which was received since the last time, called by the recorder. */
+    static synchronized void emit() {
+        long now = System.nanoTime();
+        double seconds = (now - lastEmitted) / 1e9;
+        lastEmitted = now;
+        for (Map.Entry<Class<?>, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+
+            MavlinkMessageRateEvent event = new MavlinkMessageRateEvent();
+            event.message = entry.getKey().getSimpleName();
+            event.count = count;
+            event.rate = seconds > 0 ? count / seconds : 0;
+            event.commit();
+        }
+    }
+
+}
@@ -22,17 +22,20 @@ import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import javafx.util.Pair;
 
 public class PerformanceMonitorView extends DialogView<PerformanceMonitorViewModel> {
 
@@ -72,6 +75,15 @@ public class PerformanceMonitorView extends DialogView<PerformanceMonitorViewMod
     @FXML
     private Label eventHandlerTimeoutsLabel;
 
+    @FXML
+    private Button resetLatenciesButton;
+
+    @FXML
+    private Button exportLatenciesButton;
+
+    @FXML
+    private GridPane latencyGrid;
+
     private final Background highlightBackground =
         new Background(new BackgroundFill(Color.LIGHTGRAY, CornerRadii.EMPTY, Insets.EMPTY));
 
@@ -122,6 +134,10 @@ public class PerformanceMonitorView extends DialogView<PerformanceMonitorViewMod
                     frameDataLabel.setText(stringBuilder.toString());
                 });
 
+        resetLatenciesButton.setOnAction(event -> viewModel.getResetLatenciesCommand().execute());
+        exportLatenciesButton.setOnAction(event -> viewModel.getExportLatenciesCommand().execute());
+        viewModel.latenciesProperty().addListener(this::latenciesChanged);
+
         drawCallsLabel.setText(Integer.toString(viewModel.drawCallsProperty().get()));
         frameRateLabel.setText(decimalFormat.format(viewModel.frameRateProperty().get()) + " fps");
         eventHandlerTimeoutsLabel.setText(Integer.toString(viewModel.eventHandlerTimeoutsProperty().get()));
@@ -219,6 +235,27 @@ public class PerformanceMonitorView extends DialogView<PerformanceMonitorViewMod
         }
     }
 
+    private void latenciesChanged(ListChangeListener.Change<? extends Pair<String, LatencyHistogram.Snapshot>> change) {
+        DecimalFormat decimalFormat = (DecimalFormat)NumberFormat.getInstance(Locale.getDefault());
+        decimalFormat.setMinimumFractionDigits(1);
+        decimalFormat.setMaximumFractionDigits(1);
+
+        latencyGrid.getChildren().clear();
+        latencyGrid.addRow(0, new Label(), new Label("Count"), new Label("p50"), new Label("p99"), new Label("Max"));
+
+        int row = 1;
+        for (var latency : change.getList()) {
+            LatencyHistogram.Snapshot snapshot = latency.getValue();
+            latencyGrid.addRow(
+                row++,
+                new Label(latency.getKey()),
+                new Label(Long.toString(snapshot.getTotalCount())),
+                new Label(decimalFormat.format(snapshot.getValueAtPercentileMillis(50)) + " ms"),
+                new Label(decimalFormat.format(snapshot.getValueAtPercentileMillis(99)) + " ms"),
+                new Label(decimalFormat.format(snapshot.getMaxMillis()) + " ms"));
+        }
+    }
+
     @Override
     public ReadOnlyStringProperty titleProperty() {
         return new ReadOnlyStringWrapper("Performance monitor");
@@ -8,9 +8,19 @@ package com.intel.missioncontrol.diagnostics;
 
 import com.google.inject.Inject;
 import com.intel.missioncontrol.ui.dialogs.DialogViewModel;
+import com.intel.missioncontrol.ui.dialogs.IDialogService;
 import com.logicstyle.samplr.Request;
+import de.saxsys.mvvmfx.utils.commands.Command;
+import de.saxsys.mvvmfx.utils.commands.DelegateCommand;
 import eu.mavinci.core.desktop.main.debug.IProfilingListener;
 import eu.mavinci.core.desktop.main.debug.IProfilingManager;
+import eu.mavinci.desktop.helper.FileFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.beans.InvalidationListener;
@@ -32,10 +42,15 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.util.Pair;
 import org.asyncfx.concurrent.Dispatcher;
+import org.asyncfx.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class PerformanceMonitorViewModel extends DialogViewModel<Void, Void> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerformanceMonitorViewModel.class);
     private static final int UPDATE_INTERVAL = 10;
+    private static final Duration LATENCY_UPDATE_INTERVAL = Duration.ofSeconds(1);
 
     private final BooleanProperty enabled = new SimpleBooleanProperty(true);
     private final DoubleProperty frameRate = new SimpleDoubleProperty();
@@ -46,6 +61,8 @@ public class PerformanceMonitorViewModel extends DialogViewModel<Void, Void> {
         new SimpleListProperty<>(FXCollections.observableArrayList());
     private final ObjectProperty<StatisticsInfo> totalStats = new SimpleObjectProperty<>(new StatisticsInfo());
     private final ObjectProperty<StatisticsInfo> lastSegmentStats = new SimpleObjectProperty<>(new StatisticsInfo());
+    private final ListProperty<Pair<String, LatencyHistogram.Snapshot>> latencies =
+        new SimpleListProperty<>(FXCollections.observableArrayList());
 
     private final IntegerProperty selectedBarIndex =
         new SimpleIntegerProperty(-1) {
@@ -70,6 +87,10 @@ public class PerformanceMonitorViewModel extends DialogViewModel<Void, Void> {
         observable -> Dispatcher.platform().run(this::framesChanged);
     private final IProfilingListener profilingListener;
     private final List<Pair<String, String>> additionalFrameData = new ArrayList<>();
+    private final IDialogService dialogService;
+    private final Command resetLatenciesCommand = new DelegateCommand(this::resetLatencies);
+    private final Command exportLatenciesCommand = new DelegateCommand(this::exportLatencies);
+    private final Future<Void> latencyUpdates;
 
     private int updateCounter;
 
@@ -109,8 +130,22 @@ public class PerformanceMonitorViewModel extends DialogViewModel<Void, Void> {
         return selectedBarIndex;
     }
 
+    /** the name and the latest counts of every histogram in {@link LatencyHistograms} */
+    public ReadOnlyListProperty<Pair<String, LatencyHistogram.Snapshot>> latenciesProperty() {
+        return latencies;
+    }
+
+    public Command getResetLatenciesCommand() {
+        return resetLatenciesCommand;
+    }
+
+    public Command getExportLatenciesCommand() {
+        return exportLatenciesCommand;
+    }
+
     @Inject
-    public PerformanceMonitorViewModel(IProfilingManager profilingManager) {
+    public PerformanceMonitorViewModel(IProfilingManager profilingManager, IDialogService dialogService) {
+        this.dialogService = dialogService;
         profilingListener =
             new IProfilingListener() {
                 @Override
@@ -129,6 +164,46 @@ public class PerformanceMonitorViewModel extends DialogViewModel<Void, Void> {
         profiler.getFrames().addListener(new WeakInvalidationListener(framesChangedListener));
 
         // eventHandlerTimeouts.bind(PropertyHelper.totalTimeoutsProperty());
+
+        latencyUpdates =
+            Dispatcher.platform().runLaterAsync(this::updateLatencies, Duration.ZERO, LATENCY_UPDATE_INTERVAL);
+    }
+
+    @Override
+    protected void onClosing() {
+        super.onClosing();
+        latencyUpdates.cancel();
+    }
+
+    private void updateLatencies() {
+        if (!enabled.get()) {
+            return;
+        }
+
+        List<Pair<String, LatencyHistogram.Snapshot>> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : LatencyHistograms.getAll()) {
+            snapshots.add(new Pair<>(histogram.getName(), histogram.getSnapshot()));
+        }
+
+        latencies.setAll(snapshots);
+    }
+
+    private void resetLatencies() {
+        LatencyHistograms.resetAll();
+        updateLatencies();
+    }
+
+    private void exportLatencies() {
+        Path file = dialogService.requestFileSaveDialog(this, "Export latencies", null, FileFilter.CSV);
+        if (file == null) {
+            return;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            LatencyHistograms.writeCsv(writer);
+        } catch (IOException e) {
+            LOGGER.warn("cannot export the latencies to " + file, e);
+        }
     }
 
     private void framesChanged() {
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An operation, e.g. opening a mission or computing the flight lines of an area of interest, from its start until it is
+ * finished. Requests of the profiling manager are recorded under the name of their class.
+ */
+@Name("com.intel.missioncontrol.ProfilingRequest")
+@Label("Profiling Request")
+@Category({FlightRecording.CATEGORY, "Operations"})
+@StackTrace(false)
+public class ProfilingRequestEvent extends Event {
+
+    @Label("Request")
+    private String request;
+
+    @Label("Subject")
+    @Description("What the request works on, e.g. the name of the mission")
+    private String subject;
+
+    @Label("Item Count")
+    @Description("The size of the subject, e.g. the number of flight plans or corners of the area of interest")
+    private long itemCount;
+
+    @Label("Area")
+    @Description("The area of the subject in square meters, if it has one")
+    private double area;
+
+    public ProfilingRequestEvent(String request) {
+        this.request = request;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public void setArea(double area) {
+        this.area = area;
+    }
+
+}
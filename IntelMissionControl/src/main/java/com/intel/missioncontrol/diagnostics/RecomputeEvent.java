@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A run of a recomputer, e.g. of the flight lines of a flight plan. */
+@Name("com.intel.missioncontrol.Recompute")
+@Label("Recompute")
+@Category({FlightRecording.CATEGORY, "Operations"})
+@StackTrace(false)
+public class RecomputeEvent extends Event {
+
+    @Label("Computation")
+    @Description("The class of the computation which was run")
+    private String computation;
+
+    @Label("Run")
+    @Description("The number of the run of this recomputer")
+    private long run;
+
+    @Label("Triggers")
+    @Description("How often the recomputer was triggered until now")
+    private long triggers;
+
+    public RecomputeEvent(String computation, long run, long triggers) {
+        this.computation = computation;
+        this.run = run;
+        this.triggers = triggers;
+    }
+
+}
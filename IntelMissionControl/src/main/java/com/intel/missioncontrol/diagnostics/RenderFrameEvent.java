@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** A frame of the map, from the start of its rendering until the buffers were swapped. Only slow frames are kept. */
+@Name("com.intel.missioncontrol.RenderFrame")
+@Label("Render Frame")
+@Category({FlightRecording.CATEGORY, "UI"})
+@Description("A frame of the map which took long to render")
+@Threshold("50 ms")
+@StackTrace(false)
+public class RenderFrameEvent extends Event {}
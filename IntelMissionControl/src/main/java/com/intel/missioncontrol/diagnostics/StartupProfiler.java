@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import com.google.inject.spi.ProvisionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the timeline of the application startup: the phases of the bootstrapper, which may run concurrently, and
+ * the construction of the objects provided by the injector, mostly singletons, until {@link #finish()} is called.
+ * Nested constructions are taken off the time of the object which needed them, so the timeline shows what is slow
+ * itself.
+ */
+public class StartupProfiler implements ProvisionListener {
+
+    public static final String FILE_NAME = "startup-timeline.txt";
+
+    /** objects which were constructed faster are left out of the timeline */
+    private static final long MIN_CONSTRUCTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The end of a phase, closing it records its duration. */
+    public interface Phase extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Entry {
+        final String name;
+        final String thread;
+        final long start;
+        final long end;
+
+        Entry(String name, String thread, long start, long end) {
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.end = end;
+        }
+
+        long getDuration() {
+            return end - start;
+        }
+    }
+
+    /** an object under construction, collects the time of the objects it needs */
+    private static class Construction {
+        long nestedNanos;
+    }
+
+    private final long origin;
+    private final List<Entry> phases = new ArrayList<>();
+    private final List<Entry> constructions = new ArrayList<>();
+    private final ThreadLocal<Deque<Construction>> constructionStack = ThreadLocal.withInitial(ArrayDeque::new);
+    private volatile boolean finished;
+    private long end;
+
+    public StartupProfiler() {
+        this(System.nanoTime());
+    }
+
+    /** @param origin the start of the timeline, in {@link System#nanoTime()} */
+    public StartupProfiler(long origin) {
+        this.origin = origin;
+    }
+
+    /** Starts a phase on the current thread, it ends when the returned phase is closed. */
+    public Phase phase(String name) {
+        if (finished) {
+            return () -> {};
+        }
+
+        String thread = Thread.currentThread().getName();
+        long start = System.nanoTime();
+        return () -> {
+            long now = System.nanoTime();
+            synchronized (this) {
+                phases.add(new Entry(name, thread, start, now));
+            }
+        };
+    }
+
+    @Override
+    public <T> void onProvision(ProvisionInvocation<T> invocation) {
+        if (finished) {
+            invocation.provision();
+            return;
+        }
+
+        Deque<Construction> stack = constructionStack.get();
+        Construction construction = new Construction();
+        stack.push(construction);
+        long start = System.nanoTime();
+        try {
+            invocation.provision();
+        } finally {
+            long duration = System.nanoTime() - start;
+            stack.pop();
+            Construction parent = stack.peek();
+            if (parent != null) {
+                parent.nestedNanos += duration;
+            }
+
+            long self = duration - construction.nestedNanos;
+            if (self >= MIN_CONSTRUCTION_NANOS) {
+                String name = invocation.getBinding().getKey().getTypeLiteral().getRawType().getSimpleName();
+                long constructed = start + duration;
+                synchronized (this) {
+                    // the time the object took itself, at the end of its construction
+                    constructions.add(new Entry(name, Thread.currentThread().getName(), constructed - self, constructed));
+                }
+            }
+        }
+    }
+
+    /** Ends the startup, nothing is recorded afterwards. */
+    public synchronized void finish() {
+        if (!finished) {
+            end = System.nanoTime();
+            finished = true;
+        }
+    }
+
+    /** @return the time from the start of the timeline until the startup finished, or until now */
+    public synchronized long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((finished ? end : System.nanoTime()) - origin);
+    }
+
+    /** @return the phases in the order they started, then the constructions, slowest first */
+    public synchronized String formatTimeline() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("startup took ").append(getElapsedMillis()).append(" ms\n");
+        builder.append("phases (start, duration):\n");
+        List<Entry> sortedPhases = new ArrayList<>(phases);
+        sortedPhases.sort(Comparator.comparingLong(entry -> entry.start));
+        for (Entry entry : sortedPhases) {
+            append(builder, entry);
+        }
+
+        builder.append("constructions (start, duration without the objects they need):\n");
+        List<Entry> sortedConstructions = new ArrayList<>(constructions);
+        sortedConstructions.sort(Comparator.comparingLong(Entry::getDuration).reversed());
+        for (Entry entry : sortedConstructions) {
+            append(builder, entry);
+        }
+
+        return builder.toString();
+    }
+
+    private void append(StringBuilder builder, Entry entry) {
+        builder.append(
+            String.format(
+                "%7d ms %+7d ms  %-40s %s%n",
+                TimeUnit.NANOSECONDS.toMillis(entry.start - origin),
+                TimeUnit.NANOSECONDS.toMillis(entry.getDuration()),
+                entry.name,
+                entry.thread));
+    }
+
+    /** Writes the timeline to {@link #FILE_NAME} in the directory, replacing the one of the previous startup. */
+    public void write(File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        Files.write(new File(directory, FILE_NAME).toPath(), formatTimeline().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
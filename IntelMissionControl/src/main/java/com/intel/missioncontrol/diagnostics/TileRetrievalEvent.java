@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.io.IOException;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/** The retrieval of a map tile, from the HTTP cache or from the server. */
+@Name("com.intel.missioncontrol.TileRetrieval")
+@Label("Tile Retrieval")
+@Category({FlightRecording.CATEGORY, "Map"})
+@Threshold("10 ms")
+@StackTrace(false)
+public class TileRetrievalEvent extends Event {
+
+    /**
+     * Records every request of the HTTP client it is added to as an application interceptor, also in {@link
+     * LatencyHistograms#TILE_REQUEST}.
+     */
+    public static final Interceptor INTERCEPTOR =
+        chain -> {
+            TileRetrievalEvent event = new TileRetrievalEvent();
+            event.url = chain.request().url().toString();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                Response response = chain.proceed(chain.request());
+                event.status = response.code();
+                event.fromCache = response.networkResponse() == null;
+                ResponseBody body = response.body();
+                event.bytes = body != null ? body.contentLength() : -1;
+                return response;
+            } catch (IOException e) {
+                event.failure = e.getMessage();
+                throw e;
+            } finally {
+                LatencyHistograms.TILE_REQUEST.record(System.nanoTime() - start);
+                event.commit();
+            }
+        };
+
+    @Label("URL")
+    private String url;
+
+    @Label("Status")
+    @Description("The HTTP status code, 0 if the request failed")
+    private int status;
+
+    @Label("From Cache")
+    private boolean fromCache;
+
+    @Label("Size")
+    @Description("The size of the tile, -1 if unknown")
+    @DataAmount
+    private long bytes;
+
+    @Label("Failure")
+    private String failure;
+
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The time a dispatcher thread, e.g. the UI thread, took to run a task of the freeze watchdog. The event is committed
+ * on the dispatcher thread, so it shows which thread stalled.
+ */
+@Name("com.intel.missioncontrol.UiStall")
+@Label("UI Stall")
+@Category({FlightRecording.CATEGORY, "UI"})
+@Description("A dispatcher thread did not respond in time")
+@Threshold("100 ms")
+@StackTrace(false)
+public class UiStallEvent extends Event {
+
+    @Label("Dispatcher")
+    private String dispatcher;
+
+    public UiStallEvent(String dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+}
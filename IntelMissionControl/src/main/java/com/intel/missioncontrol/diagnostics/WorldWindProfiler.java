@@ -27,6 +27,7 @@ public class WorldWindProfiler implements RenderingListener {
     private final List<FrameInfo> lastFrames = new ArrayList<>();
     private FrameInfo.Builder frameInfoBuilder = new FrameInfo.Builder();
     private boolean firstFrame = true;
+    private RenderFrameEvent frameEvent;
 
     public WorldWindProfiler() {
         synchronized (profilers) {
@@ -67,13 +68,21 @@ public class WorldWindProfiler implements RenderingListener {
                 FrameInfo frameInfo = frameInfoBuilder.getFrameInfo();
                 frames.add(frameInfo);
                 lastFrames.add(frameInfo);
+                LatencyHistograms.FRAME_TIME.record(frameInfo.getFrameDurationNanos());
             }
 
             frameInfoBuilder.startRendering();
+            frameEvent = new RenderFrameEvent();
+            frameEvent.begin();
         } else if (event.getStage() == RenderingEvent.BEFORE_BUFFER_SWAP) {
             frameInfoBuilder.copyPixels();
         } else if (event.getStage() == RenderingEvent.AFTER_BUFFER_SWAP) {
             frameInfoBuilder.endRendering();
+            if (frameEvent != null) {
+                frameEvent.commit();
+                frameEvent = null;
+            }
+
             WorldWindow worldWindow = this.worldWindow;
             if (worldWindow == null) {
                 return;
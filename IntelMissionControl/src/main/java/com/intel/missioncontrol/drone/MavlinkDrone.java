@@ -6,6 +6,7 @@
 
 package com.intel.missioncontrol.drone;
 
+import com.intel.missioncontrol.diagnostics.ProfilingRequestEvent;
 import com.intel.missioncontrol.drone.connection.DroneMessage;
 import com.intel.missioncontrol.drone.connection.IDroneConnectionExceptionListener;
 import com.intel.missioncontrol.drone.connection.IDroneMessageListener;
@@ -889,10 +890,12 @@ public abstract class MavlinkDrone implements IDrone {
 
                     // TODO: posting to UI because of FlightPlan properties. Should make those properties async instead.
 
+                    ProfilingRequestEvent uploadEvent = new ProfilingRequestEvent("UploadFlightPlan");
                     Dispatcher dispatcher = Dispatcher.platform();
                     return dispatcher
                         .getLaterAsync(
                             () -> {
+                                uploadEvent.setSubject(flightPlanWithWayPointIndex.getFlightPlan().getName());
                                 Position startAltitudePosition =
                                     getStartAltitudePosition(
                                         flightPlanWithWayPointIndex.getFlightPlan(), currentPosition);
@@ -906,6 +909,8 @@ public abstract class MavlinkDrone implements IDrone {
                             mavlinkFlightPlan -> {
                                 clearActiveFlightPlan();
                                 LOGGER.info("Uploading: " + mavlinkFlightPlan.getDebugDescription());
+                                uploadEvent.setItemCount(mavlinkFlightPlan.getMissionItemCount());
+                                uploadEvent.begin();
                                 Future<Void> f =
                                     droneConnection
                                         .getMissionProtocolSender()
@@ -919,6 +924,7 @@ public abstract class MavlinkDrone implements IDrone {
                                                     flightPlanWithWayPointIndex.getWayPointIndex(),
                                                     mavlinkFlightPlan));
                                 f.addProgressListener(flightPlanUploadProgress::set);
+                                f.whenDone(done -> uploadEvent.commit());
                                 return f;
                             })
                         .whenCancelled(() -> LOGGER.debug("setActiveFlightPlanAsync cancelled"))
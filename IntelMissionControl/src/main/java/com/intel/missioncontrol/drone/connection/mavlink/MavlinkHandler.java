@@ -6,6 +6,8 @@
 
 package com.intel.missioncontrol.drone.connection.mavlink;
 
+import com.intel.missioncontrol.diagnostics.LatencyHistograms;
+import com.intel.missioncontrol.diagnostics.MavlinkMessageRateEvent;
 import com.intel.missioncontrol.drone.connection.TcpIpTransportType;
 import io.dronefleet.mavlink.MavlinkDialect;
 import io.dronefleet.mavlink.annotations.MavlinkMessageInfo;
@@ -159,6 +161,8 @@ public class MavlinkHandler extends ChannelInboundHandlerAdapter {
                 continue;
             }
 
+            long receivedTime = System.nanoTime();
+            MavlinkMessageRateEvent.count(messageType);
             Object payload = deserializer.deserialize(mavPkt.getPayload(), messageType);
 
             ReceivedPayload receivedPayload =
@@ -178,6 +182,9 @@ public class MavlinkHandler extends ChannelInboundHandlerAdapter {
                     }
                 }
             }
+
+            // the delegates update the properties of the drone
+            LatencyHistograms.MAVLINK_RECEIVE.record(System.nanoTime() - receivedTime);
         }
 
         msgHandle.release();
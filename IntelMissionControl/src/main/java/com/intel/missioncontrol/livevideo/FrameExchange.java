@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.livevideo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer between one thread decoding frames and one thread displaying them, without locks and without
+ * allocating per frame.
+ *
+ * <p>The decoder always writes into the back buffer and publishes it by swapping it with the middle buffer. The
+ * consumer takes the middle buffer by swapping it with the front buffer, but only if a frame was published since it
+ * last did. A frame which is published before the previous one was taken replaces it, so the consumer always gets the
+ * newest frame and never waits for the decoder, and the decoder never overwrites the frame being displayed.
+ */
+class FrameExchange<T> {
+
+    // set in the middle index if the middle buffer holds a frame which wasn't taken yet
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] buffers;
+    private final long[] timestamps = new long[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0; // decoder only
+    private int front = 2; // consumer only
+
+    FrameExchange(T buffer0, T buffer1, T buffer2) {
+        buffers = new Object[] {buffer0, buffer1, buffer2};
+    }
+
+    /** @return the buffer the decoder writes the next frame into */
+    @SuppressWarnings("unchecked")
+    T getBack() {
+        return (T)buffers[back];
+    }
+
+    /**
+     * Hands the back buffer over to the consumer.
+     *
+     * @param timestampNanos System.nanoTime() when the frame was decoded
+     * @return true if the previously published frame was never taken, i.e. it was dropped
+     */
+    boolean publish(long timestampNanos) {
+        timestamps[back] = timestampNanos;
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        return (previous & FRESH) != 0;
+    }
+
+    /** @return the newest published frame, or null if there is none since the last call */
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        // only this thread clears the flag, so a fresh frame stays fresh until the swap
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+
+        front = middle.getAndSet(front) & INDEX;
+        return (T)buffers[front];
+    }
+
+    /** @return System.nanoTime() when the frame last returned by {@link #acquire()} was decoded */
+    long getFrontTimestamp() {
+        return timestamps[front];
+    }
+
+}
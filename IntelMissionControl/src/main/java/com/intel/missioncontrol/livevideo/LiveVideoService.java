@@ -333,6 +333,11 @@ public class LiveVideoService implements ILiveVideoService {
                             getSettings.getHeight(),
                             getSettings.getFormat()
                     );
+
+                    // only hand the buffer to the UI once it is filled
+                    if (status == MinAvProtobuf.SelectStatus.NEW_DATA) {
+                        stream.frameDecoded();
+                    }
                 }
             }
         }
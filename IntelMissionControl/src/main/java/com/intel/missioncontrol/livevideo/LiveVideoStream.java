@@ -10,9 +10,12 @@ import com.intel.missioncontrol.drone.IVideoStream;
 import com.intel.missioncontrol.ui.livevideo.IUILiveVideoStream;
 import com.sun.jna.Memory;
 import com.sun.jna.Pointer;
-import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +25,8 @@ public class LiveVideoStream implements IUILiveVideoStream {
     private static final Logger LOGGER = LoggerFactory.getLogger(LiveVideoStream.class);
 
     private final Set<IUILiveVideoStreamListener> handlerList = new HashSet<>();
+    // snapshot of handlerList for delivering frames without holding its lock
+    private volatile IUILiveVideoStreamListener[] handlers = new IUILiveVideoStreamListener[0];
     private String description;
     private String uri;
     private Pointer minAvCtx = null;
@@ -36,9 +41,93 @@ public class LiveVideoStream implements IUILiveVideoStream {
     private long lastNewDataTimestamp = 0;
     private long lastActivateTimestamp = 0;
 
-    private ImageFrame lastFrame = null;
+    private volatile ImageFrame lastFrame = null;
+    private ImageFrame.Event lastEvent = null;
 
     private final IVideoStream videoStream;
+    private final Executor uiExecutor;
+    // at most one delivery is queued on the UI thread, frames decoded in the meantime replace each other
+    private final AtomicBoolean deliveryPending = new AtomicBoolean();
+    private final AtomicReference<PendingEvent> pendingEvent = new AtomicReference<>();
+
+    private final AtomicLong decodedFrames = new AtomicLong();
+    private final AtomicLong displayedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    private static class PendingEvent {
+        final ImageFrame frame;
+        final long timestampNanos;
+
+        PendingEvent(ImageFrame frame, long timestampNanos) {
+            this.frame = frame;
+            this.timestampNanos = timestampNanos;
+        }
+    }
+
+    /** Frame counters and the latency from decoding a frame until it is handed to the listeners. */
+    public static class Statistics {
+        private final long decodedFrames;
+        private final long displayedFrames;
+        private final long droppedFrames;
+        private final double averageLatencyMs;
+        private final double lastLatencyMs;
+        private final double maxLatencyMs;
+
+        Statistics(
+                long decodedFrames,
+                long displayedFrames,
+                long droppedFrames,
+                double averageLatencyMs,
+                double lastLatencyMs,
+                double maxLatencyMs) {
+            this.decodedFrames = decodedFrames;
+            this.displayedFrames = displayedFrames;
+            this.droppedFrames = droppedFrames;
+            this.averageLatencyMs = averageLatencyMs;
+            this.lastLatencyMs = lastLatencyMs;
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        public long getDecodedFrames() {
+            return decodedFrames;
+        }
+
+        public long getDisplayedFrames() {
+            return displayedFrames;
+        }
+
+        /** @return frames which were replaced by a newer frame before the UI got to display them */
+        public long getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        public double getAverageLatencyMs() {
+            return averageLatencyMs;
+        }
+
+        public double getLastLatencyMs() {
+            return lastLatencyMs;
+        }
+
+        public double getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "decoded=%d displayed=%d dropped=%d latency avg=%.1fms last=%.1fms max=%.1fms",
+                decodedFrames,
+                displayedFrames,
+                droppedFrames,
+                averageLatencyMs,
+                lastLatencyMs,
+                maxLatencyMs);
+        }
+    }
 
     enum TakeAction {
         NONE,
@@ -69,21 +158,36 @@ public class LiveVideoStream implements IUILiveVideoStream {
         }
     }
 
+    /** A decoder output buffer together with the frame which is handed to the listeners for it. */
+    private static class FrameBuffer {
+        final Memory memory;
+        final ImageFrame frame;
+
+        FrameBuffer(int width, int height) {
+            memory = new Memory(width * height * 4).align(4);
+            frame =
+                new ImageFrame(memory.getByteBuffer(0, width * height * 4), width, height, ImageFrame.Event.NEW_DATA);
+        }
+    }
+
     public class GetSettings {
-        private Memory buffer;
+        private final FrameExchange<FrameBuffer> frames;
         private int width;
         private int height;
         private int format;
 
         GetSettings(int width, int height) {
-            this.buffer = new Memory(width * height * 4).align(4);
+            this.frames =
+                new FrameExchange<>(
+                    new FrameBuffer(width, height), new FrameBuffer(width, height), new FrameBuffer(width, height));
             this.width = width;
             this.height = height;
             this.format = MinAvProtobuf.PixelFormat.BGRA_VALUE;
         }
 
+        /** @return the buffer the next frame is decoded into, which isn't visible to the listeners until it is published */
         public Memory getMemory() {
-            return buffer;
+            return frames.getBack().memory;
         }
 
         public int getWidth() {
@@ -97,13 +201,9 @@ public class LiveVideoStream implements IUILiveVideoStream {
         public int getFormat() {
             return format;
         }
-
-        private ByteBuffer getByteBuffer() {
-            return buffer.getByteBuffer(0, width * height * 4);
-        }
     }
 
-    private GetSettings getSettings = null;
+    private volatile GetSettings getSettings = null;
 
     public void setDescription(String description) {
         this.description = description;
@@ -114,8 +214,14 @@ public class LiveVideoStream implements IUILiveVideoStream {
     }
 
     LiveVideoStream(IVideoStream droneVideoStream) {
+        this(droneVideoStream, Platform::runLater);
+    }
+
+    /** @param uiExecutor runs the deliveries of frames to the listeners, the FX application thread by default */
+    LiveVideoStream(IVideoStream droneVideoStream, Executor uiExecutor) {
         if (droneVideoStream != null) setUri(droneVideoStream.getStreamURI());
         videoStream = droneVideoStream;
+        this.uiExecutor = uiExecutor;
     }
 
     public TakeAction getAction() {
@@ -130,6 +236,7 @@ public class LiveVideoStream implements IUILiveVideoStream {
             if (handlerList.isEmpty()) {
                 if (streamState == StreamState.NOT_CONNECTED) return TakeAction.NONE;
                 if (lastSeenTimestamp + KEEP_ALIVE_TIME_MS < System.currentTimeMillis()) {
+                    LOGGER.debug("{}: {}", description, getStatistics());
                     streamState = StreamState.NOT_CONNECTED;
                     // if (videoStream != null) videoStream.StopStreamingAsync();
                     return TakeAction.DEACTIVATE;
@@ -247,11 +354,43 @@ public class LiveVideoStream implements IUILiveVideoStream {
         return false;
     }
 
-    private void updateHandlers() {
-        synchronized (handlerList) {
-            for (IUILiveVideoStreamListener handler : handlerList) {
-                Platform.runLater(() -> handler.updateFrame(lastFrame));
-            }
+    private void scheduleDelivery() {
+        if (deliveryPending.compareAndSet(false, true)) {
+            uiExecutor.execute(this::deliver);
+        }
+    }
+
+    /** Hands the newest frame and the latest event to the listeners, in the order they happened. */
+    private void deliver() {
+        deliveryPending.set(false);
+        PendingEvent event = pendingEvent.getAndSet(null);
+        GetSettings settings = getSettings;
+        FrameBuffer buffer = settings != null ? settings.frames.acquire() : null;
+        long frameTimestamp = buffer != null ? settings.frames.getFrontTimestamp() : 0;
+
+        if (event != null && (buffer == null || event.timestampNanos - frameTimestamp <= 0)) {
+            deliver(event.frame);
+            event = null;
+        }
+
+        if (buffer != null) {
+            long latency = System.nanoTime() - frameTimestamp;
+            lastLatencyNanos = latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            totalLatencyNanos.addAndGet(latency);
+            displayedFrames.incrementAndGet();
+            deliver(buffer.frame);
+        }
+
+        if (event != null) {
+            deliver(event.frame);
+        }
+    }
+
+    private void deliver(ImageFrame frame) {
+        lastFrame = frame;
+        for (IUILiveVideoStreamListener handler : handlers) {
+            handler.updateFrame(frame);
         }
     }
 
@@ -259,24 +398,41 @@ public class LiveVideoStream implements IUILiveVideoStream {
         return getSettings;
     }
 
+    /** Called before the decoder writes a new frame into {@link GetSettings#getMemory()}. */
     boolean newData() {
-        ByteBuffer pixelBuffer = getSettings.getByteBuffer();
-        lastFrame =
-            new ImageFrame(pixelBuffer, getSettings.getWidth(), getSettings.getHeight(), ImageFrame.Event.NEW_DATA);
         lastNewDataTimestamp = System.currentTimeMillis();
-        updateHandlers();
-
         return true;
     }
 
+    /** Called after the decoder wrote a frame into {@link GetSettings#getMemory()}, makes it visible to the UI. */
+    void frameDecoded() {
+        decodedFrames.incrementAndGet();
+        lastEvent = ImageFrame.Event.NEW_DATA;
+        if (getSettings.frames.publish(System.nanoTime())) {
+            droppedFrames.incrementAndGet();
+        }
+
+        scheduleDelivery();
+    }
+
+    public Statistics getStatistics() {
+        long displayed = displayedFrames.get();
+        return new Statistics(
+            decodedFrames.get(),
+            displayed,
+            droppedFrames.get(),
+            displayed > 0 ? totalLatencyNanos.get() / 1e6 / displayed : 0,
+            lastLatencyNanos / 1e6,
+            maxLatencyNanos / 1e6);
+    }
+
     private void notifyImageFrameEvent(ImageFrame.Event event) {
         // we'll only notify if event changes
-        if (lastFrame != null && lastFrame.event == event) return;
-
-        if (lastFrame == null) lastFrame = new ImageFrame(null, 0, 0, event);
-        else lastFrame.event = event;
+        if (lastEvent == event) return;
 
-        updateHandlers();
+        lastEvent = event;
+        pendingEvent.set(new PendingEvent(new ImageFrame(null, 0, 0, event), System.nanoTime()));
+        scheduleDelivery();
     }
 
     @Override
@@ -284,6 +440,7 @@ public class LiveVideoStream implements IUILiveVideoStream {
         synchronized (handlerList) {
             if (handlerList.isEmpty() && videoStream != null) videoStream.StartStreamingAsync();
             handlerList.add(handler);
+            handlers = handlerList.toArray(new IUILiveVideoStreamListener[0]);
             if (lastFrame != null) handler.updateFrame(lastFrame);
         }
     }
@@ -292,6 +449,7 @@ public class LiveVideoStream implements IUILiveVideoStream {
     public void removeVideoStreamListener(IUILiveVideoStreamListener handler) {
         synchronized (handlerList) {
             handlerList.remove(handler);
+            handlers = handlerList.toArray(new IUILiveVideoStreamListener[0]);
             if (handlerList.isEmpty()) lastSeenTimestamp = System.currentTimeMillis();
         }
     }
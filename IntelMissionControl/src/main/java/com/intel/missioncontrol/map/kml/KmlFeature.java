@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.render.Renderable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One geometry of a placemark of a streamed KML file. Coordinates are stored as interleaved latitude/longitude pairs
+ * in units of 1e-7 degrees, which is precise to about a centimeter and takes half the memory of doubles.
+ */
+final class KmlFeature {
+
+    static final double UNITS_PER_DEGREE = 1e7;
+
+    final String name;
+    final boolean closed;
+    final int[] coordinates;
+    final int minLat;
+    final int maxLat;
+    final int minLon;
+    final int maxLon;
+
+    // only accessed by the render thread
+    int queryStamp;
+    Renderable renderable;
+    int renderableLevel = -1;
+
+    KmlFeature(String name, boolean closed, int[] coordinates) {
+        this.name = name;
+        this.closed = closed;
+        this.coordinates = coordinates;
+        int minLat = Integer.MAX_VALUE;
+        int maxLat = Integer.MIN_VALUE;
+        int minLon = Integer.MAX_VALUE;
+        int maxLon = Integer.MIN_VALUE;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            minLat = Math.min(minLat, coordinates[i]);
+            maxLat = Math.max(maxLat, coordinates[i]);
+            minLon = Math.min(minLon, coordinates[i + 1]);
+            maxLon = Math.max(maxLon, coordinates[i + 1]);
+        }
+
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+    }
+
+    static int toUnits(double degrees) {
+        return (int)Math.round(degrees * UNITS_PER_DEGREE);
+    }
+
+    static double toDegrees(int units) {
+        return units / UNITS_PER_DEGREE;
+    }
+
+    boolean isPoint() {
+        return coordinates.length == 2;
+    }
+
+    int getPointCount() {
+        return coordinates.length / 2;
+    }
+
+    /** @return the larger side of the bounding box, in units of 1e-7 degrees */
+    int getExtent() {
+        return Math.max(maxLat - minLat, maxLon - minLon);
+    }
+
+    boolean intersects(int minLat, int maxLat, int minLon, int maxLon) {
+        return this.minLat <= maxLat && this.maxLat >= minLat && this.minLon <= maxLon && this.maxLon >= minLon;
+    }
+
+    static List<LatLon> toLocations(int[] coordinates) {
+        List<LatLon> locations = new ArrayList<>(coordinates.length / 2);
+        for (int i = 0; i < coordinates.length; i += 2) {
+            locations.add(LatLon.fromDegrees(toDegrees(coordinates[i]), toDegrees(coordinates[i + 1])));
+        }
+
+        return locations;
+    }
+
+    /**
+     * Simplifies the line with the Douglas-Peucker algorithm, no point of the result is further away from the
+     * original line than the tolerance. The first and the last point are always kept, rings which would collapse to a
+     * line are kept unchanged.
+     *
+     * @param tolerance in units of 1e-7 degrees
+     */
+    int[] simplify(double tolerance) {
+        int count = getPointCount();
+        if (count <= 2 || tolerance <= 0) {
+            return coordinates;
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+        double toleranceSquared = tolerance * tolerance;
+        int[] stack = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = count - 1;
+        while (stackSize > 0) {
+            int last = stack[--stackSize];
+            int first = stack[--stackSize];
+            double maxDistance = toleranceSquared;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = distanceToSegmentSquared(i, first, last);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest < 0) {
+                continue;
+            }
+
+            keep[farthest] = true;
+            kept++;
+            if (stackSize + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+
+            stack[stackSize++] = first;
+            stack[stackSize++] = farthest;
+            stack[stackSize++] = farthest;
+            stack[stackSize++] = last;
+        }
+
+        if (kept == count) {
+            return coordinates;
+        }
+
+        if (closed && kept < 4) {
+            // a ring which collapsed to a line, render the full ring as it is small anyway
+            return coordinates;
+        }
+
+        int[] result = new int[2 * kept];
+        for (int i = 0, j = 0; i != count; i++) {
+            if (keep[i]) {
+                result[j++] = coordinates[2 * i];
+                result[j++] = coordinates[2 * i + 1];
+            }
+        }
+
+        return result;
+    }
+
+    private double distanceToSegmentSquared(int point, int first, int last) {
+        double x = coordinates[2 * point + 1];
+        double y = coordinates[2 * point];
+        double x1 = coordinates[2 * first + 1];
+        double y1 = coordinates[2 * first];
+        double dx = coordinates[2 * last + 1] - x1;
+        double dy = coordinates[2 * last] - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = x1 + t * dx - x;
+        double ey = y1 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+
+}
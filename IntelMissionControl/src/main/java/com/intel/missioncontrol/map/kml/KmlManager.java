@@ -37,6 +37,11 @@ public class KmlManager implements IKmlManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KmlManager.class);
 
+    /** KML files of at least this size are streamed instead of being loaded as a KML document */
+    private static final long STREAMING_THRESHOLD_BYTES = 16 * 1024 * 1024;
+
+    private static final String IMPORT_PROGRESS_KEY = "%" + KmlManager.class.getName() + ".importProgress";
+
     private final SimpleAsyncListProperty<ILayer> layers =
         new SimpleAsyncListProperty<>(
             this,
@@ -53,6 +58,7 @@ public class KmlManager implements IKmlManager {
             settingsManager.getSection(KmlsSettings.class).kmlsProperty(),
             kmlSettings -> {
                 Layer layer = null;
+                StreamingKmlLayer streamingLayer = null;
                 String resource = kmlSettings.resourceProperty().get();
                 if (resource == null) {
                     return null;
@@ -61,6 +67,13 @@ public class KmlManager implements IKmlManager {
                 try {
                     switch (kmlSettings.typeProperty().get()) {
                     case KML:
+                        File file = new File(resource);
+                        if (file.isFile() && file.length() >= STREAMING_THRESHOLD_BYTES) {
+                            streamingLayer = new StreamingKmlLayer(file);
+                            layer = streamingLayer;
+                            break;
+                        }
+
                         layer = new RenderableLayer();
                         RenderableLayer rRayer = (RenderableLayer)layer;
                         KMLRoot kmlRoot = KMLRoot.create(resource);
@@ -100,11 +113,36 @@ public class KmlManager implements IKmlManager {
 
                 ILayer wwLayerWrapper = new KmlLayerWrapper(layer, dispatcher, kmlSettings);
                 wwLayerWrapper.enabledProperty().bindBidirectional(kmlSettings.enabledProperty());
-                PropertyHelper.setValueSafe(wwLayerWrapper.nameProperty(), new LayerName(new File(resource).getName()));
+                String fileName = new File(resource).getName();
+                PropertyHelper.setValueSafe(wwLayerWrapper.nameProperty(), new LayerName(fileName));
+                if (streamingLayer != null) {
+                    streamingLayer.load(
+                        (bytesRead, bytesTotal, features, bytesPerSecond, done) -> {
+                            LayerName name =
+                                done
+                                    ? new LayerName(fileName)
+                                    : getImportProgressName(fileName, bytesRead, bytesTotal, features, bytesPerSecond);
+                            PropertyHelper.setValueSafe(wwLayerWrapper.nameProperty(), name);
+                        });
+                }
+
                 return wwLayerWrapper;
             });
     }
 
+    private static LayerName getImportProgressName(
+            String fileName, long bytesRead, long bytesTotal, int features, double bytesPerSecond) {
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        return new LayerName(
+            IMPORT_PROGRESS_KEY,
+            fileName,
+            String.valueOf(bytesTotal > 0 ? 100 * bytesRead / bytesTotal : 0),
+            String.valueOf(features),
+            String.format("%.1f", bytesPerSecond / (1024 * 1024)),
+            String.valueOf(usedMemory / (1024 * 1024)));
+    }
+
     @Override
     public AsyncObservableList<ILayer> imageryLayersProperty() {
         return layers;
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the geometries of the placemarks of a KML document one after another, without building the document in
+ * memory. Points, line strings and linear rings are supported, also inside of polygons and multi geometries; styles,
+ * network links and overlays are ignored.
+ */
+final class KmlStreamParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final Consumer<KmlFeature> sink;
+    private final BooleanSupplier cancelled;
+
+    private final List<int[]> geometries = new ArrayList<>();
+    private final List<Boolean> closed = new ArrayList<>();
+    private int[] buffer = new int[1024];
+
+    KmlStreamParser(Consumer<KmlFeature> sink, BooleanSupplier cancelled) {
+        this.sink = sink;
+        this.cancelled = cancelled;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Parses a KMZ archive if the stream starts like a zip file, the first KML document in it is read.
+     *
+     * @return false if the parsing was cancelled
+     */
+    boolean parse(InputStream in) throws IOException, XMLStreamException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("stream has to support mark");
+        }
+
+        in.mark(4);
+        byte[] header = new byte[4];
+        int length = in.readNBytes(header, 0, header.length);
+        in.reset();
+        if (length == 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4) {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".kml")) {
+                    return parseKml(zip);
+                }
+            }
+
+            throw new IOException("KMZ archive contains no KML document");
+        }
+
+        return parseKml(in);
+    }
+
+    private boolean parseKml(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            int placemarkDepth = -1;
+            int depth = 0;
+            String name = null;
+            boolean ring = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    if (depth == placemarkDepth && "Placemark".equals(reader.getLocalName())) {
+                        emit(name);
+                        placemarkDepth = -1;
+                        if (cancelled.getAsBoolean()) {
+                            return false;
+                        }
+                    }
+
+                    continue;
+                }
+
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                depth++;
+                String element = reader.getLocalName();
+                if (placemarkDepth < 0) {
+                    if ("Placemark".equals(element)) {
+                        placemarkDepth = depth - 1;
+                        name = null;
+                        geometries.clear();
+                        closed.clear();
+                    }
+
+                    continue;
+                }
+
+                switch (element) {
+                case "name":
+                    if (depth == placemarkDepth + 2) {
+                        name = reader.getElementText().trim();
+                        depth--;
+                    }
+
+                    break;
+                case "Point":
+                case "LineString":
+                    ring = false;
+                    break;
+                case "LinearRing":
+                    ring = true;
+                    break;
+                case "coordinates":
+                    int[] coordinates = parseCoordinates(reader.getElementText());
+                    depth--;
+                    if (coordinates.length > 0) {
+                        geometries.add(coordinates);
+                        closed.add(ring);
+                    }
+
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            return true;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void emit(String name) {
+        for (int i = 0; i != geometries.size(); i++) {
+            sink.accept(new KmlFeature(name, closed.get(i), geometries.get(i)));
+        }
+
+        geometries.clear();
+        closed.clear();
+    }
+
+    /** Parses whitespace separated tuples of longitude, latitude and an optional altitude, which is dropped. */
+    int[] parseCoordinates(CharSequence text) {
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+
+            if (i == length) {
+                break;
+            }
+
+            int tupleEnd = i;
+            while (tupleEnd < length && !Character.isWhitespace(text.charAt(tupleEnd))) {
+                tupleEnd++;
+            }
+
+            int lonEnd = indexOf(text, ',', i, tupleEnd);
+            int latEnd = indexOf(text, ',', lonEnd + 1, tupleEnd);
+            if (lonEnd < tupleEnd) {
+                double lon = Double.parseDouble(text.subSequence(i, lonEnd).toString());
+                double lat = Double.parseDouble(text.subSequence(lonEnd + 1, latEnd).toString());
+                if (count + 2 > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                }
+
+                buffer[count++] = KmlFeature.toUnits(lat);
+                buffer[count++] = KmlFeature.toUnits(lon);
+            }
+
+            i = tupleEnd;
+        }
+
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+}
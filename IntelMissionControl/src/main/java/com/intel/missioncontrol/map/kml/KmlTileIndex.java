@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Features of a KML file in a grid of fixed size tiles, a feature is referenced by every tile its bounding box
+ * intersects. Features spanning too many tiles are kept in a separate list which is checked on every query.
+ *
+ * <p>Features are added by the loading thread while the render thread queries, all methods are synchronized.
+ */
+final class KmlTileIndex {
+
+    static final int TILE_SIZE = KmlFeature.toUnits(0.05);
+
+    private static final int MAX_TILES_PER_FEATURE = 16;
+
+    private final Map<Long, List<KmlFeature>> tiles = new HashMap<>();
+    private final List<KmlFeature> largeFeatures = new ArrayList<>();
+    private int featureCount;
+    private int queryStamp;
+    private int minLat = Integer.MAX_VALUE;
+    private int maxLat = Integer.MIN_VALUE;
+    private int minLon = Integer.MAX_VALUE;
+    private int maxLon = Integer.MIN_VALUE;
+
+    private static int tileOf(int units) {
+        return Math.floorDiv(units, TILE_SIZE);
+    }
+
+    private static long key(int row, int column) {
+        return ((long)row << 32) | (column & 0xffffffffL);
+    }
+
+    synchronized void addAll(List<KmlFeature> features) {
+        for (KmlFeature feature : features) {
+            add(feature);
+        }
+    }
+
+    private void add(KmlFeature feature) {
+        featureCount++;
+        minLat = Math.min(minLat, feature.minLat);
+        maxLat = Math.max(maxLat, feature.maxLat);
+        minLon = Math.min(minLon, feature.minLon);
+        maxLon = Math.max(maxLon, feature.maxLon);
+
+        int firstRow = tileOf(feature.minLat);
+        int lastRow = tileOf(feature.maxLat);
+        int firstColumn = tileOf(feature.minLon);
+        int lastColumn = tileOf(feature.maxLon);
+        if ((long)(lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > MAX_TILES_PER_FEATURE) {
+            largeFeatures.add(feature);
+            return;
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                tiles.computeIfAbsent(key(row, column), k -> new ArrayList<>()).add(feature);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return featureCount;
+    }
+
+    /** @return the bounding box of all features as {minLat, maxLat, minLon, maxLon}, or null if there are none */
+    synchronized int[] getBounds() {
+        return featureCount == 0 ? null : new int[] {minLat, maxLat, minLon, maxLon};
+    }
+
+    /**
+     * Collects every feature intersecting the bounding box once. Must only be called by one thread at a time, the
+     * features remember the last query which found them.
+     *
+     * @param minExtent lines and rings smaller than this are left out, points are always collected
+     * @param limit the maximum number of features collected
+     */
+    synchronized void query(
+            int minLat, int maxLat, int minLon, int maxLon, int minExtent, int limit, List<KmlFeature> result) {
+        Query query = new Query(minLat, maxLat, minLon, maxLon, minExtent, limit, ++queryStamp, result);
+        query.collect(largeFeatures);
+
+        int firstRow = tileOf(minLat);
+        int lastRow = tileOf(maxLat);
+        int firstColumn = tileOf(minLon);
+        int lastColumn = tileOf(maxLon);
+        if ((long)(lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > tiles.size()) {
+            // zoomed out, less tiles to check than the view covers
+            for (Map.Entry<Long, List<KmlFeature>> entry : tiles.entrySet()) {
+                int row = (int)(entry.getKey() >> 32);
+                int column = (int)(long)entry.getKey();
+                if (row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn) {
+                    query.collect(entry.getValue());
+                }
+            }
+
+            return;
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                List<KmlFeature> features = tiles.get(key(row, column));
+                if (features != null) {
+                    query.collect(features);
+                }
+            }
+        }
+    }
+
+    private static final class Query {
+        final int minLat;
+        final int maxLat;
+        final int minLon;
+        final int maxLon;
+        final int minExtent;
+        final int limit;
+        final int stamp;
+        final List<KmlFeature> result;
+
+        Query(
+                int minLat,
+                int maxLat,
+                int minLon,
+                int maxLon,
+                int minExtent,
+                int limit,
+                int stamp,
+                List<KmlFeature> result) {
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+            this.minExtent = minExtent;
+            this.limit = limit;
+            this.stamp = stamp;
+            this.result = result;
+        }
+
+        void collect(List<KmlFeature> features) {
+            for (KmlFeature feature : features) {
+                if (result.size() >= limit) {
+                    return;
+                }
+
+                if (feature.queryStamp != stamp
+                        && (feature.isPoint() || feature.getExtent() >= minExtent)
+                        && feature.intersects(minLat, maxLat, minLon, maxLon)) {
+                    feature.queryStamp = stamp;
+                    result.add(feature);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import com.google.common.io.CountingInputStream;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.layers.RenderableLayer;
+import gov.nasa.worldwind.render.BasicShapeAttributes;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.render.Material;
+import gov.nasa.worldwind.render.PointPlacemark;
+import gov.nasa.worldwind.render.PointPlacemarkAttributes;
+import gov.nasa.worldwind.render.Renderable;
+import gov.nasa.worldwind.render.ShapeAttributes;
+import gov.nasa.worldwind.render.SurfacePolyline;
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders large KML files without holding a KML document in memory. The file is parsed on a background thread and
+ * the geometries are put into a {@link KmlTileIndex} while parsing, so they show up on the map right away. Every
+ * frame only the features intersecting the view are rendered, lines are simplified to the resolution of the view and
+ * lines smaller than a pixel are left out.
+ */
+class StreamingKmlLayer extends RenderableLayer {
+
+    /** Receives the progress of the import, at most twice a second and once when it is done. */
+    interface ProgressListener {
+        void progress(long bytesRead, long bytesTotal, int features, double bytesPerSecond, boolean done);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingKmlLayer.class);
+
+    private static final int BATCH_SIZE = 2048;
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+    private static final int MAX_VISIBLE_FEATURES = 20_000;
+
+    private static final ShapeAttributes LINE_ATTRIBUTES = new BasicShapeAttributes();
+    private static final PointPlacemarkAttributes POINT_ATTRIBUTES = new PointPlacemarkAttributes();
+
+    static {
+        LINE_ATTRIBUTES.setOutlineMaterial(new Material(Color.YELLOW));
+        LINE_ATTRIBUTES.setOutlineWidth(2);
+        LINE_ATTRIBUTES.setEnableAntialiasing(true);
+        POINT_ATTRIBUTES.setUsePointAsDefaultImage(true);
+        POINT_ATTRIBUTES.setScale(6d);
+        POINT_ATTRIBUTES.setLineMaterial(new Material(Color.YELLOW));
+    }
+
+    private final File file;
+    private final KmlTileIndex index = new KmlTileIndex();
+    private volatile boolean disposed;
+
+    // only accessed by the render thread
+    private long lastFrame = -1;
+    private List<KmlFeature> visibleFeatures = new ArrayList<>();
+    private List<KmlFeature> queriedFeatures = new ArrayList<>();
+    private List<Renderable> visibleRenderables = Collections.emptyList();
+
+    StreamingKmlLayer(File file) {
+        this.file = file;
+        setPickEnabled(false);
+    }
+
+    /** Starts parsing the file on a background thread. */
+    void load(ProgressListener listener) {
+        Thread thread = new Thread(() -> parse(listener), "kml-import-" + file.getName());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void parse(ProgressListener listener) {
+        long start = System.nanoTime();
+        long bytesTotal = file.length();
+        List<KmlFeature> batch = new ArrayList<>(BATCH_SIZE);
+        long[] lastProgress = {System.currentTimeMillis()};
+        try (CountingInputStream counting = new CountingInputStream(Files.newInputStream(file.toPath()));
+            InputStream in = new BufferedInputStream(counting, 1 << 16)) {
+            KmlStreamParser parser =
+                new KmlStreamParser(
+                    feature -> {
+                        batch.add(feature);
+                        if (batch.size() < BATCH_SIZE) {
+                            return;
+                        }
+
+                        index.addAll(batch);
+                        batch.clear();
+                        long now = System.currentTimeMillis();
+                        if (now - lastProgress[0] >= PROGRESS_INTERVAL_MILLIS) {
+                            lastProgress[0] = now;
+                            long bytesRead = counting.getCount();
+                            listener.progress(
+                                bytesRead, bytesTotal, index.size(), bytesPerSecond(bytesRead, start), false);
+                            firePropertyChange(AVKey.LAYER, null, this);
+                        }
+                    },
+                    () -> disposed);
+            parser.parse(in);
+        } catch (Exception e) {
+            LOGGER.error("cant stream KML " + file, e);
+        } finally {
+            index.addAll(batch);
+            listener.progress(bytesTotal, bytesTotal, index.size(), bytesPerSecond(bytesTotal, start), true);
+            firePropertyChange(AVKey.LAYER, null, this);
+        }
+
+        LOGGER.info(
+            "streamed {} features of {} in {} ms",
+            index.size(),
+            file,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static double bytesPerSecond(long bytes, long startNanos) {
+        return bytes * 1e9 / Math.max(1, System.nanoTime() - startNanos);
+    }
+
+    /** @return the bounding sector of the features loaded so far, or null if there are none */
+    Sector getSector() {
+        int[] bounds = index.getBounds();
+        if (bounds == null) {
+            return null;
+        }
+
+        return Sector.fromDegrees(
+            KmlFeature.toDegrees(bounds[0]),
+            KmlFeature.toDegrees(bounds[1]),
+            KmlFeature.toDegrees(bounds[2]),
+            KmlFeature.toDegrees(bounds[3]));
+    }
+
+    int getFeatureCount() {
+        return index.size();
+    }
+
+    @Override
+    protected Iterable<Renderable> getActiveRenderables() {
+        return visibleRenderables;
+    }
+
+    @Override
+    protected void doPreRender(DrawContext dc) {
+        if (dc.getFrameTimeStamp() != lastFrame) {
+            lastFrame = dc.getFrameTimeStamp();
+            updateVisibleRenderables(dc);
+        }
+
+        super.doPreRender(dc);
+    }
+
+    private void updateVisibleRenderables(DrawContext dc) {
+        Sector sector = dc.getVisibleSector();
+        if (sector == null) {
+            return;
+        }
+
+        // the tolerance of the simplification is about one pixel, rounded down to a power of two so the simplified
+        // lines are reused while zooming a little
+        double unitsPerPixel =
+            sector.getDeltaLatDegrees() * KmlFeature.UNITS_PER_DEGREE / Math.max(1, dc.getView().getViewport().height);
+        int level = unitsPerPixel < 2 ? 0 : 31 - Integer.numberOfLeadingZeros((int)Math.min(unitsPerPixel, 1 << 30));
+        int tolerance = level == 0 ? 0 : 1 << level;
+
+        queriedFeatures.clear();
+        index.query(
+            KmlFeature.toUnits(sector.getMinLatitude().degrees),
+            KmlFeature.toUnits(sector.getMaxLatitude().degrees),
+            KmlFeature.toUnits(sector.getMinLongitude().degrees),
+            KmlFeature.toUnits(sector.getMaxLongitude().degrees),
+            tolerance,
+            MAX_VISIBLE_FEATURES,
+            queriedFeatures);
+
+        List<Renderable> renderables = new ArrayList<>(queriedFeatures.size());
+        for (KmlFeature feature : queriedFeatures) {
+            if (feature.renderable == null || (!feature.isPoint() && feature.renderableLevel != level)) {
+                feature.renderable = createRenderable(feature, tolerance);
+                feature.renderableLevel = level;
+            }
+
+            renderables.add(feature.renderable);
+        }
+
+        // drop the renderables of the features which left the view, they are created again when needed
+        int stamp = queriedFeatures.isEmpty() ? 0 : queriedFeatures.get(0).queryStamp;
+        for (KmlFeature feature : visibleFeatures) {
+            if (feature.queryStamp != stamp) {
+                feature.renderable = null;
+                feature.renderableLevel = -1;
+            }
+        }
+
+        List<KmlFeature> previous = visibleFeatures;
+        visibleFeatures = queriedFeatures;
+        queriedFeatures = previous;
+        visibleRenderables = renderables;
+    }
+
+    private static Renderable createRenderable(KmlFeature feature, int tolerance) {
+        if (feature.isPoint()) {
+            PointPlacemark placemark =
+                new PointPlacemark(
+                    Position.fromDegrees(
+                        KmlFeature.toDegrees(feature.coordinates[0]), KmlFeature.toDegrees(feature.coordinates[1])));
+            placemark.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            placemark.setAttributes(POINT_ATTRIBUTES);
+            placemark.setValue(AVKey.DISPLAY_NAME, feature.name);
+            return placemark;
+        }
+
+        SurfacePolyline polyline =
+            new SurfacePolyline(LINE_ATTRIBUTES, KmlFeature.toLocations(feature.simplify(tolerance)));
+        polyline.setClosed(feature.closed);
+        polyline.setValue(AVKey.DISPLAY_NAME, feature.name);
+        return polyline;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        super.dispose();
+    }
+
+}
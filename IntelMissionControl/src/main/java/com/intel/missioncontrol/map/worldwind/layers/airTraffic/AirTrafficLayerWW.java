@@ -8,6 +8,7 @@ package com.intel.missioncontrol.map.worldwind.layers.airTraffic;
 
 import com.google.inject.Inject;
 import com.intel.missioncontrol.airtraffic.IAirTrafficManager;
+import com.intel.missioncontrol.airtraffic.TrafficTrack;
 import com.intel.missioncontrol.airtraffic.dto.AirtrafficObject;
 import com.intel.missioncontrol.map.elevation.IEgmModel;
 import com.intel.missioncontrol.map.elevation.IElevationModel;
@@ -20,6 +21,11 @@ import gov.nasa.worldwind.render.Material;
 import gov.nasa.worldwind.render.ShapeAttributes;
 import gov.nasa.worldwindx.examples.ShapeEditingExtension;
 import java.awt.Color;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 import org.asyncfx.collections.LockedList;
 
 public class AirTrafficLayerWW extends RenderableLayer {
@@ -32,6 +38,14 @@ public class AirTrafficLayerWW extends RenderableLayer {
      */
     private final double updateInterval = 10;
 
+    private static final ShapeAttributes ARROW_ATTRIBUTES = new BasicShapeAttributes();
+
+    static {
+        ARROW_ATTRIBUTES.setOutlineMaterial(new Material(new Color(0x00ffff)));
+        ARROW_ATTRIBUTES.setOutlineWidth(3);
+        ARROW_ATTRIBUTES.setEnableAntialiasing(true);
+    }
+
     @Inject
     public AirTrafficLayerWW(IAirTrafficManager atm, IElevationModel elevationModel, IEgmModel egmModel) {
         this.atm = atm;
@@ -68,42 +82,82 @@ public class AirTrafficLayerWW extends RenderableLayer {
 
     }
 
-    private void reconstruct() {
+    /** The renderables of one aircraft, which are kept while the aircraft is reported and updated in place. */
+    private static class AircraftEntry {
+        AirtrafficObject airtrafficObject;
+        AircraftRenderable aircraft;
+        ShapeEditingExtension.Arrow arrow;
+    }
 
-        removeAllRenderables();
+    private final Map<String, AircraftEntry> entries = new HashMap<>();
 
+    private synchronized void reconstruct() {
+        Set<String> reported = new HashSet<>();
+        boolean changed = false;
         try (LockedList<AirtrafficObject> airtrafficObjects = atm.relevantTrafficProperty().lock()) {
             for (AirtrafficObject airtrafficObject : airtrafficObjects) {
-                addRenderable(new AircraftRenderable(airtrafficObject, elevationModel, egmModel));
-
+                String key = TrafficTrack.keyOf(airtrafficObject);
+                reported.add(key);
+                AircraftEntry entry = entries.get(key);
+                if (entry == null) {
+                    entry = new AircraftEntry();
+                    entry.aircraft = new AircraftRenderable(airtrafficObject, elevationModel, egmModel);
+                    addRenderable(entry.aircraft);
+                    entries.put(key, entry);
+                } else if (entry.airtrafficObject != airtrafficObject) {
+                    entry.aircraft.update(airtrafficObject);
+                } else {
+                    continue;
+                }
+
+                entry.airtrafficObject = airtrafficObject;
+                updateArrow(entry);
+                changed = true;
+            }
+        }
 
-                Position pos = Position.fromDegrees(airtrafficObject.geometry.coordinates.get(1),
-                        airtrafficObject.geometry.coordinates.get(0),
-                        airtrafficObject.getProperties().getWgs84Altitude());
-                pos = elevationModel.getPositionOverGround(pos);
-                var pos1 = new Position(pos.latitude, pos.longitude, pos.getAltitude() + 10);
+        for (Iterator<Map.Entry<String, AircraftEntry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, AircraftEntry> mapEntry = it.next();
+            if (!reported.contains(mapEntry.getKey())) {
+                AircraftEntry entry = mapEntry.getValue();
+                removeRenderable(entry.aircraft);
+                removeRenderable(entry.arrow);
+                it.remove();
+                changed = true;
+            }
+        }
 
-                var lat1 = new LatLon(pos1);
+        if (changed) {
+            firePropertyChange(AVKey.LAYER, null, this);
+        }
 
-                var arrowLength = airtrafficObject.getProperties().getSpeedOverGround() * updateInterval;
-                var projectedAltDifference = airtrafficObject.getProperties().getVerticalSpeed() * updateInterval;
-                var lat2 = offset(lat1, airtrafficObject.getProperties().getCourseOverGround(), arrowLength / 1000.);
-                var pos2 = new Position(lat2, pos.getAltitude() + 10 + projectedAltDifference);
-                var arrow = new ShapeEditingExtension.Arrow(pos1, pos2, pos.getAltitude() + 10);
+    }
 
-                ShapeAttributes attrs = new BasicShapeAttributes();
-                attrs.setOutlineMaterial(new Material(new Color(0x00ffff)));
-                attrs.setOutlineWidth(3);
-                attrs.setEnableAntialiasing(true);
-                arrow.setAttributes(attrs);
+    private void updateArrow(AircraftEntry entry) {
+        AirtrafficObject airtrafficObject = entry.airtrafficObject;
+        Position pos = Position.fromDegrees(airtrafficObject.geometry.coordinates.get(1),
+                airtrafficObject.geometry.coordinates.get(0),
+                airtrafficObject.getProperties().getWgs84Altitude());
+        pos = elevationModel.getPositionOverGround(pos);
+        var pos1 = new Position(pos.latitude, pos.longitude, pos.getAltitude() + 10);
 
+        var lat1 = new LatLon(pos1);
 
-                addRenderable(arrow);
+        var arrowLength = airtrafficObject.getProperties().getSpeedOverGround() * updateInterval;
+        var lat2 = offset(lat1, airtrafficObject.getProperties().getCourseOverGround(), arrowLength / 1000.);
 
+        // the arrow can only be moved horizontally in place
+        if (entry.arrow != null && entry.arrow.getAltitude() == pos1.getAltitude()) {
+            entry.arrow.setLocations(lat1, lat2);
+            return;
+        }
 
-            }
+        if (entry.arrow != null) {
+            removeRenderable(entry.arrow);
         }
-        firePropertyChange(AVKey.LAYER, null, this);
 
+        entry.arrow = new ShapeEditingExtension.Arrow(lat1, lat2, pos1.getAltitude());
+        entry.arrow.setAttributes(ARROW_ATTRIBUTES);
+        addRenderable(entry.arrow);
     }
 }
@@ -49,28 +49,21 @@ public class AircraftRenderable implements Renderable {
             FlarmAircraftType.staticObject
     };
     UserFacingIconOriented icon;
+    private final IElevationModel elevationModel;
+    private FlarmAircraftType type;
 
     public AircraftRenderable(AirtrafficObject ato, IElevationModel elevationModel, IEgmModel egmModel) {
+        this.elevationModel = elevationModel;
+        type = types[ato.getProperties().getType()];
 
-        int typeNr = ato.getProperties().getType();
-        var type = types[typeNr];
-
-
-        Position pos = Position.fromDegrees(ato.geometry.coordinates.get(1),
-                ato.geometry.coordinates.get(0),
-                ato.getProperties().getWgs84Altitude());
-
-        pos = elevationModel.getPositionOverGround(pos);
-        pos = new Position(pos.latitude, pos.longitude, pos.getAltitude() + 10);
-
-        icon = new UserFacingIconOriented(type.getBufferedImageFull(), pos, ato);
+        icon = new UserFacingIconOriented(type.getBufferedImageFull(), getIconPosition(ato), ato);
 
         icon.setSize(UserFacingIconWithUserData.d32);
         icon.setYaw(ato.getProperties().getCourseOverGround());
         icon.setSelectable(true);
         icon.setDraggable(false);
         icon.setHighlightScale(FlightplanLayer.HIGHLIGHT_SCALE);
-        icon.setToolTipText(ato.getProperties().getIdentifier() + "  @barometric: " + ato.getProperties().getBaroAltitude());
+        icon.setToolTipText(getToolTipText(ato));
         icon.setToolTipTextColor(java.awt.Color.YELLOW);
         icon.setHasTooltip(true);
         icon.setAlwaysOnTop(true);
@@ -78,6 +71,33 @@ public class AircraftRenderable implements Renderable {
 
     }
 
+    /** Moves the icon to a newer report of the same aircraft, instead of creating a new icon for it. */
+    public void update(AirtrafficObject ato) {
+        var newType = types[ato.getProperties().getType()];
+        if (newType != type) {
+            type = newType;
+            icon.setImageSource(type.getBufferedImageFull());
+        }
+
+        icon.setPosition(getIconPosition(ato));
+        icon.setYaw(ato.getProperties().getCourseOverGround());
+        icon.setToolTipText(getToolTipText(ato));
+        icon.setUserData(ato);
+    }
+
+    private Position getIconPosition(AirtrafficObject ato) {
+        Position pos = Position.fromDegrees(ato.geometry.coordinates.get(1),
+                ato.geometry.coordinates.get(0),
+                ato.getProperties().getWgs84Altitude());
+
+        pos = elevationModel.getPositionOverGround(pos);
+        return new Position(pos.latitude, pos.longitude, pos.getAltitude() + 10);
+    }
+
+    private static String getToolTipText(AirtrafficObject ato) {
+        return ato.getProperties().getIdentifier() + "  @barometric: " + ato.getProperties().getBaroAltitude();
+    }
+
     @Override
     public void render(DrawContext dc) {
         if (icon != null) {
@@ -6,18 +6,18 @@
 
 package com.intel.missioncontrol.map.worldwind.layers.mercator;
 
+import com.intel.missioncontrol.diagnostics.TileRetrievalEvent;
 import com.intel.missioncontrol.networking.INetworkInterceptor;
 import com.jogamp.opengl.util.texture.TextureData;
 import com.jogamp.opengl.util.texture.awt.AWTTextureIO;
+import eu.mavinci.desktop.gui.wwext.MercatorTileReprojection;
 import gov.nasa.worldwind.Configuration;
 import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.cache.BasicMemoryCache;
 import gov.nasa.worldwind.cache.MemoryCache;
-import gov.nasa.worldwind.geom.Angle;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec4;
-import gov.nasa.worldwind.layers.mercator.MercatorSector;
 import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.util.LevelSet;
@@ -148,6 +148,9 @@ public class FastMercatorTiledImageLayer extends MercatorTiledImageLayerBase {
             // network activity callback
             builder.addNetworkInterceptor(options.networkInterceptor);
 
+            // flight recording of every tile, including the ones from the cache
+            builder.addInterceptor(TileRetrievalEvent.INTERCEPTOR);
+
             if (options.overrideMaxCacheAge != null) {
                 final String cacheControl = "max-age=" + options.overrideMaxCacheAge.getSeconds();
                 builder.addNetworkInterceptor(
@@ -254,7 +257,7 @@ public class FastMercatorTiledImageLayer extends MercatorTiledImageLayerBase {
         }
     }
 
-    protected OkHttpClient getHttpClient() {
+    public OkHttpClient getHttpClient() {
         return httpClient.client;
     }
 
@@ -306,7 +309,7 @@ public class FastMercatorTiledImageLayer extends MercatorTiledImageLayerBase {
         if (image != null) {
             image = modifyImage(image);
             if (isTileValid(tile, image, type, inputStreamLength)) {
-                image = transform(image, tile.getMercatorSector());
+                image = MercatorTileReprojection.reproject(image, tile);
             } else {
                 getLevels().markResourceAbsent(tile);
                 return;
@@ -403,30 +406,4 @@ public class FastMercatorTiledImageLayer extends MercatorTiledImageLayerBase {
         // don't need to do anything because requestTexture will also be called
     }
 
-    // TODO: make this faster? Don't use setRGB
-    /** @see gov.nasa.worldwind.layers.mercator.BasicMercatorTiledImageLayer#transform(BufferedImage, MercatorSector) */
-    private BufferedImage transform(BufferedImage image, MercatorSector sector) {
-        int type = image.getType();
-        if (type == 0) {
-            type = BufferedImage.TYPE_INT_RGB;
-        }
-
-        BufferedImage trans = new BufferedImage(image.getWidth(), image.getHeight(), type);
-        double miny = sector.getMinLatPercent();
-        double maxy = sector.getMaxLatPercent();
-        for (int y = 0; y < image.getHeight(); y++) {
-            double sy = 1.0 - y / (double)(image.getHeight() - 1);
-            Angle lat = Angle.fromRadians(sy * sector.getDeltaLatRadians() + sector.getMinLatitude().radians);
-            double dy = 1.0 - (MercatorSector.gudermannianInverse(lat) - miny) / (maxy - miny);
-            dy = Math.max(0.0, Math.min(1.0, dy));
-            int iy = (int)(dy * (image.getHeight() - 1));
-
-            for (int x = 0; x < image.getWidth(); x++) {
-                trans.setRGB(x, y, image.getRGB(x, iy));
-            }
-        }
-
-        return trans;
-    }
-
 }
@@ -194,7 +194,7 @@ public abstract class MercatorTiledImageLayerBase extends AbstractLayer {
         this.drawBoundingVolumes = drawBoundingVolumes;
     }
 
-    protected LevelSet getLevels() {
+    public LevelSet getLevels() {
         return levels;
     }
 
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import eu.mavinci.desktop.gui.wwext.MBasicMercatorTiledImageLayer;
+import eu.mavinci.desktop.gui.wwext.MercatorTileReprojection;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
+import gov.nasa.worldwind.terrain.BasicElevationModel;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.WWIO;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Tiles which are stored in the WorldWind file store, like the tiles of elevation models and of {@link
+ * MBasicMercatorTiledImageLayer}. The tiles are saved the same way the layer or model saves the tiles it downloads
+ * itself, so it finds them there when it is rendered.
+ */
+public class FileStoreSource extends PrefetchSource {
+
+    /** Saves a downloaded tile to the file it is loaded from. */
+    public interface TileSaver {
+        /** @return false if the content is no tile, e.g. an error page */
+        boolean save(Tile tile, String contentType, ByteBuffer data, File file) throws IOException;
+    }
+
+    /** a 256 pixel JPEG tile */
+    private static final long IMAGE_TILE_SIZE = 20_000;
+
+    /** a 512 pixel Mapbox terrain tile, more than geographic elevation tiles */
+    private static final long ELEVATION_TILE_SIZE = 150_000;
+
+    private final OkHttpClient httpClient;
+    private final TileSaver saver;
+
+    public FileStoreSource(
+            String name, LevelSet levels, long estimatedTileSize, OkHttpClient httpClient, TileSaver saver) {
+        super(name, levels, estimatedTileSize);
+        this.httpClient = httpClient;
+        this.saver = saver;
+    }
+
+    /** The tiles of an elevation model, which are stored as they are downloaded. */
+    public static FileStoreSource forElevationModel(BasicElevationModel model, OkHttpClient httpClient) {
+        return new FileStoreSource(
+            model.getName(),
+            model.getLevels(),
+            ELEVATION_TILE_SIZE,
+            httpClient,
+            (tile, contentType, data, file) -> {
+                if (contentType.contains("xml") || contentType.contains("html") || contentType.contains("text")) {
+                    return false;
+                }
+
+                MercatorTileReprojection.writeAtomically(
+                    file,
+                    temp -> {
+                        if (!WWIO.saveBuffer(data, temp)) {
+                            throw new IOException("cant lock " + temp);
+                        }
+                    });
+                return true;
+            });
+    }
+
+    /** The tiles of a Mercator layer, which are reprojected before they are stored. */
+    public static FileStoreSource forImageLayer(MBasicMercatorTiledImageLayer layer, OkHttpClient httpClient) {
+        return new FileStoreSource(
+            layer.getName(),
+            layer.getLevels(),
+            IMAGE_TILE_SIZE,
+            httpClient,
+            (tile, contentType, data, file) -> layer.saveTile((MercatorTextureTile)tile, contentType, data, file));
+    }
+
+    @Override
+    protected boolean isLocal(Tile tile, FileStore fileStore) {
+        URL url = fileStore.findFile(tile.getPath(), false);
+        return url != null && !WWIO.isFileOutOfDate(url, tile.getLevel().getExpiryTime());
+    }
+
+    @Override
+    protected long retrieve(Tile tile, FileStore fileStore) throws IOException {
+        URL url = tile.getResourceURL();
+        if (url == null) {
+            return 0;
+        }
+
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            int code = response.code();
+            if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return 0;
+            }
+
+            ResponseBody body = response.body();
+            if (code != HttpURLConnection.HTTP_OK || body == null) {
+                throw new IOException("HTTP " + code + " for " + url);
+            }
+
+            byte[] data = body.bytes();
+            File file = fileStore.newFile(tile.getPath());
+            if (file == null) {
+                throw new IOException("cant create " + tile.getPath() + " in the file store");
+            }
+
+            Files.createDirectories(file.getParentFile().toPath());
+            String contentType = response.header("Content-Type", "image/?");
+            if (!saver.save(tile, contentType, ByteBuffer.wrap(data), file)) {
+                return 0;
+            }
+
+            return data.length;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import com.intel.missioncontrol.map.worldwind.layers.mercator.FastMercatorTiledImageLayer;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Tiles of a {@link FastMercatorTiledImageLayer}, which doesn't use the file store but keeps the tiles in the HTTP
+ * cache of its client. Tiles are prefetched by requesting them with the same client.
+ */
+public class HttpCacheSource extends PrefetchSource {
+
+    /** a 256 pixel JPEG tile */
+    private static final long TILE_SIZE = 20_000;
+
+    /** only a cached response which is still fresh, otherwise a 504 */
+    private static final CacheControl ONLY_FRESH = new CacheControl.Builder().onlyIfCached().build();
+
+    private final OkHttpClient httpClient;
+
+    public HttpCacheSource(String name, LevelSet levels, OkHttpClient httpClient) {
+        super(name, levels, TILE_SIZE);
+        this.httpClient = httpClient;
+    }
+
+    public HttpCacheSource(FastMercatorTiledImageLayer layer) {
+        this(layer.getName(), layer.getLevels(), layer.getHttpClient());
+    }
+
+    @Override
+    protected boolean isLocal(Tile tile, FileStore fileStore) throws IOException {
+        URL url = tile.getResourceURL();
+        if (url == null) {
+            return true;
+        }
+
+        Request request = new Request.Builder().url(url).get().cacheControl(ONLY_FRESH).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            return response.code() != HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+        }
+    }
+
+    @Override
+    protected long retrieve(Tile tile, FileStore fileStore) throws IOException {
+        Request request = new Request.Builder().url(tile.getResourceURL()).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            int code = response.code();
+            if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return 0;
+            }
+
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + code + " for " + request.url());
+            }
+
+            // the response is only written to the cache once its body was read completely
+            return body.bytes().length;
+        }
+    }
+
+}
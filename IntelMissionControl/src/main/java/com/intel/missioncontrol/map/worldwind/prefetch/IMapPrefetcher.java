@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import com.intel.missioncontrol.mission.Mission;
+import gov.nasa.worldwind.event.BulkRetrievalListener;
+import java.util.List;
+import org.asyncfx.concurrent.Future;
+
+/** Downloads the map and the terrain of a mission area ahead of time, so the mission can be used offline. */
+public interface IMapPrefetcher {
+
+    /** @return the estimated number of bytes which still have to be downloaded for the area of the mission */
+    Future<Long> estimateMissingDataSizeAsync(Mission mission);
+
+    /**
+     * Starts downloading the tiles of the background map layers and of the elevation models which cover the flight
+     * plans of the mission. Tiles which were already downloaded are skipped.
+     *
+     * @param listener notified about every tile, can be null
+     * @return a thread per layer and elevation model, which reports the progress and is interrupted to cancel
+     */
+    List<PrefetchThread> prefetch(Mission mission, BulkRetrievalListener listener);
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import com.google.inject.Inject;
+import com.intel.missioncontrol.map.elevation.AElevationModelWrapper;
+import com.intel.missioncontrol.map.worldwind.IWWGlobes;
+import com.intel.missioncontrol.map.worldwind.WWMapModel;
+import com.intel.missioncontrol.map.worldwind.layers.mercator.FastMercatorTiledImageLayer;
+import com.intel.missioncontrol.mission.FlightPlan;
+import com.intel.missioncontrol.mission.Mission;
+import com.intel.missioncontrol.networking.INetworkInterceptor;
+import eu.mavinci.desktop.gui.wwext.MBasicMercatorTiledImageLayer;
+import eu.mavinci.desktop.helper.MathHelper;
+import gov.nasa.worldwind.event.BulkRetrievalListener;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globes.ElevationModel;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.terrain.BasicElevationModel;
+import gov.nasa.worldwind.terrain.CompoundElevationModel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.OkHttpClient;
+import org.asyncfx.concurrent.Dispatcher;
+import org.asyncfx.concurrent.Future;
+
+public class MapPrefetcher implements IMapPrefetcher {
+
+    /** the map around the flight plans which is needed to fly them, e.g. for take off and landing */
+    private static final double MARGIN_METERS = 500;
+
+    /** 0.5 m on the ground in radians, more detail than the map shows at the altitude of a flight plan */
+    private static final double IMAGE_RESOLUTION = 0.5 / 6378137;
+
+    private final WWMapModel mapModel;
+    private final IWWGlobes globes;
+    private final OkHttpClient httpClient;
+
+    @Inject
+    public MapPrefetcher(WWMapModel mapModel, IWWGlobes globes, INetworkInterceptor networkInterceptor) {
+        this.mapModel = mapModel;
+        this.globes = globes;
+        this.httpClient =
+            new OkHttpClient.Builder()
+                .addNetworkInterceptor(networkInterceptor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @Override
+    public Future<Long> estimateMissingDataSizeAsync(Mission mission) {
+        List<Sector> sectors = getSectors(mission);
+        return Dispatcher.background()
+            .getLaterAsync(
+                () -> {
+                    long size = 0;
+                    for (Map.Entry<PrefetchSource, Double> entry : getSources().entrySet()) {
+                        PrefetchSource source = entry.getKey();
+                        size +=
+                            source.getEstimatedMissingDataSize(
+                                sectors, entry.getValue(), source.getDefaultFileStore());
+                    }
+
+                    return size;
+                });
+    }
+
+    @Override
+    public List<PrefetchThread> prefetch(Mission mission, BulkRetrievalListener listener) {
+        List<Sector> sectors = getSectors(mission);
+        List<PrefetchThread> threads = new ArrayList<>();
+        if (sectors.isEmpty()) {
+            return threads;
+        }
+
+        for (Map.Entry<PrefetchSource, Double> entry : getSources().entrySet()) {
+            PrefetchSource source = entry.getKey();
+            PrefetchThread thread =
+                new PrefetchThread(
+                    source,
+                    sectors,
+                    entry.getValue(),
+                    source.getDefaultFileStore(),
+                    listener,
+                    PrefetchSource.DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+            thread.start();
+            threads.add(thread);
+        }
+
+        return threads;
+    }
+
+    private List<Sector> getSectors(Mission mission) {
+        List<Sector> sectors = new ArrayList<>();
+        for (FlightPlan flightPlan : mission.flightPlansProperty()) {
+            Sector sector = flightPlan.getSector();
+            if (sector != null && !sector.equals(Sector.EMPTY_SECTOR)) {
+                sectors.add(MathHelper.extendSector(sector, MARGIN_METERS));
+            }
+        }
+
+        return sectors;
+    }
+
+    /** @return the background layers and the elevation models which download tiles, with their resolution */
+    private Map<PrefetchSource, Double> getSources() {
+        Map<PrefetchSource, Double> sources = new LinkedHashMap<>();
+        for (Layer layer : mapModel.getBackgroundLayers()) {
+            if (!layer.isNetworkRetrievalEnabled()) {
+                continue;
+            }
+
+            if (layer instanceof FastMercatorTiledImageLayer) {
+                sources.put(new HttpCacheSource((FastMercatorTiledImageLayer)layer), IMAGE_RESOLUTION);
+            } else if (layer instanceof MBasicMercatorTiledImageLayer) {
+                sources.put(
+                    FileStoreSource.forImageLayer((MBasicMercatorTiledImageLayer)layer, httpClient), IMAGE_RESOLUTION);
+            }
+        }
+
+        addElevationSources(globes.getDefaultGlobe().getElevationModel(), sources);
+        return sources;
+    }
+
+    private void addElevationSources(ElevationModel model, Map<PrefetchSource, Double> sources) {
+        if (model instanceof CompoundElevationModel) {
+            for (ElevationModel child : ((CompoundElevationModel)model).getElevationModels()) {
+                addElevationSources(child, sources);
+            }
+        } else if (model instanceof AElevationModelWrapper) {
+            addElevationSources(((AElevationModelWrapper)model).getSlave(), sources);
+        } else if (model instanceof BasicElevationModel && model.isNetworkRetrievalEnabled()) {
+            // the most detailed terrain, the elevation of the flight plans depends on it
+            sources.put(FileStoreSource.forElevationModel((BasicElevationModel)model, httpClient), 0.0);
+        }
+    }
+
+}
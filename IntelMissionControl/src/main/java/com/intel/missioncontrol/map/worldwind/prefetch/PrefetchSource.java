@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.event.BulkRetrievalListener;
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.layers.mercator.MercatorSector;
+import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
+import gov.nasa.worldwind.retrieve.BulkRetrievable;
+import gov.nasa.worldwind.retrieve.BulkRetrievalThread;
+import gov.nasa.worldwind.util.Level;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileKey;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tiled data set which can be downloaded ahead of time, e.g. the imagery of a map layer or the tiles of an elevation
+ * model. Computes the tiles covering a sector on every level, in the geographic tiling of WorldWind or in the Mercator
+ * tiling of web maps, and checks whether they are available locally.
+ */
+public abstract class PrefetchSource implements BulkRetrievable {
+
+    public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 4;
+
+    /** at most this many tiles are checked to estimate how many tiles of a level are missing */
+    private static final int ESTIMATE_SAMPLES = 64;
+
+    private final String name;
+    private final LevelSet levels;
+    private final boolean mercator;
+    private final long estimatedTileSize;
+
+    protected PrefetchSource(String name, LevelSet levels, long estimatedTileSize) {
+        this.name = name;
+        this.levels = levels;
+        this.mercator = levels.getSector() instanceof MercatorSector;
+        this.estimatedTileSize = estimatedTileSize;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public LevelSet getLevels() {
+        return levels;
+    }
+
+    public boolean isMercator() {
+        return mercator;
+    }
+
+    /** @return the expected size of a tile in bytes */
+    public long getEstimatedTileSize() {
+        return estimatedTileSize;
+    }
+
+    /**
+     * @param resolution the size of a texel in radians of latitude, 0 for the most detailed level
+     * @return the number of the first level whose texels are at most the given size, or the last level
+     */
+    public int getLevelForResolution(double resolution) {
+        for (Level level : levels.getLevels()) {
+            if (!level.isEmpty() && level.getTexelSize() <= resolution) {
+                return level.getLevelNumber();
+            }
+        }
+
+        return levels.getLastLevel().getLevelNumber();
+    }
+
+    /** @return the tiles of a level intersecting any of the sectors, each tile once, ordered by row and column */
+    public List<Tile> getTiles(List<Sector> sectors, int levelNumber) {
+        Level level = levels.getLevel(levelNumber);
+        if (level == null || level.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<TileKey, Tile> tiles = new LinkedHashMap<>();
+        for (Sector requested : sectors) {
+            Sector sector = requested.intersection(levels.getSector());
+            if (sector == null) {
+                continue;
+            }
+
+            int firstRow = computeRow(level, sector.getMinLatitude());
+            int lastRow = computeRow(level, sector.getMaxLatitude());
+            int firstColumn = computeColumn(level, sector.getMinLongitude());
+            int lastColumn = computeColumn(level, sector.getMaxLongitude());
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    TileKey key = new TileKey(levelNumber, row, column, level.getCacheName());
+                    if (!tiles.containsKey(key)) {
+                        tiles.put(key, createTile(level, row, column));
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(tiles.values());
+    }
+
+    private int computeRow(Level level, Angle latitude) {
+        if (mercator) {
+            int maxRow = (1 << level.getLevelNumber()) - 1;
+            return Math.max(0, Math.min(maxRow, MercatorSector.computeRow(level.getLevelNumber(), latitude)));
+        }
+
+        LatLon origin = levels.getTileOrigin();
+        int row = Tile.computeRow(level.getTileDelta().getLatitude(), latitude, origin.getLatitude());
+        int maxRow = (int)Math.round(180 / level.getTileDelta().getLatitude().degrees) - 1;
+        return Math.max(0, Math.min(maxRow, row));
+    }
+
+    private int computeColumn(Level level, Angle longitude) {
+        LatLon origin = levels.getTileOrigin();
+        int column = Tile.computeColumn(level.getTileDelta().getLongitude(), longitude, origin.getLongitude());
+        int maxColumn = (int)Math.round(360 / level.getTileDelta().getLongitude().degrees) - 1;
+        return Math.max(0, Math.min(maxColumn, column));
+    }
+
+    private Tile createTile(Level level, int row, int column) {
+        if (!mercator) {
+            return new Tile(
+                levels.computeSectorForKey(new TileKey(level.getLevelNumber(), row, column, level.getCacheName())),
+                level,
+                row,
+                column);
+        }
+
+        // rows of a Mercator level split the Mercator range from -1 to 1 evenly
+        double delta = Math.pow(2, 1 - level.getLevelNumber());
+        double minLatPercent = -1 + delta * row;
+        Angle deltaLongitude = level.getTileDelta().getLongitude();
+        Angle minLongitude =
+            Tile.computeColumnLongitude(column, deltaLongitude, levels.getTileOrigin().getLongitude());
+        Angle maxLongitude = minLongitude.add(deltaLongitude);
+        return new MercatorTextureTile(
+            new MercatorSector(minLatPercent, minLatPercent + delta, minLongitude, maxLongitude), level, row, column);
+    }
+
+    /** @return whether the tile is available locally and doesn't need to be downloaded */
+    protected abstract boolean isLocal(Tile tile, FileStore fileStore) throws IOException;
+
+    /**
+     * Downloads a tile and stores it where the map finds it.
+     *
+     * @return the number of bytes downloaded, 0 if the server has no data for this tile
+     * @throws IOException if the tile could not be downloaded or stored, it is tried again by the next prefetch
+     */
+    protected abstract long retrieve(Tile tile, FileStore fileStore) throws IOException;
+
+    protected FileStore getDefaultFileStore() {
+        return WorldWind.getDataFileStore();
+    }
+
+    /** Counts the tiles of all levels up to the given one, see {@link #getTiles}. */
+    public long countTiles(List<Sector> sectors, int maxLevelNumber) {
+        long count = 0;
+        for (int levelNumber = 0; levelNumber <= maxLevelNumber; levelNumber++) {
+            count += getTiles(sectors, levelNumber).size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Estimates how many tiles of all levels up to the given one have to be downloaded. The most detailed level has
+     * the most tiles, only a sample of its tiles is checked and the other levels are assumed to be missing as much.
+     */
+    public long estimateMissingTiles(List<Sector> sectors, int maxLevelNumber, FileStore fileStore) {
+        List<Tile> tiles = getTiles(sectors, maxLevelNumber);
+        if (tiles.isEmpty()) {
+            return 0;
+        }
+
+        int samples = Math.min(ESTIMATE_SAMPLES, tiles.size());
+        int missing = 0;
+        for (int i = 0; i < samples; i++) {
+            Tile tile = tiles.get((int)((long)i * tiles.size() / samples));
+            try {
+                if (!levels.isResourceAbsent(tile) && !isLocal(tile, fileStore)) {
+                    missing++;
+                }
+            } catch (IOException e) {
+                missing++;
+            }
+        }
+
+        return Math.round(countTiles(sectors, maxLevelNumber) * missing / (double)samples);
+    }
+
+    @Override
+    public long getEstimatedMissingDataSize(Sector sector, double resolution) {
+        return getEstimatedMissingDataSize(sector, resolution, null);
+    }
+
+    @Override
+    public long getEstimatedMissingDataSize(Sector sector, double resolution, FileStore fileStore) {
+        return getEstimatedMissingDataSize(
+            Collections.singletonList(sector), resolution, fileStore != null ? fileStore : getDefaultFileStore());
+    }
+
+    /** @return the estimated number of bytes to download for the sectors, see {@link #estimateMissingTiles} */
+    public long getEstimatedMissingDataSize(List<Sector> sectors, double resolution, FileStore fileStore) {
+        return estimateMissingTiles(sectors, getLevelForResolution(resolution), fileStore) * estimatedTileSize;
+    }
+
+    @Override
+    public BulkRetrievalThread makeLocal(Sector sector, double resolution, BulkRetrievalListener listener) {
+        return makeLocal(sector, resolution, null, listener);
+    }
+
+    @Override
+    public BulkRetrievalThread makeLocal(
+            Sector sector, double resolution, FileStore fileStore, BulkRetrievalListener listener) {
+        PrefetchThread thread =
+            new PrefetchThread(
+                this,
+                Collections.singletonList(sector),
+                resolution,
+                fileStore != null ? fileStore : getDefaultFileStore(),
+                listener,
+                DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+        thread.start();
+        return thread;
+    }
+
+}
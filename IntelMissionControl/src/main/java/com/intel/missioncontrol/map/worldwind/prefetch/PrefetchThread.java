@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.event.BulkRetrievalEvent;
+import gov.nasa.worldwind.event.BulkRetrievalListener;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.retrieve.BulkRetrievalThread;
+import gov.nasa.worldwind.util.Tile;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads all tiles of a {@link PrefetchSource} covering some sectors, from the coarsest level to the level of the
+ * requested resolution, with a bounded number of concurrent downloads. Tiles which are available locally are skipped,
+ * so a prefetch which was interrupted or lost connectivity continues where it stopped when it is started again.
+ *
+ * <p>The progress counts tiles which were downloaded or found locally, the total size is the estimated size of all
+ * missing tiles, refined with the average size of the tiles downloaded so far. Tiles the server has no data for are
+ * taken off the total. Listeners are notified on the download threads.
+ */
+public class PrefetchThread extends BulkRetrievalThread {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchThread.class);
+
+    private final PrefetchSource source;
+    private final List<Sector> sectors;
+    private final int maxConcurrentDownloads;
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private long missingCount;
+    private long downloadedCount;
+    private long downloadedSize;
+
+    public PrefetchThread(
+            PrefetchSource source,
+            List<Sector> sectors,
+            double resolution,
+            FileStore fileStore,
+            BulkRetrievalListener listener,
+            int maxConcurrentDownloads) {
+        super(source, Sector.union(sectors), resolution, fileStore, listener);
+        this.source = source;
+        this.sectors = sectors;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        setName("prefetch-" + source.getName());
+        setDaemon(true);
+    }
+
+    /** @return the number of tiles which could not be downloaded and are tried again by the next prefetch */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public void run() {
+        int maxLevel = source.getLevelForResolution(resolution);
+        long totalCount = source.countTiles(sectors, maxLevel);
+        long missingCount = source.estimateMissingTiles(sectors, maxLevel, fileStore);
+        synchronized (progress) {
+            this.missingCount = missingCount;
+            progress.setTotalCount(totalCount);
+            progress.setTotalSize(missingCount * source.getEstimatedTileSize());
+            progress.setLastUpdateTime(System.currentTimeMillis());
+        }
+
+        ExecutorService executor =
+            Executors.newFixedThreadPool(
+                maxConcurrentDownloads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat(getName() + "-%d").build());
+        // keeps the queue of the executor short, the tiles of a level are only created when they are needed
+        Semaphore downloads = new Semaphore(2 * maxConcurrentDownloads);
+        try {
+            for (int level = 0; level <= maxLevel; level++) {
+                for (Tile tile : source.getTiles(sectors, level)) {
+                    downloads.acquire();
+                    executor.execute(
+                        () -> {
+                            try {
+                                fetch(tile);
+                            } finally {
+                                downloads.release();
+                            }
+                        });
+                }
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // the interrupt of this thread cancels the prefetch
+            }
+        } catch (InterruptedException e) {
+            LOGGER.info("prefetch of {} cancelled", source.getName());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        synchronized (progress) {
+            LOGGER.info(
+                "prefetched {} of {} tiles of {}, downloaded {} tiles with {} bytes, {} failed",
+                progress.getCurrentCount(),
+                progress.getTotalCount(),
+                source.getName(),
+                downloadedCount,
+                downloadedSize,
+                failedCount.get());
+        }
+    }
+
+    private void fetch(Tile tile) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+
+        try {
+            if (source.getLevels().isResourceAbsent(tile) || source.isLocal(tile, fileStore)) {
+                countTile(0, false);
+                return;
+            }
+
+            long size = source.retrieve(tile, fileStore);
+            if (size <= 0) {
+                source.getLevels().markResourceAbsent(tile);
+                countTile(0, true);
+                return;
+            }
+
+            countTile(size, false);
+            notifyListeners(BulkRetrievalEvent.RETRIEVAL_SUCCEEDED, tile);
+        } catch (IOException | RuntimeException e) {
+            failedCount.incrementAndGet();
+            LOGGER.debug("cant prefetch " + tile.getPath() + " of " + source.getName(), e);
+            notifyListeners(BulkRetrievalEvent.RETRIEVAL_FAILED, tile);
+        }
+    }
+
+    private void countTile(long size, boolean absent) {
+        synchronized (progress) {
+            if (absent) {
+                progress.setTotalCount(progress.getTotalCount() - 1);
+            } else {
+                progress.setCurrentCount(progress.getCurrentCount() + 1);
+            }
+
+            if (size > 0) {
+                downloadedCount++;
+                downloadedSize += size;
+                progress.setCurrentSize(downloadedSize);
+                // the tiles still missing are expected to be as large as the ones downloaded so far
+                long remainingCount = Math.max(0, missingCount - downloadedCount);
+                progress.setTotalSize(downloadedSize + remainingCount * downloadedSize / downloadedCount);
+            }
+
+            progress.setLastUpdateTime(System.currentTimeMillis());
+        }
+    }
+
+    private void notifyListeners(String eventType, Tile tile) {
+        if (hasRetrievalListeners()) {
+            callRetrievalListeners(new BulkRetrievalEvent(source, eventType, tile.getPath()));
+        }
+    }
+
+}
@@ -18,16 +18,14 @@ import com.intel.missioncontrol.helper.MavinciObjectFactory;
 import com.intel.missioncontrol.settings.ISettingsManager;
 import com.intel.missioncontrol.settings.SrsSettings;
 import eu.mavinci.core.flightplan.CFlightplan;
-import eu.mavinci.core.flightplan.CPicArea;
-import eu.mavinci.core.flightplan.visitors.ExtractPicAreasVisitor;
 import eu.mavinci.core.helper.MinMaxPair;
 import eu.mavinci.desktop.helper.FileHelper;
 import eu.mavinci.desktop.helper.MFileFilter;
 import eu.mavinci.desktop.helper.gdal.ISrsManager;
 import eu.mavinci.desktop.helper.gdal.MSpatialReference;
+import eu.mavinci.flightplan.FlightLinesRecomputer;
 import eu.mavinci.flightplan.Flightplan;
 import eu.mavinci.flightplan.InvalidFlightPlanFileException;
-import eu.mavinci.flightplan.PicArea;
 import eu.mavinci.geo.ISectorReferenced;
 import eu.mavinci.plane.Airplane;
 import eu.mavinci.plane.IAirplane;
@@ -720,14 +718,7 @@ public class Mission implements Comparable<Mission>, ISectorReferenced {
 
     // legacy piece from FPManager
     private void recomputeFPOnAdding(CFlightplan fp) {
-        ExtractPicAreasVisitor vis = new ExtractPicAreasVisitor();
-        vis.startVisit(fp);
-        for (CPicArea cPicArea : vis.picAreas) {
-            if (cPicArea instanceof PicArea) {
-                PicArea picArea = (PicArea)cPicArea;
-                picArea.computeFlightLines(true);
-            }
-        }
+        FlightLinesRecomputer.computeFlightLines(fp, true);
     }
 
     public ObjectProperty<Matching> currentMatchingProperty() {
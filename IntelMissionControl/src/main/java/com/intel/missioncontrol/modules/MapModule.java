@@ -43,6 +43,8 @@ import com.intel.missioncontrol.map.worldwind.WWMapView;
 import com.intel.missioncontrol.map.worldwind.WorldWindowProvider;
 import com.intel.missioncontrol.map.worldwind.impl.IScreenshotManager;
 import com.intel.missioncontrol.map.worldwind.impl.ScreenshotManager;
+import com.intel.missioncontrol.map.worldwind.prefetch.IMapPrefetcher;
+import com.intel.missioncontrol.map.worldwind.prefetch.MapPrefetcher;
 import com.intel.missioncontrol.ui.navbar.layers.IMapClearingCenter;
 import com.intel.missioncontrol.ui.navbar.layers.MapClearingCenter;
 import eu.mavinci.desktop.gui.wwext.search.SearchManager;
@@ -96,6 +98,7 @@ public final class MapModule extends AbstractModule {
         bind(IMapCreditsManager.class).to(MapCreditsManager.class).in(Singleton.class);
         bind(AirspacesProvidersCredits.class).asEagerSingleton();
         bind(IScreenshotManager.class).to(ScreenshotManager.class);
+        bind(IMapPrefetcher.class).to(MapPrefetcher.class).in(scope);
     }
 
 }
@@ -91,6 +91,9 @@ public class AirspacesProvidersSettings implements ISettings {
     private final AsyncDoubleProperty minimumVerticalDistance =
         new SimpleAsyncDoubleProperty(this, new PropertyMetadata.Builder<Number>().initialValue(300).create()); // meter
 
+    private final AsyncDoubleProperty conflictPredictionHorizon =
+        new SimpleAsyncDoubleProperty(this, new PropertyMetadata.Builder<Number>().initialValue(60).create()); // seconds
+
     private final AsyncObjectProperty<AirspaceProvider> airspaceProvider =
         new SimpleAsyncObjectProperty<>(
             this, new PropertyMetadata.Builder<AirspaceProvider>().initialValue(AirspaceProvider.AIRMAP2).create());
@@ -240,6 +243,14 @@ public class AirspacesProvidersSettings implements ISettings {
         return minimumVerticalDistance.get();
     }
 
+    public AsyncDoubleProperty conflictPredictionHorizonProperty() {
+        return conflictPredictionHorizon;
+    }
+
+    public Number getConflictPredictionHorizon() {
+        return conflictPredictionHorizon.get();
+    }
+
     public AsyncObjectProperty<AirspaceProvider> airspaceProviderProperty() {
         return airspaceProvider;
     }
@@ -108,6 +108,16 @@ public class ExpertSettings implements ISettings {
 
     private final IntegerProperty exifPreviewWidth = new SimpleIntegerProperty(this, "exifPreviewWidth", 160);
 
+    // InPlaceExifWriter
+    private final AsyncBooleanProperty useInPlaceExifWriter =
+        new SimpleAsyncBooleanProperty(this, new PropertyMetadata.Builder<Boolean>().initialValue(true).create());
+
+    private final IntegerProperty exifWriterThreads = new SimpleIntegerProperty(this, "exifWriterThreads", 4);
+
+    // binary cache of the image records of a matching, next to dataset.ptg
+    private final AsyncBooleanProperty useBinaryMatchingCache =
+        new SimpleAsyncBooleanProperty(this, new PropertyMetadata.Builder<Boolean>().initialValue(true).create());
+
     public boolean getEnableAutoPLGdownload() {
         return enableAutoPLGdownload.get();
     }
@@ -184,6 +194,18 @@ public class ExpertSettings implements ISettings {
         return exifPreviewWidth.get();
     }
 
+    public boolean getUseInPlaceExifWriter() {
+        return useInPlaceExifWriter.get();
+    }
+
+    public int getExifWriterThreads() {
+        return exifWriterThreads.get();
+    }
+
+    public boolean getUseBinaryMatchingCache() {
+        return useBinaryMatchingCache.get();
+    }
+
     public int getAllowReconnectAfterMs() {
         return allowReconnectAfterMs.get();
     }
@@ -79,6 +79,9 @@ public class GeneralSettings implements ISettings, IQuantityStyleProvider {
 
     private AsyncBooleanProperty profilingEnabled = new SimpleAsyncBooleanProperty(this);
 
+    private AsyncBooleanProperty flightRecordingEnabled =
+        new SimpleAsyncBooleanProperty(this, new PropertyMetadata.Builder<Boolean>().initialValue(true).create());
+
     private AsyncBooleanProperty eraseLogsAfterCopy = new SimpleAsyncBooleanProperty(this);
 
     private AsyncDoubleProperty aoiMaximizationAspectRatio =
@@ -315,6 +318,14 @@ public class GeneralSettings implements ISettings, IQuantityStyleProvider {
         return profilingEnabled.get();
     }
 
+    public AsyncBooleanProperty flightRecordingEnabledProperty() {
+        return flightRecordingEnabled;
+    }
+
+    public boolean getFlightRecordingEnabled() {
+        return flightRecordingEnabled.get();
+    }
+
     public AsyncBooleanProperty eraseLogsAfterCopyProperty() {
         return eraseLogsAfterCopy;
     }
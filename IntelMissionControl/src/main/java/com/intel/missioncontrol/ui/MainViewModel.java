@@ -26,6 +26,7 @@ import com.intel.missioncontrol.map.credits.MapCreditViewModel;
 import com.intel.missioncontrol.map.elevation.IElevationModel;
 import com.intel.missioncontrol.map.worldwind.IWWMapModel;
 import com.intel.missioncontrol.map.worldwind.IWWMapView;
+import com.intel.missioncontrol.map.worldwind.prefetch.IMapPrefetcher;
 import com.intel.missioncontrol.measure.AngleStyle;
 import com.intel.missioncontrol.mission.IMissionManager;
 import com.intel.missioncontrol.mission.MatchingStatus;
@@ -200,6 +201,8 @@ public class MainViewModel extends DialogViewModel<Void, Void> {
             }
         };
     private final ILinkBoxConnectionService linkBoxConnectionService;
+    private final IMapPrefetcher mapPrefetcher;
+    private final IBackgroundTaskManager backgroundTaskManager;
 
     @InjectScope
     private MainScope mainScope;
@@ -244,7 +247,8 @@ public class MainViewModel extends DialogViewModel<Void, Void> {
             VisibilityTracker visibilityTracker,
             IMapCreditsManager mapCreditsManager,
             Mission.Factory missionFactory,
-            ILinkBoxConnectionService linkBoxConnectionService) {
+            ILinkBoxConnectionService linkBoxConnectionService,
+            IMapPrefetcher mapPrefetcher) {
         this.mapDispatcher = mapDispatcher;
         this.mapModel = mapModel;
         this.mapView = mapView;
@@ -271,6 +275,8 @@ public class MainViewModel extends DialogViewModel<Void, Void> {
         this.selectionManager = selectionManager;
         this.missionFactory = missionFactory;
         this.linkBoxConnectionService = linkBoxConnectionService;
+        this.mapPrefetcher = mapPrefetcher;
+        this.backgroundTaskManager = backgroundTaskManager;
         srsSettings = settingsManager.getSection(SrsSettings.class);
 
         srsMission.bindBidirectional(
@@ -506,7 +512,9 @@ public class MainViewModel extends DialogViewModel<Void, Void> {
                 mapModel,
                 mapView,
                 hardwareConfigurationManager,
-                flightScope);
+                flightScope,
+                mapPrefetcher,
+                backgroundTaskManager);
 
         applicationContext.currentMissionProperty().addListener(this::currentMissionChanged);
 
@@ -34,6 +34,11 @@ public interface IUILiveVideoStream {
             this.height = height;
             this.event = event;
         }
+
+        /** @return the BGRA pixels, or null for a frame which only reports an event */
+        public ByteBuffer getPixelBuffer() {
+            return pixelBuffer;
+        }
     }
 
     void addVideoStreamListener(IUILiveVideoStreamListener handler);
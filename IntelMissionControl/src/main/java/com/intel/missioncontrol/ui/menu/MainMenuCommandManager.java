@@ -18,6 +18,8 @@ import com.intel.missioncontrol.helper.ILanguageHelper;
 import com.intel.missioncontrol.helper.WindowHelper;
 import com.intel.missioncontrol.map.worldwind.IWWMapModel;
 import com.intel.missioncontrol.map.worldwind.IWWMapView;
+import com.intel.missioncontrol.map.worldwind.prefetch.IMapPrefetcher;
+import com.intel.missioncontrol.map.worldwind.prefetch.PrefetchThread;
 import com.intel.missioncontrol.mission.FlightPlan;
 import com.intel.missioncontrol.mission.IMissionManager;
 import com.intel.missioncontrol.mission.ISaveable;
@@ -43,6 +45,7 @@ import com.intel.missioncontrol.ui.navigation.WorkflowStep;
 import com.intel.missioncontrol.ui.notifications.Toast;
 import com.intel.missioncontrol.ui.notifications.ToastType;
 import com.intel.missioncontrol.ui.sidepane.flight.FlightScope;
+import com.intel.missioncontrol.utils.IBackgroundTaskManager;
 import de.saxsys.mvvmfx.ViewModel;
 import eu.mavinci.core.licence.ILicenceManager;
 import eu.mavinci.desktop.helper.FileFilter;
@@ -57,11 +60,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.logging.Level;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.ObservableList;
 import org.apache.commons.io.FileUtils;
 import org.asyncfx.beans.property.PropertyPath;
@@ -86,6 +92,11 @@ public class MainMenuCommandManager {
     private final ISupportManager supportManager;
     private final ILicenceManager licenceManager;
     private final ISettingsManager settingsManager;
+    private final IMapPrefetcher mapPrefetcher;
+    private final IBackgroundTaskManager backgroundTaskManager;
+
+    /** only one prefetch runs at a time, the menu command is disabled until it is finished */
+    private final BooleanProperty prefetchingMap = new SimpleBooleanProperty();
 
     @Inject
     public MainMenuCommandManager(
@@ -104,7 +115,9 @@ public class MainMenuCommandManager {
             IWWMapModel mapModel,
             IWWMapView mapView,
             IHardwareConfigurationManager hardwareConfigurationManager,
-            FlightScope flightScope) {
+            FlightScope flightScope,
+            IMapPrefetcher mapPrefetcher,
+            IBackgroundTaskManager backgroundTaskManager) {
         this.ownerViewModel = ownerViewModel;
         this.applicationContext = applicationContext;
         this.languageHelper = languageHelper;
@@ -116,6 +129,8 @@ public class MainMenuCommandManager {
         this.supportManager = supportManager;
         this.licenceManager = licenceManager;
         this.settingsManager = settingsManager;
+        this.mapPrefetcher = mapPrefetcher;
+        this.backgroundTaskManager = backgroundTaskManager;
 
         BooleanBinding allowProjectChange =
             Bindings.createBooleanBinding(
@@ -173,6 +188,11 @@ public class MainMenuCommandManager {
                 },
                 applicationContext.currentMissionProperty().isNotNull());
 
+        menuModel
+            .find(MainMenuModel.Project.PREFETCH_MAP)
+            .setActionHandler(
+                this::prefetchMap, applicationContext.currentMissionProperty().isNotNull().and(prefetchingMap.not()));
+
         menuModel
             .find(MainMenuModel.Dataset.OPEN)
             .setActionHandler(
@@ -395,6 +415,8 @@ public class MainMenuCommandManager {
                     }
                 });
 
+        menuModel.find(MainMenuModel.Debug.EXPORT_FLIGHT_RECORDING).setActionHandler(this::exportFlightRecording);
+
         menuModel
             .find(MainMenuModel.Debug.BREAK_AFTER_50)
             .checkedProperty()
@@ -515,6 +537,131 @@ public class MainMenuCommandManager {
         }
     }
 
+    private void exportFlightRecording() {
+        Path file =
+            dialogService.requestFileSaveDialog(
+                ownerViewModel,
+                languageHelper.toFriendlyName(MainMenuModel.Debug.EXPORT_FLIGHT_RECORDING),
+                null,
+                FileFilter.JFR);
+        if (file == null) {
+            return;
+        }
+
+        Dispatcher.background()
+            .run(
+                () -> {
+                    try {
+                        supportManager.exportFlightRecording(file);
+                        applicationContext.addToast(
+                            Toast.of(ToastType.INFO)
+                                .setText(
+                                    languageHelper.getString(
+                                        "com.intel.missioncontrol.ui.menu.MainMenuCommandManager.flightRecordingExported",
+                                        file))
+                                .create());
+                    } catch (IOException | IllegalStateException e) {
+                        Debug.getLog().log(Level.WARNING, "cant export flight recording to " + file, e);
+                        applicationContext.addToast(
+                            Toast.of(ToastType.ALERT)
+                                .setText(
+                                    languageHelper.getString(
+                                        "com.intel.missioncontrol.ui.menu.MainMenuCommandManager.flightRecordingNotExported"))
+                                .setShowIcon(true)
+                                .create());
+                    }
+                });
+    }
+
+    private void prefetchMap() {
+        if (prefetchingMap.get()) {
+            return;
+        }
+
+        MapPrefetchTask task = new MapPrefetchTask(applicationContext.getCurrentMission());
+        prefetchingMap.set(true);
+        task.setOnFinished(event -> prefetchingMap.set(false));
+        backgroundTaskManager.submitTask(task);
+    }
+
+    /** Downloads the map of a mission, the progress is the number of tiles done out of all prefetch threads. */
+    private class MapPrefetchTask extends IBackgroundTaskManager.BackgroundTask {
+        private static final long PROGRESS_INTERVAL_MILLIS = 500;
+
+        private final Mission mission;
+        private int failedCount;
+
+        MapPrefetchTask(Mission mission) {
+            super(
+                languageHelper.getString(
+                    "com.intel.missioncontrol.ui.menu.MainMenuCommandManager.mapPrefetchTask", mission.getName()));
+            this.mission = mission;
+        }
+
+        @Override
+        protected Void call() throws Exception {
+            List<PrefetchThread> threads = mapPrefetcher.prefetch(mission, null);
+            try {
+                boolean alive = true;
+                while (alive) {
+                    alive = false;
+                    long currentCount = 0;
+                    long totalCount = 0;
+                    for (PrefetchThread thread : threads) {
+                        alive |= thread.isAlive();
+                        synchronized (thread.getProgress()) {
+                            currentCount += thread.getProgress().getCurrentCount();
+                            totalCount += thread.getProgress().getTotalCount();
+                        }
+                    }
+
+                    if (totalCount > 0) {
+                        updateProgress(currentCount, totalCount);
+                    }
+
+                    if (alive) {
+                        Thread.sleep(PROGRESS_INTERVAL_MILLIS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the task was cancelled
+                threads.forEach(Thread::interrupt);
+                throw e;
+            }
+
+            for (PrefetchThread thread : threads) {
+                failedCount += thread.getFailedCount();
+            }
+
+            if (failedCount > 0) {
+                Debug.getLog().log(Level.WARNING, "cant download " + failedCount + " map tiles");
+            }
+
+            return null;
+        }
+
+        @Override
+        public Toast getSucceededToast(ILanguageHelper languageHelper) {
+            if (failedCount == 0) {
+                return Toast.of(ToastType.INFO)
+                    .setText(
+                        languageHelper.getString(
+                            "com.intel.missioncontrol.ui.menu.MainMenuCommandManager.mapPrefetched",
+                            mission.getName()))
+                    .create();
+            }
+
+            return Toast.of(ToastType.ALERT)
+                .setText(
+                    languageHelper.getString(
+                        "com.intel.missioncontrol.ui.menu.MainMenuCommandManager.mapNotPrefetched",
+                        failedCount,
+                        mission.getName()))
+                .setShowIcon(true)
+                .create();
+        }
+    }
+
     private boolean isFlightplanNameValid(String flightPlanName) {
         Mission currentMission = applicationContext.getCurrentMission();
         int duplicates =
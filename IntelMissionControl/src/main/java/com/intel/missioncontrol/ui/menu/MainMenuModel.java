@@ -52,7 +52,11 @@ public class MainMenuModel {
                                 MenuModel.item(
                                         Project.SHOW,
                                         languageHelper.toFriendlyName(Project.SHOW),
-                                        languageHelper.toFriendlyName(ProjectText.SHOW))),
+                                        languageHelper.toFriendlyName(ProjectText.SHOW)),
+                                MenuModel.item(
+                                        Project.PREFETCH_MAP,
+                                        languageHelper.toFriendlyName(Project.PREFETCH_MAP),
+                                        languageHelper.toFriendlyName(ProjectText.PREFETCH_MAP))),
                         MenuModel.group(
                                 MenuModel.item(
                                         Project.EXIT,
@@ -273,6 +277,9 @@ public class MainMenuModel {
                         languageHelper.toFriendlyName(Debug.MENU_CAPTION),
                         MenuModel.item(Debug.RELOAD_CSS, languageHelper.toFriendlyName(Debug.RELOAD_CSS)),
                         MenuModel.checkItem(Debug.REPORT_DIAGNOSTICS, languageHelper.toFriendlyName(Debug.REPORT_DIAGNOSTICS)),
+                        MenuModel.item(
+                                Debug.EXPORT_FLIGHT_RECORDING,
+                                languageHelper.toFriendlyName(Debug.EXPORT_FLIGHT_RECORDING)),
                         MenuModel.menu(
                                 Debug.BREAK_AFTER,
                                 languageHelper.toFriendlyName(Debug.BREAK_AFTER),
@@ -294,7 +301,8 @@ public class MainMenuModel {
         RENAME,
         CLONE,
         EXIT,
-        SHOW;
+        SHOW,
+        PREFETCH_MAP;
 
         @Nullable
         URL getIcon() {
@@ -318,7 +326,8 @@ public class MainMenuModel {
         RENAME,
         CLONE,
         EXIT,
-        SHOW
+        SHOW,
+        PREFETCH_MAP
     }
 
     public enum FlightPlan implements IKeepAll {
@@ -480,6 +489,7 @@ public class MainMenuModel {
         MENU_CAPTION,
         RELOAD_CSS,
         REPORT_DIAGNOSTICS,
+        EXPORT_FLIGHT_RECORDING,
         BREAK_AFTER,
         BREAK_AFTER_NEVER,
         BREAK_AFTER_50,
@@ -15,7 +15,7 @@ import com.intel.missioncontrol.mission.FlightPlan;
 import com.intel.missioncontrol.ui.validation.ValidationMessageCategory;
 import eu.mavinci.flightplan.computation.FPsim;
 
-/** check A-TODO: flying within max. line of sight for estimated takeoff */
+/** check A-TODO: flying within max. line of sight for estimated takeoff, and not hidden behind terrain */
 public class LineOfSightValidator extends OnFlightplanRecomputedValidator {
 
     public interface Factory {
@@ -61,6 +61,15 @@ public class LineOfSightValidator extends OnFlightplanRecomputedValidator {
                 ValidationMessageCategory.NORMAL);
         }
 
+        if (simResult.lineOfSightOccludedCount > 0) {
+            addWarning(
+                languageHelper.getString(
+                    className + ".terrainOccluded",
+                    simResult.lineOfSightOccludedCount,
+                    simResult.lineOfSightCheckedCount),
+                ValidationMessageCategory.NORMAL);
+        }
+
         return true;
     }
 
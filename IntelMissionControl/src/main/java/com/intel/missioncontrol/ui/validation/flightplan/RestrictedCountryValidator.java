@@ -15,6 +15,8 @@ import com.intel.missioncontrol.mission.FlightPlan;
 import com.intel.missioncontrol.ui.validation.ValidationMessageCategory;
 import eu.mavinci.geo.Country;
 import eu.mavinci.geo.ICountryDetector;
+import gov.nasa.worldwind.geom.LatLon;
+import java.util.List;
 
 /** check A-08: flight is within restricted country */
 public class RestrictedCountryValidator extends OnFlightplanChangedValidator {
@@ -40,8 +42,9 @@ public class RestrictedCountryValidator extends OnFlightplanChangedValidator {
 
     @Override
     protected boolean onInvalidated(FlightPlan flightplan) {
-        if (!countryDetector.allowProceed(flightplan.getSector())) {
-            Country country = countryDetector.getFirstCountry(flightplan.getSector());
+        List<LatLon> positions = flightplan.getLegacyFlightplan().getCountryCheckPositions();
+        if (!countryDetector.allowProceed(positions, false)) {
+            Country country = getFirstCountry(positions);
             Ensure.notNull(country, "country");
             addWarning(
                 languageHelper.getString(className + ".restricted", "" + country.name),
@@ -51,4 +54,24 @@ public class RestrictedCountryValidator extends OnFlightplanChangedValidator {
         return true;
     }
 
+    /** the first restricted country close to any of the positions, or else the first country at all */
+    private Country getFirstCountry(List<LatLon> positions) {
+        Country first = null;
+        for (Country country : countryDetector.getFirstCountries(positions)) {
+            if (country == null) {
+                continue;
+            }
+
+            if (country.isRestricted) {
+                return country;
+            }
+
+            if (first == null) {
+                first = country;
+            }
+        }
+
+        return first;
+    }
+
 }
@@ -356,6 +356,20 @@ public class Airspace implements IAirspace, Serializable {
 			return null;
 	}
 	
+	public Double getCeilingReferenceGround() {
+		if (ceiling_reference_is_ground_active)
+			return ceiling_meters_ground;
+		else
+			return null;
+	}
+
+	public Double getCeilingReferenceSeaLevel() {
+		if (ceiling_reference_is_seaLevel_active)
+			return ceiling_meters_seaLevel;
+		else
+			return null;
+	}
+	
 	public double getFloorReferenceGroundOrSeaLevel() {
 		if (floor_reference_is_ground_active)
 			return floor_meters_ground;
@@ -59,6 +59,14 @@ public class CircleAirspace extends Airspace {
         }
     }
 
+    public LatLon getCenter() {
+        return center;
+    }
+
+    public double getRadiusMeters() {
+        return radius_meters;
+    }
+
     private static final int DEFAULT_CRICLE_SAMPLING = 20;
     private double radius_meters;
     private LatLon center;
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.desktop.listener;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Weak listener list for events which are fired at a high rate, like telemetry.
+ *
+ * <p>In contrast to {@link WeakListenerList} the listeners are kept in an array, which is copied whenever the list is
+ * modified. Firing an event walks the current {@link Snapshot} by index, so it neither locks nor allocates, and
+ * listeners added or removed while an event is fired only see the next one. Collected listeners are skipped and dropped
+ * with the next modification.
+ */
+public class WeakListenerArray<T> implements Iterable<T> {
+
+    public static final class Snapshot<T> {
+        private final WeakReference<T>[] listeners;
+
+        private Snapshot(WeakReference<T>[] listeners) {
+            this.listeners = listeners;
+        }
+
+        public int size() {
+            return listeners.length;
+        }
+
+        /** @return the listener at this index, or null if it was garbage collected in the meantime */
+        public T get(int index) {
+            return listeners[index].get();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final Snapshot EMPTY = new Snapshot<>(new WeakReference[0]);
+
+    public final String listName;
+
+    @SuppressWarnings("unchecked")
+    private volatile Snapshot<T> snapshot = EMPTY;
+
+    public WeakListenerArray(String name) {
+        listName = name;
+    }
+
+    /** @return the listeners at the time of the call, to be iterated by index */
+    public Snapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    public synchronized boolean add(T listener) {
+        if (contains(listener)) {
+            return false;
+        }
+
+        insert(Integer.MAX_VALUE, listener);
+        return true;
+    }
+
+    public synchronized void addAtBegin(T listener) {
+        remove(listener);
+        insert(0, listener);
+    }
+
+    public synchronized void addAtSecond(T listener) {
+        remove(listener);
+        insert(1, listener);
+    }
+
+    public synchronized boolean remove(Object listener) {
+        if (listener == null) {
+            return false;
+        }
+
+        WeakReference<T>[] listeners = snapshot.listeners;
+        for (int i = 0; i != listeners.length; i++) {
+            if (listeners[i].get() == listener) {
+                WeakReference<T>[] copy = newArray(listeners.length - 1);
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, copy.length - i);
+                snapshot = new Snapshot<>(pruned(copy, 0));
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean contains(Object listener) {
+        if (listener == null) {
+            return false;
+        }
+
+        WeakReference<T>[] listeners = snapshot.listeners;
+        for (WeakReference<T> reference : listeners) {
+            if (reference.get() == listener) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized void clear() {
+        snapshot = EMPTY;
+    }
+
+    public int size() {
+        return snapshot.listeners.length;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.listeners.length == 0;
+    }
+
+    private void insert(int index, T listener) {
+        WeakReference<T>[] listeners = pruned(snapshot.listeners, 1);
+        int count = listeners.length - 1;
+        index = Math.min(index, count);
+        System.arraycopy(listeners, index, listeners, index + 1, count - index);
+        listeners[index] = new WeakReference<>(listener);
+        snapshot = new Snapshot<>(listeners);
+    }
+
+    /** Copies the references which weren't cleared yet, leaving the given number of empty slots at the end. */
+    private static <T> WeakReference<T>[] pruned(WeakReference<T>[] listeners, int extraSlots) {
+        int count = 0;
+        for (WeakReference<T> reference : listeners) {
+            if (reference.get() != null) {
+                count++;
+            }
+        }
+
+        if (count == listeners.length && extraSlots == 0) {
+            return listeners;
+        }
+
+        WeakReference<T>[] copy = newArray(count + extraSlots);
+        int i = 0;
+        for (WeakReference<T> reference : listeners) {
+            if (reference.get() != null) {
+                copy[i++] = reference;
+            }
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> WeakReference<T>[] newArray(int length) {
+        return new WeakReference[length];
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new SnapshotIterator<>(snapshot, false);
+    }
+
+    /** Iterates the listeners in reversed order, e.g. to close the last added ones first. */
+    public Iterable<T> reversed() {
+        return () -> new SnapshotIterator<>(snapshot, true);
+    }
+
+    @Override
+    public String toString() {
+        return listName + "[" + size() + "]";
+    }
+
+    private static class SnapshotIterator<T> implements Iterator<T> {
+        private final Snapshot<T> snapshot;
+        private final boolean reversed;
+        private int position;
+        private T next;
+
+        SnapshotIterator(Snapshot<T> snapshot, boolean reversed) {
+            this.snapshot = snapshot;
+            this.reversed = reversed;
+            position = reversed ? snapshot.size() - 1 : 0;
+            findNext();
+        }
+
+        private void findNext() {
+            next = null;
+            while (next == null && position >= 0 && position < snapshot.size()) {
+                next = snapshot.get(position);
+                position += reversed ? -1 : 1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            T current = next;
+            findNext();
+            return current;
+        }
+    }
+
+}
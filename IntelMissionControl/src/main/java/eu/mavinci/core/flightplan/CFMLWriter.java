@@ -607,6 +607,9 @@ public class CFMLWriter {
                 Tokens.BLADE_PITCH,
                 Tokens.BLADE_START_ROTATION,
                 Tokens.BLADE_COVER_LENGTH,
+                //////////////////////////////////////////////////// computed flight lines
+                Tokens.FLIGHT_LINES_INPUT_HASH,
+                Tokens.FLIGHT_LINES_FIRST_ID,
             };
 
         String[] vals =
@@ -677,6 +680,10 @@ public class CFMLWriter {
                 String.valueOf(area.getWindmillBladePitch()),
                 String.valueOf(area.getWindmillBladeStartRotation()),
                 String.valueOf(area.getWindmillBladeCoverLength()),
+
+                //////////////////////////////////////////////////// computed flight lines
+                Long.toString(area.getFlightLinesInputHash()),
+                Integer.toString(area.getFlightLinesFirstId()),
             };
 
         xml.start(Tokens.PIC_AREA, attr, vals);
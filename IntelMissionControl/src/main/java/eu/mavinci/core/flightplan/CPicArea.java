@@ -761,6 +761,19 @@ public abstract class CPicArea extends AReentryContainer implements IMuteable, I
         return false;
     }
 
+    /** fingerprint of the inputs the waypoints of this area were computed from, 0 if unknown */
+    public long getFlightLinesInputHash() {
+        return 0;
+    }
+
+    /** the first id the waypoints of this area were computed with */
+    public int getFlightLinesFirstId() {
+        return 0;
+    }
+
+    /** restores the fingerprint and first id of the waypoints of this area when it is loaded */
+    public void restoreFlightLinesInputHash(long hash, int firstId) {}
+
     public CPicAreaCorners getCorners() {
         return corners;
     }
@@ -771,6 +771,14 @@ public class FMLHandler extends DefaultHandler implements Tokens {
         setDouble(atts, BLADE_START_ROTATION, area::setWindmillBladeStartRotation);
         setDouble(atts, BLADE_COVER_LENGTH, area::setWindmillBladeCoverLength);
 
+        // the waypoints below were computed from these inputs, so they don't need to be computed again on load
+        String flightLinesFirstId = atts.getValue(FLIGHT_LINES_FIRST_ID);
+        set(
+            atts,
+            FLIGHT_LINES_INPUT_HASH,
+            hash -> area.restoreFlightLinesInputHash(hash, Integer.parseInt(flightLinesFirstId)),
+            Long::parseLong);
+
         return area;
     }
 
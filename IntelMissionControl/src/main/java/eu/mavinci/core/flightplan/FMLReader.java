@@ -303,5 +303,8 @@ public class FMLReader {
         public static final String BLADE_START_ROTATION = "bladeStartRotation";
         public static final String BLADE_COVER_LENGTH = "bladeCoverLength";
 
+        public static final String FLIGHT_LINES_INPUT_HASH = "flightLinesInputHash";
+        public static final String FLIGHT_LINES_FIRST_ID = "flightLinesFirstId";
+
     }
 }
@@ -6,7 +6,7 @@
 
 package eu.mavinci.core.plane.listeners;
 
-import eu.mavinci.core.desktop.listener.WeakListenerList;
+import eu.mavinci.core.desktop.listener.WeakListenerArray;
 import eu.mavinci.core.listeners.IListener;
 import eu.mavinci.core.plane.AirplaneConnectorState;
 import eu.mavinci.core.plane.sendableobjects.AndroidState;
@@ -25,7 +25,7 @@ import eu.mavinci.core.plane.sendableobjects.PositionData;
 import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
 import eu.mavinci.core.plane.sendableobjects.SimulationSettings;
 import eu.mavinci.desktop.main.debug.Debug;
-import eu.mavinci.core.desktop.listener.WeakListenerList;
+import eu.mavinci.core.desktop.listener.WeakListenerArray;
 import eu.mavinci.core.listeners.IListener;
 import eu.mavinci.core.plane.sendableobjects.AndroidState;
 import eu.mavinci.core.plane.sendableobjects.Backend;
@@ -45,81 +45,81 @@ import java.util.logging.Level;
 
 public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
 
-    protected WeakListenerList<IAirplaneListenerAllExternal> listenerIAirplaneListenerAllExternal =
-        new WeakListenerList<IAirplaneListenerAllExternal>("listenerIAirplaneListenerAllExternal");
-    protected WeakListenerList<IAirplaneListenerLoggingStateChanged> listenerIAirplaneListenerLoggingStateChanged =
-        new WeakListenerList<IAirplaneListenerLoggingStateChanged>("listenerIAirplaneListenerLoggingStateChanged");
-    protected WeakListenerList<IAirplaneListenerGuiClose> listenerIAirplaneListenerGuiClose =
-        new WeakListenerList<IAirplaneListenerGuiClose>("listenerIAirplaneListenerGuiClose");
-    protected WeakListenerList<IAirplaneListenerConnectionState> listenerIAirplaneListenerConnectionState =
-        new WeakListenerList<IAirplaneListenerConnectionState>("listenerIAirplaneListenerConnectionState");
-    protected WeakListenerList<IAirplaneListenerLogReplay> listenerIAirplaneListenerLogReplay =
-        new WeakListenerList<IAirplaneListenerLogReplay>("listenerIAirplaneListenerLogReplay");
-    protected WeakListenerList<IAirplaneListenerBackendConnectionLost> listenerIAirplaneListenerBackendConnectionLost =
-        new WeakListenerList<IAirplaneListenerBackendConnectionLost>("listenerIAirplaneListenerBackendConnectionLost");
-    protected WeakListenerList<IAirplaneListenerConfig> listenerIAirplaneListenerConfig =
-        new WeakListenerList<IAirplaneListenerConfig>("listenerIAirplaneListenerConfig");
-    protected WeakListenerList<IAirplaneListenerFlightphase> listenerIAirplaneListenerFlightphase =
-        new WeakListenerList<IAirplaneListenerFlightphase>("listenerIAirplaneListenerFlightphase");
-    protected WeakListenerList<IAirplaneListenerFlightPlanASM> listenerIAirplaneListenerFlightPlanASM =
-        new WeakListenerList<IAirplaneListenerFlightPlanASM>("listenerIAirplaneListenerFlightPlanASM");
-    protected WeakListenerList<IAirplaneListenerFlightPlanXML> listenerIAirplaneListenerFlightPlanXML =
-        new WeakListenerList<IAirplaneListenerFlightPlanXML>("listenerIAirplaneListenerFlightPlanXML");
-    protected WeakListenerList<IAirplaneListenerHealth> listenerIAirplaneListenerHealth =
-        new WeakListenerList<IAirplaneListenerHealth>("listenerIAirplaneListenerHealth");
-    protected WeakListenerList<IAirplaneListenerIsSimulation> listenerIAirplaneListenerIsSimulation =
-        new WeakListenerList<IAirplaneListenerIsSimulation>("listenerIAirplaneListenerIsSimulation");
-    protected WeakListenerList<IAirplaneListenerMsg> listenerIAirplaneListenerMsg =
-        new WeakListenerList<IAirplaneListenerMsg>("listenerIAirplaneListenerMsg");
-    protected WeakListenerList<IAirplaneListenerName> listenerIAirplaneListenerName =
-        new WeakListenerList<IAirplaneListenerName>("listenerIAirplaneListenerName");
-    protected WeakListenerList<IAirplaneListenerPhotoLogName> listenerIAirplaneListenerPhotoLogName =
-        new WeakListenerList<IAirplaneListenerPhotoLogName>("listenerIAirplaneListenerPhotoLogName");
-    protected WeakListenerList<IAirplaneListenerOrientation> listenerIAirplaneListenerOrientation =
-        new WeakListenerList<IAirplaneListenerOrientation>("listenerIAirplaneListenerOrientation");
-    protected WeakListenerList<IAirplaneListenerBackend> listenerIAirplaneListenerPorts =
-        new WeakListenerList<IAirplaneListenerBackend>("listenerIAirplaneListenerPorts");
-    protected WeakListenerList<IAirplaneListenerPosition> listenerIAirplaneListenerPosition =
-        new WeakListenerList<IAirplaneListenerPosition>("listenerIAirplaneListenerPosition");
-    protected WeakListenerList<IAirplaneListenerSimulationSettings> listenerIAirplaneListenerSimulationSettings =
-        new WeakListenerList<IAirplaneListenerSimulationSettings>("listenerIAirplaneListenerSimulationSettings");
-    protected WeakListenerList<IAirplaneListenerStartPos> listenerIAirplaneListenerStartPos =
-        new WeakListenerList<IAirplaneListenerStartPos>("listenerIAirplaneListenerStartPos");
-    protected WeakListenerList<IAirplaneListenerFixedOrientation> listenerIAirplaneListenerFixedOrientation =
-        new WeakListenerList<IAirplaneListenerFixedOrientation>("listenerIAirplaneListenerFixedOrientation");
-    protected WeakListenerList<IAirplaneListenerRawBackendStrings> listenerIAirplaneListenerRawBackendStrings =
-        new WeakListenerList<IAirplaneListenerRawBackendStrings>("listenerIAirplaneListenerRawBackendStrings");
-    protected WeakListenerList<IAirplaneListenerPhoto> listenerIAirplaneListenerPhoto =
-        new WeakListenerList<IAirplaneListenerPhoto>("listenerIAirplaneListenerPhoto");
-    protected WeakListenerList<IAirplaneListenerConnectionEstablished> listenerIAirplaneListenerConnectionEstablished =
-        new WeakListenerList<IAirplaneListenerConnectionEstablished>("listenerIAirplaneListenerConnectionEstablished");
-    protected WeakListenerList<IAirplaneListenerPowerOn> listenerIAirplaneListenerPowerOn =
-        new WeakListenerList<IAirplaneListenerPowerOn>("listenerIAirplaneListenerPowerOn");
-    protected WeakListenerList<IAirplaneListenerPlaneInfo> listenerIAirplaneListenerPlaneInfo =
-        new WeakListenerList<IAirplaneListenerPlaneInfo>("listenerIAirplaneListenerPlaneInfo");
-    protected WeakListenerList<IAirplaneListenerAndroidState> listenerIAirplaneListenerAndroidState =
-        new WeakListenerList<IAirplaneListenerAndroidState>("listenerIAirplaneListenerAndroidState");
-    protected WeakListenerList<IAirplaneListenerLinkInfo> listenerIAirplaneListenerLinkInfo =
-        new WeakListenerList<IAirplaneListenerLinkInfo>("listenerIAirplaneListenerLinkInfo");
-    protected WeakListenerList<IAirplaneListenerPing> listenerIAirplaneListenerPing =
-        new WeakListenerList<IAirplaneListenerPing>("listenerIAirplaneListenerPing");
-    protected WeakListenerList<IAirplaneListenerFileTransfer> listenerIAirplaneListenerFileTransfer =
-        new WeakListenerList<IAirplaneListenerFileTransfer>("listenerIAirplaneListenerFileTransfer");
-    protected WeakListenerList<IAirplaneListenerDebug> listenerIAirplaneListenerDebug =
-        new WeakListenerList<IAirplaneListenerDebug>("listenerIAirplaneListenerDebug");
-    protected WeakListenerList<IAirplaneListenerPositionOrientation> listenerIAirplaneListenerPositionOrientation =
-        new WeakListenerList<IAirplaneListenerPositionOrientation>("listenerIAirplaneListenerPositionOrientation");
-    protected WeakListenerList<IAirplaneListenerExpertSimulatedFails> listenerIAirplaneListenerExpertSimulatedFails =
-        new WeakListenerList<IAirplaneListenerExpertSimulatedFails>("listenerIAirplaneListenerExpertSimulatedFails");
-    protected WeakListenerList<IAirplaneFlightPlanSendingListener> listenerIAirplaneFlightPlanSendingListener =
-        new WeakListenerList<IAirplaneFlightPlanSendingListener>("listenerIAirplaneFlightPlanSendingListener");
-    protected WeakListenerList<IAirplaneParamsUpdateListener> listenerIAirplaneParamsUpdateListener =
-        new WeakListenerList<IAirplaneParamsUpdateListener>("listenerIAirplaneParamsUpdateListener");
-    protected WeakListenerList<ICommandListenerResult> listenerICommandResultListener =
-            new WeakListenerList<ICommandListenerResult>("listenerICommandResultListener");
-
-
-    protected WeakListenerList<?>[] listenersAll = {
+    protected WeakListenerArray<IAirplaneListenerAllExternal> listenerIAirplaneListenerAllExternal =
+        new WeakListenerArray<IAirplaneListenerAllExternal>("listenerIAirplaneListenerAllExternal");
+    protected WeakListenerArray<IAirplaneListenerLoggingStateChanged> listenerIAirplaneListenerLoggingStateChanged =
+        new WeakListenerArray<IAirplaneListenerLoggingStateChanged>("listenerIAirplaneListenerLoggingStateChanged");
+    protected WeakListenerArray<IAirplaneListenerGuiClose> listenerIAirplaneListenerGuiClose =
+        new WeakListenerArray<IAirplaneListenerGuiClose>("listenerIAirplaneListenerGuiClose");
+    protected WeakListenerArray<IAirplaneListenerConnectionState> listenerIAirplaneListenerConnectionState =
+        new WeakListenerArray<IAirplaneListenerConnectionState>("listenerIAirplaneListenerConnectionState");
+    protected WeakListenerArray<IAirplaneListenerLogReplay> listenerIAirplaneListenerLogReplay =
+        new WeakListenerArray<IAirplaneListenerLogReplay>("listenerIAirplaneListenerLogReplay");
+    protected WeakListenerArray<IAirplaneListenerBackendConnectionLost> listenerIAirplaneListenerBackendConnectionLost =
+        new WeakListenerArray<IAirplaneListenerBackendConnectionLost>("listenerIAirplaneListenerBackendConnectionLost");
+    protected WeakListenerArray<IAirplaneListenerConfig> listenerIAirplaneListenerConfig =
+        new WeakListenerArray<IAirplaneListenerConfig>("listenerIAirplaneListenerConfig");
+    protected WeakListenerArray<IAirplaneListenerFlightphase> listenerIAirplaneListenerFlightphase =
+        new WeakListenerArray<IAirplaneListenerFlightphase>("listenerIAirplaneListenerFlightphase");
+    protected WeakListenerArray<IAirplaneListenerFlightPlanASM> listenerIAirplaneListenerFlightPlanASM =
+        new WeakListenerArray<IAirplaneListenerFlightPlanASM>("listenerIAirplaneListenerFlightPlanASM");
+    protected WeakListenerArray<IAirplaneListenerFlightPlanXML> listenerIAirplaneListenerFlightPlanXML =
+        new WeakListenerArray<IAirplaneListenerFlightPlanXML>("listenerIAirplaneListenerFlightPlanXML");
+    protected WeakListenerArray<IAirplaneListenerHealth> listenerIAirplaneListenerHealth =
+        new WeakListenerArray<IAirplaneListenerHealth>("listenerIAirplaneListenerHealth");
+    protected WeakListenerArray<IAirplaneListenerIsSimulation> listenerIAirplaneListenerIsSimulation =
+        new WeakListenerArray<IAirplaneListenerIsSimulation>("listenerIAirplaneListenerIsSimulation");
+    protected WeakListenerArray<IAirplaneListenerMsg> listenerIAirplaneListenerMsg =
+        new WeakListenerArray<IAirplaneListenerMsg>("listenerIAirplaneListenerMsg");
+    protected WeakListenerArray<IAirplaneListenerName> listenerIAirplaneListenerName =
+        new WeakListenerArray<IAirplaneListenerName>("listenerIAirplaneListenerName");
+    protected WeakListenerArray<IAirplaneListenerPhotoLogName> listenerIAirplaneListenerPhotoLogName =
+        new WeakListenerArray<IAirplaneListenerPhotoLogName>("listenerIAirplaneListenerPhotoLogName");
+    protected WeakListenerArray<IAirplaneListenerOrientation> listenerIAirplaneListenerOrientation =
+        new WeakListenerArray<IAirplaneListenerOrientation>("listenerIAirplaneListenerOrientation");
+    protected WeakListenerArray<IAirplaneListenerBackend> listenerIAirplaneListenerPorts =
+        new WeakListenerArray<IAirplaneListenerBackend>("listenerIAirplaneListenerPorts");
+    protected WeakListenerArray<IAirplaneListenerPosition> listenerIAirplaneListenerPosition =
+        new WeakListenerArray<IAirplaneListenerPosition>("listenerIAirplaneListenerPosition");
+    protected WeakListenerArray<IAirplaneListenerSimulationSettings> listenerIAirplaneListenerSimulationSettings =
+        new WeakListenerArray<IAirplaneListenerSimulationSettings>("listenerIAirplaneListenerSimulationSettings");
+    protected WeakListenerArray<IAirplaneListenerStartPos> listenerIAirplaneListenerStartPos =
+        new WeakListenerArray<IAirplaneListenerStartPos>("listenerIAirplaneListenerStartPos");
+    protected WeakListenerArray<IAirplaneListenerFixedOrientation> listenerIAirplaneListenerFixedOrientation =
+        new WeakListenerArray<IAirplaneListenerFixedOrientation>("listenerIAirplaneListenerFixedOrientation");
+    protected WeakListenerArray<IAirplaneListenerRawBackendStrings> listenerIAirplaneListenerRawBackendStrings =
+        new WeakListenerArray<IAirplaneListenerRawBackendStrings>("listenerIAirplaneListenerRawBackendStrings");
+    protected WeakListenerArray<IAirplaneListenerPhoto> listenerIAirplaneListenerPhoto =
+        new WeakListenerArray<IAirplaneListenerPhoto>("listenerIAirplaneListenerPhoto");
+    protected WeakListenerArray<IAirplaneListenerConnectionEstablished> listenerIAirplaneListenerConnectionEstablished =
+        new WeakListenerArray<IAirplaneListenerConnectionEstablished>("listenerIAirplaneListenerConnectionEstablished");
+    protected WeakListenerArray<IAirplaneListenerPowerOn> listenerIAirplaneListenerPowerOn =
+        new WeakListenerArray<IAirplaneListenerPowerOn>("listenerIAirplaneListenerPowerOn");
+    protected WeakListenerArray<IAirplaneListenerPlaneInfo> listenerIAirplaneListenerPlaneInfo =
+        new WeakListenerArray<IAirplaneListenerPlaneInfo>("listenerIAirplaneListenerPlaneInfo");
+    protected WeakListenerArray<IAirplaneListenerAndroidState> listenerIAirplaneListenerAndroidState =
+        new WeakListenerArray<IAirplaneListenerAndroidState>("listenerIAirplaneListenerAndroidState");
+    protected WeakListenerArray<IAirplaneListenerLinkInfo> listenerIAirplaneListenerLinkInfo =
+        new WeakListenerArray<IAirplaneListenerLinkInfo>("listenerIAirplaneListenerLinkInfo");
+    protected WeakListenerArray<IAirplaneListenerPing> listenerIAirplaneListenerPing =
+        new WeakListenerArray<IAirplaneListenerPing>("listenerIAirplaneListenerPing");
+    protected WeakListenerArray<IAirplaneListenerFileTransfer> listenerIAirplaneListenerFileTransfer =
+        new WeakListenerArray<IAirplaneListenerFileTransfer>("listenerIAirplaneListenerFileTransfer");
+    protected WeakListenerArray<IAirplaneListenerDebug> listenerIAirplaneListenerDebug =
+        new WeakListenerArray<IAirplaneListenerDebug>("listenerIAirplaneListenerDebug");
+    protected WeakListenerArray<IAirplaneListenerPositionOrientation> listenerIAirplaneListenerPositionOrientation =
+        new WeakListenerArray<IAirplaneListenerPositionOrientation>("listenerIAirplaneListenerPositionOrientation");
+    protected WeakListenerArray<IAirplaneListenerExpertSimulatedFails> listenerIAirplaneListenerExpertSimulatedFails =
+        new WeakListenerArray<IAirplaneListenerExpertSimulatedFails>("listenerIAirplaneListenerExpertSimulatedFails");
+    protected WeakListenerArray<IAirplaneFlightPlanSendingListener> listenerIAirplaneFlightPlanSendingListener =
+        new WeakListenerArray<IAirplaneFlightPlanSendingListener>("listenerIAirplaneFlightPlanSendingListener");
+    protected WeakListenerArray<IAirplaneParamsUpdateListener> listenerIAirplaneParamsUpdateListener =
+        new WeakListenerArray<IAirplaneParamsUpdateListener>("listenerIAirplaneParamsUpdateListener");
+    protected WeakListenerArray<ICommandListenerResult> listenerICommandResultListener =
+            new WeakListenerArray<ICommandListenerResult>("listenerICommandResultListener");
+
+
+    protected WeakListenerArray<?>[] listenersAll = {
         listenerIAirplaneListenerAllExternal, listenerIAirplaneListenerLoggingStateChanged,
             listenerIAirplaneListenerGuiClose,
         listenerIAirplaneListenerConnectionState, listenerIAirplaneListenerLogReplay,
@@ -578,7 +578,7 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void removeListener(IListener l) {
-        for (WeakListenerList<?> listeners : listenersAll) {
+        for (WeakListenerArray<?> listeners : listenersAll) {
             listeners.remove(l);
         }
     }
@@ -710,7 +710,10 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void recv_orientation(OrientationData o) {
-        for (IAirplaneListenerOrientation listener : listenerIAirplaneListenerOrientation) {
+        WeakListenerArray.Snapshot<IAirplaneListenerOrientation> listeners =
+            listenerIAirplaneListenerOrientation.snapshot();
+        for (int i = 0; i != listeners.size(); i++) {
+            IAirplaneListenerOrientation listener = listeners.get(i);
             if (listener == null) {
                 continue;
             }
@@ -746,7 +749,9 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void recv_position(PositionData p) {
-        for (IAirplaneListenerPosition listener : listenerIAirplaneListenerPosition) {
+        WeakListenerArray.Snapshot<IAirplaneListenerPosition> listeners = listenerIAirplaneListenerPosition.snapshot();
+        for (int i = 0; i != listeners.size(); i++) {
+            IAirplaneListenerPosition listener = listeners.get(i);
             if (listener == null) {
                 continue;
             }
@@ -836,7 +841,9 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void recv_health(HealthData d) {
-        for (IAirplaneListenerHealth listener : listenerIAirplaneListenerHealth) {
+        WeakListenerArray.Snapshot<IAirplaneListenerHealth> listeners = listenerIAirplaneListenerHealth.snapshot();
+        for (int i = 0; i != listeners.size(); i++) {
+            IAirplaneListenerHealth listener = listeners.get(i);
             if (listener == null) {
                 continue;
             }
@@ -1401,7 +1408,9 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void recv_debug(DebugData d) {
-        for (IAirplaneListenerDebug listener : listenerIAirplaneListenerDebug) {
+        WeakListenerArray.Snapshot<IAirplaneListenerDebug> listeners = listenerIAirplaneListenerDebug.snapshot();
+        for (int i = 0; i != listeners.size(); i++) {
+            IAirplaneListenerDebug listener = listeners.get(i);
             if (listener == null) {
                 continue;
             }
@@ -1419,7 +1428,10 @@ public class AirplaneListenerDelegator implements IAirplaneListenerDelegator {
     }
 
     public void recv_positionOrientation(PositionOrientationData po) {
-        for (IAirplaneListenerPositionOrientation listener : listenerIAirplaneListenerPositionOrientation) {
+        WeakListenerArray.Snapshot<IAirplaneListenerPositionOrientation> listeners =
+            listenerIAirplaneListenerPositionOrientation.snapshot();
+        for (int i = 0; i != listeners.size(); i++) {
+            IAirplaneListenerPositionOrientation listener = listeners.get(i);
             if (listener == null) {
                 continue;
             }
@@ -274,5 +274,6 @@ public class ObjectParser {
 
     public static final String recv_orientationToken = "recv_orientation";
     public static final String recv_positionToken = "recv_position";
+    public static final String recv_positionOrientationToken = "recv_positionOrientation";
 
 }
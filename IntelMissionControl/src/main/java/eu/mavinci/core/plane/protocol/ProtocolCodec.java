@@ -0,0 +1,571 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.protocol;
+
+import eu.mavinci.core.plane.sendableobjects.MVector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes messages of the text protocol in one pass over the characters, without splitting them into tokens first.
+ * Sendable objects are created through their {@link SendableCodec}, which is built once per class.
+ *
+ * <p>The result is the same as decoding every argument with {@link ObjectParser}. Only messages as {@link
+ * ObjectPacking} writes them are handled, anything unusual or broken is rejected, so the caller can fall back to
+ * {@link ObjectParser}, which also reports the errors.
+ *
+ * <p>Not thread safe, like {@link ProtocolInvoker}, which owns one codec.
+ */
+public class ProtocolCodec {
+
+    /** Signals that the data is left to the generic parser, it has no stack trace since it is not an error. */
+    private static class UnsupportedDataException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedDataException() {
+            super("left to the generic parser", null, false, false);
+        }
+    }
+
+    private static final UnsupportedDataException UNSUPPORTED = new UnsupportedDataException();
+
+    private static final boolean[] DELIMITERS = new boolean[128];
+
+    static {
+        DELIMITERS[ProtocolTokens.seppar.charAt(0)] = true;
+        DELIMITERS[ProtocolTokens.sbegin.charAt(0)] = true;
+        DELIMITERS[ProtocolTokens.send.charAt(0)] = true;
+        DELIMITERS[ProtocolTokens.separray.charAt(0)] = true;
+        DELIMITERS[ProtocolTokens.sepael.charAt(0)] = true;
+    }
+
+    private static final char SEPPAR = ProtocolTokens.seppar.charAt(0);
+    private static final char SBEGIN = ProtocolTokens.sbegin.charAt(0);
+    private static final char SEND = ProtocolTokens.send.charAt(0);
+    private static final char SEPARRAY = ProtocolTokens.separray.charAt(0);
+    private static final char SEPAEL = ProtocolTokens.sepael.charAt(0);
+
+    private static final String INF = "inf";
+    private static final String NAN = "nan";
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+        1e20, 1e21, 1e22
+    };
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private CharSequence data;
+    private int position;
+    private int end;
+
+    private String functionName;
+    private Object[] arguments;
+    private Class<?>[] parameterTypes;
+
+    // the function names and parameter types are reused, they are shared with the invoked listeners
+    private final List<String> functionNames = new ArrayList<>();
+    private final Map<String, Class<?>[]> parameterTypesByFunction = new HashMap<>();
+    private final List<Object> argumentBuffer = new ArrayList<>();
+    private final List<Class<?>> typeBuffer = new ArrayList<>();
+
+    /**
+     * @return false if the message has to be decoded by the generic parser, then the results of this codec are
+     *     undefined
+     */
+    public boolean decode(CharSequence message) {
+        try {
+            decodeMessage(message);
+            return true;
+        } catch (Exception e) {
+            // unsupported or broken, in both cases the generic parser knows better
+            return false;
+        } finally {
+            data = null;
+        }
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /** @return a new array for every message */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /** @return the types of the arguments as {@link ObjectParser#type} reports them, don't modify the array */
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    private void decodeMessage(CharSequence message) throws Exception {
+        data = message;
+        int length = message.length();
+        if (length < 2 || message.charAt(0) != ProtocolTokens.mbegin.charAt(0)) {
+            throw UNSUPPORTED;
+        }
+
+        int nameEnd = 1;
+        while (nameEnd < length && !isMessageSeparator(message.charAt(nameEnd))) {
+            nameEnd++;
+        }
+
+        if (nameEnd == 1) {
+            throw UNSUPPORTED;
+        }
+
+        functionName = internFunctionName(1, nameEnd);
+
+        argumentBuffer.clear();
+        typeBuffer.clear();
+        position = nameEnd;
+        for (; ; ) {
+            // like StringTokenizer, empty arguments are skipped
+            while (position < length && isMessageSeparator(message.charAt(position))) {
+                position++;
+            }
+
+            if (position == length) {
+                break;
+            }
+
+            end = position;
+            while (end < length && !isMessageSeparator(message.charAt(end))) {
+                end++;
+            }
+
+            decodeArgument();
+            if (position != end) {
+                throw UNSUPPORTED;
+            }
+        }
+
+        arguments = argumentBuffer.toArray();
+        parameterTypes = parameterTypesByFunction.get(functionName);
+        if (parameterTypes == null || !typeBuffer.equals(Arrays.asList(parameterTypes))) {
+            parameterTypes = typeBuffer.toArray(new Class<?>[0]);
+            parameterTypesByFunction.put(functionName, parameterTypes);
+        }
+    }
+
+    private static boolean isMessageSeparator(char c) {
+        return c == ProtocolTokens.sep || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c < DELIMITERS.length && DELIMITERS[c];
+    }
+
+    private String internFunctionName(int start, int end) {
+        for (String name : functionNames) {
+            if (SendableCodec.regionEquals(data, start, end, name)) {
+                return name;
+            }
+        }
+
+        String name = data.subSequence(start, end).toString();
+        if (functionNames.size() < 256) {
+            functionNames.add(name);
+        }
+
+        return name;
+    }
+
+    /** @return the end of the token at the current position, which is empty at a delimiter */
+    private int tokenEnd() {
+        int tokenEnd = position;
+        while (tokenEnd < end && !isDelimiter(data.charAt(tokenEnd))) {
+            tokenEnd++;
+        }
+
+        return tokenEnd;
+    }
+
+    private void expect(char c) throws UnsupportedDataException {
+        if (position >= end || data.charAt(position) != c) {
+            throw UNSUPPORTED;
+        }
+
+        position++;
+    }
+
+    private boolean isAt(char c) {
+        return position < end && data.charAt(position) == c;
+    }
+
+    private static boolean isPrimitiveCode(int typeStart, int typeEnd, char code) {
+        if (typeEnd - typeStart != 1) {
+            return false;
+        }
+
+        switch (code) {
+        case ProtocolTokens.prefixCodeInt:
+        case ProtocolTokens.prefixCodeFloat:
+        case ProtocolTokens.prefixCodeDouble:
+        case ProtocolTokens.prefixCodeString:
+        case ProtocolTokens.prefixCodeBool:
+        case ProtocolTokens.prefixCodeChar:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static Class<?> getBoxedType(char code) {
+        switch (code) {
+        case ProtocolTokens.prefixCodeInt:
+            return Integer.class;
+        case ProtocolTokens.prefixCodeFloat:
+            return Float.class;
+        case ProtocolTokens.prefixCodeDouble:
+            return Double.class;
+        case ProtocolTokens.prefixCodeString:
+            return String.class;
+        case ProtocolTokens.prefixCodeBool:
+            return Boolean.class;
+        default:
+            return Character.class;
+        }
+    }
+
+    /** Reads "type!name!" and returns the end of the type, the name starts 1 character later. */
+    private int readHeader() throws UnsupportedDataException {
+        int typeEnd = tokenEnd();
+        if (typeEnd == position) {
+            throw UNSUPPORTED;
+        }
+
+        position = typeEnd;
+        expect(SEPPAR);
+        int nameEnd = tokenEnd();
+        if (nameEnd == position) {
+            throw UNSUPPORTED;
+        }
+
+        position = nameEnd;
+        expect(SEPPAR);
+        return typeEnd;
+    }
+
+    private void decodeArgument() throws Exception {
+        int typeStart = position;
+        int typeEnd = readHeader();
+        char code = data.charAt(typeStart);
+        if (isAt(SBEGIN)) {
+            position++;
+            if (isAt(SEPARRAY)) {
+                argumentBuffer.add(decodeArray(typeStart, typeEnd, code));
+                typeBuffer.add(MVector.class);
+            } else if (isAt(SEND)) {
+                position++;
+                argumentBuffer.add(new MVector<Object>(null));
+                typeBuffer.add(MVector.class);
+            } else {
+                SendableCodec codec = getStructCodec(typeStart, typeEnd, code, false);
+                argumentBuffer.add(decodeStruct(codec));
+                typeBuffer.add(codec.type);
+                expect(SEND);
+            }
+        } else if (isPrimitiveCode(typeStart, typeEnd, code)) {
+            argumentBuffer.add(decodeBoxed(code));
+            typeBuffer.add(getBoxedType(code));
+        } else {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private SendableCodec getStructCodec(int typeStart, int typeEnd, char code, boolean exactName)
+            throws UnsupportedDataException {
+        if (isPrimitiveCode(typeStart, typeEnd, code)) {
+            throw UNSUPPORTED;
+        }
+
+        SendableCodec codec = SendableCodec.forName(data, typeStart, typeEnd, exactName);
+        if (codec == null) {
+            throw UNSUPPORTED;
+        }
+
+        return codec;
+    }
+
+    /** Decodes the elements of an array, the opening bracket was already read. */
+    private MVector<Object> decodeArray(int typeStart, int typeEnd, char code) throws Exception {
+        MVector<Object> vector;
+        SendableCodec codec = null;
+        if (isPrimitiveCode(typeStart, typeEnd, code)) {
+            vector = new MVector<>(castType(getBoxedType(code)));
+        } else {
+            // the generic parser doesn't correct the case of the element type
+            codec = getStructCodec(typeStart, typeEnd, code, true);
+            vector = new MVector<>(castType(codec.type));
+        }
+
+        while (isAt(SEPARRAY)) {
+            position++;
+            vector.add(codec == null ? decodeBoxed(code) : decodeStruct(codec));
+        }
+
+        expect(SEND);
+        return vector;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> castType(Class<?> type) {
+        return (Class<Object>)type;
+    }
+
+    /** Decodes the members of a struct up to the closing bracket, which is left to the caller. */
+    private Object decodeStruct(SendableCodec codec) throws Exception {
+        Object value = codec.newInstance();
+        int hint = 0;
+        for (; ; ) {
+            int typeStart = position;
+            int typeEnd = tokenEnd();
+            if (typeEnd == position) {
+                throw UNSUPPORTED;
+            }
+
+            position = typeEnd;
+            expect(SEPPAR);
+            int nameStart = position;
+            int nameEnd = tokenEnd();
+            int index = codec.findMember(data, nameStart, nameEnd, hint);
+            if (index < 0) {
+                throw UNSUPPORTED;
+            }
+
+            position = nameEnd;
+            expect(SEPPAR);
+            decodeMember(codec.getMember(index), value, typeStart, typeEnd);
+            hint = index + 1;
+
+            if (!isAt(SEPAEL)) {
+                return value;
+            }
+
+            position++;
+        }
+    }
+
+    private void decodeMember(SendableCodec.Member member, Object target, int typeStart, int typeEnd)
+            throws Exception {
+        char code = data.charAt(typeStart);
+        if (isAt(SBEGIN)) {
+            position++;
+            if (isAt(SEPARRAY)) {
+                member.set(target, decodeArray(typeStart, typeEnd, code));
+            } else if (isAt(SEND)) {
+                position++;
+                member.set(target, new MVector<Object>(null));
+            } else {
+                member.set(target, decodeStruct(getStructCodec(typeStart, typeEnd, code, false)));
+                expect(SEND);
+            }
+
+            return;
+        }
+
+        if (!isPrimitiveCode(typeStart, typeEnd, code)) {
+            throw UNSUPPORTED;
+        }
+
+        switch (code) {
+        case ProtocolTokens.prefixCodeInt:
+            member.setInt(target, decodeInt());
+            break;
+        case ProtocolTokens.prefixCodeFloat:
+            member.setFloat(target, decodeFloat());
+            break;
+        case ProtocolTokens.prefixCodeDouble:
+            member.setDouble(target, decodeDouble());
+            break;
+        case ProtocolTokens.prefixCodeBool:
+            member.setBoolean(target, decodeBoolean());
+            break;
+        case ProtocolTokens.prefixCodeChar:
+            member.setChar(target, (char)decodeInt());
+            break;
+        default:
+            member.set(target, decodeString());
+            break;
+        }
+    }
+
+    private Object decodeBoxed(char code) throws Exception {
+        switch (code) {
+        case ProtocolTokens.prefixCodeInt:
+            return decodeInt();
+        case ProtocolTokens.prefixCodeFloat:
+            return decodeFloat();
+        case ProtocolTokens.prefixCodeDouble:
+            return decodeDouble();
+        case ProtocolTokens.prefixCodeBool:
+            return decodeBoolean();
+        case ProtocolTokens.prefixCodeChar:
+            return (char)decodeInt();
+        default:
+            return decodeString();
+        }
+    }
+
+    private int decodeInt() throws UnsupportedDataException {
+        int tokenEnd = tokenEnd();
+        if (tokenEnd == position) {
+            throw UNSUPPORTED;
+        }
+
+        int value = Integer.parseInt(data, position, tokenEnd, 10);
+        position = tokenEnd;
+        return value;
+    }
+
+    private float decodeFloat() throws UnsupportedDataException {
+        int tokenEnd = tokenEnd();
+        if (tokenEnd == position) {
+            throw UNSUPPORTED;
+        }
+
+        float value;
+        if (SendableCodec.regionEquals(data, position, tokenEnd, INF)) {
+            value = Float.POSITIVE_INFINITY;
+        } else if (SendableCodec.regionEquals(data, position, tokenEnd, NAN)) {
+            value = Float.NaN;
+        } else {
+            value = parseFloat(data, position, tokenEnd);
+        }
+
+        position = tokenEnd;
+        return value;
+    }
+
+    private double decodeDouble() throws UnsupportedDataException {
+        int tokenEnd = tokenEnd();
+        if (tokenEnd == position) {
+            throw UNSUPPORTED;
+        }
+
+        double value;
+        if (SendableCodec.regionEquals(data, position, tokenEnd, INF)) {
+            value = Double.POSITIVE_INFINITY;
+        } else {
+            value = parseDouble(data, position, tokenEnd);
+        }
+
+        position = tokenEnd;
+        return value;
+    }
+
+    private boolean decodeBoolean() throws UnsupportedDataException {
+        if (tokenEnd() != position + 1) {
+            throw UNSUPPORTED;
+        }
+
+        char c = data.charAt(position++);
+        if (c == ProtocolTokens.tokenTrue.charAt(0)) {
+            return true;
+        } else if (c == ProtocolTokens.tokenFalse.charAt(0)) {
+            return false;
+        }
+
+        throw UNSUPPORTED;
+    }
+
+    private String decodeString() throws Exception {
+        int tokenEnd = tokenEnd();
+        if (tokenEnd == position) {
+            // empty strings are followed by the next delimiter right away
+            return "";
+        }
+
+        String token = data.subSequence(position, tokenEnd).toString();
+        if (ProtocolTokens.allSeperators.contains(token)) {
+            throw UNSUPPORTED;
+        }
+
+        position = tokenEnd;
+        return new String(Base64.decode(token, Base64.DEFAULT), ProtocolTokens.encoding);
+    }
+
+    /**
+     * Parses a plain decimal number like Double.parseDouble(). Numbers with up to 15 significant digits and 22 decimal
+     * places are parsed without creating a String: both the digits and the power of ten are exact doubles then, so a
+     * single division rounds correctly.
+     */
+    static double parseDouble(CharSequence data, int start, int end) {
+        long mantissa = parseMantissa(data, start, end, 15);
+        int decimals = (int)(mantissa >>> 56) & 0x7f;
+        if (mantissa >= 0 || decimals >= DOUBLE_POWERS_OF_TEN.length) {
+            return Double.parseDouble(data.subSequence(start, end).toString());
+        }
+
+        double value = (mantissa & DIGITS_MASK) / DOUBLE_POWERS_OF_TEN[decimals];
+        return data.charAt(start) == '-' ? -value : value;
+    }
+
+    /** Like {@link #parseDouble}, with up to 7 significant digits and 10 decimal places, which are exact floats. */
+    static float parseFloat(CharSequence data, int start, int end) {
+        long mantissa = parseMantissa(data, start, end, 7);
+        int decimals = (int)(mantissa >>> 56) & 0x7f;
+        if (mantissa >= 0 || decimals >= FLOAT_POWERS_OF_TEN.length) {
+            return Float.parseFloat(data.subSequence(start, end).toString());
+        }
+
+        float value = (mantissa & DIGITS_MASK) / FLOAT_POWERS_OF_TEN[decimals];
+        return data.charAt(start) == '-' ? -value : value;
+    }
+
+    private static final long DIGITS_MASK = (1L << 56) - 1;
+
+    /**
+     * @return the digits in the lower 56 bits, the number of decimal places in the next 7 bits and the sign bit set, or
+     *     a positive number if this is not a plain decimal number with at most the given significant digits
+     */
+    private static long parseMantissa(CharSequence data, int start, int end, int maxDigits) {
+        int i = start;
+        if (i < end && data.charAt(i) == '-') {
+            i++;
+        }
+
+        long digits = 0;
+        int significantDigits = 0;
+        int decimals = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = data.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits != 0 || c != '0') {
+                    if (++significantDigits > maxDigits) {
+                        return 0;
+                    }
+                }
+
+                digits = digits * 10 + (c - '0');
+                if (fraction) {
+                    decimals++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return 0;
+            }
+        }
+
+        if (!anyDigit || decimals > 0x7f) {
+            return 0;
+        }
+
+        return Long.MIN_VALUE | ((long)decimals << 56) | digits;
+    }
+
+}
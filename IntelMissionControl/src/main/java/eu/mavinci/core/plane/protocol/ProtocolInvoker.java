@@ -20,18 +20,72 @@ import eu.mavinci.core.plane.sendableobjects.Port;
 import eu.mavinci.core.plane.sendableobjects.PositionData;
 import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
 import eu.mavinci.desktop.main.debug.Debug;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import org.asyncfx.concurrent.Dispatcher;
 
 public class ProtocolInvoker {
 
+    /**
+     * The listener methods of a handler class, looked up once per message name and bound to a method handle which takes
+     * the handler and the argument array.
+     */
+    private static class ListenerMethods {
+        private static class Entry {
+            final Class<?>[] parameterTypes;
+            final MethodHandle invoker;
+
+            Entry(Class<?>[] parameterTypes, MethodHandle invoker) {
+                this.parameterTypes = parameterTypes;
+                this.invoker = invoker;
+            }
+        }
+
+        private final Class<?> handlerClass;
+        private final Map<String, Entry> methods = new ConcurrentHashMap<>();
+
+        ListenerMethods(Class<?> handlerClass) {
+            this.handlerClass = handlerClass;
+        }
+
+        /** @return a handle of type (Object, Object[])void */
+        MethodHandle getInvoker(String name, Class<?>[] parameterTypes)
+                throws NoSuchMethodException, IllegalAccessException {
+            Entry entry = methods.get(name);
+            if (entry == null || !Arrays.equals(entry.parameterTypes, parameterTypes)) {
+                Method method = handlerClass.getMethod(name, parameterTypes);
+                MethodHandle handle = MethodHandles.lookup().unreflect(method);
+                MethodHandle invoker =
+                    handle.asType(handle.type().generic().changeReturnType(void.class))
+                        .asSpreader(Object[].class, parameterTypes.length);
+                entry = new Entry(parameterTypes.clone(), invoker);
+                methods.put(name, entry);
+            }
+
+            return entry.invoker;
+        }
+    }
+
+    private static final ClassValue<ListenerMethods> LISTENER_METHODS =
+        new ClassValue<>() {
+            @Override
+            protected ListenerMethods computeValue(Class<?> type) {
+                return new ListenerMethods(type);
+            }
+        };
+
+    private final ProtocolCodec codec = new ProtocolCodec();
+
     protected boolean isReceiveOrientation = false;
     protected OrientationData lastOrientation;
 
@@ -68,6 +122,29 @@ public class ProtocolInvoker {
                 return;
             }
 
+            if (codec.decode(msg)) {
+                fctName = codec.getFunctionName();
+                if (fctName.equals(ObjectParser.recv_orientationToken)) {
+                    isReceiveOrientation = true;
+                    isReceivePosition = false;
+                    lastOrientation = (OrientationData)codec.getArguments()[0];
+                } else if (fctName.equals(ObjectParser.recv_positionToken)) {
+                    isReceiveOrientation = false;
+                    isReceivePosition = true;
+                    lastPosition = (PositionData)codec.getArguments()[0];
+                } else {
+                    arguments = codec.getArguments();
+                    parameterTypes = codec.getParameterTypes();
+                    patchBackend(arguments);
+                    isReceiveOrientation = false;
+                    isReceivePosition = false;
+                }
+
+                dataOk = true;
+                return;
+            }
+
+            // the generic parser handles everything else, including the errors
             StringTokenizer argTkn = new StringTokenizer(msg, ProtocolTokens.sep + ProtocolTokens.mend, false);
 
             fctName = argTkn.nextToken();
@@ -107,18 +184,9 @@ public class ProtocolInvoker {
                     parameterTypesVec.add(parser.type);
                 }
 
-                if (args.size() == 2 && args.get(0) instanceof Backend && args.get(1) instanceof MVector) {
-                    Backend b = (Backend)args.get(0);
-                    @SuppressWarnings("unchecked")
-                    MVector<Port> ports = (MVector<Port>)args.get(1);
-                    for (Port p : ports) {
-                        p.backend = b;
-                    }
-                    // System.out.println("patch backend into port packages");
-                }
-
                 // call Funktion fctName with args as arguments
                 arguments = args.toArray();
+                patchBackend(arguments);
                 parameterTypes = new Class<?>[parameterTypesVec.size()];
                 for (int i = 0; i != parameterTypesVec.size(); i++) {
                     parameterTypes[i] = parameterTypesVec.get(i);
@@ -149,6 +217,17 @@ public class ProtocolInvoker {
         }
     }
 
+    private static void patchBackend(Object[] arguments) {
+        if (arguments.length == 2 && arguments[0] instanceof Backend && arguments[1] instanceof MVector) {
+            Backend b = (Backend)arguments[0];
+            @SuppressWarnings("unchecked")
+            MVector<Port> ports = (MVector<Port>)arguments[1];
+            for (Port p : ports) {
+                p.backend = b;
+            }
+        }
+    }
+
     private void newAscTecMsg(String msg2) {
         // TODO Auto-generated method stub
 
@@ -201,8 +280,13 @@ public class ProtocolInvoker {
                 return;
             }
 
-            Method method = handler.getClass().getMethod(fctName, parameterTypes);
-            method.invoke(handler, arguments);
+            MethodHandle invoker = LISTENER_METHODS.get(handler.getClass()).getInvoker(fctName, parameterTypes);
+            try {
+                invoker.invokeExact((Object)handler, arguments);
+            } catch (Throwable t) {
+                // like Method.invoke()
+                throw new InvocationTargetException(t);
+            }
         }
     }
 
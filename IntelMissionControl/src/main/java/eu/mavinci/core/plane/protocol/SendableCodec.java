@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.protocol;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoding plan of one class of the sendable objects package, created once from its public fields when the class is
+ * first seen in a message. The constructor and the setters of the members are bound to method handles at that point,
+ * one per value type which can be assigned to the field, so decoding doesn't go through reflection and primitive
+ * members are never boxed.
+ */
+class SendableCodec {
+
+    static class Member {
+        final String name;
+        private final MethodHandle intSetter;
+        private final MethodHandle floatSetter;
+        private final MethodHandle doubleSetter;
+        private final MethodHandle booleanSetter;
+        private final MethodHandle charSetter;
+        private final MethodHandle objectSetter;
+
+        Member(Field field) {
+            this.name = field.getName();
+            MethodHandle setter = bindSetter(field);
+            intSetter = adaptSetter(setter, int.class);
+            floatSetter = adaptSetter(setter, float.class);
+            doubleSetter = adaptSetter(setter, double.class);
+            booleanSetter = adaptSetter(setter, boolean.class);
+            charSetter = adaptSetter(setter, char.class);
+            objectSetter = adaptSetter(setter, Object.class);
+        }
+
+        /** @return a handle of type (Object, type of the field)void, or null if the field is final */
+        private static MethodHandle bindSetter(Field field) {
+            MethodHandle setter;
+            try {
+                setter = MethodHandles.lookup().unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+
+            if (Modifier.isStatic(field.getModifiers())) {
+                // like Field.set(), the target is ignored
+                return MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+
+            return setter.asType(MethodType.methodType(void.class, Object.class, field.getType()));
+        }
+
+        /**
+         * Like Field.set(), primitive values are widened or boxed to the type of the field, objects are unboxed.
+         *
+         * @return null if values of this type can't be assigned to the field
+         */
+        private static MethodHandle adaptSetter(MethodHandle setter, Class<?> valueType) {
+            if (setter == null) {
+                return null;
+            }
+
+            try {
+                return setter.asType(MethodType.methodType(void.class, Object.class, valueType));
+            } catch (WrongMethodTypeException e) {
+                return null;
+            }
+        }
+
+        private IllegalArgumentException cannotSet(Class<?> valueType) {
+            return new IllegalArgumentException("can't set " + name + " to a value of type " + valueType.getName());
+        }
+
+        void setInt(Object target, int value) {
+            if (intSetter == null) {
+                throw cannotSet(int.class);
+            }
+
+            try {
+                intSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+
+        void setFloat(Object target, float value) {
+            if (floatSetter == null) {
+                throw cannotSet(float.class);
+            }
+
+            try {
+                floatSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+
+        void setDouble(Object target, double value) {
+            if (doubleSetter == null) {
+                throw cannotSet(double.class);
+            }
+
+            try {
+                doubleSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+
+        void setBoolean(Object target, boolean value) {
+            if (booleanSetter == null) {
+                throw cannotSet(boolean.class);
+            }
+
+            try {
+                booleanSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+
+        void setChar(Object target, char value) {
+            if (charSetter == null) {
+                throw cannotSet(char.class);
+            }
+
+            try {
+                charSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+
+        void set(Object target, Object value) {
+            if (objectSetter == null) {
+                throw cannotSet(Object.class);
+            }
+
+            try {
+                objectSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        final SendableCodec codec;
+        final boolean exactName;
+
+        Entry(String name, SendableCodec codec, boolean exactName) {
+            this.name = name;
+            this.codec = codec;
+            this.exactName = exactName;
+        }
+    }
+
+    private static final ClassValue<SendableCodec> CODECS =
+        new ClassValue<>() {
+            @Override
+            protected SendableCodec computeValue(Class<?> type) {
+                return new SendableCodec(type);
+            }
+        };
+
+    // names seen in messages, including unknown ones, so the class is only looked up once
+    private static final int MAX_NAMES = 256;
+    private static volatile Entry[] names = new Entry[0];
+
+    final Class<?> type;
+    private final MethodHandle constructor;
+    private final Member[] members;
+
+    private SendableCodec(Class<?> type) {
+        this.type = type;
+        MethodHandle constructor = null;
+        if (!Modifier.isAbstract(type.getModifiers())) {
+            try {
+                constructor =
+                    MethodHandles.lookup()
+                        .unreflectConstructor(type.getConstructor())
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // stays null
+            }
+        }
+
+        this.constructor = constructor;
+
+        // the same field Class.getField() finds, if a field hides another one
+        Map<String, Member> members = new LinkedHashMap<>();
+        for (Field field : type.getFields()) {
+            try {
+                members.put(field.getName(), new Member(type.getField(field.getName())));
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        this.members = members.values().toArray(new Member[0]);
+    }
+
+    static SendableCodec of(Class<?> type) {
+        return CODECS.get(type);
+    }
+
+    /**
+     * Finds the codec of a type name in a message, like {@link ObjectParser} resolves it.
+     *
+     * @param exactName if false, the name may start lower case
+     * @return null if there is no such sendable object
+     */
+    static SendableCodec forName(CharSequence data, int start, int end, boolean exactName) {
+        Entry[] entries = names;
+        for (Entry entry : entries) {
+            if (regionEquals(data, start, end, entry.name)) {
+                return (exactName && !entry.exactName) ? null : entry.codec;
+            }
+        }
+
+        return resolve(data.subSequence(start, end).toString(), exactName);
+    }
+
+    private static synchronized SendableCodec resolve(String name, boolean exactName) {
+        Entry entry = null;
+        for (Entry existing : names) {
+            if (existing.name.equals(name)) {
+                entry = existing;
+            }
+        }
+
+        if (entry == null) {
+            entry = new Entry(name, null, false);
+            try {
+                entry = new Entry(name, of(Class.forName(ProtocolTokens.sendableObjectsPackage + "." + name)), true);
+            } catch (ClassNotFoundException | NoClassDefFoundError e) {
+                String capitalized = name.substring(0, 1).toUpperCase() + name.substring(1);
+                try {
+                    entry =
+                        new Entry(
+                            name, of(Class.forName(ProtocolTokens.sendableObjectsPackage + "." + capitalized)), false);
+                } catch (ClassNotFoundException | NoClassDefFoundError e2) {
+                    // stays unknown
+                }
+            }
+
+            if (names.length < MAX_NAMES) {
+                Entry[] copy = Arrays.copyOf(names, names.length + 1);
+                copy[names.length] = entry;
+                names = copy;
+            }
+        }
+
+        return (exactName && !entry.exactName) ? null : entry.codec;
+    }
+
+    Object newInstance() throws InstantiationException {
+        if (constructor == null) {
+            throw new InstantiationException("no public default constructor: " + type.getName());
+        }
+
+        try {
+            return (Object)constructor.invokeExact();
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    /** the bound constructors and setters only throw unchecked exceptions, but method handles declare Throwable */
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error)t;
+        }
+
+        return t instanceof RuntimeException ? (RuntimeException)t : new IllegalStateException(t);
+    }
+
+    /**
+     * @param hint index of the member which most likely has this name, members are usually sent in declaration order
+     * @return the index of the member, or -1 if there is none with this name
+     */
+    int findMember(CharSequence data, int start, int end, int hint) {
+        if (hint < members.length && regionEquals(data, start, end, members[hint].name)) {
+            return hint;
+        }
+
+        for (int i = 0; i != members.length; i++) {
+            if (regionEquals(data, start, end, members[i].name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    Member getMember(int index) {
+        return members[index];
+    }
+
+    static boolean regionEquals(CharSequence data, int start, int end, String name) {
+        int length = end - start;
+        if (name.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i != length; i++) {
+            if (data.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -26,6 +26,7 @@ import eu.mavinci.desktop.main.debug.Debug;
 import gov.nasa.worldwind.geom.LatLon;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
@@ -137,15 +138,18 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
             @Override
             public void run() {
                 long start = System.currentTimeMillis();
+                MatchingColumns columns = getColumns();
                 try {
-                    elevationDataAvaliableTmp = true;
-                    for (IMapLayer subLayer : getPicsLayer().getLayers()) {
-                        if (subLayer instanceof MapLayerMatch) {
-                            MapLayerMatch match = (MapLayerMatch)subLayer;
-                            if (applyFilter(match)) {
+                    elevationDataAvaliableTmp = columns.refreshAltitudes();
+                    filterPassThread = Thread.currentThread();
+                    try {
+                        for (int i = 0; i != columns.size(); i++) {
+                            if (applyFilter(columns, i)) {
                                 filterResultChanged = true;
                             }
                         }
+                    } finally {
+                        filterPassThread = null;
                     }
 
                     elevationDataAvaliable = elevationDataAvaliableTmp;
@@ -158,59 +162,36 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
                         return;
                     }
 
-                    gpsFixTypeCounter.clear();
-                    countFiltered = 0;
-                    areaNotPassedFilter = 0;
-                    rollNotPassedFilter = 0;
-                    yawNotPassedFilter = 0;
-                    pitchNotPassedFilter = 0;
-                    rangeNotPassedFilter = 0;
-
                     // TODO IMC-3043 add here all filters extra
-                    totalSizeFilteredBytes = 0L;
-                    filteredFileType = "";
-
-                    for (IMapLayer subLayer : getPicsLayer().getLayers()) {
-                        if (subLayer instanceof MapLayerMatch) {
-                            MapLayerMatch match = (MapLayerMatch)subLayer;
-                            if (!match.isPassFilter) {
-                                if (!match.getAreaPassFilter()) {
-                                    areaNotPassedFilter++;
-                                }
-
-                                if (!match.getRollPassFilter()) {
-                                    rollNotPassedFilter++;
-                                }
-
-                                if (!match.getYawPassFilter()) {
-                                    yawNotPassedFilter++;
-                                }
-
-                                if (!match.getPitchPassFilter()) {
-                                    pitchNotPassedFilter++;
-                                }
-
-                                if (!match.getRangePassFilter()) {
-                                    rangeNotPassedFilter++;
-                                }
-
-                                continue;
-                            }
-
-                            countFiltered++;
-                            // TODO IMC-3043 add here all filters extra
+                    areaNotPassedFilter = columns.countMissing(MatchingColumns.AREA_PASS);
+                    rollNotPassedFilter = columns.countMissing(MatchingColumns.ROLL_PASS);
+                    yawNotPassedFilter = columns.countMissing(MatchingColumns.YAW_PASS);
+                    pitchNotPassedFilter = columns.countMissing(MatchingColumns.PITCH_PASS);
+                    rangeNotPassedFilter = columns.countMissing(MatchingColumns.RANGE_PASS);
 
-                            GPSFixType fix = match.getPhotoLogLine().fixType;
-                            gpsFixTypeCounter.increment(fix);
+                    gpsFixTypeCounter.clear();
+                    int countFiltered = 0;
+                    long totalSizeFilteredBytes = 0L;
+                    String filteredFileType = "";
+                    for (int i = 0; i != columns.size(); i++) {
+                        if (!columns.isPassFilter(i)) {
+                            continue;
+                        }
 
-                            totalSizeFilteredBytes += match.getResourceFileSizeBytes();
+                        countFiltered++;
+                        // TODO IMC-3043 add here all filters extra
+                        gpsFixTypeCounter.increment(columns.getFixType(i));
+                        totalSizeFilteredBytes += columns.getMatch(i).getResourceFileSizeBytes();
 
-                            if (Strings.isNullOrEmpty(filteredFileType)) {
-                                filteredFileType = match.getResourceFileType();
-                            }
+                        if (Strings.isNullOrEmpty(filteredFileType)) {
+                            filteredFileType = columns.getMatch(i).getResourceFileType();
                         }
                     }
 
+                    AMapLayerMatching.this.countFiltered = countFiltered;
+                    AMapLayerMatching.this.totalSizeFilteredBytes = totalSizeFilteredBytes;
+                    AMapLayerMatching.this.filteredFileType = filteredFileType;
+
                     cover.recomputeCoverage();
                     getPicsLayer().getWWLayer().resetVisibility();
                 } finally {
@@ -219,7 +200,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
                             "Image filtering recalc done. "
                                 + countFiltered
                                 + "/"
-                                + getPicsLayer().getLayers().size()
+                                + columns.size()
                                 + "   "
                                 + AMapLayerMatching.this
                                 + ". It took "
@@ -238,6 +219,30 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
 
     private Recomputer recomp = new Recomputer(recompRunFiltering);
 
+    private SoftReference<MatchingColumns> columns;
+
+    // the filter pass pushes its flags to the matches, the change events of this thread don't invalidate the columns
+    private volatile Thread filterPassThread;
+
+    /**
+     * the per image values for filtering, a cache which is rebuilt lazily after any value of an image changed or images
+     * were added, removed or switched band. They are only softly reachable, so the copy doesn't add to the memory of a
+     * large matching if memory gets low.
+     */
+    public synchronized MatchingColumns getColumns() {
+        MatchingColumns columns = this.columns != null ? this.columns.get() : null;
+        if (columns == null) {
+            columns = MatchingColumns.of(getPicsLayer().getLayers());
+            this.columns = new SoftReference<>(columns);
+        }
+
+        return columns;
+    }
+
+    private synchronized void invalidateColumns() {
+        columns = null;
+    }
+
     public AMapLayerMatching(File matchingFolder, boolean createNew) {
         super(true);
         this.matchingFolder = matchingFolder;
@@ -276,6 +281,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         }
 
         this.currentBandNo = currentBandNo;
+        invalidateColumns();
         mapLayerValuesChanged(this);
         pics.layer.fireImageLayerChanged(); // different preview image content
         setChanged(true);
@@ -749,28 +755,21 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         final double degStep = 1;
         final double cutPercentil = 0.05;
 
-        for (IMapLayer layer : getPictures()) {
-            if (layer instanceof MapLayerMatch) {
-                MapLayerMatch match = (MapLayerMatch)layer;
-                CPhotoLogLine line = match.getPhotoLogLine();
-                ComputeCornerData computeCornerData = match.img.getComputeCornerData();
-                double alt =
-                    (computeCornerData != null && computeCornerData.getAltOverCenter() != null)
-                        ? computeCornerData.getAltOverCenter()
-                        : match.line.getAltInM();
-                minMaxAlt.update(alt);
-                minMaxRoll.update(match.line.cameraRoll); // TODO CLST check
-                minMaxPitch.update(match.line.cameraPitch);
-                minMaxYaw.update(match.line.cameraYaw);
-
-                cnt++;
-                xYaw += Math.sin(Math.toRadians(match.line.cameraYaw));
-                yYaw += Math.cos(Math.toRadians(match.line.cameraYaw));
-                xRoll += Math.sin(Math.toRadians(match.line.cameraRoll));
-                yRoll += Math.cos(Math.toRadians(match.line.cameraRoll));
-                xPitch += Math.sin(Math.toRadians(match.line.cameraPitch));
-                yPitch += Math.cos(Math.toRadians(match.line.cameraPitch));
-            }
+        MatchingColumns columns = getColumns();
+        columns.refreshAltitudes();
+        for (int i = 0; i != columns.size(); i++) {
+            minMaxAlt.update(columns.getAlt(i));
+            minMaxRoll.update(columns.getRoll(i)); // TODO CLST check
+            minMaxPitch.update(columns.getPitch(i));
+            minMaxYaw.update(columns.getYaw(i));
+
+            cnt++;
+            xYaw += Math.sin(Math.toRadians(columns.getYaw(i)));
+            yYaw += Math.cos(Math.toRadians(columns.getYaw(i)));
+            xRoll += Math.sin(Math.toRadians(columns.getRoll(i)));
+            yRoll += Math.cos(Math.toRadians(columns.getRoll(i)));
+            xPitch += Math.sin(Math.toRadians(columns.getPitch(i)));
+            yPitch += Math.cos(Math.toRadians(columns.getPitch(i)));
         }
 
         double yawAvg = Math.toDegrees(Math.atan2(xYaw, yYaw));
@@ -782,48 +781,39 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         Histogram histYaw = new Histogram(-180 - degStep / 2, 180 + degStep / 2, degStep, false);
         Histogram histAlt = new Histogram(minMaxAlt.min - altStep / 2, minMaxAlt.max + altStep / 2, altStep, false);
 
-        for (IMapLayer layer : getPictures()) {
-            if (layer instanceof MapLayerMatch) {
-                MapLayerMatch match = (MapLayerMatch)layer;
-                CPhotoLogLine line = match.getPhotoLogLine();
-                ComputeCornerData computeCornerData = match.img.getComputeCornerData();
-                double alt =
-                    (computeCornerData != null && computeCornerData.getAltOverCenter() != null)
-                        ? computeCornerData.getAltOverCenter()
-                        : match.line.getAltInM();
-                histAlt.count(alt);
-
-                double yaw = line.cameraYaw - yawAvg;
-                while (yaw < 180) {
-                    yaw += 360;
-                }
+        for (int i = 0; i != columns.size(); i++) {
+            histAlt.count(columns.getAlt(i));
 
-                while (yaw >= 180) {
-                    yaw -= 360;
-                }
+            double yaw = columns.getYaw(i) - yawAvg;
+            while (yaw < 180) {
+                yaw += 360;
+            }
 
-                histYaw.count(yaw);
-                double roll = line.cameraRoll - rollAvg;
-                while (roll < 180) {
-                    roll += 360;
-                }
+            while (yaw >= 180) {
+                yaw -= 360;
+            }
 
-                while (roll >= 180) {
-                    roll -= 360;
-                }
+            histYaw.count(yaw);
+            double roll = columns.getRoll(i) - rollAvg;
+            while (roll < 180) {
+                roll += 360;
+            }
 
-                histRoll.count(roll);
-                double pitch = line.cameraPitch - pitchAvg;
-                while (pitch < 180) {
-                    pitch += 360;
-                }
+            while (roll >= 180) {
+                roll -= 360;
+            }
 
-                while (pitch >= 180) {
-                    pitch -= 360;
-                }
+            histRoll.count(roll);
+            double pitch = columns.getPitch(i) - pitchAvg;
+            while (pitch < 180) {
+                pitch += 360;
+            }
 
-                histPitch.count(pitch);
+            while (pitch >= 180) {
+                pitch -= 360;
             }
+
+            histPitch.count(pitch);
         }
 
         altitudeAGLEnabled = false;
@@ -936,74 +926,62 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
     /**
      * Applys all LOCAL filters to a match so dontPerforateLines has to be applied in a second run
      *
-     * @param match
+     * @param columns
+     * @param i index of the match
      * @return if filter value was changed
      */
-    private boolean applyFilter(MapLayerMatch match) {
-        AerialPinholeImage img = match.img;
+    private boolean applyFilter(MatchingColumns columns, int i) {
+        AerialPinholeImage img = columns.getMatch(i).img;
 
         if (img == null) {
             return true;
         }
 
-        ComputeCornerData computeCornerData = img.getComputeCornerData();
-
-        /*if (GlobalSettings.userLevel == GuiLevels.DEBUG) {
-            FuzzinessData fuzzinessData = match.getFuzzinessBlocking();
-            if (fuzzinessData != null && fuzzinessData.getInPixel() == -1) {
-                elevationDataAvaliableTmp = false; // maybe I could remove this line later?
-            }
-        }*/
+        double alt = columns.getAlt(i);
+        // System.out.println(match.getResourceFile() + " -> "+alt + " - " + match.line.alt/100f);
 
-        if (computeCornerData == null || !computeCornerData.isElevationDataReady()) {
-            elevationDataAvaliableTmp = false;
+        // TODO IMC-3043 show the number of images filtered out by each filter
+        byte flags = MatchingColumns.ALL_PASS;
+        if (!isAltAGLPass(alt)) {
+            flags &= ~MatchingColumns.RANGE_PASS;
         }
 
-        double alt =
-            (computeCornerData != null && computeCornerData.getAltOverCenter() != null)
-                ? computeCornerData.getAltOverCenter()
-                : match.line.getAltInM();
-        // System.out.println(match.getResourceFile() + " -> "+alt + " - " + match.line.alt/100f);
+        if (!isRollPass(columns.getRoll(i))) {
+            flags &= ~MatchingColumns.ROLL_PASS;
+        }
 
-        // TODO IMC-3043 show the number of images filtered out by each filter
-        match.setRangePassFilter(true);
-        match.setRollPassFilter(true);
-        match.setPitchPassFilter(true);
-        match.setYawPassFilter(true);
-        match.setAreaPassFilter(true);
+        if (!isPitchPass(columns.getPitch(i))) {
+            flags &= ~MatchingColumns.PITCH_PASS;
+        }
 
-        boolean isPass =
-            // (GlobalSettings.userLevel != GuiLevels.DEBUG || match.getFuzzyness().inPixel <= maxPixelFuzzyness) &&
-            // && (!onlyMainLines || match.line.isOnMainLine()) && (!onlySingleDirection || match.line.isForwardLine()
-            Math.abs(match.line.lat) > 1E-300 // falcon without valid GPS
-                && isAltAGLPass(alt)
-                && isRollPass(match)
-                && isPitchPass(match)
-                && isYawPass(match);
-        if (!isPass) {
-            if (!isAltAGLPass(alt)) match.setRangePassFilter(false);
-            if (!isRollPass(match)) match.setRollPassFilter(false);
-            if (!isPitchPass(match)) match.setPitchPassFilter(false);
-            if (!isYawPass(match)) match.setYawPassFilter(false);
+        if (!isYawPass(columns.getYaw(i))) {
+            flags &= ~MatchingColumns.YAW_PASS;
         }
         // TODO IMC-3043 add new filters
 
+        ComputeCornerData computeCornerData = img.getComputeCornerData();
         if (areaEnabled && computeCornerData != null && !getVisiblePicAreas().isEmpty()) {
-            match.setAreaPassFilter(false);
+            flags &= ~MatchingColumns.AREA_PASS;
             for (MapLayerPicArea picArea : getVisiblePicAreas()) {
                 if (picArea.intersectsWith(
                         computeCornerData.getGroundProjectedCorners(), computeCornerData.getSector())) {
-                    match.setAreaPassFilter(true);
+                    flags |= MatchingColumns.AREA_PASS;
                     break;
                 }
             }
         }
 
-        if (!match.getAreaPassFilter() && isPass) {
-            isPass = false;
+        // (GlobalSettings.userLevel != GuiLevels.DEBUG || match.getFuzzyness().inPixel <= maxPixelFuzzyness) &&
+        // && (!onlyMainLines || match.line.isOnMainLine()) && (!onlySingleDirection || match.line.isForwardLine()
+        boolean isPass =
+            Math.abs(columns.getLat(i)) > 1E-300 // falcon without valid GPS
+                && flags == MatchingColumns.ALL_PASS;
+        if (!isPass) {
+            flags &= ~MatchingColumns.PASS;
         }
+
         // System.out.println("apply Filter on " + match + " pass="+isPass);
-        return match.setPassFilter(isPass);
+        return columns.setFlags(i, flags);
     }
 
     public abstract List<MapLayerPicArea> getPicAreas();
@@ -1355,6 +1333,8 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
             recompute();
         } else if (layer instanceof MapLayerPics) {
             setChanged(true);
+        } else if (layer instanceof MapLayerMatch && filterPassThread != Thread.currentThread()) {
+            invalidateColumns();
         }
 
         super.mapLayerValuesChanged(layer);
@@ -1363,6 +1343,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
     @Override
     public void childMapLayerInserted(int i, IMapLayer layer) {
         if (layer instanceof MapLayerMatch) {
+            invalidateColumns();
             resetEstimatedStartingElevation();
             if (!isMute()) {
                 setChanged(true);
@@ -1376,6 +1357,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
     @Override
     public void childMapLayerRemoved(int i, IMapLayer layer) {
         if (layer instanceof MapLayerMatch) {
+            invalidateColumns();
             resetEstimatedStartingElevation();
             if (!isMute()) {
                 setChanged(true);
@@ -1470,14 +1452,14 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         return Math.abs(altitudeValue - alt) <= altitudeSpread;
     }
 
-    private boolean isRollPass(MapLayerMatch match) {
+    private boolean isRollPass(double roll) {
         if (!rollEnabled) {
             return true;
         }
 
         Double rollValue = (rollFrom + rollTo) / 2;
         Double rollSpread = rollTo - rollValue;
-        double rollNormalized = rollValue - match.line.cameraRoll;
+        double rollNormalized = rollValue - roll;
         while (rollNormalized < -180) {
             rollNormalized += 360;
         }
@@ -1489,7 +1471,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         return Math.abs(rollNormalized) <= rollSpread;
     }
 
-    private boolean isPitchPass(MapLayerMatch match) {
+    private boolean isPitchPass(double pitch) {
         if (!pitchEnabled) {
             return true;
         }
@@ -1497,10 +1479,10 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         Double pitchValue = (pitchFrom + pitchTo) / 2;
         Double pitchSpread = pitchTo - pitchValue;
 
-        return Math.abs(pitchValue - match.line.cameraPitch) <= pitchSpread;
+        return Math.abs(pitchValue - pitch) <= pitchSpread;
     }
 
-    private boolean isYawPass(MapLayerMatch match) {
+    private boolean isYawPass(double yaw) {
         if (!yawEnabled) {
             return true;
         }
@@ -1508,7 +1490,7 @@ public abstract class AMapLayerMatching extends MapLayerSectorReferenced
         Double yawValue = (yawFrom + yawTo) / 2;
         Double yawSpread = yawTo - yawValue;
 
-        double yawNormalized = yawValue - match.line.cameraYaw;
+        double yawNormalized = yawValue - yaw;
         while (yawNormalized < -180) {
             yawNormalized += 360;
         }
@@ -0,0 +1,1270 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import gov.nasa.worldwind.geom.Position;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import thebuzzmedia.exiftool.ExifTool.Tag;
+
+/**
+ * Pure java geotag writer for JPEG images, used instead of the ExifTool process when exporting EXIF data of a dataset.
+ *
+ * <p>Only the metadata APP1 segments are touched: EXIF fields which are already present (date, GPS, orientation...)
+ * are patched in place. Missing EXIF fields are added like ExifTool does, the IFD they belong to is moved to the end of
+ * the EXIF segment together with the new entries, and a missing GPS IFD or EXIF segment is created. Tags without EXIF
+ * counterpart are stored in the XMP packet. If the segments keep their size, the file is modified in place, otherwise
+ * the headers are rewritten into a temp file and the untouched image payload is streamed behind them with {@link
+ * FileChannel#transferTo}.
+ *
+ * <p>{@link #write(File, Map)} returns false if the image can't be tagged this way (not a JPEG, EXIF value which would
+ * shadow the new one but can't be patched...). In this case nothing was written and the caller has to fall back to
+ * ExifTool. Instances are stateless and can be shared between threads.
+ */
+public class InPlaceExifWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InPlaceExifWriter.class);
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_APP0 = 0xE0;
+    private static final int MARKER_APP1 = 0xE1;
+
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] XMP_HEADER = "http://ns.adobe.com/xap/1.0/\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] USER_COMMENT_ASCII = "ASCII\0\0\0".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int MAX_SEGMENT_PAYLOAD = 0xFFFF - 2;
+    private static final int MAX_HEADER_SIZE = 4 * 1024 * 1024;
+    private static final int XMP_PADDING = 2048;
+
+    private static final String NS_RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String NS_X = "adobe:ns:meta/";
+    private static final String NS_EXIF = "http://ns.adobe.com/exif/1.0/";
+    private static final String NS_TIFF = "http://ns.adobe.com/tiff/1.0/";
+    private static final String NS_XMP = "http://ns.adobe.com/xap/1.0/";
+    private static final String NS_PHOTOSHOP = "http://ns.adobe.com/photoshop/1.0/";
+    private static final String NS_CAMERA = "http://ns.myname.com/Camera/1.0/";
+    private static final String NS_XML = "http://www.w3.org/XML/1998/namespace";
+
+    private static final double NUMERIC_TOLERANCE = 1e-5;
+
+    private static final int IFD_0 = 0;
+    private static final int IFD_EXIF = 1;
+    private static final int IFD_GPS = 2;
+
+    private static final int[] TIFF_TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8};
+    private static final int TYPE_BYTE = 1;
+    private static final int TYPE_ASCII = 2;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_RATIONAL = 5;
+    private static final int TYPE_UNDEFINED = 7;
+    private static final int TYPE_SRATIONAL = 10;
+
+    private enum Kind {
+        ASCII,
+        INTEGER,
+        RATIONAL,
+        SIGNED_RATIONAL,
+        DEGREES,
+        COMMENT
+    }
+
+    /** Where a tag lives inside EXIF and XMP, and how its value is encoded. */
+    private static final class Field {
+        final int ifd;
+        final int exifTag;
+        final Kind kind;
+        final String xmpNamespace;
+        final String xmpPrefix;
+        final String xmpName;
+
+        Field(int ifd, int exifTag, Kind kind, String xmpNamespace, String xmpPrefix, String xmpName) {
+            this.ifd = ifd;
+            this.exifTag = exifTag;
+            this.kind = kind;
+            this.xmpNamespace = xmpNamespace;
+            this.xmpPrefix = xmpPrefix;
+            this.xmpName = xmpName;
+        }
+
+        boolean hasExif() {
+            return exifTag >= 0;
+        }
+
+        /** @return the TIFF type ExifTool uses when it creates the entry */
+        int getType() {
+            switch (kind) {
+            case ASCII:
+                return TYPE_ASCII;
+            case INTEGER:
+                // GPSAltitudeRef is the only integer in the GPS IFD
+                return ifd == IFD_GPS ? TYPE_BYTE : TYPE_SHORT;
+            case SIGNED_RATIONAL:
+                return TYPE_SRATIONAL;
+            case COMMENT:
+                return TYPE_UNDEFINED;
+            default:
+                return TYPE_RATIONAL;
+            }
+        }
+
+        /** @return the TIFF count of a new entry holding the given value */
+        long getCount(String value) {
+            switch (kind) {
+            case ASCII:
+                return value.getBytes(StandardCharsets.ISO_8859_1).length + 1;
+            case COMMENT:
+                return USER_COMMENT_ASCII.length + value.getBytes(StandardCharsets.ISO_8859_1).length;
+            case DEGREES:
+                return 3;
+            default:
+                return 1;
+            }
+        }
+    }
+
+    private static final Map<Tag, Field> FIELDS = new EnumMap<>(Tag.class);
+
+    static {
+        FIELDS.put(Tag.ORIENTATION, new Field(IFD_0, 0x0112, Kind.INTEGER, NS_TIFF, "tiff", "Orientation"));
+        FIELDS.put(
+            Tag.DATE_TIME_ORIGINAL, new Field(IFD_EXIF, 0x9003, Kind.ASCII, NS_EXIF, "exif", "DateTimeOriginal"));
+        FIELDS.put(Tag.USER_COMMENT, new Field(IFD_EXIF, 0x9286, Kind.COMMENT, NS_EXIF, "exif", "UserComment"));
+        FIELDS.put(Tag.FOCAL_LENGTH, new Field(IFD_EXIF, 0x920A, Kind.RATIONAL, NS_EXIF, "exif", "FocalLength"));
+        FIELDS.put(
+            Tag.FOCAL_LENGTH_35MM,
+            new Field(IFD_EXIF, 0xA405, Kind.INTEGER, NS_EXIF, "exif", "FocalLengthIn35mmFilm"));
+        // user defined tags, see .ExifTool_config
+        FIELDS.put(
+            Tag.DATE_TIME_ORIGINAL_BACKUP,
+            new Field(IFD_EXIF, 0xD000, Kind.ASCII, NS_EXIF, "exif", "DateTimeOriginalBackup"));
+        FIELDS.put(
+            Tag.CREATION_DATE_BACKUP, new Field(IFD_EXIF, 0xD001, Kind.ASCII, NS_EXIF, "exif", "CreationDateBackup"));
+        FIELDS.put(Tag.GPS_LATITUDE_REF, new Field(IFD_GPS, 0x0001, Kind.ASCII, null, null, null));
+        FIELDS.put(Tag.GPS_LATITUDE, new Field(IFD_GPS, 0x0002, Kind.DEGREES, NS_EXIF, "exif", "GPSLatitude"));
+        FIELDS.put(Tag.GPS_LONGITUDE_REF, new Field(IFD_GPS, 0x0003, Kind.ASCII, null, null, null));
+        FIELDS.put(Tag.GPS_LONGITUDE, new Field(IFD_GPS, 0x0004, Kind.DEGREES, NS_EXIF, "exif", "GPSLongitude"));
+        FIELDS.put(
+            Tag.GPS_ALTITUDE_REF, new Field(IFD_GPS, 0x0005, Kind.INTEGER, NS_EXIF, "exif", "GPSAltitudeRef"));
+        FIELDS.put(Tag.GPS_ALTITUDE, new Field(IFD_GPS, 0x0006, Kind.RATIONAL, NS_EXIF, "exif", "GPSAltitude"));
+        FIELDS.put(
+            Tag.GPS_IMG_DIRECTION_REF,
+            new Field(IFD_GPS, 0x0010, Kind.ASCII, NS_EXIF, "exif", "GPSImgDirectionRef"));
+        FIELDS.put(
+            Tag.GPS_IMG_DIRECTION, new Field(IFD_GPS, 0x0011, Kind.RATIONAL, NS_EXIF, "exif", "GPSImgDirection"));
+        FIELDS.put(
+            Tag.GPS_PITCH_ANGLE,
+            new Field(IFD_GPS, 0xD000, Kind.SIGNED_RATIONAL, NS_EXIF, "exif", "GPSPitchAngle"));
+        FIELDS.put(
+            Tag.GPS_ROLL_ANGLE, new Field(IFD_GPS, 0xD001, Kind.SIGNED_RATIONAL, NS_EXIF, "exif", "GPSRollAngle"));
+        FIELDS.put(Tag.GPS_MAP_DATUM, new Field(IFD_GPS, 0xD002, Kind.ASCII, NS_EXIF, "exif", "GPSMapDatum"));
+        FIELDS.put(Tag.CREATION_DATE, new Field(-1, -1, Kind.ASCII, NS_XMP, "xmp", "CreateDate"));
+        // only read as fallback for the creation date, ExifTool also reads it from IPTC which is not supported here
+        FIELDS.put(
+            Tag.DATE_TIME_CREATED, new Field(-1, -1, Kind.ASCII, NS_PHOTOSHOP, "photoshop", "DateCreated"));
+        FIELDS.put(Tag.PITCH, new Field(-1, -1, Kind.SIGNED_RATIONAL, NS_CAMERA, "Camera", "Pitch"));
+        FIELDS.put(Tag.ROLL, new Field(-1, -1, Kind.SIGNED_RATIONAL, NS_CAMERA, "Camera", "Roll"));
+        FIELDS.put(Tag.YAW, new Field(-1, -1, Kind.SIGNED_RATIONAL, NS_CAMERA, "Camera", "Yaw"));
+    }
+
+    /**
+     * Writes the given tags, using the same value conventions as {@link thebuzzmedia.exiftool.ExifTool#setImageMeta}
+     * in numeric mode. Empty values remove a tag.
+     *
+     * @return false if nothing was written since the image can't be tagged without ExifTool
+     */
+    public boolean write(File file, Map<Tag, String> tags) throws IOException {
+        for (Tag tag : tags.keySet()) {
+            if (!FIELDS.containsKey(tag)) {
+                LOGGER.debug("Tag {} not supported by in place writer, falling back to ExifTool for {}", tag, file);
+                return false;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            JpegHeader header = JpegHeader.read(channel);
+            if (header == null) {
+                return false;
+            }
+
+            Map<Tag, String> xmpValues = new EnumMap<>(Tag.class);
+            for (Map.Entry<Tag, String> entry : tags.entrySet()) {
+                Tag tag = entry.getKey();
+                String value = entry.getValue() == null ? "" : entry.getValue().trim();
+                Field field = FIELDS.get(tag);
+                int entryOffset = header.exif != null && field.hasExif() ? header.exif.find(field) : -1;
+                if (entryOffset >= 0) {
+                    if (value.isEmpty() || !header.exif.patch(entryOffset, field.kind, value)) {
+                        LOGGER.debug("EXIF tag {} of {} can't be patched in place", tag, file);
+                        return false;
+                    }
+
+                    // dont leave a stale copy in XMP which might be read by other tools
+                    value = "";
+                } else if (field.hasExif() && !value.isEmpty()) {
+                    // ExifTool creates the EXIF entry as well, and readers prefer it to XMP
+                    if (header.exif == null) {
+                        header.exif = ExifSegment.create();
+                    }
+
+                    header.exif.add(field, value);
+                    value = "";
+                }
+
+                xmpValues.put(tag, value);
+            }
+
+            if (header.exif != null && !header.exif.addEntries()) {
+                LOGGER.debug("EXIF entries of {} can't be added", file);
+                return false;
+            }
+
+            if (header.exif != null && header.exif.data.length > MAX_SEGMENT_PAYLOAD) {
+                LOGGER.debug("EXIF segment of {} gets too large for a single segment", file);
+                return false;
+            }
+
+            byte[] xmp = header.buildXmp(xmpValues, tags);
+            if (xmp != null && xmp.length > MAX_SEGMENT_PAYLOAD) {
+                LOGGER.debug("XMP packet of {} gets too large for a single segment", file);
+                return false;
+            }
+
+            channel.close();
+            header.store(file, xmp);
+            return true;
+        }
+    }
+
+    /**
+     * Reads back the values of the given tags from EXIF or XMP, formatted like ExifTool in numeric mode. Tags which
+     * are not present are missing in the result.
+     */
+    public Map<Tag, String> read(File file, Tag... tags) throws IOException {
+        Map<Tag, String> result = new EnumMap<>(Tag.class);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            JpegHeader header = JpegHeader.read(channel);
+            if (header == null) {
+                return result;
+            }
+
+            Map<String, String> xmp = header.readXmpProperties();
+            for (Tag tag : tags) {
+                Field field = FIELDS.get(tag);
+                if (field == null) {
+                    continue;
+                }
+
+                String value = null;
+                int entryOffset = header.exif != null && field.hasExif() ? header.exif.find(field) : -1;
+                if (entryOffset >= 0) {
+                    value = header.exif.decode(entryOffset, field.kind);
+                } else if (field.xmpName != null) {
+                    value = decodeXmp(tag, field, xmp);
+                } else if (tag == Tag.GPS_LATITUDE_REF || tag == Tag.GPS_LONGITUDE_REF) {
+                    String coordinate =
+                        xmp.get(NS_EXIF + (tag == Tag.GPS_LATITUDE_REF ? "GPSLatitude" : "GPSLongitude"));
+                    if (coordinate != null && !coordinate.isEmpty()) {
+                        value = coordinate.substring(coordinate.length() - 1);
+                    }
+                }
+
+                if (value != null) {
+                    result.put(tag, value);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks that every non empty tag which was written can be read back with the same value.
+     *
+     * @return the tags which don't round trip, empty if the file is fine
+     */
+    public List<Tag> verify(File file, Map<Tag, String> tags) throws IOException {
+        Map<Tag, String> actual = read(file, tags.keySet().toArray(new Tag[0]));
+        List<Tag> mismatches = new ArrayList<>();
+        for (Map.Entry<Tag, String> entry : tags.entrySet()) {
+            String expected = entry.getValue() == null ? "" : entry.getValue().trim();
+            String value = actual.get(entry.getKey());
+            if (expected.isEmpty()) {
+                if (value != null && !value.isEmpty()) {
+                    mismatches.add(entry.getKey());
+                }
+            } else if (value == null || !sameValue(FIELDS.get(entry.getKey()).kind, expected, value)) {
+                mismatches.add(entry.getKey());
+            }
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Cross check of a written file with the regular (ExifTool based) metadata reader, to make sure the values are not
+     * shadowed by some other metadata block ExifTool prefers.
+     */
+    public boolean verifyWithExifInfos(File file, Map<Tag, String> tags) {
+        try {
+            Position position = new ExifInfos(file).getGPSPosition();
+            return Math.abs(position.getLatitude().degrees - signed(tags, Tag.GPS_LATITUDE, Tag.GPS_LATITUDE_REF, "S"))
+                    < PhotoFile.TINY
+                && Math.abs(
+                        position.getLongitude().degrees - signed(tags, Tag.GPS_LONGITUDE, Tag.GPS_LONGITUDE_REF, "W"))
+                    < PhotoFile.TINY;
+        } catch (Exception e) {
+            LOGGER.warn("Unable to verify written geotag of " + file, e);
+            return false;
+        }
+    }
+
+    private static double signed(Map<Tag, String> tags, Tag value, Tag ref, String negativeRef) {
+        double v = Math.abs(Double.parseDouble(tags.get(value)));
+        return negativeRef.equals(tags.get(ref)) ? -v : v;
+    }
+
+    private static boolean sameValue(Kind kind, String expected, String actual) {
+        switch (kind) {
+        case INTEGER:
+        case RATIONAL:
+        case SIGNED_RATIONAL:
+        case DEGREES:
+            try {
+                return Math.abs(Double.parseDouble(expected) - Double.parseDouble(actual)) < NUMERIC_TOLERANCE;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        default:
+            return expected.equals(actual.trim());
+        }
+    }
+
+    private static String decodeXmp(Tag tag, Field field, Map<String, String> xmp) {
+        String value = xmp.get(field.xmpNamespace + field.xmpName);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        switch (field.kind) {
+        case DEGREES:
+            {
+                // "DDD,MM.mmmmk"
+                int comma = value.indexOf(',');
+                double degrees = Double.parseDouble(value.substring(0, comma));
+                double minutes = Double.parseDouble(value.substring(comma + 1, value.length() - 1));
+                return Double.toString(degrees + minutes / 60);
+            }
+        case RATIONAL:
+        case SIGNED_RATIONAL:
+            {
+                int slash = value.indexOf('/');
+                if (slash < 0) {
+                    return value;
+                }
+
+                return Double.toString(
+                    Double.parseDouble(value.substring(0, slash)) / Double.parseDouble(value.substring(slash + 1)));
+            }
+        default:
+            if (tag == Tag.DATE_TIME_ORIGINAL || tag == Tag.CREATION_DATE || tag == Tag.DATE_TIME_CREATED) {
+                return fromXmpDate(value);
+            }
+
+            return value;
+        }
+    }
+
+    private static String toXmpDate(String exifDate) {
+        // yyyy:MM:dd HH:mm:ss -> yyyy-MM-ddTHH:mm:ss
+        if (exifDate.length() != 19) {
+            return exifDate;
+        }
+
+        return exifDate.substring(0, 4)
+            + '-'
+            + exifDate.substring(5, 7)
+            + '-'
+            + exifDate.substring(8, 10)
+            + 'T'
+            + exifDate.substring(11);
+    }
+
+    private static String fromXmpDate(String xmpDate) {
+        if (xmpDate.length() < 19 || xmpDate.charAt(10) != 'T') {
+            return xmpDate;
+        }
+
+        return xmpDate.substring(0, 4)
+            + ':'
+            + xmpDate.substring(5, 7)
+            + ':'
+            + xmpDate.substring(8, 10)
+            + ' '
+            + xmpDate.substring(11, 19);
+    }
+
+    private static long[] toRational(double value) {
+        long denominator = 1000000;
+        while (denominator > 1 && Math.abs(value * denominator) >= Integer.MAX_VALUE) {
+            denominator /= 10;
+        }
+
+        return new long[] {Math.round(value * denominator), denominator};
+    }
+
+    private static String formatXmpValue(Tag tag, Field field, String value, Map<Tag, String> all) {
+        switch (field.kind) {
+        case DEGREES:
+            {
+                double v = Math.abs(Double.parseDouble(value));
+                int degrees = (int)v;
+                double minutes = (v - degrees) * 60;
+                String ref = all.get(tag == Tag.GPS_LATITUDE ? Tag.GPS_LATITUDE_REF : Tag.GPS_LONGITUDE_REF);
+                if (ref == null || ref.isEmpty()) {
+                    ref = tag == Tag.GPS_LATITUDE ? "N" : "E";
+                }
+
+                return String.format(Locale.ENGLISH, "%d,%.10f%s", degrees, minutes, ref);
+            }
+        case RATIONAL:
+        case SIGNED_RATIONAL:
+            {
+                long[] rational = toRational(Double.parseDouble(value));
+                return rational[0] + "/" + rational[1];
+            }
+        default:
+            if (tag == Tag.DATE_TIME_ORIGINAL || tag == Tag.CREATION_DATE || tag == Tag.DATE_TIME_CREATED) {
+                return toXmpDate(value);
+            }
+
+            return value;
+        }
+    }
+
+    /** An entry which is missing in the EXIF data, with its value or the raw bytes of it. */
+    private static final class NewEntry {
+        final int type;
+        final long count;
+        final Kind kind;
+        final String value;
+        final byte[] raw;
+
+        NewEntry(int type, long count, Kind kind, String value, byte[] raw) {
+            this.type = type;
+            this.count = count;
+            this.kind = kind;
+            this.value = value;
+            this.raw = raw;
+        }
+
+        int size() {
+            return (int)(count * TIFF_TYPE_SIZES[type]);
+        }
+    }
+
+    /** The EXIF APP1 payload with the entry positions of the three IFDs we are interested in. */
+    private static final class ExifSegment {
+        private static final int TIFF_START = EXIF_HEADER.length;
+        private static final int[] POINTER_TAGS = {-1, 0x8769, 0x8825};
+        private static final int TAG_GPS_VERSION = 0x0000;
+        private static final byte[] GPS_VERSION = {2, 3, 0, 0};
+
+        byte[] data;
+        ByteBuffer buffer;
+        final List<Map<Integer, Integer>> directories = new ArrayList<>();
+        final int[] directoryOffsets = new int[3];
+        final List<Map<Integer, NewEntry>> newEntries = new ArrayList<>();
+
+        ExifSegment(byte[] data) throws IOException {
+            this.data = data;
+            buffer = ByteBuffer.wrap(data);
+            if (data.length < TIFF_START + 8) {
+                throw new IOException("EXIF segment too short");
+            }
+
+            if (data[TIFF_START] == 'I' && data[TIFF_START + 1] == 'I') {
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (data[TIFF_START] == 'M' && data[TIFF_START + 1] == 'M') {
+                buffer.order(ByteOrder.BIG_ENDIAN);
+            } else {
+                throw new IOException("Invalid TIFF byte order in EXIF segment");
+            }
+
+            for (int i = 0; i < POINTER_TAGS.length; i++) {
+                newEntries.add(new HashMap<>());
+            }
+
+            parse();
+        }
+
+        /** @return a new segment with an empty IFD0, for images without any EXIF data */
+        static ExifSegment create() throws IOException {
+            ByteBuffer tiff = ByteBuffer.allocate(TIFF_START + 14).order(ByteOrder.BIG_ENDIAN);
+            tiff.put(EXIF_HEADER).put((byte)'M').put((byte)'M').putShort((short)42).putInt(8);
+            tiff.putShort((short)0).putInt(0);
+            return new ExifSegment(tiff.array());
+        }
+
+        private void parse() throws IOException {
+            directories.clear();
+            Arrays.fill(directoryOffsets, -1);
+            readDirectory(IFD_0, u32(TIFF_START + 4));
+            readSubDirectory(IFD_EXIF);
+            readSubDirectory(IFD_GPS);
+        }
+
+        private void readSubDirectory(int ifd) throws IOException {
+            Integer entry = directories.get(IFD_0).get(POINTER_TAGS[ifd]);
+            readDirectory(ifd, entry == null ? 0 : u32(entry + 8));
+        }
+
+        private void readDirectory(int ifd, long offset) throws IOException {
+            Map<Integer, Integer> entries = new HashMap<>();
+            directories.add(entries);
+            if (offset <= 0 || TIFF_START + offset + 2 > data.length) {
+                return;
+            }
+
+            int start = (int)(TIFF_START + offset);
+            int count = u16(start);
+            if (start + 2 + count * 12 > data.length) {
+                throw new IOException("Truncated IFD in EXIF segment");
+            }
+
+            for (int i = 0; i < count; i++) {
+                int entry = start + 2 + i * 12;
+                entries.put(u16(entry), entry);
+            }
+
+            directoryOffsets[ifd] = start;
+        }
+
+        /** Remembers a missing entry, which is added by {@link #addEntries()}. */
+        void add(Field field, String value) {
+            newEntries.get(field.ifd).put(
+                field.exifTag, new NewEntry(field.getType(), field.getCount(value), field.kind, value, null));
+        }
+
+        /**
+         * Moves every IFD which gets new entries to the end of the segment, together with its old entries, and fills
+         * in the values of the new entries. The values of the old entries stay where they are, so their offsets are
+         * still valid.
+         *
+         * @return false if a value can't be encoded
+         */
+        boolean addEntries() throws IOException {
+            if (newEntries.stream().allMatch(Map::isEmpty)) {
+                return true;
+            }
+
+            for (int ifd = IFD_EXIF; ifd <= IFD_GPS; ifd++) {
+                if (newEntries.get(ifd).isEmpty() || directoryOffsets[ifd] >= 0) {
+                    continue;
+                }
+
+                newEntries.get(IFD_0).put(POINTER_TAGS[ifd], new NewEntry(TYPE_LONG, 1, Kind.INTEGER, null, null));
+                if (ifd == IFD_GPS) {
+                    newEntries.get(ifd).put(TAG_GPS_VERSION, new NewEntry(TYPE_BYTE, 4, null, null, GPS_VERSION));
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + 1024);
+            out.write(data);
+            int[] movedOffsets = new int[directoryOffsets.length];
+            // the sub directories first, since IFD0 points to them
+            for (int ifd = IFD_GPS; ifd >= IFD_0; ifd--) {
+                movedOffsets[ifd] = newEntries.get(ifd).isEmpty() ? -1 : appendDirectory(out, ifd);
+            }
+
+            data = out.toByteArray();
+            buffer = ByteBuffer.wrap(data).order(buffer.order());
+            if (movedOffsets[IFD_0] >= 0) {
+                buffer.putInt(TIFF_START + 4, movedOffsets[IFD_0] - TIFF_START);
+            }
+
+            parse();
+            for (int ifd = IFD_EXIF; ifd <= IFD_GPS; ifd++) {
+                if (movedOffsets[ifd] >= 0) {
+                    buffer.putInt(directories.get(IFD_0).get(POINTER_TAGS[ifd]) + 8, movedOffsets[ifd] - TIFF_START);
+                }
+            }
+
+            parse();
+            for (int ifd = IFD_0; ifd <= IFD_GPS; ifd++) {
+                for (Map.Entry<Integer, NewEntry> entry : newEntries.get(ifd).entrySet()) {
+                    NewEntry newEntry = entry.getValue();
+                    if (newEntry.value != null
+                            && !patch(directories.get(ifd).get(entry.getKey()), newEntry.kind, newEntry.value)) {
+                        return false;
+                    }
+                }
+
+                newEntries.get(ifd).clear();
+            }
+
+            return true;
+        }
+
+        /** @return the position of the appended directory within the new data */
+        private int appendDirectory(ByteArrayOutputStream out, int ifd) {
+            if (out.size() % 2 != 0) {
+                out.write(0);
+            }
+
+            int start = out.size();
+            Map<Integer, NewEntry> added = newEntries.get(ifd);
+            TreeMap<Integer, Integer> oldEntries = new TreeMap<>(directories.get(ifd));
+            oldEntries.keySet().removeAll(added.keySet());
+            TreeMap<Integer, Object> entries = new TreeMap<>(oldEntries);
+            entries.putAll(added);
+            long next = 0;
+            int oldStart = directoryOffsets[ifd];
+            if (oldStart >= 0) {
+                int nextPointer = oldStart + 2 + 12 * u16(oldStart);
+                next = nextPointer + 4 <= data.length ? u32(nextPointer) : 0;
+            }
+
+            int valuesSize = 0;
+            for (NewEntry entry : added.values()) {
+                valuesSize += entry.size() > 4 ? (entry.size() + 1) & ~1 : 0;
+            }
+
+            ByteBuffer directory =
+                ByteBuffer.allocate(2 + 12 * entries.size() + 4 + valuesSize).order(buffer.order());
+            directory.putShort((short)entries.size());
+            int valuePosition = start + 2 + 12 * entries.size() + 4;
+            for (Map.Entry<Integer, Object> entry : entries.entrySet()) {
+                if (entry.getValue() instanceof Integer) {
+                    directory.put(data, (Integer)entry.getValue(), 12);
+                    continue;
+                }
+
+                NewEntry newEntry = (NewEntry)entry.getValue();
+                directory.putShort(entry.getKey().shortValue()).putShort((short)newEntry.type);
+                directory.putInt((int)newEntry.count);
+                if (newEntry.size() > 4) {
+                    directory.putInt(valuePosition - TIFF_START);
+                    valuePosition += (newEntry.size() + 1) & ~1;
+                } else {
+                    byte[] value = newEntry.raw != null ? newEntry.raw : new byte[4];
+                    directory.put(Arrays.copyOf(value, 4));
+                }
+            }
+
+            directory.putInt((int)next);
+            out.write(directory.array(), 0, directory.capacity());
+            return start;
+        }
+
+        int find(Field field) {
+            Integer entry = directories.get(field.ifd).get(field.exifTag);
+            if (entry == null && field.ifd == IFD_EXIF) {
+                // user defined tags might have ended up in IFD0
+                entry = directories.get(IFD_0).get(field.exifTag);
+            }
+
+            return entry == null ? -1 : entry;
+        }
+
+        private int u16(int offset) {
+            return buffer.getShort(offset) & 0xFFFF;
+        }
+
+        private long u32(int offset) {
+            return buffer.getInt(offset) & 0xFFFFFFFFL;
+        }
+
+        private int type(int entry) {
+            return u16(entry + 2);
+        }
+
+        private long count(int entry) {
+            return u32(entry + 4);
+        }
+
+        /** @return the position of the entry value within {@link #data}, or -1 if it is out of bounds */
+        private int valueOffset(int entry) {
+            int type = type(entry);
+            if (type <= 0 || type >= TIFF_TYPE_SIZES.length) {
+                return -1;
+            }
+
+            long size = count(entry) * TIFF_TYPE_SIZES[type];
+            long offset = size <= 4 ? entry + 8 : TIFF_START + u32(entry + 8);
+            return offset + size <= data.length ? (int)offset : -1;
+        }
+
+        boolean patch(int entry, Kind kind, String value) {
+            int offset = valueOffset(entry);
+            if (offset < 0) {
+                return false;
+            }
+
+            int type = type(entry);
+            long count = count(entry);
+            try {
+                switch (kind) {
+                case ASCII:
+                    {
+                        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+                        if (type != 2 || count < bytes.length + 1) {
+                            return false;
+                        }
+
+                        System.arraycopy(bytes, 0, data, offset, bytes.length);
+                        for (int i = bytes.length; i < count; i++) {
+                            data[offset + i] = 0;
+                        }
+
+                        return true;
+                    }
+                case INTEGER:
+                    {
+                        int v = Integer.parseInt(value);
+                        if (count != 1) {
+                            return false;
+                        }
+
+                        if (type == 1 || type == 7) {
+                            data[offset] = (byte)v;
+                        } else if (type == 3) {
+                            buffer.putShort(offset, (short)v);
+                        } else if (type == 4) {
+                            buffer.putInt(offset, v);
+                        } else {
+                            return false;
+                        }
+
+                        return true;
+                    }
+                case RATIONAL:
+                case SIGNED_RATIONAL:
+                    {
+                        double v = Double.parseDouble(value);
+                        if (count != 1 || (type != 5 && type != 10) || (type == 5 && v < 0)) {
+                            return false;
+                        }
+
+                        putRational(offset, v);
+                        return true;
+                    }
+                case DEGREES:
+                    {
+                        if (count != 3 || type != 5) {
+                            return false;
+                        }
+
+                        double v = Math.abs(Double.parseDouble(value));
+                        int degrees = (int)v;
+                        double minutes = (v - degrees) * 60;
+                        int wholeMinutes = (int)minutes;
+                        buffer.putInt(offset, degrees);
+                        buffer.putInt(offset + 4, 1);
+                        buffer.putInt(offset + 8, wholeMinutes);
+                        buffer.putInt(offset + 12, 1);
+                        putRational(offset + 16, (minutes - wholeMinutes) * 60);
+                        return true;
+                    }
+                case COMMENT:
+                    {
+                        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+                        if (type != 7 || count < USER_COMMENT_ASCII.length + bytes.length) {
+                            return false;
+                        }
+
+                        System.arraycopy(USER_COMMENT_ASCII, 0, data, offset, USER_COMMENT_ASCII.length);
+                        System.arraycopy(bytes, 0, data, offset + USER_COMMENT_ASCII.length, bytes.length);
+                        for (int i = USER_COMMENT_ASCII.length + bytes.length; i < count; i++) {
+                            data[offset + i] = 0;
+                        }
+
+                        return true;
+                    }
+                default:
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private void putRational(int offset, double value) {
+            long[] rational = toRational(value);
+            buffer.putInt(offset, (int)rational[0]);
+            buffer.putInt(offset + 4, (int)rational[1]);
+        }
+
+        private double getRational(int offset, boolean signed) {
+            double numerator = signed ? buffer.getInt(offset) : u32(offset);
+            double denominator = signed ? buffer.getInt(offset + 4) : u32(offset + 4);
+            return denominator == 0 ? 0 : numerator / denominator;
+        }
+
+        String decode(int entry, Kind kind) {
+            int offset = valueOffset(entry);
+            if (offset < 0) {
+                return null;
+            }
+
+            int type = type(entry);
+            int count = (int)count(entry);
+            switch (type) {
+            case 1:
+            case 6:
+                return Integer.toString(data[offset] & 0xFF);
+            case 3:
+                return Integer.toString(u16(offset));
+            case 4:
+                return Long.toString(u32(offset));
+            case 5:
+            case 10:
+                if (kind == Kind.DEGREES && count == 3) {
+                    return Double.toString(
+                        getRational(offset, false)
+                            + getRational(offset + 8, false) / 60
+                            + getRational(offset + 16, false) / 3600);
+                }
+
+                return Double.toString(getRational(offset, type == 10));
+            case 2:
+            case 7:
+                {
+                    int start = offset;
+                    int length = count;
+                    if (kind == Kind.COMMENT && count >= USER_COMMENT_ASCII.length) {
+                        start += USER_COMMENT_ASCII.length;
+                        length -= USER_COMMENT_ASCII.length;
+                    }
+
+                    int end = start;
+                    while (end < start + length && data[end] != 0) {
+                        end++;
+                    }
+
+                    return new String(data, start, end - start, StandardCharsets.ISO_8859_1).trim();
+                }
+            default:
+                return null;
+            }
+        }
+    }
+
+    /** A metadata segment replacing the header bytes between start and end. */
+    private static final class Splice {
+        final int start;
+        final int end;
+        final byte[] payload;
+
+        Splice(int start, int end, byte[] payload) {
+            this.start = start;
+            this.end = end;
+            this.payload = payload;
+        }
+    }
+
+    /** Everything in front of the scan data of a JPEG, plus where the metadata segments are located within it. */
+    private static final class JpegHeader {
+        byte[] bytes;
+        long fileSize;
+        ExifSegment exif;
+        int exifPayloadOffset = -1;
+        int exifPayloadLength;
+        int exifInsertOffset = 2;
+        int xmpSegmentOffset = -1;
+        int xmpSegmentLength;
+        int insertOffset = 2;
+        String xmpPacket;
+
+        static JpegHeader read(FileChannel channel) throws IOException {
+            JpegHeader header = new JpegHeader();
+            header.fileSize = channel.size();
+            ByteBuffer marker = ByteBuffer.allocate(4);
+            if (!readFully(channel, marker, 0, 2)
+                    || (marker.get(0) & 0xFF) != 0xFF
+                    || (marker.get(1) & 0xFF) != MARKER_SOI) {
+                return null;
+            }
+
+            long position = 2;
+            boolean leading = true;
+            while (true) {
+                if (!readFully(channel, marker, position, 4) || (marker.get(0) & 0xFF) != 0xFF) {
+                    return null;
+                }
+
+                int type = marker.get(1) & 0xFF;
+                if (type == MARKER_SOS || type == MARKER_EOI) {
+                    break;
+                }
+
+                int length = marker.getShort(2) & 0xFFFF;
+                long next = position + 2 + length;
+                if (length < 2 || next > header.fileSize || next > MAX_HEADER_SIZE) {
+                    return null;
+                }
+
+                if (leading && (type == MARKER_APP0 || type == MARKER_APP1)) {
+                    header.insertOffset = (int)next;
+                    if (type == MARKER_APP0 && header.exifInsertOffset == position) {
+                        // a new EXIF segment goes behind the JFIF header
+                        header.exifInsertOffset = (int)next;
+                    }
+                } else {
+                    leading = false;
+                }
+
+                position = next;
+            }
+
+            header.bytes = new byte[(int)position];
+            if (!readFully(channel, ByteBuffer.wrap(header.bytes), 0, header.bytes.length)) {
+                return null;
+            }
+
+            header.parseSegments();
+            return header;
+        }
+
+        private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+                throws IOException {
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void parseSegments() throws IOException {
+            int position = 2;
+            while (position + 4 <= bytes.length) {
+                int type = bytes[position + 1] & 0xFF;
+                int length = ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+                int payload = position + 4;
+                if (type == MARKER_APP1) {
+                    if (exif == null && startsWith(payload, EXIF_HEADER)) {
+                        exif = new ExifSegment(Arrays.copyOfRange(bytes, payload, position + 2 + length));
+                        exifPayloadOffset = payload;
+                        exifPayloadLength = length - 2;
+                    } else if (xmpSegmentOffset < 0 && startsWith(payload, XMP_HEADER)) {
+                        xmpSegmentOffset = position;
+                        xmpSegmentLength = length + 2;
+                        xmpPacket =
+                            new String(
+                                bytes,
+                                payload + XMP_HEADER.length,
+                                length - 2 - XMP_HEADER.length,
+                                StandardCharsets.UTF_8);
+                    }
+                }
+
+                position += 2 + length;
+            }
+        }
+
+        private boolean startsWith(int offset, byte[] prefix) {
+            if (offset + prefix.length > bytes.length) {
+                return false;
+            }
+
+            for (int i = 0; i < prefix.length; i++) {
+                if (bytes[offset + i] != prefix[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        Map<String, String> readXmpProperties() throws IOException {
+            Map<String, String> properties = new HashMap<>();
+            if (xmpPacket == null) {
+                return properties;
+            }
+
+            Document document = parseXmp(xmpPacket);
+            NodeList descriptions = document.getElementsByTagNameNS(NS_RDF, "Description");
+            for (int i = 0; i < descriptions.getLength(); i++) {
+                Element description = (Element)descriptions.item(i);
+                for (int a = 0; a < description.getAttributes().getLength(); a++) {
+                    Node attribute = description.getAttributes().item(a);
+                    if (attribute.getNamespaceURI() != null) {
+                        properties.put(attribute.getNamespaceURI() + attribute.getLocalName(), attribute.getNodeValue());
+                    }
+                }
+
+                for (Node child = description.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getNodeType() == Node.ELEMENT_NODE && child.getNamespaceURI() != null) {
+                        properties.put(child.getNamespaceURI() + child.getLocalName(), child.getTextContent().trim());
+                    }
+                }
+            }
+
+            return properties;
+        }
+
+        /** @return the new XMP APP1 payload, or null if the XMP doesn't need to be touched */
+        byte[] buildXmp(Map<Tag, String> values, Map<Tag, String> all) throws IOException {
+            boolean hasValues = values.values().stream().anyMatch(v -> !v.isEmpty());
+            if (xmpPacket == null && !hasValues) {
+                return null;
+            }
+
+            Document document;
+            if (xmpPacket != null) {
+                document = parseXmp(xmpPacket);
+            } else {
+                document = newDocumentBuilder().newDocument();
+                Element meta = document.createElementNS(NS_X, "x:xmpmeta");
+                meta.appendChild(document.createElementNS(NS_RDF, "rdf:RDF"));
+                document.appendChild(meta);
+            }
+
+            NodeList rdfs = document.getElementsByTagNameNS(NS_RDF, "RDF");
+            if (rdfs.getLength() == 0) {
+                throw new IOException("XMP packet without rdf:RDF");
+            }
+
+            Element rdf = (Element)rdfs.item(0);
+            NodeList descriptions = rdf.getElementsByTagNameNS(NS_RDF, "Description");
+            for (int i = descriptions.getLength() - 1; i >= 0; i--) {
+                Element description = (Element)descriptions.item(i);
+                for (Tag tag : values.keySet()) {
+                    Field field = FIELDS.get(tag);
+                    if (field.xmpName == null) {
+                        continue;
+                    }
+
+                    description.removeAttributeNS(field.xmpNamespace, field.xmpName);
+                    NodeList children = description.getElementsByTagNameNS(field.xmpNamespace, field.xmpName);
+                    for (int c = children.getLength() - 1; c >= 0; c--) {
+                        Node child = children.item(c);
+                        child.getParentNode().removeChild(child);
+                    }
+                }
+            }
+
+            if (hasValues) {
+                Element description = document.createElementNS(NS_RDF, "rdf:Description");
+                description.setAttributeNS(NS_RDF, "rdf:about", "");
+                for (Map.Entry<Tag, String> entry : values.entrySet()) {
+                    Field field = FIELDS.get(entry.getKey());
+                    if (entry.getValue().isEmpty() || field.xmpName == null) {
+                        continue;
+                    }
+
+                    description.setAttributeNS(
+                        XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:" + field.xmpPrefix, field.xmpNamespace);
+                    Element property =
+                        document.createElementNS(field.xmpNamespace, field.xmpPrefix + ":" + field.xmpName);
+                    String value = formatXmpValue(entry.getKey(), field, entry.getValue(), all);
+                    if (field.kind == Kind.COMMENT) {
+                        Element alt = document.createElementNS(NS_RDF, "rdf:Alt");
+                        Element li = document.createElementNS(NS_RDF, "rdf:li");
+                        li.setAttributeNS(NS_XML, "xml:lang", "x-default");
+                        li.setTextContent(value);
+                        alt.appendChild(li);
+                        property.appendChild(alt);
+                    } else {
+                        property.setTextContent(value);
+                    }
+
+                    description.appendChild(property);
+                }
+
+                rdf.appendChild(description);
+            }
+
+            String xml;
+            try {
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+                StringWriter writer = new StringWriter();
+                transformer.transform(new DOMSource(document.getDocumentElement()), new StreamResult(writer));
+                xml = writer.toString();
+            } catch (Exception e) {
+                throw new IOException("Unable to serialize XMP packet", e);
+            }
+
+            byte[] body =
+                ("<?xpacket begin=\"\uFEFF\" id=\"W5M0MpCehiHzreSzNTczkc9d\"?>" + xml)
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] trailer = "<?xpacket end=\"w\"?>".getBytes(StandardCharsets.UTF_8);
+            int padding = XMP_PADDING;
+            int oldPayload = xmpSegmentOffset >= 0 ? xmpSegmentLength - 4 : -1;
+            int minimal = XMP_HEADER.length + body.length + trailer.length;
+            if (oldPayload >= minimal) {
+                // fill up the old segment exactly, so the file can be patched in place
+                padding = oldPayload - minimal;
+            } else if (minimal + padding > MAX_SEGMENT_PAYLOAD) {
+                padding = Math.max(0, MAX_SEGMENT_PAYLOAD - minimal);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(minimal + padding);
+            out.write(XMP_HEADER);
+            out.write(body);
+            for (int i = 0; i < padding; i++) {
+                out.write(i % 100 == 99 ? '\n' : ' ');
+            }
+
+            out.write(trailer);
+            return out.toByteArray();
+        }
+
+        void store(File file, byte[] xmp) throws IOException {
+            List<Splice> splices = new ArrayList<>();
+            if (exif != null) {
+                if (exifPayloadOffset >= 0 && exif.data.length == exifPayloadLength) {
+                    System.arraycopy(exif.data, 0, bytes, exifPayloadOffset, exif.data.length);
+                } else if (exifPayloadOffset >= 0) {
+                    splices.add(new Splice(exifPayloadOffset - 4, exifPayloadOffset + exifPayloadLength, exif.data));
+                } else {
+                    splices.add(new Splice(exifInsertOffset, exifInsertOffset, exif.data));
+                }
+            }
+
+            if (xmp != null) {
+                if (xmpSegmentOffset >= 0 && xmp.length == xmpSegmentLength - 4) {
+                    System.arraycopy(xmp, 0, bytes, xmpSegmentOffset + 4, xmp.length);
+                } else if (xmpSegmentOffset >= 0) {
+                    splices.add(new Splice(xmpSegmentOffset, xmpSegmentOffset + xmpSegmentLength, xmp));
+                } else {
+                    splices.add(new Splice(insertOffset, insertOffset, xmp));
+                }
+            }
+
+            if (splices.isEmpty()) {
+                // same layout as before, only overwrite the header
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer, buffer.position());
+                    }
+                }
+
+                return;
+            }
+
+            // stable, so a new EXIF segment stays in front of a new XMP segment at the same position
+            splices.sort(Comparator.comparingInt(splice -> splice.start));
+            Path target = file.toPath();
+            Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), file.getName(), ".tmp");
+            try {
+                try (FileChannel in = FileChannel.open(target, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    int position = 0;
+                    for (Splice splice : splices) {
+                        ByteBuffer segmentHeader = ByteBuffer.allocate(4);
+                        segmentHeader
+                            .put((byte)0xFF)
+                            .put((byte)MARKER_APP1)
+                            .putShort((short)(splice.payload.length + 2))
+                            .flip();
+                        writeFully(out, ByteBuffer.wrap(bytes, position, splice.start - position));
+                        writeFully(out, segmentHeader);
+                        writeFully(out, ByteBuffer.wrap(splice.payload));
+                        position = splice.end;
+                    }
+
+                    writeFully(out, ByteBuffer.wrap(bytes, position, bytes.length - position));
+                    long filePosition = bytes.length;
+                    while (filePosition < fileSize) {
+                        filePosition += in.transferTo(filePosition, fileSize - filePosition, out);
+                    }
+                }
+
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private static Document parseXmp(String packet) throws IOException {
+            int start = packet.indexOf('<');
+            int end = packet.lastIndexOf('>');
+            if (start < 0 || end < start) {
+                throw new IOException("Empty XMP packet");
+            }
+
+            try {
+                return newDocumentBuilder()
+                    .parse(
+                        new ByteArrayInputStream(
+                            packet.substring(start, end + 1).getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Unable to parse XMP packet", e);
+            }
+        }
+
+        private static DocumentBuilder newDocumentBuilder() throws IOException {
+            try {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                factory.setExpandEntityReferences(false);
+                return factory.newDocumentBuilder();
+            } catch (Exception e) {
+                throw new IOException("Unable to create XML parser", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Pure java preview reader for JPEG images, used instead of the ExifTool process when creating the preview files of a
+ * dataset.
+ *
+ * <p>Only the header of the image is read to get its size and the thumbnail embedded in the EXIF data. If the thumbnail
+ * is too small for the preview, the image itself is decoded with the largest subsampling (1/8, 1/4 or 1/2) which still
+ * keeps the width of the preview, so only a fraction of the pixels has to be converted and kept in memory.
+ */
+final class JpegPreviewReader {
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_DHT = 0xC4;
+    private static final int MARKER_JPG = 0xC8;
+    private static final int MARKER_DAC = 0xCC;
+
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int TAG_THUMBNAIL_OFFSET = 0x0201;
+    private static final int TAG_THUMBNAIL_LENGTH = 0x0202;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+
+    private static final int MAX_HEADER_SIZE = 4 * 1024 * 1024;
+    private static final int[] SUBSAMPLINGS = {8, 4, 2};
+
+    private final File file;
+    private int width = -1;
+    private int height = -1;
+    private byte[] thumbnail;
+
+    private JpegPreviewReader(File file) {
+        this.file = file;
+    }
+
+    /** @return null if the file is not a JPEG image or has no frame header in front of its image data */
+    static JpegPreviewReader open(File file) throws IOException {
+        JpegPreviewReader reader = new JpegPreviewReader(file);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (!reader.readHeader(channel)) {
+                return null;
+            }
+        }
+
+        return reader;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /** @return the JPEG data of the thumbnail in the EXIF data, or null if there is none */
+    byte[] getThumbnail() {
+        return thumbnail;
+    }
+
+    /**
+     * @return the embedded thumbnail if it is at least minWidth wide, otherwise the image decoded at the smallest
+     *     resolution which is at least minWidth wide. The aspect ratio of the thumbnail might differ from the one of
+     *     the image, if the camera added black borders to it.
+     */
+    BufferedImage readPreview(int minWidth) throws IOException {
+        if (thumbnail != null) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+            if (image != null && image.getWidth() >= minWidth) {
+                return image;
+            }
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+        if (!readers.hasNext()) {
+            throw new IOException("No JPEG reader available");
+        }
+
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling = getSubsampling(width, minWidth);
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /** @return the largest subsampling of an image of the given width, which is still at least minWidth wide */
+    static int getSubsampling(int width, int minWidth) {
+        for (int subsampling : SUBSAMPLINGS) {
+            if ((width + subsampling - 1) / subsampling >= minWidth) {
+                return subsampling;
+            }
+        }
+
+        return 1;
+    }
+
+    private boolean readHeader(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer marker = ByteBuffer.allocate(4);
+        if (!readFully(channel, marker, 0)
+                || (marker.get(0) & 0xFF) != 0xFF
+                || (marker.get(1) & 0xFF) != MARKER_SOI) {
+            return false;
+        }
+
+        long position = 2;
+        while (position < MAX_HEADER_SIZE) {
+            marker.clear();
+            if (!readFully(channel, marker, position) || (marker.get(0) & 0xFF) != 0xFF) {
+                return false;
+            }
+
+            int type = marker.get(1) & 0xFF;
+            if (type == MARKER_SOS || type == MARKER_EOI) {
+                break;
+            }
+
+            int length = marker.getShort(2) & 0xFFFF;
+            if (length < 2 || position + 2 + length > fileSize) {
+                return false;
+            }
+
+            if (type == MARKER_APP1 && thumbnail == null || isStartOfFrame(type) && width < 0) {
+                ByteBuffer payload = ByteBuffer.allocate(length - 2);
+                if (!readFully(channel, payload, position + 4)) {
+                    return false;
+                }
+
+                if (type == MARKER_APP1) {
+                    thumbnail = readExifThumbnail(payload.array());
+                } else if (length >= 7) {
+                    height = payload.getShort(1) & 0xFFFF;
+                    width = payload.getShort(3) & 0xFFFF;
+                }
+            }
+
+            position += 2 + length;
+        }
+
+        return width > 0 && height > 0;
+    }
+
+    private static boolean isStartOfFrame(int type) {
+        return type >= 0xC0 && type <= 0xCF && type != MARKER_DHT && type != MARKER_JPG && type != MARKER_DAC;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /** @return the thumbnail referenced by IFD1 of the EXIF payload, or null if there is none or it is out of bounds */
+    static byte[] readExifThumbnail(byte[] payload) {
+        int tiffStart = EXIF_HEADER.length;
+        if (payload.length < tiffStart + 8 || !Arrays.equals(Arrays.copyOf(payload, tiffStart), EXIF_HEADER)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (payload[tiffStart] == 'I' && payload[tiffStart + 1] == 'I') {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (payload[tiffStart] == 'M' && payload[tiffStart + 1] == 'M') {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        } else {
+            return null;
+        }
+
+        // IFD1 follows IFD0, its offset is stored behind the entries of IFD0
+        long ifd0 = tiffStart + (buffer.getInt(tiffStart + 4) & 0xFFFFFFFFL);
+        if (ifd0 + 2 > payload.length) {
+            return null;
+        }
+
+        long nextPointer = ifd0 + 2 + 12L * (buffer.getShort((int)ifd0) & 0xFFFF);
+        if (nextPointer + 4 > payload.length) {
+            return null;
+        }
+
+        long ifd1Offset = buffer.getInt((int)nextPointer) & 0xFFFFFFFFL;
+        long ifd1 = tiffStart + ifd1Offset;
+        if (ifd1Offset == 0 || ifd1 + 2 > payload.length) {
+            return null;
+        }
+
+        int count = buffer.getShort((int)ifd1) & 0xFFFF;
+        if (ifd1 + 2 + 12L * count > payload.length) {
+            return null;
+        }
+
+        long offset = -1;
+        long length = -1;
+        for (int i = 0; i < count; i++) {
+            int entry = (int)ifd1 + 2 + i * 12;
+            int tag = buffer.getShort(entry) & 0xFFFF;
+            if (tag == TAG_THUMBNAIL_OFFSET) {
+                offset = getInteger(buffer, entry);
+            } else if (tag == TAG_THUMBNAIL_LENGTH) {
+                length = getInteger(buffer, entry);
+            }
+        }
+
+        long start = tiffStart + offset;
+        if (offset <= 0 || length < 4 || start + length > payload.length) {
+            return null;
+        }
+
+        if ((payload[(int)start] & 0xFF) != 0xFF || (payload[(int)start + 1] & 0xFF) != MARKER_SOI) {
+            return null;
+        }
+
+        return Arrays.copyOfRange(payload, (int)start, (int)(start + length));
+    }
+
+    /** @return the value of an IFD entry of type SHORT or LONG, -1 for other types */
+    private static long getInteger(ByteBuffer buffer, int entry) {
+        switch (buffer.getShort(entry + 2)) {
+        case TYPE_SHORT:
+            return buffer.getShort(entry + 8) & 0xFFFF;
+        case TYPE_LONG:
+            return buffer.getInt(entry + 8) & 0xFFFFFFFFL;
+        default:
+            return -1;
+        }
+    }
+
+}
@@ -13,6 +13,7 @@ import com.intel.missioncontrol.hardware.IHardwareConfiguration;
 import com.intel.missioncontrol.hardware.IHardwareConfigurationManager;
 import com.intel.missioncontrol.helper.Ensure;
 import com.intel.missioncontrol.map.worldwind.IWWGlobes;
+import com.intel.missioncontrol.settings.ExpertSettings;
 import eu.mavinci.WeakRunnable;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tree.maplayers.IMapLayer;
 import eu.mavinci.desktop.gui.doublepanel.planemain.wwd.ComputeCornerData;
@@ -22,6 +23,7 @@ import eu.mavinci.desktop.helper.ImageMask;
 import eu.mavinci.desktop.helper.MFileFilter;
 import eu.mavinci.desktop.helper.MathHelper;
 import eu.mavinci.desktop.main.debug.Debug;
+import eu.mavinci.flightplan.PhotoLogLine;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Vec4;
 import gov.nasa.worldwind.globes.Globe;
@@ -189,8 +191,7 @@ public class MapLayerMatching extends AMapLayerMatching implements ComputeCorner
 
         try {
             setMute(true);
-            MatchingDataReader reader = new MatchingDataReader();
-            reader.readMatchingData(this, getResourceFile(), hardwareConfigurationManager);
+            readMatchingData();
         } finally {
             setMute(false);
             mapLayerStructureChanged(this);
@@ -200,6 +201,88 @@ public class MapLayerMatching extends AMapLayerMatching implements ComputeCorner
         }
     }
 
+    private void readMatchingData() throws Exception {
+        File resourceFile = getResourceFile();
+        boolean useCache = StaticInjector.getInstance(ExpertSettings.class).getUseBinaryMatchingCache();
+        MatchingBinaryCache cache = useCache ? MatchingBinaryCache.read(resourceFile) : null;
+        MatchingDataReader reader = new MatchingDataReader();
+        if (cache != null) {
+            if (reader.readMatchingData(this, resourceFile, hardwareConfigurationManager, true) != null
+                    && bandNames.length == cache.getBandCount()
+                    && addMatches(cache)) {
+                return;
+            }
+
+            Debug.getLog().log(Level.WARNING, "Matching cache did not fit, reading " + resourceFile + " again");
+            // the area filters were already read with the settings
+            getPicAreasLayer().removeAllLayers(true);
+        }
+
+        if (reader.readMatchingData(this, resourceFile, hardwareConfigurationManager) != null
+                && useCache
+                && reader.areMatchesTrailing()) {
+            // converts matchings saved before the cache existed, so they open quicker next time
+            writeBinaryCache();
+        }
+    }
+
+    private boolean addMatches(MatchingBinaryCache cache) {
+        File basePath = getResourceFile().getParentFile();
+        // nothing is added before all matches could be created, otherwise reading the XML would duplicate them
+        List<MapLayerMatch> matches = new ArrayList<>(cache.size());
+        for (int i = 0; i != cache.size(); i++) {
+            PhotoLogLine line = new PhotoLogLine(getHardwareConfiguration());
+            cache.readLine(i, line);
+            MapLayerMatch match = new MapLayerMatch(new PhotoCube(bandNames.length), line, this);
+            for (int band = 0; band != bandNames.length; band++) {
+                File f = null;
+                try {
+                    f = FileHelper.unmakeRelativePath(basePath, cache.getPath(i, band));
+                    match.photoCube.photoFiles[band] = new PhotoFile(match, f, cache.getExif(i, band));
+                } catch (Throwable e) {
+                    Debug.getLog().log(Level.WARNING, "could not set image for matching:" + f + " at no:" + band, e);
+                    return false;
+                }
+            }
+
+            matches.add(match);
+        }
+
+        for (MapLayerMatch match : matches) {
+            getPicsLayer().addMapLayer(match);
+        }
+
+        return true;
+    }
+
+    private void writeBinaryCache() {
+        File resourceFile = getResourceFile();
+        File basePath = resourceFile.getParentFile();
+        try {
+            MatchingBinaryCache.Builder builder = new MatchingBinaryCache.Builder(bandNames.length);
+            for (IMapLayer layer : getPictures()) {
+                if (layer instanceof MapLayerMatch) {
+                    MapLayerMatch match = (MapLayerMatch)layer;
+                    String[] paths = new String[bandNames.length];
+                    ExifInfos[] exifs = new ExifInfos[bandNames.length];
+                    for (int band = 0; band != bandNames.length; band++) {
+                        PhotoFile photo = match.photoCube.photoFiles[band];
+                        paths[band] = FileHelper.makeRelativePathSysIndep(basePath, photo.getFile());
+                        exifs[band] = photo.exif;
+                    }
+
+                    builder.add(match.line, paths, exifs);
+                }
+            }
+
+            builder.write(resourceFile);
+        } catch (Exception e) {
+            // without a cache the next load just reads the XML
+            MatchingBinaryCache.getCacheFile(resourceFile).delete();
+            Debug.getLog().log(Level.WARNING, "Problems writing Matching cache", e);
+        }
+    }
+
     Runnable runnableRecompute =
         new Runnable() {
 
@@ -225,6 +308,13 @@ public class MapLayerMatching extends AMapLayerMatching implements ComputeCorner
             setChanged(false);
         } catch (IOException e) {
             Debug.getLog().log(Level.WARNING, "Problems writing Matching to File", e);
+            return;
+        }
+
+        if (StaticInjector.getInstance(ExpertSettings.class).getUseBinaryMatchingCache()) {
+            writeBinaryCache();
+        } else {
+            MatchingBinaryCache.getCacheFile(getResourceFile()).delete();
         }
     }
 
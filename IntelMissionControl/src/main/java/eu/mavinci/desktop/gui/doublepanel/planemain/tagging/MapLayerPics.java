@@ -23,6 +23,8 @@ import gov.nasa.worldwind.geom.Sector;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import org.asyncfx.concurrent.Dispatcher;
 
@@ -258,58 +260,56 @@ public class MapLayerPics extends MapLayer implements IMapLayerWW, ISectorRefere
                 @Override
                 public void run() {
                     MProgressMonitor mon = null;
+                    // the previews are created by the worker threads of PhotoPreviews, images which are visible on
+                    // the map first, this thread only waits for them to report the progress
+                    List<MapLayerMatch> matches = new ArrayList<>();
+                    List<CompletableFuture<Void>> previews = new ArrayList<>();
                     try {
-                        //                    mon = new MProgressMonitor(null, Language.getString(KEY + ".mon.title"),
-                        // Language.getString(KEY + ".mon.initNote"), 0,
-                        //                        sizeMapLayer());
                         for (int i = 0; i != sizeMapLayer(); i++) {
-                            //                        if (mon.isCanceled()) {
-                            //                            break;
-                            //                        }
-                            //                        mon.setProgressNote(Language.getFormat(KEY + ".mon.note", i,
-                            // sizeMapLayer()), i);
+                            IMapLayer layer = getMapLayer(i);
+                            if (layer instanceof MapLayerMatch) {
+                                final MapLayerMatch match = (MapLayerMatch)layer;
+                                if (match.getCurPhotoFile() != null && !match.getCurPhotoFile().thumpFileExists()) {
+                                    matches.add(match);
+                                    previews.add(PhotoPreviews.request(match.getCurPhotoFile()));
+                                }
+                            }
+                        }
+
+                        for (int i = 0; i != previews.size(); i++) {
                             if (task != null) {
-                                task.updateProgress(i, sizeMapLayer());
+                                task.updateProgress(i, previews.size());
                             }
 
                             if (updateMethod != null) {
                                 updateMethod.update(
                                     CreateDatasetSubTasks.GENERATE_THUMBFILES,
                                     i,
-                                    sizeMapLayer(),
+                                    previews.size(),
                                     "",
                                     i,
-                                    sizeMapLayer());
+                                    previews.size());
                             }
 
                             if ((datasetTask != null && datasetTask.isCancelled())
                                     || (task != null && task.isCancelled())) {
+                                previews.forEach(preview -> preview.cancel(false));
                                 return;
                             }
 
-                            IMapLayer layer = getMapLayer(i);
-                            if (layer instanceof MapLayerMatch) {
-                                final MapLayerMatch match = (MapLayerMatch)layer;
-                                try {
-                                    if (!match.getCurPhotoFile().thumpFileExists()) {
-                                        match.getCurPhotoFile().generateThumpFile();
-                                        // MapLayerPics.this.layer.resetVisibility(); //will be too slow!
-                                    }
-                                } catch (Throwable e) {
-                                    Debug.getLog()
-                                        .log(
-                                            Level.WARNING,
-                                            "could not generate preview Image of "
-                                                + match.getCurPhotoFile().getThumpFile(),
-                                            e);
-                                }
-                                // ThreadingHelper.getThreadingHelper().invokeOnUiThread(new Runnable() {
-                                // @Override
-                                // public void run() {
-                                // match.setVisible(true);
-                                // }
-                                // });
-
+                            try {
+                                previews.get(i).get();
+                            } catch (InterruptedException e) {
+                                previews.forEach(preview -> preview.cancel(false));
+                                Thread.currentThread().interrupt();
+                                return;
+                            } catch (ExecutionException e) {
+                                Debug.getLog()
+                                    .log(
+                                        Level.WARNING,
+                                        "could not generate preview Image of "
+                                            + matches.get(i).getCurPhotoFile().getThumpFile(),
+                                        e.getCause());
                             }
                         }
 
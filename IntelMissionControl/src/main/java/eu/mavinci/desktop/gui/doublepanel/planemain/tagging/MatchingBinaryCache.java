@@ -0,0 +1,533 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.GPSFixType;
+import eu.mavinci.core.flightplan.PhotoLogLineType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary copy of the image records of a matching, stored next to its XML file (dataset.ptg.bin next to dataset.ptg).
+ *
+ * <p>The XML stays the reference: the cache is only used if the length and modification time of the XML it was
+ * written for still match, otherwise it is ignored and rebuilt on the next save. Since the image records are the last
+ * elements of the XML, reading a matching with a valid cache only parses the XML up to the first image record.
+ *
+ * <p>Layout (little endian, every column 8 / 4 byte aligned, so the file can be mapped as it is):
+ *
+ * <pre>
+ * header       magic, version, xml length, xml last modified, crc of everything after the header,
+ *              band count, image count, string count (48 bytes)
+ * doubles      one column per photo log line value, then one column per exif value of every band image
+ * ints         one column per int photo log line value, then the path and model of every band image, as indices into
+ *              the string table (-1 for null)
+ * offsets      string count + 1 offsets into the string bytes
+ * bytes        photo log line type and GPS fix type (-1 for null), then the UTF-8 bytes of all strings
+ * </pre>
+ */
+public final class MatchingBinaryCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MatchingBinaryCache.class);
+
+    public static final String FILE_EXTENSION = ".bin";
+
+    static final int MAGIC = 0x4843544D; // "MTCH"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 48;
+    private static final int POS_VERSION = 4;
+    private static final int POS_XML_LENGTH = 8;
+    private static final int POS_XML_MODIFIED = 16;
+    private static final int POS_CRC = 24;
+    private static final int POS_BAND_COUNT = 32;
+    private static final int POS_COUNT = 36;
+    private static final int POS_STRING_COUNT = 40;
+
+    // double columns of the photo log line
+    private static final int LAT = 0;
+    private static final int LON = 1;
+    private static final int ALT = 2;
+    private static final int ROLL_RATE = 3;
+    private static final int PITCH_RATE = 4;
+    private static final int YAW_RATE = 5;
+    private static final int CAMERA_ROLL = 6;
+    private static final int CAMERA_PITCH = 7;
+    private static final int CAMERA_YAW = 8;
+    private static final int PLANE_ROLL = 9;
+    private static final int PLANE_PITCH = 10;
+    private static final int PLANE_YAW = 11;
+    private static final int TIMESTAMP = 12;
+    private static final int GPS_ELLIPSOID = 13;
+    private static final int GPS_ALTITUDE = 14;
+    private static final int HEADING = 15;
+    private static final int LAT_TAKEOFF = 16;
+    private static final int LON_TAKEOFF = 17;
+    private static final int HEIGHT_TAKEOFF = 18;
+    private static final int LINE_DOUBLES = 19;
+
+    // int columns of the photo log line
+    private static final int NUMBER = 0;
+    private static final int LINE_NUMBER = 1;
+    private static final int GROUNDSPEED = 2;
+    private static final int TIME_SINCE_LAST_FIX = 3;
+    private static final int LINE_INTS = 4;
+
+    // byte columns of the photo log line
+    private static final int DELAY_TYPE = 0;
+    private static final int FIX_TYPE = 1;
+    private static final int LINE_BYTES = 2;
+
+    // double columns of every band image
+    private static final int TIMESTAMP_EXIF = 0;
+    private static final int FOCALLENGTH_EXIF = 1;
+    private static final int EXPOSURETIME_EXIF = 2;
+    private static final int APERTURE_EXIF = 3;
+    private static final int ISO_EXIF = 4;
+    private static final int PHOTO_DOUBLES = 5;
+
+    // int columns of every band image
+    private static final int PATH = 0;
+    private static final int MODEL_EXIF = 1;
+    private static final int PHOTO_INTS = 2;
+
+    private static final PhotoLogLineType[] DELAY_TYPES = PhotoLogLineType.values();
+    private static final GPSFixType[] FIX_TYPES = GPSFixType.values();
+
+    private final ByteBuffer buffer;
+    private final Layout layout;
+
+    private MatchingBinaryCache(ByteBuffer buffer) {
+        this.buffer = buffer;
+        layout = new Layout(buffer.getInt(POS_BAND_COUNT), buffer.getInt(POS_COUNT), buffer.getInt(POS_STRING_COUNT));
+    }
+
+    public static File getCacheFile(File xmlFile) {
+        return new File(xmlFile.getPath() + FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the cache belonging to a matching XML file.
+     *
+     * <p>The file is read with a single call instead of being mapped: a mapped file stays locked on Windows until the
+     * mapping is garbage collected, which would block replacing the cache on the next save.
+     *
+     * @return the cache, or null if there is none, or it is outdated, of another version or broken
+     */
+    public static MatchingBinaryCache read(File xmlFile) {
+        File cacheFile = getCacheFile(xmlFile);
+        if (!cacheFile.isFile() || !xmlFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(POS_VERSION) != VERSION) {
+                LOG.debug("ignoring matching cache of another version {}", cacheFile);
+                return null;
+            }
+
+            if (buffer.getLong(POS_XML_LENGTH) != xmlFile.length()
+                    || buffer.getLong(POS_XML_MODIFIED) != xmlFile.lastModified()) {
+                LOG.debug("ignoring outdated matching cache {}", cacheFile);
+                return null;
+            }
+
+            if ((int)buffer.getLong(POS_CRC) != crc(buffer)) {
+                LOG.warn("ignoring broken matching cache {}", cacheFile);
+                return null;
+            }
+
+            MatchingBinaryCache cache = new MatchingBinaryCache(buffer);
+            Layout layout = cache.layout;
+            if (layout.stringBytesPos > size
+                    || layout.stringBytesPos + buffer.getInt(layout.offsetsPos + 4 * layout.stringCount) != size) {
+                LOG.warn("ignoring broken matching cache {}", cacheFile);
+                return null;
+            }
+
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("could not read matching cache " + cacheFile, e);
+            return null;
+        }
+    }
+
+    public int getBandCount() {
+        return layout.bandCount;
+    }
+
+    public int size() {
+        return layout.count;
+    }
+
+    /** Copies the values of image i into a photo log line, the same way as they are parsed from the XML. */
+    public void readLine(int i, CPhotoLogLine line) {
+        line.imageNumber = lineInt(NUMBER, i);
+        line.lineNumber = lineInt(LINE_NUMBER, i);
+        line.lat = lineDouble(LAT, i);
+        line.lon = lineDouble(LON, i);
+        line.alt = lineDouble(ALT, i);
+        line.groundSpeed_cms = lineInt(GROUNDSPEED, i);
+        line.cameraRollRate = lineDouble(ROLL_RATE, i);
+        line.cameraPitchRate = lineDouble(PITCH_RATE, i);
+        line.cameraYawRate = lineDouble(YAW_RATE, i);
+        line.cameraRoll = lineDouble(CAMERA_ROLL, i);
+        line.cameraPitch = lineDouble(CAMERA_PITCH, i);
+        line.cameraYaw = lineDouble(CAMERA_YAW, i);
+        line.planeRoll = lineDouble(PLANE_ROLL, i);
+        line.planePitch = lineDouble(PLANE_PITCH, i);
+        line.planeYaw = lineDouble(PLANE_YAW, i);
+        line.setTimestampRaw(lineDouble(TIMESTAMP, i));
+        line.gps_ellipsoid_cm = lineDouble(GPS_ELLIPSOID, i);
+        line.gps_altitude_cm = lineDouble(GPS_ALTITUDE, i);
+        line.heading = lineDouble(HEADING, i);
+        line.latTakeoff = lineDouble(LAT_TAKEOFF, i);
+        line.lonTakeoff = lineDouble(LON_TAKEOFF, i);
+        line.gps_altitude_takeoff_cm = lineDouble(HEIGHT_TAKEOFF, i);
+        line.time_since_last_fix = lineInt(TIME_SINCE_LAST_FIX, i);
+        byte type = lineByte(DELAY_TYPE, i);
+        if (type >= 0 && type < DELAY_TYPES.length) {
+            line.type = DELAY_TYPES[type];
+        }
+
+        byte fixType = lineByte(FIX_TYPE, i);
+        line.fixType = fixType >= 0 && fixType < FIX_TYPES.length ? FIX_TYPES[fixType] : null;
+    }
+
+    /** @return the image path of a band, relative to the matching folder as stored in the XML */
+    public String getPath(int i, int band) {
+        return string(photoInt(PATH, i * layout.bandCount + band));
+    }
+
+    public ExifInfos getExif(int i, int band) {
+        int photo = i * layout.bandCount + band;
+        ExifInfos exif = new ExifInfos();
+        exif.timestamp = photoDouble(TIMESTAMP_EXIF, photo);
+        exif.datetime = new Date(Math.round(exif.timestamp * 1000));
+        exif.focalLengthMM = photoDouble(FOCALLENGTH_EXIF, photo);
+        exif.exposureSec = photoDouble(EXPOSURETIME_EXIF, photo);
+        exif.model = string(photoInt(MODEL_EXIF, photo));
+        exif.aperture = photoDouble(APERTURE_EXIF, photo);
+        exif.iso = photoDouble(ISO_EXIF, photo);
+        return exif;
+    }
+
+    private double lineDouble(int column, int i) {
+        return buffer.getDouble(layout.lineDouble(column, i));
+    }
+
+    private int lineInt(int column, int i) {
+        return buffer.getInt(layout.lineInt(column, i));
+    }
+
+    private byte lineByte(int column, int i) {
+        return buffer.get(layout.lineByte(column, i));
+    }
+
+    private double photoDouble(int column, int photo) {
+        return buffer.getDouble(layout.photoDouble(column, photo));
+    }
+
+    private int photoInt(int column, int photo) {
+        return buffer.getInt(layout.photoInt(column, photo));
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+
+        int start = buffer.getInt(layout.offsetsPos + 4 * index);
+        int end = buffer.getInt(layout.offsetsPos + 4 * (index + 1));
+        return new String(buffer.array(), layout.stringBytesPos + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.position(HEADER_SIZE).limit(buffer.capacity());
+        crc.update(content);
+        return (int)crc.getValue();
+    }
+
+    /** Byte positions of the columns, which follow from the counts in the header. */
+    private static final class Layout {
+
+        final int bandCount;
+        final int count;
+        final int photoCount;
+        final int stringCount;
+        final int lineDoublesPos;
+        final int photoDoublesPos;
+        final int lineIntsPos;
+        final int photoIntsPos;
+        final int offsetsPos;
+        final int lineBytesPos;
+        final int stringBytesPos;
+
+        Layout(int bandCount, int count, int stringCount) {
+            if (bandCount < 1 || count < 0 || stringCount < 0) {
+                throw new IllegalArgumentException("invalid counts " + bandCount + " " + count + " " + stringCount);
+            }
+
+            this.bandCount = bandCount;
+            this.count = count;
+            this.stringCount = stringCount;
+            photoCount = Math.multiplyExact(count, bandCount);
+            lineDoublesPos = HEADER_SIZE;
+            photoDoublesPos = Math.addExact(lineDoublesPos, Math.multiplyExact(LINE_DOUBLES * 8, count));
+            lineIntsPos = Math.addExact(photoDoublesPos, Math.multiplyExact(PHOTO_DOUBLES * 8, photoCount));
+            photoIntsPos = Math.addExact(lineIntsPos, Math.multiplyExact(LINE_INTS * 4, count));
+            offsetsPos = Math.addExact(photoIntsPos, Math.multiplyExact(PHOTO_INTS * 4, photoCount));
+            lineBytesPos = Math.addExact(offsetsPos, Math.multiplyExact(4, stringCount + 1));
+            stringBytesPos = Math.addExact(lineBytesPos, Math.multiplyExact(LINE_BYTES, count));
+        }
+
+        int lineDouble(int column, int i) {
+            return lineDoublesPos + (column * count + i) * 8;
+        }
+
+        int lineInt(int column, int i) {
+            return lineIntsPos + (column * count + i) * 4;
+        }
+
+        int lineByte(int column, int i) {
+            return lineBytesPos + column * count + i;
+        }
+
+        int photoDouble(int column, int photo) {
+            return photoDoublesPos + (column * photoCount + photo) * 8;
+        }
+
+        int photoInt(int column, int photo) {
+            return photoIntsPos + (column * photoCount + photo) * 4;
+        }
+    }
+
+    /** Collects the image records of a matching and writes them as cache. */
+    public static final class Builder {
+
+        private final int bandCount;
+        private final List<CPhotoLogLine> lines = new ArrayList<>();
+        private final List<String> paths = new ArrayList<>();
+        private final List<ExifInfos> exifs = new ArrayList<>();
+
+        public Builder(int bandCount) {
+            if (bandCount < 1) {
+                throw new IllegalArgumentException("bandCount " + bandCount);
+            }
+
+            this.bandCount = bandCount;
+        }
+
+        /**
+         * @param relativePaths the image path of every band, relative to the matching folder
+         * @param bandExifs the exif data of every band
+         */
+        public void add(CPhotoLogLine line, String[] relativePaths, ExifInfos[] bandExifs) {
+            if (relativePaths.length != bandCount || bandExifs.length != bandCount) {
+                throw new IllegalArgumentException("expected " + bandCount + " bands");
+            }
+
+            lines.add(line);
+            for (int band = 0; band != bandCount; band++) {
+                paths.add(relativePaths[band]);
+                exifs.add(bandExifs[band]);
+            }
+        }
+
+        /**
+         * Writes the cache for an XML file which was just written. If the image records didn't change since the last
+         * write, only the header is updated in place, otherwise the cache is written to a temporary file which then
+         * replaces the old one.
+         *
+         * @return true if the records were written, false if only the header was updated
+         */
+        public boolean write(File xmlFile) throws IOException {
+            ByteBuffer buffer = encode();
+            int crc = crc(buffer);
+            buffer.putLong(POS_XML_LENGTH, xmlFile.length());
+            buffer.putLong(POS_XML_MODIFIED, xmlFile.lastModified());
+            buffer.putLong(POS_CRC, crc);
+
+            Path cachePath = getCacheFile(xmlFile).toPath();
+            if (updateHeader(cachePath, buffer, crc)) {
+                return false;
+            }
+
+            Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+            try (FileChannel channel =
+                FileChannel.open(
+                    tempPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            try {
+                Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return true;
+        }
+
+        private static boolean updateHeader(Path cachePath, ByteBuffer buffer, int crc) throws IOException {
+            if (!Files.isRegularFile(cachePath) || Files.size(cachePath) != buffer.capacity()) {
+                return false;
+            }
+
+            try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) {
+                        return false;
+                    }
+                }
+
+                if (header.getInt(0) != MAGIC
+                        || header.getInt(POS_VERSION) != VERSION
+                        || (int)header.getLong(POS_CRC) != crc) {
+                    return false;
+                }
+
+                ByteBuffer stamp = buffer.duplicate();
+                stamp.position(POS_XML_LENGTH).limit(POS_CRC);
+                while (stamp.hasRemaining()) {
+                    channel.write(stamp, stamp.position());
+                }
+
+                return true;
+            }
+        }
+
+        ByteBuffer encode() {
+            int count = lines.size();
+            Map<String, Integer> stringIndices = new HashMap<>();
+            List<byte[]> strings = new ArrayList<>();
+            int[] pathIndices = new int[paths.size()];
+            int[] modelIndices = new int[paths.size()];
+            int stringBytes = 0;
+            for (int photo = 0; photo != paths.size(); photo++) {
+                for (int k = 0; k != 2; k++) {
+                    String string = k == 0 ? paths.get(photo) : exifs.get(photo).model;
+                    int index = -1;
+                    if (string != null) {
+                        Integer known = stringIndices.get(string);
+                        if (known == null) {
+                            known = strings.size();
+                            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                            strings.add(bytes);
+                            stringBytes += bytes.length;
+                            stringIndices.put(string, known);
+                        }
+
+                        index = known;
+                    }
+
+                    (k == 0 ? pathIndices : modelIndices)[photo] = index;
+                }
+            }
+
+            Layout layout = new Layout(bandCount, count, strings.size());
+            ByteBuffer buffer =
+                ByteBuffer.allocate(layout.stringBytesPos + stringBytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(POS_VERSION, VERSION);
+            buffer.putInt(POS_BAND_COUNT, bandCount);
+            buffer.putInt(POS_COUNT, count);
+            buffer.putInt(POS_STRING_COUNT, strings.size());
+
+            for (int i = 0; i != count; i++) {
+                CPhotoLogLine line = lines.get(i);
+                buffer.putDouble(layout.lineDouble(LAT, i), line.lat);
+                buffer.putDouble(layout.lineDouble(LON, i), line.lon);
+                buffer.putDouble(layout.lineDouble(ALT, i), line.alt);
+                buffer.putDouble(layout.lineDouble(ROLL_RATE, i), line.cameraRollRate);
+                buffer.putDouble(layout.lineDouble(PITCH_RATE, i), line.cameraPitchRate);
+                buffer.putDouble(layout.lineDouble(YAW_RATE, i), line.cameraYawRate);
+                buffer.putDouble(layout.lineDouble(CAMERA_ROLL, i), line.cameraRoll);
+                buffer.putDouble(layout.lineDouble(CAMERA_PITCH, i), line.cameraPitch);
+                buffer.putDouble(layout.lineDouble(CAMERA_YAW, i), line.cameraYaw);
+                buffer.putDouble(layout.lineDouble(PLANE_ROLL, i), line.planeRoll);
+                buffer.putDouble(layout.lineDouble(PLANE_PITCH, i), line.planePitch);
+                buffer.putDouble(layout.lineDouble(PLANE_YAW, i), line.planeYaw);
+                buffer.putDouble(layout.lineDouble(TIMESTAMP, i), line.getTimestampRaw());
+                buffer.putDouble(layout.lineDouble(GPS_ELLIPSOID, i), line.gps_ellipsoid_cm);
+                buffer.putDouble(layout.lineDouble(GPS_ALTITUDE, i), line.gps_altitude_cm);
+                buffer.putDouble(layout.lineDouble(HEADING, i), line.heading);
+                buffer.putDouble(layout.lineDouble(LAT_TAKEOFF, i), line.latTakeoff);
+                buffer.putDouble(layout.lineDouble(LON_TAKEOFF, i), line.lonTakeoff);
+                buffer.putDouble(layout.lineDouble(HEIGHT_TAKEOFF, i), line.gps_altitude_takeoff_cm);
+                buffer.putInt(layout.lineInt(NUMBER, i), line.imageNumber);
+                buffer.putInt(layout.lineInt(LINE_NUMBER, i), line.lineNumber);
+                buffer.putInt(layout.lineInt(GROUNDSPEED, i), line.groundSpeed_cms);
+                buffer.putInt(layout.lineInt(TIME_SINCE_LAST_FIX, i), line.time_since_last_fix);
+                buffer.put(layout.lineByte(DELAY_TYPE, i), (byte)(line.type != null ? line.type.ordinal() : -1));
+                buffer.put(layout.lineByte(FIX_TYPE, i), (byte)(line.fixType != null ? line.fixType.ordinal() : -1));
+            }
+
+            for (int photo = 0; photo != paths.size(); photo++) {
+                ExifInfos exif = exifs.get(photo);
+                buffer.putDouble(layout.photoDouble(TIMESTAMP_EXIF, photo), exif.timestamp);
+                buffer.putDouble(layout.photoDouble(FOCALLENGTH_EXIF, photo), exif.focalLengthMM);
+                buffer.putDouble(layout.photoDouble(EXPOSURETIME_EXIF, photo), exif.exposureSec);
+                buffer.putDouble(layout.photoDouble(APERTURE_EXIF, photo), exif.aperture);
+                buffer.putDouble(layout.photoDouble(ISO_EXIF, photo), exif.iso);
+                buffer.putInt(layout.photoInt(PATH, photo), pathIndices[photo]);
+                buffer.putInt(layout.photoInt(MODEL_EXIF, photo), modelIndices[photo]);
+            }
+
+            int offset = 0;
+            for (int s = 0; s != strings.size(); s++) {
+                buffer.putInt(layout.offsetsPos + 4 * s, offset);
+                byte[] bytes = strings.get(s);
+                buffer.position(layout.stringBytesPos + offset);
+                buffer.put(bytes);
+                offset += bytes.length;
+            }
+
+            buffer.putInt(layout.offsetsPos + 4 * strings.size(), offset);
+            buffer.clear();
+            return buffer;
+        }
+    }
+
+}
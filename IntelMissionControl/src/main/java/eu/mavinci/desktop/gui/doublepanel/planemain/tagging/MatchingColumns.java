@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.GPSFixType;
+import eu.mavinci.desktop.gui.doublepanel.planemain.tree.maplayers.IMapLayer;
+import eu.mavinci.desktop.gui.doublepanel.planemain.wwd.ComputeCornerData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar cache of the per image values of a matching which are needed by the filter and statistics passes.
+ *
+ * <p>Every image has an index into parallel primitive arrays, the {@link MapLayerMatch} objects are only touched when
+ * building the columns, when refreshing the elevation dependent altitudes, and when publishing changed filter results.
+ * The snapshot is kept in addition to the matches (about 60 bytes per image), it makes the passes faster but doesn't
+ * replace the object graph and doesn't reduce the memory of a matching. Since it can be rebuilt from the matches at any
+ * time, the matching only holds it softly and drops it whenever a value of one of its matches changes. File sizes and
+ * types are not part of it, since the files might change in between.
+ */
+public final class MatchingColumns {
+
+    public static final byte PASS = 1;
+    public static final byte AREA_PASS = 1 << 1;
+    public static final byte RANGE_PASS = 1 << 2;
+    public static final byte ROLL_PASS = 1 << 3;
+    public static final byte PITCH_PASS = 1 << 4;
+    public static final byte YAW_PASS = 1 << 5;
+    public static final byte ALL_PASS = PASS | AREA_PASS | RANGE_PASS | ROLL_PASS | PITCH_PASS | YAW_PASS;
+
+    private static final GPSFixType[] FIX_TYPES = GPSFixType.values();
+
+    private final MapLayerMatch[] matches;
+    private final double[] lat;
+    private final double[] lon;
+    private final double[] alt;
+    private final double[] roll;
+    private final double[] pitch;
+    private final double[] yaw;
+    private final byte[] fixType;
+    private final byte[] flags;
+
+    private MatchingColumns(List<MapLayerMatch> matchList) {
+        int size = matchList.size();
+        matches = matchList.toArray(new MapLayerMatch[size]);
+        lat = new double[size];
+        lon = new double[size];
+        alt = new double[size];
+        roll = new double[size];
+        pitch = new double[size];
+        yaw = new double[size];
+        fixType = new byte[size];
+        flags = new byte[size];
+
+        for (int i = 0; i != size; i++) {
+            MapLayerMatch match = matches[i];
+            CPhotoLogLine line = match.getPhotoLogLine();
+            lat[i] = line.lat;
+            lon[i] = line.lon;
+            roll[i] = line.cameraRoll;
+            pitch[i] = line.cameraPitch;
+            yaw[i] = line.cameraYaw;
+            fixType[i] = line.fixType != null ? (byte)line.fixType.ordinal() : -1;
+            flags[i] = readFlags(match);
+        }
+
+        refreshAltitudes();
+    }
+
+    public static MatchingColumns of(List<IMapLayer> layers) {
+        List<MapLayerMatch> matches = new ArrayList<>(layers.size());
+        for (IMapLayer layer : layers) {
+            if (layer instanceof MapLayerMatch) {
+                matches.add((MapLayerMatch)layer);
+            }
+        }
+
+        return new MatchingColumns(matches);
+    }
+
+    /**
+     * Re-reads the altitudes over the image centers, since they change once better elevation data becomes available.
+     *
+     * @return true if elevation data was ready for all images which have a footprint
+     */
+    public boolean refreshAltitudes() {
+        boolean elevationDataReady = true;
+        for (int i = 0; i != matches.length; i++) {
+            MapLayerMatch match = matches[i];
+            ComputeCornerData computeCornerData = match.img != null ? match.img.getComputeCornerData() : null;
+            // images without footprint are not filtered, so they don't wait for elevation data
+            if (match.img != null && (computeCornerData == null || !computeCornerData.isElevationDataReady())) {
+                elevationDataReady = false;
+            }
+
+            alt[i] =
+                (computeCornerData != null && computeCornerData.getAltOverCenter() != null)
+                    ? computeCornerData.getAltOverCenter()
+                    : match.line.getAltInM();
+        }
+
+        return elevationDataReady;
+    }
+
+    public int size() {
+        return matches.length;
+    }
+
+    public MapLayerMatch getMatch(int i) {
+        return matches[i];
+    }
+
+    public double getLat(int i) {
+        return lat[i];
+    }
+
+    public double getLon(int i) {
+        return lon[i];
+    }
+
+    /** altitude over the center of the image footprint, or over the takeoff if that is not known (yet) */
+    public double getAlt(int i) {
+        return alt[i];
+    }
+
+    public double getRoll(int i) {
+        return roll[i];
+    }
+
+    public double getPitch(int i) {
+        return pitch[i];
+    }
+
+    public double getYaw(int i) {
+        return yaw[i];
+    }
+
+    public GPSFixType getFixType(int i) {
+        return fixType[i] >= 0 ? FIX_TYPES[fixType[i]] : null;
+    }
+
+    public byte getFlags(int i) {
+        return flags[i];
+    }
+
+    public boolean isPassFilter(int i) {
+        return (flags[i] & PASS) != 0;
+    }
+
+    /**
+     * Stores new filter flags of an image and pushes them to its {@link MapLayerMatch}.
+     *
+     * @return if the image changed between passing and not passing the filter
+     */
+    public boolean setFlags(int i, byte newFlags) {
+        MapLayerMatch match = matches[i];
+        flags[i] = newFlags;
+        match.setAreaPassFilter((newFlags & AREA_PASS) != 0);
+        match.setRangePassFilter((newFlags & RANGE_PASS) != 0);
+        match.setRollPassFilter((newFlags & ROLL_PASS) != 0);
+        match.setPitchPassFilter((newFlags & PITCH_PASS) != 0);
+        match.setYawPassFilter((newFlags & YAW_PASS) != 0);
+        return match.setPassFilter((newFlags & PASS) != 0);
+    }
+
+    /** @return the number of images which don't have all the given flags set */
+    public int countMissing(byte flag) {
+        int count = 0;
+        for (byte f : flags) {
+            if ((f & flag) != flag) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static byte readFlags(MapLayerMatch match) {
+        byte flags = 0;
+        flags |= match.isPassFilter() ? PASS : 0;
+        flags |= match.getAreaPassFilter() ? AREA_PASS : 0;
+        flags |= match.getRangePassFilter() ? RANGE_PASS : 0;
+        flags |= match.getRollPassFilter() ? ROLL_PASS : 0;
+        flags |= match.getPitchPassFilter() ? PITCH_PASS : 0;
+        flags |= match.getYawPassFilter() ? YAW_PASS : 0;
+        return flags;
+    }
+
+}
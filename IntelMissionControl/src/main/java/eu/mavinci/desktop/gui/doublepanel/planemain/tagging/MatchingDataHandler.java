@@ -33,12 +33,39 @@ public class MatchingDataHandler extends DefaultHandler implements Tokens {
 
     File basePath;
 
+    /** if set, parsing ends at the first image record, since they are taken from the {@link MatchingBinaryCache} */
+    private final boolean stopAtFirstMatch;
+
+    private boolean inMatches;
+    private boolean matchesTrailing = true;
+
+    /** Thrown to end parsing at the first image record. */
+    static class MatchesReachedException extends SAXException {
+        MatchesReachedException() {
+            super("image records reached");
+        }
+    }
+
     MatchingDataHandler(
             MapLayerMatching data, File basePath, IHardwareConfigurationManager hardwareConfigurationManager) {
+        this(data, basePath, hardwareConfigurationManager, false);
+    }
+
+    MatchingDataHandler(
+            MapLayerMatching data,
+            File basePath,
+            IHardwareConfigurationManager hardwareConfigurationManager,
+            boolean stopAtFirstMatch) {
         super();
         this.hardwareConfigurationManager = hardwareConfigurationManager;
         this.basePath = basePath;
         this.data = data;
+        this.stopAtFirstMatch = stopAtFirstMatch;
+    }
+
+    /** @return if no other elements than image records followed the first image record */
+    boolean areMatchesTrailing() {
+        return matchesTrailing;
     }
 
     public void startDocument() {
@@ -69,6 +96,16 @@ public class MatchingDataHandler extends DefaultHandler implements Tokens {
         // first clear the character buffer
         sbuf.delete(0, sbuf.length());
 
+        if (qName.equals(MATCH) || qName.equals(MMATCH)) {
+            if (stopAtFirstMatch) {
+                throw new MatchesReachedException();
+            }
+
+            inMatches = true;
+        } else if (inMatches && !qName.equals(BAND)) {
+            matchesTrailing = false;
+        }
+
         if (qName.equals(ALTFILTER)) {
             data.altitudeAGLEnabled = Boolean.parseBoolean(atts.getValue(ENABLED));
             if (atts.getValue(FROM) != null) {
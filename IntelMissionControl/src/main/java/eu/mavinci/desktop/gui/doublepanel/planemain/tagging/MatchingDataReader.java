@@ -28,9 +28,24 @@ import org.xml.sax.XMLReader;
 public class MatchingDataReader {
     private static final Logger LOG = LoggerFactory.getLogger(ExportService.class);
 
+    private boolean matchesTrailing;
+
     public AMapLayerMatching readMatchingData(
             MapLayerMatching data, File filename, IHardwareConfigurationManager hardwareConfigurationManager)
             throws SAXException, IOException {
+        return readMatchingData(data, filename, hardwareConfigurationManager, false);
+    }
+
+    /**
+     * @param stopAtFirstMatch only read the settings of the matching and stop at the first image record, the caller
+     *     takes the image records from somewhere else
+     */
+    public AMapLayerMatching readMatchingData(
+            MapLayerMatching data,
+            File filename,
+            IHardwareConfigurationManager hardwareConfigurationManager,
+            boolean stopAtFirstMatch)
+            throws SAXException, IOException {
         InputStream is = null;
         MEntryResolver res = MEntryResolver.resolver;
         try {
@@ -58,7 +73,8 @@ public class MatchingDataReader {
                 saxParser = factory.newSAXParser();
 
                 MatchingDataHandler handler =
-                    new MatchingDataHandler(data, filename.getParentFile(), hardwareConfigurationManager);
+                    new MatchingDataHandler(
+                        data, filename.getParentFile(), hardwareConfigurationManager, stopAtFirstMatch);
 
                 XMLReader xr = saxParser.getXMLReader();
                 xr.setContentHandler(handler);
@@ -69,9 +85,14 @@ public class MatchingDataReader {
                     xr.setDTDHandler(handler); // not supported in android
                 }
 
-                xr.parse(new InputSource(is));
-                // saxParser.parse(is, handler);
+                try {
+                    xr.parse(new InputSource(is));
+                    // saxParser.parse(is, handler);
+                } catch (MatchingDataHandler.MatchesReachedException e) {
+                    // the remaining elements are the image records
+                }
 
+                matchesTrailing = handler.areMatchesTrailing();
                 return handler.data;
             } catch (ParserConfigurationException e) {
                 LOG.warn("cant read Matching Data" + filename.getAbsolutePath(), e);
@@ -92,6 +113,14 @@ public class MatchingDataReader {
         }
     }
 
+    /**
+     * @return if the image records were the last elements in the file read last, which is required to take them from
+     *     a {@link MatchingBinaryCache} instead
+     */
+    public boolean areMatchesTrailing() {
+        return matchesTrailing;
+    }
+
     public interface Tokens {
         public static final String ID = "id";
         public static final String MATCHING = "matching";
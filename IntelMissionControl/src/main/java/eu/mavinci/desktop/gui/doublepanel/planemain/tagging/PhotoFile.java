@@ -160,6 +160,12 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
                 // e.printStackTrace();
             }
 
+            if (extractThumbnailJava(source, tmpTarget)) {
+                target.delete();
+                tmpTarget.renameTo(target);
+                return;
+            }
+
             Map<Tag, String> valueMap;
             valueMap = ExifTool.instance.getImageMeta(source, Tag.IMAGE_WIDTH, Tag.IMAGE_HEIGHT);
 
@@ -210,61 +216,7 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
                 // System.out.println("extract :" + (System.currentTimeMillis() - t));
                 BufferedImage img = ImageIO.read(new ByteArrayInputStream(prevData));
 
-                Dimension dimPreview = new Dimension(img.getWidth(), img.getHeight());
-                // t= System.currentTimeMillis();
-
-                // System.out.println("dimOrg="+dimOrg);
-                // System.out.println("dimPreview="+dimPreview);
-                // System.out.println("PREVIEW_WIDTH="+PREVIEW_WIDTH);
-                double ratioPrev = dimPreview.height / ((double)dimPreview.width);
-                double ratioTarget = heightOrg / ((double)widthOrg);
-                // System.out.println("ratioPreview="+ratioPrev);
-
-                // check aspect ratio.. otherwise crop image!!
-                // if (Math.abs(dimPreview.width-dimPreview.height/ratioTarget) >=1.1){//more than some pixels off in
-                // widht
-                // System.out.println("scale AND crop in java");
-
-                // System.out.println("ratioTarget="+ratioTarget);
-                int width = PREVIEW_WIDTH;
-                int height = (int)Math.round(width * ratioTarget);
-                // System.out.println("widthPRev="+dimPreview.width+"
-                // scaledOrgWidht="+((double)(dimOrg.width)/dimOrg.height*dimPreview.height));
-                int xOffset = 0;
-                int yOffset = 0;
-                if ((dimPreview.width - dimPreview.height / ratioTarget) < 0) {
-                    // current preview isn't wide enough, so black borders are on top and bottom
-                    // System.out.println("A");
-                    width = Math.min(width, dimPreview.width);
-                    height = (int)Math.round(width * ratioTarget);
-                    yOffset = (int)Math.round((width * ratioPrev - height) / 2);
-                } else {
-                    // current preview isn't height enough, so black borders are left and right.
-                    // height would stay as it is, except scaling
-                    // System.out.println("B");
-                    height = Math.min(dimPreview.height, height);
-                    width = (int)Math.round(height / ratioTarget);
-                    xOffset = (int)Math.round((height / ratioPrev - width) / 2);
-                }
-                // System.out.println("height="+height+"\twidth="+width+"\txOffset="+xOffset+"\tyOffset="+yOffset);
-
-                BufferedImage bufImg =
-                    new BufferedImage(
-                        width,
-                        height,
-                        img.getType() == BufferedImage.TYPE_BYTE_GRAY
-                            ? BufferedImage.TYPE_BYTE_GRAY
-                            : BufferedImage.TYPE_3BYTE_BGR);
-                // System.out.println("bufImg-out:"+bufImg);
-                // System.out.println("bufImg-out:"+bufImg.getHeight() + " " + bufImg.getWidth());
-                Graphics2D g = bufImg.createGraphics();
-                g.setRenderingHint(
-                    RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-                g.drawImage(img, -xOffset, -yOffset, width + 2 * xOffset, height + 2 * yOffset, null);
-                g.dispose();
-                ImageIO.write(bufImg, "jpeg", tmpTarget);
+                ImageIO.write(cropToPreview(img, widthOrg, heightOrg), "jpeg", tmpTarget);
 
                 // } else {
                 //
@@ -299,6 +251,93 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
         }
     }
 
+    /**
+     * Scales an embedded preview to the preview width. If its aspect ratio differs from the one of the image, the black
+     * borders the camera added to it are cropped.
+     */
+    private static BufferedImage cropToPreview(BufferedImage img, int widthOrg, int heightOrg) {
+        Dimension dimPreview = new Dimension(img.getWidth(), img.getHeight());
+        double ratioPrev = dimPreview.height / ((double)dimPreview.width);
+        double ratioTarget = heightOrg / ((double)widthOrg);
+
+        // check aspect ratio.. otherwise crop image!!
+        int width = PREVIEW_WIDTH;
+        int height = (int)Math.round(width * ratioTarget);
+        int xOffset = 0;
+        int yOffset = 0;
+        if ((dimPreview.width - dimPreview.height / ratioTarget) < 0) {
+            // current preview isn't wide enough, so black borders are on top and bottom
+            width = Math.min(width, dimPreview.width);
+            height = (int)Math.round(width * ratioTarget);
+            yOffset = (int)Math.round((width * ratioPrev - height) / 2);
+        } else {
+            // current preview isn't height enough, so black borders are left and right.
+            // height would stay as it is, except scaling
+            height = Math.min(dimPreview.height, height);
+            width = (int)Math.round(height / ratioTarget);
+            xOffset = (int)Math.round((height / ratioPrev - width) / 2);
+        }
+
+        BufferedImage bufImg =
+            new BufferedImage(
+                width,
+                height,
+                img.getType() == BufferedImage.TYPE_BYTE_GRAY
+                    ? BufferedImage.TYPE_BYTE_GRAY
+                    : BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = bufImg.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        g.drawImage(img, -xOffset, -yOffset, width + 2 * xOffset, height + 2 * yOffset, null);
+        g.dispose();
+        return bufImg;
+    }
+
+    /**
+     * Creates the preview of a JPEG image without the ExifTool process, from its embedded thumbnail or from the image
+     * decoded at a reduced resolution, and shares it with other datasets by the {@link PhotoPreviews#getCache()
+     * thumbnail cache}.
+     *
+     * @return false if the image can't be read this way, in this case the preview has to be created by ExifTool
+     */
+    private static boolean extractThumbnailJava(File source, File target) {
+        try {
+            JpegPreviewReader reader = JpegPreviewReader.open(source);
+            if (reader == null) {
+                return false;
+            }
+
+            if (reader.getWidth() <= PREVIEW_WIDTH) {
+                FileHelper.copyFile(source, target);
+                return true;
+            }
+
+            ThumbnailCache cache = PhotoPreviews.getCache();
+            String key = cache != null ? ThumbnailCache.getKey(source, PREVIEW_WIDTH) : null;
+            File cached = cache != null ? cache.get(key) : null;
+            if (cached != null) {
+                FileHelper.copyFile(cached, target);
+                return true;
+            }
+
+            BufferedImage img = reader.readPreview(PREVIEW_WIDTH);
+            if (img == null) {
+                return false;
+            }
+
+            ImageIO.write(cropToPreview(img, reader.getWidth(), reader.getHeight()), "jpeg", target);
+            if (cache != null) {
+                cache.put(key, target);
+            }
+
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Debug.getLog().log(Level.FINE, "Java preview failed for " + source + ", falling back to ExifTool", e);
+            return false;
+        }
+    }
+
     public static BufferedImage normalizeImageHistogram(BufferedImage source) {
         var img = new ImagePlus(source.toString(), source);
         var e = new ContrastEnhancer();
@@ -504,6 +543,49 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
 
     private void writeMetadata(IHardwareConfiguration hardwareConfiguration, double groundElevation, Vec4 rtkOffset)
             throws Exception {
+        Map<Tag, String> map = createMetadata(hardwareConfiguration, groundElevation, rtkOffset);
+        Map<Tag, String> valueMap;
+        valueMap =
+            ExifTool.instance.getImageMeta(
+                file,
+                Tag.CREATION_DATE,
+                Tag.DATE_TIME_ORIGINAL,
+                Tag.CREATION_DATE_BACKUP,
+                Tag.DATE_TIME_ORIGINAL_BACKUP,
+                Tag.DATE_TIME_CREATED);
+        putDates(map, valueMap);
+
+        // System.out.println("exif data:" + map);
+
+        ExifTool.instance.setImageMeta(file, map);
+    }
+
+    /**
+     * Same as {@link #writeMetadata(IHardwareConfiguration)}, but without the ExifTool process.
+     *
+     * @return the written tags, or null if the file can't be handled by the writer and nothing was written
+     */
+    public Map<Tag, String> writeMetadataInPlace(IHardwareConfiguration hardwareConfiguration, InPlaceExifWriter writer)
+            throws Exception {
+        Map<Tag, String> map =
+            createMetadata(
+                hardwareConfiguration,
+                match.getMatching().getEstimatedStartingElevationInMoverWGS84(true),
+                match.getRtkOffset());
+        Map<Tag, String> valueMap =
+            writer.read(
+                file,
+                Tag.CREATION_DATE,
+                Tag.DATE_TIME_ORIGINAL,
+                Tag.CREATION_DATE_BACKUP,
+                Tag.DATE_TIME_ORIGINAL_BACKUP,
+                Tag.DATE_TIME_CREATED);
+        putDates(map, valueMap);
+        return writer.write(file, map) ? map : null;
+    }
+
+    private Map<Tag, String> createMetadata(
+            IHardwareConfiguration hardwareConfiguration, double groundElevation, Vec4 rtkOffset) {
         Ensure.notNull(hardwareConfiguration, "hardwareConfiguration");
 
         CPhotoLogLine line = getPhotoLogLine();
@@ -636,16 +718,12 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
             map.put(Tag.FOCAL_LENGTH_35MM, "" + CameraHelper.getFocalLength35mm(hardwareConfiguration));
         }
 
-        Map<Tag, String> valueMap;
-        valueMap =
-            ExifTool.instance.getImageMeta(
-                file,
-                Tag.CREATION_DATE,
-                Tag.DATE_TIME_ORIGINAL,
-                Tag.CREATION_DATE_BACKUP,
-                Tag.DATE_TIME_ORIGINAL_BACKUP,
-                Tag.DATE_TIME_CREATED);
+        return map;
+    }
 
+    /** Backs up the original camera dates (if not done before) and replaces them with the log timestamp. */
+    private void putDates(Map<Tag, String> map, Map<Tag, String> valueMap) {
+        CPhotoLogLine line = getPhotoLogLine();
         String creationDateBackup = valueMap.get(Tag.CREATION_DATE_BACKUP);
         String dateTimeOriginalBackup = valueMap.get(Tag.DATE_TIME_ORIGINAL_BACKUP);
         if (creationDateBackup == null || creationDateBackup.isEmpty()) {
@@ -689,10 +767,6 @@ public class PhotoFile implements Comparable<PhotoFile>, IResourceFileReferenced
 
         map.put(Tag.DATE_TIME_ORIGINAL, date);
         map.put(Tag.CREATION_DATE, date);
-
-        // System.out.println("exif data:" + map);
-
-        ExifTool.instance.setImageMeta(file, map);
     }
     // public static final int PREVIEW_HEIGHT = 120; //auto scaled..
 
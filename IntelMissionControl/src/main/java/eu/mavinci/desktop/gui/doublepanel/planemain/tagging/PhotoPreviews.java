@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.intel.missioncontrol.StaticInjector;
+import com.intel.missioncontrol.common.IPathProvider;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.asyncfx.concurrent.Dispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the preview files of images on a small pool of worker threads. Images which are visible on the map are
+ * created first, the others in the order in which they were requested.
+ */
+public class PhotoPreviews {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhotoPreviews.class);
+
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final String CACHE_FOLDER = "thumbnails";
+    private static final long CACHE_SIZE = 512L * 1024 * 1024;
+
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(
+            THREADS,
+            THREADS,
+            0,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("photo-preview-%d").build());
+
+    private static final Map<PhotoFile, Task> pending = new ConcurrentHashMap<>();
+    private static final AtomicLong requestCount = new AtomicLong();
+
+    private static ThumbnailCache cache;
+    private static boolean cacheInitialized;
+
+    private static class Task implements Runnable, Comparable<Task> {
+        final PhotoFile photoFile;
+        final long sequence = requestCount.getAndIncrement();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        volatile boolean visible;
+
+        Task(PhotoFile photoFile) {
+            this.photoFile = photoFile;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // cancelled by the caller while waiting in the queue
+                if (!result.isDone()) {
+                    photoFile.generateThumpFile();
+                    result.complete(null);
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                pending.remove(photoFile, this);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (visible != other.visible) {
+                return visible ? -1 : 1;
+            }
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private PhotoPreviews() {}
+
+    /**
+     * Queues the creation of the preview file of the image, if it isn't queued already.
+     *
+     * @return completes when the preview file exists, or exceptionally if it could not be created. Cancelling it
+     *     removes the image from the queue, unless its preview is already being created.
+     */
+    public static CompletableFuture<Void> request(PhotoFile photoFile) {
+        Task task = new Task(photoFile);
+        Task queued = pending.putIfAbsent(photoFile, task);
+        if (queued != null) {
+            return queued.result;
+        }
+
+        task.result.whenComplete(
+            (result, e) -> {
+                if (task.result.isCancelled() && EXECUTOR.remove(task)) {
+                    pending.remove(photoFile, task);
+                }
+            });
+        EXECUTOR.execute(task);
+        return task.result;
+    }
+
+    /** Moves the image to the front of the queue, if its preview file is still waiting to be created. */
+    public static void prioritize(PhotoFile photoFile) {
+        Task task = pending.get(photoFile);
+        if (task == null || task.visible) {
+            return;
+        }
+
+        // the queue doesn't reorder its elements, so the task has to be queued again
+        if (EXECUTOR.remove(task)) {
+            task.visible = true;
+            EXECUTOR.execute(task);
+        }
+    }
+
+    /**
+     * @return the cache of the previews of all datasets, or null if there is no cache directory. Previews which weren't
+     *     used the longest are removed when it is opened, until it is at most 512 MB large.
+     */
+    static synchronized ThumbnailCache getCache() {
+        if (!cacheInitialized) {
+            cacheInitialized = true;
+            try {
+                cache =
+                    new ThumbnailCache(
+                        StaticInjector.getInstance(IPathProvider.class).getCacheDirectory().resolve(CACHE_FOLDER));
+                ThumbnailCache trimmed = cache;
+                Dispatcher.background()
+                    .run(
+                        () -> {
+                            try {
+                                trimmed.trim(CACHE_SIZE);
+                            } catch (IOException e) {
+                                LOGGER.warn("could not trim the thumbnail cache", e);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                LOGGER.warn("no thumbnail cache available", e);
+            }
+        }
+
+        return cache;
+    }
+
+}
@@ -40,6 +40,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -68,6 +69,19 @@ public abstract class TaggingAlgorithmA implements ITaggingAlgorithm {
         return new TaggingAlgorithmMeta();
     }
 
+    /**
+     * The timestamps of the log lines in the order of the set, so the matching can try many variants without walking
+     * the set each time.
+     */
+    protected static double[] getLogTimestamps(Collection<CPhotoLogLine> logs) {
+        return logs.stream().mapToDouble(CPhotoLogLine::getTimestamp).toArray();
+    }
+
+    /** The timestamps of the photos in the order of the set. */
+    protected static double[] getPhotoTimestamps(Collection<PhotoCube> photos) {
+        return photos.stream().mapToDouble(PhotoCube::getTimestamp).toArray();
+    }
+
     protected MinMaxPair dtPair = new MinMaxPair();
 
     protected TreeSet<String> fpHashes = new TreeSet<String>();
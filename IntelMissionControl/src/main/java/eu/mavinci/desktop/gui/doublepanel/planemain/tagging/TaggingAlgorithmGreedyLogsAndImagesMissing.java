@@ -13,6 +13,8 @@ import eu.mavinci.desktop.helper.InterruptedByUserException;
 import eu.mavinci.desktop.main.debug.Debug;
 import java.io.File;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 public class TaggingAlgorithmGreedyLogsAndImagesMissing extends TaggingAlgorithmA {
 
@@ -26,6 +28,8 @@ public class TaggingAlgorithmGreedyLogsAndImagesMissing extends TaggingAlgorithm
     public static final double MAX_LOG_LOSS_REALTIVE = MAX_IMG_LOSS_REALTIVE;
     public static final int MAX_LOG_LOSS_ABS_MIN = MAX_IMG_LOSS_ABS_MIN;
 
+    private static final int IMG_LOSSES_PER_BATCH = 64;
+
     @Override
     public void optimizeMatching(
             double dtVarietyMax,
@@ -78,31 +82,53 @@ public class TaggingAlgorithmGreedyLogsAndImagesMissing extends TaggingAlgorithm
             // ".monOptimize.title"),
             //                Language.getString(KEY + ".monOptimize.initNote"), -1, maxImgLoss * maxLogLoss);
             //            try {
-            int step = 0;
-            long maxStep = maxImgLoss * maxLogLoss;
-            for (int noRemoveImg = 0; noRemoveImg != maxImgLoss; noRemoveImg++) {
-                for (int noRemoveLog = 0; noRemoveLog != maxLogLoss; noRemoveLog++) {
-                    // for(double curShift=shift.min; curShift<=shift.max; curShift+=STEP_SIZE){
+            // the number of removed images is tried in parallel. Combinations which can not be better than the best
+            // one found by any thread so far are cut off, like in the sequential search, but ties are still evaluated,
+            // so the first of several equally good combinations wins, just as before
+            double[] logTimes = getLogTimestamps(logs);
+            double[] photoTimes = getPhotoTimestamps(photos);
+            AtomicInteger lowestSoFar = new AtomicInteger(lowestMissingMatches);
+            long maxStep = (long)maxImgLoss * maxLogLoss;
+            int[] lowestPerImg = new int[maxImgLoss];
+            int[] noRemoveLogPerImg = new int[maxImgLoss];
+            for (int from = 0; from < maxImgLoss; from += IMG_LOSSES_PER_BATCH) {
+                if (progressCallbackOptimizing != null) {
+                    if (progressCallbackOptimizing.isCanceled()) {
+                        throw new InterruptedByUserException();
+                    }
 
-                    if (progressCallbackOptimizing != null) {
-                        if (progressCallbackOptimizing.isCanceled()) {
-                            throw new InterruptedByUserException();
-                        }
+                    progressCallbackOptimizing.progress(getAlgName(), (long)from * maxLogLoss, maxStep);
+                }
 
-                        progressCallbackOptimizing.progress(getAlgName(), step, maxStep);
-                        step++;
-                    }
+                IntStream.range(from, Math.min(from + IMG_LOSSES_PER_BATCH, maxImgLoss))
+                    .parallel()
+                    .forEach(
+                        noRemoveImg -> {
+                            lowestPerImg[noRemoveImg] = Integer.MAX_VALUE;
+                            for (int noRemoveLog = 0; noRemoveLog != maxLogLoss; noRemoveLog++) {
+                                int lowest = lowestSoFar.get();
+                                int missingMatches =
+                                    countMissingMatches(
+                                        logTimes,
+                                        photoTimes,
+                                        noRemoveImg,
+                                        noRemoveLog,
+                                        dtVarietyMax,
+                                        lowest == Integer.MAX_VALUE ? lowest : lowest + 1);
+                                if (missingMatches < lowestPerImg[noRemoveImg]) {
+                                    lowestPerImg[noRemoveImg] = missingMatches;
+                                    noRemoveLogPerImg[noRemoveImg] = noRemoveLog;
+                                    lowestSoFar.accumulateAndGet(missingMatches, Math::min);
+                                }
+                            }
+                        });
+            }
 
-                    int lowestMissingMatchesTmp =
-                        applyShift(noRemoveImg, noRemoveLog, dtVarietyMax, lowestMissingMatches);
-                    if (lowestMissingMatchesTmp < lowestMissingMatches) {
-                        noRemoveImgAtMin = noRemoveImg;
-                        noRemoveLogAtMin = noRemoveLog;
-                        lowestMissingMatches = lowestMissingMatchesTmp;
-                        // System.out.println("new Minimum lowestMissingMatches:" + lowestMissingMatches + " @
-                        // noRemoveImg="+noRemoveImg
-                        // + " noRemoveLog="+noRemoveLog);
-                    }
+            for (int noRemoveImg = 0; noRemoveImg != maxImgLoss; noRemoveImg++) {
+                if (lowestPerImg[noRemoveImg] < lowestMissingMatches) {
+                    noRemoveImgAtMin = noRemoveImg;
+                    noRemoveLogAtMin = noRemoveLogPerImg[noRemoveImg];
+                    lowestMissingMatches = lowestPerImg[noRemoveImg];
                 }
             }
 
@@ -121,7 +147,8 @@ public class TaggingAlgorithmGreedyLogsAndImagesMissing extends TaggingAlgorithm
                         + noRemoveLogAtMin);
 
             // verbose = true;
-            lowestMissingMatches = applyShift(noRemoveImgAtMin, noRemoveLogAtMin, dtVarietyMax, lowestMissingMatches);
+            // the search did not touch the matching, so the best combination is applied without being cut off
+            lowestMissingMatches = applyShift(noRemoveImgAtMin, noRemoveLogAtMin, dtVarietyMax, Integer.MAX_VALUE);
         }
 
         if (lowestMissingMatches == Integer.MAX_VALUE) {
@@ -135,6 +162,84 @@ public class TaggingAlgorithmGreedyLogsAndImagesMissing extends TaggingAlgorithm
         }
     }
 
+    /**
+     * Computes the same number of missing matches as {@link #applyShift}, but only on the timestamps and without
+     * changing the matching, so many combinations can be tried in parallel.
+     */
+    static int countMissingMatches(
+            double[] logTimes,
+            double[] photoTimes,
+            int noRemoveImg,
+            int noRemoveLog,
+            double dtVarietyMax,
+            int lowestMissingMatches) {
+        int missingMatches = noRemoveImg + noRemoveLog;
+        int imgToGo = photoTimes.length - noRemoveImg;
+        int logToGo = logTimes.length - noRemoveLog;
+        int bestCaseMissmatches = missingMatches + Math.abs(imgToGo - logToGo);
+        if (bestCaseMissmatches >= lowestMissingMatches) {
+            return bestCaseMissmatches;
+        }
+
+        int logIdx = noRemoveLog;
+        int imgIdx = noRemoveImg;
+        int matched = 0;
+        MinMaxPair dtPair = new MinMaxPair();
+        double diff = logTimes[logIdx] - photoTimes[imgIdx];
+        boolean valid = dtPair.size(diff) <= dtVarietyMax;
+        do {
+            if (!valid) {
+                int logIdxNext = logIdx + 1;
+                boolean validLast = false;
+                while (logIdxNext < logTimes.length && !validLast) {
+                    validLast = dtPair.size(logTimes[logIdxNext] - photoTimes[imgIdx]) <= dtVarietyMax;
+                    logIdxNext++;
+                }
+
+                if (validLast) {
+                    logIdx = logIdxNext - 1;
+                    diff = logTimes[logIdx] - photoTimes[imgIdx];
+                    valid = true;
+                }
+            }
+
+            if (!valid) {
+                int imgIdxNext = imgIdx + 1;
+                boolean validLast = false;
+                while (imgIdxNext < photoTimes.length && !validLast) {
+                    validLast = dtPair.size(logTimes[logIdx] - photoTimes[imgIdxNext]) <= dtVarietyMax;
+                    imgIdxNext++;
+                }
+
+                if (validLast) {
+                    imgIdx = imgIdxNext - 1;
+                    diff = logTimes[logIdx] - photoTimes[imgIdx];
+                    valid = true;
+                }
+            }
+
+            if (!valid) {
+                return Integer.MAX_VALUE;
+            }
+
+            matched++;
+            dtPair.update(diff);
+            logIdx++;
+            imgIdx++;
+            if (logIdx >= logTimes.length || imgIdx >= photoTimes.length) {
+                break;
+            }
+
+            diff = logTimes[logIdx] - photoTimes[imgIdx];
+            valid = dtPair.size(diff) <= dtVarietyMax;
+            imgToGo = photoTimes.length - imgIdx;
+            logToGo = logTimes.length - logIdx;
+            bestCaseMissmatches = missingMatches + Math.abs(imgToGo - logToGo);
+        } while (bestCaseMissmatches < lowestMissingMatches);
+
+        return photoTimes.length + logTimes.length - 2 * matched;
+    }
+
     protected int applyShift(int noRemoveImg, int noRemoveLog, double dtVarietyMax, int lowestMissingMatches) {
         int missingMatches = noRemoveImg + noRemoveLog;
         int imgToGo = photos.size() - noRemoveImg;
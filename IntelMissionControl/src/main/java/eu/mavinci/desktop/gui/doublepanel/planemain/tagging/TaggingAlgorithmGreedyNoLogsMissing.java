@@ -12,6 +12,7 @@ import eu.mavinci.core.helper.MinMaxPair;
 import eu.mavinci.desktop.helper.InterruptedByUserException;
 import eu.mavinci.desktop.main.debug.Debug;
 import java.util.Iterator;
+import java.util.stream.IntStream;
 
 /**
  * this algorithm assumes there are only images missing, but no images too many (==log entries missing) in this case he
@@ -21,6 +22,7 @@ public class TaggingAlgorithmGreedyNoLogsMissing extends TaggingAlgorithmA {
 
     public static final double STEP_SIZE = 0.001;
     public static final double LARGING_SEARCH_INTERVAL = 1;
+    private static final int SHIFTS_PER_BATCH = 10000;
 
     double shiftAtMinDt;
 
@@ -120,32 +122,44 @@ public class TaggingAlgorithmGreedyNoLogsMissing extends TaggingAlgorithmA {
             // dtVarietyMax = Double.POSITIVE_INFINITY;
             Debug.getLog().config("matching unique, use minimal shift:" + dtPair.min);
         } else {
-            int steps = (int)Math.ceil(dtPair.size() / STEP_SIZE);
-            if (steps > 1000) {
-                steps *= 1.001; // try compensate potential numerical erros by this
-            }
-            //            MProgressMonitor mon = new MProgressMonitor(null, Language.getString(KEY +
-            // ".monOptimize.title"),
-            //                Language.getString(KEY + ".monOptimize.initNote"), -1, steps);
-            int step = 0;
-            for (double shift = dtPair.min; shift <= dtPair.max; shift += STEP_SIZE) {
+            // the shifts are independent of each other, so they are not cut off at the best quality found so far, but
+            // evaluated completely in parallel. They are generated one batch at a time, by the same repeated additions
+            // as before, so only a batch of shifts and their qualities are held at once
+            double[] logTimes = getLogTimestamps(logs);
+            double[] photoTimes = getPhotoTimestamps(photos);
+            double[] shifts = new double[SHIFTS_PER_BATCH];
+            double[] quality = new double[SHIFTS_PER_BATCH];
+            double dtVarietyMaxFinal = dtVarietyMax;
+            long shiftCount = (long)((dtPair.max - dtPair.min) / STEP_SIZE) + 1;
+            long shiftsDone = 0;
+            double nextShift = dtPair.min;
+            while (nextShift <= dtPair.max) {
                 if (progressCallbackOptimizing != null) {
                     if (progressCallbackOptimizing.isCanceled()) {
                         throw new InterruptedByUserException();
                     }
 
-                    progressCallbackOptimizing.progress(getAlgName(), step, steps);
-                    step++;
+                    progressCallbackOptimizing.progress(getAlgName(), shiftsDone, shiftCount);
                 }
 
-                double dt = applyShift(shift, dtVarietyMax, minDt);
-                // System.out.println("---");
-                // System.out.println(shift +"->"+dt);
-                // dumpMatching();
-                if (dt < minDt) {
-                    shiftAtMinDt = shift;
-                    minDt = dt;
+                int count = 0;
+                while (count < SHIFTS_PER_BATCH && nextShift <= dtPair.max) {
+                    shifts[count++] = nextShift;
+                    nextShift += STEP_SIZE;
                 }
+
+                IntStream.range(0, count)
+                    .parallel()
+                    .forEach(i -> quality[i] = evaluateShift(logTimes, photoTimes, shifts[i], dtVarietyMaxFinal));
+
+                for (int i = 0; i < count; i++) {
+                    if (quality[i] < minDt) {
+                        shiftAtMinDt = shifts[i];
+                        minDt = quality[i];
+                    }
+                }
+
+                shiftsDone += count;
             }
 
             if (minDt == Double.POSITIVE_INFINITY) {
@@ -174,6 +188,47 @@ public class TaggingAlgorithmGreedyNoLogsMissing extends TaggingAlgorithmA {
         return shiftAtMinDt;
     }
 
+    /**
+     * Computes the same quality as {@link #applyShift} with an unlimited maxValidQuality, but only on the timestamps
+     * and without changing the matching, so many shifts can be tried in parallel. The logs are walked once for all
+     * images.
+     */
+    static double evaluateShift(double[] logTimes, double[] photoTimes, double shift, double dtVarietyMax) {
+        double dt = 0;
+        MinMaxPair dtPair = new MinMaxPair();
+        int log = 0;
+        int maxToSkip = logTimes.length - photoTimes.length;
+        for (int photo = 0; photo < photoTimes.length; photo++) {
+            double time = shift + photoTimes[photo];
+            double nextDiff = logTimes[log] - time;
+            if (log + 1 >= logTimes.length || dtPair.sizeValid() > dtVarietyMax) {
+                if (photo + 1 < photoTimes.length) {
+                    return Double.POSITIVE_INFINITY;
+                }
+
+                dt += nextDiff;
+                break;
+            }
+
+            maxToSkip++;
+            double lastDiff;
+            do {
+                lastDiff = nextDiff;
+                log++;
+                nextDiff = logTimes[log] - time;
+                maxToSkip--;
+            } while (maxToSkip > 0 && log + 1 < logTimes.length && Math.abs(nextDiff) < Math.abs(lastDiff));
+            dt += lastDiff;
+            dtPair.update(lastDiff);
+        }
+
+        if (dtPair.size() > dtVarietyMax) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return Math.abs(dt);
+    }
+
     protected double applyShift(double shift, double dtVarietyMax, double maxValidQuality) {
         syso("shift " + shift);
         logsUnmatched.clear();
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Preview files of images, shared by all datasets and kept between sessions. A preview is stored under a hash of the
+ * content of its image and of the preview width, so an image which is imported again, or copied into another dataset,
+ * does not have to be decoded again.
+ *
+ * <p>Hashing all of a 20 MB image would take longer than decoding it subsampled, so only its size and its first and
+ * last 64 KiB are hashed. The head contains the EXIF data with the capture time and the serial number of the camera,
+ * so different images get different keys.
+ */
+final class ThumbnailCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailCache.class);
+
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    private static final String FILE_EXTENSION = ".jpg";
+
+    private final Path directory;
+
+    ThumbnailCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** @return the key of the preview of the given width of the image, a hex string */
+    static String getKey(File image, int previewWidth) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel channel = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(2 * SAMPLE_SIZE + 12);
+            buffer.putLong(size).putInt(previewWidth);
+            readSample(channel, buffer, 0, (int)Math.min(size, SAMPLE_SIZE));
+            if (size > SAMPLE_SIZE) {
+                long tailStart = Math.max(SAMPLE_SIZE, size - SAMPLE_SIZE);
+                readSample(channel, buffer, tailStart, (int)(size - tailStart));
+            }
+
+            buffer.flip();
+            digest.update(buffer);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+
+        return key.toString();
+    }
+
+    private static void readSample(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        int start = buffer.position();
+        buffer.limit(start + length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+
+        buffer.limit(buffer.capacity());
+    }
+
+    /** @return the cached preview, or null if there is none */
+    File get(String key) {
+        Path path = getPath(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try {
+            // the last modification is the last use, so trim() removes the previews which weren't used the longest
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("could not touch {}", path, e);
+        }
+
+        return path.toFile();
+    }
+
+    /** Stores a copy of the preview, replacing the one with the same key if there is one. */
+    void put(String key, File preview) throws IOException {
+        Path path = getPath(key);
+        Files.createDirectories(path.getParent());
+        Path tmp = Files.createTempFile(path.getParent(), key, ".tmp");
+        try {
+            Files.copy(preview.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Deletes the previews which weren't used the longest, until the cache is at most maxSize bytes large. */
+    void trim(long maxSize) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            files = paths.filter(path -> path.toString().endsWith(FILE_EXTENSION)).collect(Collectors.toList());
+        }
+
+        long size = 0;
+        List<BasicFileAttributes> attributes = new ArrayList<>(files.size());
+        for (Path file : files) {
+            BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+            attributes.add(fileAttributes);
+            size += fileAttributes.size();
+        }
+
+        Integer[] order = new Integer[files.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+        for (int i = 0; i < order.length && size > maxSize; i++) {
+            Files.deleteIfExists(files.get(order[i]));
+            size -= attributes.get(order[i]).size();
+        }
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + FILE_EXTENSION);
+    }
+
+}
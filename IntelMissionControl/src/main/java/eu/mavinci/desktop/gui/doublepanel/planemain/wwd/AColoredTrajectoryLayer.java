@@ -133,17 +133,16 @@ public abstract class AColoredTrajectoryLayer extends RenderableLayer {
             currentPosition = pos;
             currentVec = vec;
             lastVec = vec;
-            positions.add(pos);
+            addTrackPosition(pos);
             // System.out.println("initial pos Adding:" + positions);
         } else {
-            int i = positions.size() - 1;
             double dist = lastVec.distanceTo3(vec);
             // System.out.println("dist:"+dist);
             if (dist < IGNORE_DISTANCE) {
                 return;
             } else if (dist < MIN_NEW_POINT_DISTANCE && lastVec != currentVec) {
                 droppedVec.add(currentVec);
-                positions.set(i, pos); // update current pos
+                setLastTrackPosition(pos); // update current pos
                 // System.out.println("update pos no:"+ i);
             } else if (MAX_DROPPING <= droppedVec.size()) {
                 // if the dropped vector becomes longer, we have an very bad runtime on adding further points
@@ -153,7 +152,7 @@ public abstract class AColoredTrajectoryLayer extends RenderableLayer {
                 // lastPosition = currentPosition;
                 lastVec = currentVec;
                 // System.out.println("stop DROPPING");
-                positions.add(pos);
+                addTrackPosition(pos);
             } else {
                 // System.out.println("lastVec="+lastVec );
                 Line l = new Line(lastVec, vec.subtract3(lastVec));
@@ -168,14 +167,14 @@ public abstract class AColoredTrajectoryLayer extends RenderableLayer {
                 if (dropping && lastVec != currentVec) {
                     // System.out.println("dropping + update pos no:"+ i + "
                     // MIN_ACCEPTED_CTE;"+MIN_ACCEPTED_CTE);
-                    positions.set(i, pos); // update current pos
+                    setLastTrackPosition(pos); // update current pos
                     droppedVec.add(currentVec);
                 } else {
                     droppedVec.clear(); // could not be done while iterating -> concurrentMod.Exception
                     // lastPosition = currentPosition;
                     lastVec = currentVec;
                     // System.out.println("stop DROPPING");
-                    positions.add(pos);
+                    addTrackPosition(pos);
                 }
             }
         }
@@ -185,12 +184,23 @@ public abstract class AColoredTrajectoryLayer extends RenderableLayer {
         currentVec = vec;
         currentPosition = pos;
 
-        polyline.setPositions(positions);
+        // System.out.println("added new pos" + pos + " NUMREND"+this.getNumRenderables());
+    }
+
+    private void addTrackPosition(Position pos) {
+        positions.add(pos);
+        polyline.addPosition(pos);
         if (withShadows) {
-            polylineShadow.setPositions(positions);
+            polylineShadow.addPosition(pos);
         }
+    }
 
-        // System.out.println("added new pos" + pos + " NUMREND"+this.getNumRenderables());
+    private void setLastTrackPosition(Position pos) {
+        positions.set(positions.size() - 1, pos);
+        polyline.setLastPosition(pos);
+        if (withShadows) {
+            polylineShadow.setLastPosition(pos);
+        }
     }
 
     @Override
@@ -264,6 +274,7 @@ public abstract class AColoredTrajectoryLayer extends RenderableLayer {
             setHighlightableEvenWithoutSelectability(true);
             setPopupTriggering(true);
             setPathType(AVKey.LINEAR);
+            setLevelOfDetailEnabled(true);
         }
 
         boolean shouldDraw(DrawContext dc) {
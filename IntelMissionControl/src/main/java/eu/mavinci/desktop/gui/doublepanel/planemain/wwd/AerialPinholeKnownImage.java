@@ -12,11 +12,13 @@ import com.intel.missioncontrol.map.elevation.IElevationModel;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.MapLayerMatch;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.MapLayerPics;
 import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.PhotoFile;
+import eu.mavinci.desktop.gui.doublepanel.planemain.tagging.PhotoPreviews;
 import eu.mavinci.desktop.gui.wwext.IWWPickableAdvancedTooltip;
 import eu.mavinci.desktop.gui.wwext.PolygonWithUserData;
 import eu.mavinci.desktop.gui.wwext.SurfaceImageCompressing;
 import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.render.BasicShapeAttributes;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.render.Highlightable;
@@ -105,6 +107,13 @@ public class AerialPinholeKnownImage extends AerialPinholeImage
             if (selectionManager.getSelection() == match) {
                 isSelected = true;
             }
+
+            PhotoFile photoFile = match.getCurPhotoFile();
+            Sector sector = getSector();
+            if (photoFile != null && sector != null && sector.intersects(dc.getVisibleSector())) {
+                // the previews of the images in view are created before all others
+                PhotoPreviews.prioritize(photoFile);
+            }
         }
 
         if (surfacePol == null && imagePolygon == null) {
@@ -13,162 +13,164 @@ package eu.mavinci.desktop.gui.doublepanel.planemain.wwd;
 
 import com.intel.missioncontrol.StaticInjector;
 import com.intel.missioncontrol.settings.ExpertSettings;
-import gov.nasa.worldwind.geom.Intersection;
+import eu.mavinci.flightplan.computation.ContourLineGenerator;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
-import gov.nasa.worldwind.globes.Earth;
 import gov.nasa.worldwind.layers.RenderableLayer;
-import gov.nasa.worldwind.render.ContourLine;
 import gov.nasa.worldwind.render.DrawContext;
-import gov.nasa.worldwind.render.Renderable;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.render.Polyline;
 import gov.nasa.worldwind.util.TimedExpirySupport;
 import gov.nasa.worldwind.util.WWMath;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Contour lines of the visible sector. The elevations of the sector are sampled into a grid, and all visible levels are
+ * extracted from it at once by the {@link ContourLineGenerator}.
+ */
 public class ContourLinesLayer extends RenderableLayer {
 
-    class MContourLine extends ContourLine {
-
-        public MContourLine(double elevation) {
-            super(elevation);
-            setViewClippingEnabled(true);
-            maxConnectingDistance = 5;
-        }
+    // samples per side of the elevation grid of the visible sector
+    private static final int GRID_SIZE = 256;
 
-        TimedExpirySupport expirySupportM = new TimedExpirySupport(2000, 3000);
+    private final TimedExpirySupport expirySupport = new TimedExpirySupport(2000, 3000);
+    private Object globeStateKey;
 
-        public void render(DrawContext dc) {
-            if (dc == null) {
-                String message = Logging.getMessage("nullValue.DrawContextIsNull");
-                Logging.logger().severe(message);
-                throw new IllegalArgumentException(message);
-            }
+    final ExpertSettings expertSettings = StaticInjector.getInstance(ExpertSettings.class);
+    int maxVisLines = expertSettings.getContourLinesMaxVisLines();
+    int step = expertSettings.getContourLinesStep();
+    int stepBold = expertSettings.getContourLinesStepBold();
+    int stepBoldBlue = expertSettings.getContourLinesStepBoldBlue();
+    int width = expertSettings.getContourLinesWidth();
+    int widthBold = expertSettings.getContourLinesWidthBold();
 
-            if (!this.isEnabled()) {
-                return;
-            }
+    public ContourLinesLayer() {
+        setPickEnabled(false);
+    }
 
-            if (!this.getSector().intersects(dc.getVisibleSector())) {
-                return;
-            }
+    @Override
+    protected void doRender(DrawContext dc) {
+        if (!isValid(dc)) {
+            makeContourLines(dc);
+            this.expirySupport.restart(dc);
+            this.globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+        }
 
-            if (!this.isValid(dc)) {
-                makeContourLine(dc);
-                this.expirySupportM.restart(dc);
-                this.globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
-            }
+        super.doRender(dc);
+    }
 
-            for (Renderable r : this.getRenderables()) {
-                r.render(dc);
-            }
+    protected boolean isValid(DrawContext dc) {
+        if (this.expirySupport.isExpired(dc)) {
+            return false;
         }
 
-        protected boolean isValid(DrawContext dc) {
-            if (this.expirySupportM.isExpired(dc)) {
-                return false;
-            }
+        return this.globeStateKey != null && this.globeStateKey.equals(dc.getGlobe().getStateKey(dc));
+    }
 
-            return this.globeStateKey != null && this.globeStateKey.equals(dc.getGlobe().getStateKey(dc));
-        }
+    /** Update the contour lines according to the current terrain. */
+    public void update() {
+        this.expirySupport.setExpired(true);
+    }
 
-        /** Update the contour line according to the current terrain geometry. */
-        public void update() {
-            this.expirySupportM.setExpired(true);
+    protected void makeContourLines(DrawContext dc) {
+        removeAllRenderables();
+        Sector sector = dc.getVisibleSector();
+        if (sector == null) {
+            return;
         }
 
-        /**
-         * Update the renderable list with appropriate renderables to display the contour line.
-         *
-         * @param dc the current <code>DrawContext</code>.
-         */
-        protected void makeContourLine(DrawContext dc) {
-            if (dc == null) {
-                String message = Logging.getMessage("nullValue.DrawContextIsNull");
-                Logging.logger().severe(message);
-                throw new IllegalArgumentException(message);
+        double dLat = sector.getDeltaLatDegrees() / (GRID_SIZE - 1);
+        double dLon = sector.getDeltaLonDegrees() / (GRID_SIZE - 1);
+        List<LatLon> locations = new ArrayList<>(GRID_SIZE * GRID_SIZE);
+        for (int i = 0; i < GRID_SIZE; i++) {
+            for (int j = 0; j < GRID_SIZE; j++) {
+                locations.add(
+                    LatLon.fromDegrees(
+                        sector.getMinLatitude().degrees + i * dLat, sector.getMinLongitude().degrees + j * dLon));
             }
+        }
 
-            this.getRenderables().clear();
-
-            // the following test is key to speeding up this enough, to make almost 1000 line levels work!
-            Sector s = dc.getVisibleSector();
-
-            if (lastSector == null || !s.equals(lastSector)) {
-                lastMinMax = dc.getGlobe().getMinAndMaxElevations(dc.getVisibleSector());
-                lastSector = s;
+        // locations without elevation data keep their value and are unknown to the generator
+        double[] elevations = new double[locations.size()];
+        Arrays.fill(elevations, Double.NEGATIVE_INFINITY);
+        double resolution = sector.getDeltaLatRadians() / (GRID_SIZE - 1);
+        dc.getGlobe().getElevations(sector, locations, resolution, elevations);
+
+        double[][] zdata = new double[GRID_SIZE][];
+        double minElevation = Double.POSITIVE_INFINITY;
+        double maxElevation = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            zdata[i] = Arrays.copyOfRange(elevations, i * GRID_SIZE, (i + 1) * GRID_SIZE);
+            for (double z : zdata[i]) {
+                if (z != Double.NEGATIVE_INFINITY && !Double.isNaN(z)) {
+                    minElevation = Math.min(minElevation, z);
+                    maxElevation = Math.max(maxElevation, z);
+                }
             }
+        }
 
-            double elev = getElevation();
-            if (elev <= lastMinMax[0] || elev >= lastMinMax[1]) {
-                return;
+        double[] levels = getLevels(minElevation, maxElevation);
+        for (ContourLineGenerator.Polyline line : ContourLineGenerator.getContours(zdata, levels)) {
+            List<Position> positions = new ArrayList<>(line.size() + 1);
+            for (int k = 0; k != line.size(); k++) {
+                positions.add(
+                    Position.fromDegrees(
+                        sector.getMinLatitude().degrees + line.getX(k) * dLat,
+                        sector.getMinLongitude().degrees + line.getY(k) * dLon,
+                        line.getLevel()));
             }
 
-            double min = Math.ceil(lastMinMax[0] / step) * step;
-            double max = Math.floor(lastMinMax[1] / step) * step;
-            int c = (int)Math.round(((max - min) / step)) + 1;
-            int i = (int)Math.round(elev / step);
-            int sparsing = WWMath.powerOfTwoCeiling(c / maxVisLines); // in the Netherlands this value can become 0 !!
-            if (sparsing > 1 && i % sparsing != 0) {
-                return;
+            if (line.isClosed()) {
+                positions.add(positions.get(0));
             }
 
-            // Get intersection points with terrain
-            double ve = dc.getVerticalExaggeration();
-            Intersection[] interArray = dc.getSurfaceGeometry().intersect(this.getElevation() * ve, this.getSector());
-
-            if (interArray != null) {
-                ArrayList<Intersection> inter = new ArrayList<Intersection>(Arrays.asList(interArray));
-
-                // Filter intersection segment list
-                if (isViewClippingEnabled()) {
-                    inter = filterIntersectionsOnViewFrustum(dc, inter);
-                }
-
-                inter = filterIntersections(dc, inter);
-
-                // Create polyline segments
-                makePolylinesConnected(dc, inter, this.maxConnectingDistance);
-            }
+            addRenderable(createPolyline(positions, line.getLevel()));
         }
     }
 
-    double[] lastMinMax;
-    Sector lastSector;
-    final ExpertSettings expertSettings = StaticInjector.getInstance(ExpertSettings.class);
-    int maxVisLines = expertSettings.getContourLinesMaxVisLines();
-    int step = expertSettings.getContourLinesStep();
-    int stepBold = expertSettings.getContourLinesStepBold();
-    int stepBoldBlue = expertSettings.getContourLinesStepBoldBlue();
-    int width = expertSettings.getContourLinesWidth();
-    int widthBold = expertSettings.getContourLinesWidthBold();
+    /** The levels strictly between min and max, every step, thinned out to about maxVisLines. */
+    private double[] getLevels(double minElevation, double maxElevation) {
+        if (!(minElevation < maxElevation)) {
+            return new double[0];
+        }
 
-    public ContourLinesLayer() {
-        setPickEnabled(false);
+        long first = (long)Math.floor(minElevation / step) + 1;
+        long last = (long)Math.ceil(maxElevation / step) - 1;
+        if (last < first) {
+            return new double[0];
+        }
 
-        // make sure if we start stepping from min, we are passing by ZERO
-        double min = Earth.ELEVATION_MIN;
-        min /= step;
-        min = Math.floor(min);
-        min *= step;
-
-        for (double x = min; x < Earth.ELEVATION_MAX; x += step) {
-            // for (int x =200; x < 201; x+=step){
-            // System.out.println("addLine:" + x);
-            ContourLine contourLine = new MContourLine(x);
-            contourLine.setLineWidth(width);
-            if (x % stepBoldBlue == 0) {
-                contourLine.setLineWidth(widthBold);
-                contourLine.setColor(new Color(0.0f, 0.1f, 0.6f));
+        // in the Netherlands this value can become 0 !!
+        long sparsing = Math.max(1, WWMath.powerOfTwoCeiling((int)((last - first + 1) / maxVisLines)));
+        List<Double> levels = new ArrayList<>();
+        for (long i = first; i <= last; i++) {
+            if (i % sparsing == 0) {
+                levels.add((double)(i * step));
             }
+        }
 
-            if (x % stepBold == 0) {
-                contourLine.setLineWidth(widthBold);
-            }
+        return levels.stream().mapToDouble(Double::doubleValue).toArray();
+    }
 
-            addRenderable(contourLine);
+    private Polyline createPolyline(List<Position> positions, double level) {
+        Polyline polyline = new Polyline(positions);
+        polyline.setNumSubsegments(0);
+        polyline.setFollowTerrain(true);
+        polyline.setColor(Color.CYAN);
+        polyline.setLineWidth(width);
+        if (level % stepBoldBlue == 0) {
+            polyline.setLineWidth(widthBold);
+            polyline.setColor(new Color(0.0f, 0.1f, 0.6f));
         }
+
+        if (level % stepBold == 0) {
+            polyline.setLineWidth(widthBold);
+        }
+
+        return polyline;
     }
 
 }
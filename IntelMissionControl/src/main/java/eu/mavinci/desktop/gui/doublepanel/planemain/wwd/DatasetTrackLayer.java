@@ -32,6 +32,7 @@ public class DatasetTrackLayer extends RenderableLayer implements IRecomputeList
         this.matching = matching;
         renderable = new PolylineWithUserData();
         renderable.setPathType(AVKey.LINEAR);
+        renderable.setLevelOfDetailEnabled(true);
         addRenderable(renderable);
         matching.getCoverage().addRecomputeCornersListener(this);
         recomputeReady(null, false, -1); // force initialization now
@@ -31,6 +31,7 @@ public class SimulationResultPathLayer extends AColoredTrajectoryLayer implement
     public static final Color COLOR_TOO_LOW = new Color(0xb7, 0x00, 0x00, 0xF3);
     public static final Color COLOR_TOO_HIGH = new Color(0xb7, 0x00, 0x00, 0xF3);
     public static final Color COLOR_OK = new Color(0xDF, 0xFF, 0x00, 0x00);
+    public static final Color COLOR_NO_LINE_OF_SIGHT = new Color(0xFF, 0x8C, 0x00, 0xF3);
 
     private Flightplan fp;
 
@@ -103,6 +104,9 @@ public class SimulationResultPathLayer extends AColoredTrajectoryLayer implement
                             simPosBest.groundDistanceMeter + simPosBest.airspaceDistanceMeter, 2, false, true),
                         simPosBest.lowestAirspace.getName(),
                         simPosBest.lowestAirspace.getType());
+                } else if (simPosBest.lineOfSightOccluded) {
+                    return languageHelper.getString(
+                        "eu.mavinci.desktop.gui.doublepanel.planemain.wwd.SimulationResultPathLayer.lineOfSightTooltip");
                 }
             }
 
@@ -139,9 +143,13 @@ public class SimulationResultPathLayer extends AColoredTrajectoryLayer implement
                         color = COLOR_TOO_LOW;
                     } else if (simPos.airspaceDistanceMeter < 0) {
                         color = COLOR_TOO_HIGH;
+                    } else if (simPos.lineOfSightOccluded) {
+                        color = COLOR_NO_LINE_OF_SIGHT;
                     } else {
                         color = COLOR_OK;
                     }
+                } else if (simPos.lineOfSightOccluded) {
+                    color = COLOR_NO_LINE_OF_SIGHT;
                 } else {
                     color = COLOR_OK;
                 }
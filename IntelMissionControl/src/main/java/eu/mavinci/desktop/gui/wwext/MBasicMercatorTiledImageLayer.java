@@ -19,9 +19,7 @@ import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.avlist.AVList;
 import gov.nasa.worldwind.cache.BasicMemoryCache;
 import gov.nasa.worldwind.cache.MemoryCache;
-import gov.nasa.worldwind.geom.Angle;
 import gov.nasa.worldwind.geom.Vec4;
-import gov.nasa.worldwind.layers.mercator.MercatorSector;
 import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.retrieve.HTTPRetriever;
@@ -44,7 +42,8 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -56,7 +55,6 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
     private static final int MAX_BLACK_TILE_SIZE = 2000;
     private static final int MAX_BLACK_TILE_SIZE_SUSPICIOUS = 4500;
     private static final double THRESHOLD_BLACK_IMG = 2.0;
-    private final Object fileLock = new Object();
 
     public MBasicMercatorTiledImageLayer(LevelSet levelSet) {
         super(levelSet);
@@ -188,7 +186,7 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
     protected TextureData absentTextureData = null;
     protected TextureData absentTextureData2 = null;
 
-    HashMap<URL, Boolean> hideTile = new HashMap<>();
+    Map<URL, Boolean> hideTile = new ConcurrentHashMap<>();
 
     /**
      * try to load a texture
@@ -198,12 +196,8 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
      * @return 0 == no data avaliable. 1 == all right, its loaded. -1 == data avaliable, but its black, dont show it!
      */
     protected int loadTexture(MercatorTextureTile tile, java.net.URL textureURL) {
-        TextureData textureData;
-
-        synchronized (this.fileLock) {
-            textureData = readTexture(textureURL, this.isUseMipMaps());
-        }
-
+        // files are replaced atomically, so they can be read while a tile is saved
+        TextureData textureData = readTexture(textureURL, this.isUseMipMaps());
         if (textureData == null) {
             return 0;
         }
@@ -241,7 +235,7 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
     private boolean isTileBlack(TextureData textureData) {
         Buffer buffer = textureData.getBuffer();
 
-        if (buffer instanceof ByteBuffer) {
+        if (buffer instanceof ByteBuffer && buffer.hasArray()) {
             ByteBuffer byteBuffer = ((ByteBuffer)buffer);
             byte[] bufferArray = byteBuffer.array();
             final int length = bufferArray.length / 3;
@@ -345,10 +339,62 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
     }
 
     private void saveBuffer(java.nio.ByteBuffer buffer, java.io.File outFile) throws java.io.IOException {
-        synchronized (this.fileLock) // synchronized with read of file in
-        {
-            WWIO.saveBuffer(buffer, outFile);
+        MercatorTileReprojection.writeAtomically(
+            outFile,
+            file -> {
+                if (!WWIO.saveBuffer(buffer, file)) {
+                    throw new IOException("cant lock " + file);
+                }
+            });
+    }
+
+    /**
+     * Saves a downloaded tile to the file the layer loads it from, images are reprojected. Also used to download tiles
+     * ahead of time.
+     *
+     * @return false if the content is no tile, e.g. an error page, the tile is marked absent then
+     */
+    public boolean saveTile(MercatorTextureTile tile, String contentType, ByteBuffer buffer, File outFile)
+            throws IOException {
+        if (contentType.contains("xml") || contentType.contains("html") || contentType.contains("text")) {
+            getLevels().markResourceAbsent(tile);
+
+            StringBuffer sb = new StringBuffer();
+            while (buffer.hasRemaining()) {
+                sb.append((char)buffer.get());
+            }
+            // TODO: parse out the message if the content is xml or
+            // html.
+            Logging.logger().severe(sb.toString());
+
+            return false;
+        } else if (contentType.contains("dds")) {
+            saveBuffer(buffer, outFile);
+        } else if (contentType.contains("zip")) {
+            // Assume it's zipped DDS, which the retriever would
+            // have unzipped into the buffer.
+            saveBuffer(buffer, outFile);
+        } else if (contentType.contains("image")) {
+            BufferedImage image = convertBufferToImage(buffer);
+            if (image != null) {
+                image = modifyImage(image);
+                if (isTileValid(image)) {
+                    if (!transformAndSave(image, tile, buffer.limit(), outFile)) {
+                        image = null;
+                    }
+                } else {
+                    getLevels().markResourceAbsent(tile);
+                    return false;
+                }
+            }
+
+            if (image == null) {
+                // Just save whatever it is to the cache.
+                saveBuffer(buffer, outFile);
+            }
         }
+
+        return true;
     }
 
     protected void dataDownloadSucceded(MercatorTextureTile tile, Retriever retriever) {}
@@ -411,42 +457,8 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
                         return null;
                     }
 
-                    if (contentType.contains("xml") || contentType.contains("html") || contentType.contains("text")) {
-                        this.layer.getLevels().markResourceAbsent(this.tile);
-
-                        StringBuffer sb = new StringBuffer();
-                        while (buffer.hasRemaining()) {
-                            sb.append((char)buffer.get());
-                        }
-                        // TODO: parse out the message if the content is xml or
-                        // html.
-                        Logging.logger().severe(sb.toString());
-
+                    if (!this.layer.saveTile(this.tile, contentType, buffer, outFile)) {
                         return null;
-                    } else if (contentType.contains("dds")) {
-                        this.layer.saveBuffer(buffer, outFile);
-                    } else if (contentType.contains("zip")) {
-                        // Assume it's zipped DDS, which the retriever would
-                        // have unzipped into the buffer.
-                        this.layer.saveBuffer(buffer, outFile);
-                    } else if (contentType.contains("image")) {
-                        BufferedImage image = this.layer.convertBufferToImage(buffer);
-                        if (image != null) {
-                            image = this.layer.modifyImage(image);
-                            if (this.layer.isTileValid(image)) {
-                                if (!this.layer.transformAndSave(image, tile.getMercatorSector(), outFile)) {
-                                    image = null;
-                                }
-                            } else {
-                                this.layer.getLevels().markResourceAbsent(this.tile);
-                                return null;
-                            }
-                        }
-
-                        if (image == null) {
-                            // Just save whatever it is to the cache.
-                            this.layer.saveBuffer(buffer, outFile);
-                        }
                     }
 
                     if (buffer != null) {
@@ -488,40 +500,29 @@ public class MBasicMercatorTiledImageLayer extends MMercatorTiledImageLayer {
         }
     }
 
-    private boolean transformAndSave(BufferedImage image, MercatorSector sector, File outFile) {
+    /**
+     * Reprojects a downloaded tile and saves it. Tiles which might be black are saved in the format of the layer, so
+     * {@link #loadTexture} can tell them apart by their file size, all others are saved as raw textures.
+     */
+    private boolean transformAndSave(BufferedImage image, MercatorTextureTile tile, int encodedSize, File outFile) {
         try {
-            image = transform(image, sector);
-            String extension = outFile.getName().substring(outFile.getName().lastIndexOf('.') + 1);
-            synchronized (this.fileLock) // synchronized with read of file in
-            {
-                return ImageIO.write(image, extension, outFile);
+            if (encodedSize > MAX_BLACK_TILE_SIZE_SUSPICIOUS) {
+                MercatorTileReprojection.saveRawTexture(image, tile, outFile);
+                return true;
             }
+
+            BufferedImage transformed = MercatorTileReprojection.reproject(image, tile);
+            String extension = outFile.getName().substring(outFile.getName().lastIndexOf('.') + 1);
+            MercatorTileReprojection.writeAtomically(
+                outFile,
+                file -> {
+                    if (!ImageIO.write(transformed, extension, file)) {
+                        throw new IOException("no image writer for " + extension);
+                    }
+                });
+            return true;
         } catch (IOException e) {
             return false;
         }
     }
-
-    private BufferedImage transform(BufferedImage image, MercatorSector sector) {
-        int type = image.getType();
-        if (type == 0) {
-            type = BufferedImage.TYPE_INT_RGB;
-        }
-
-        BufferedImage trans = new BufferedImage(image.getWidth(), image.getHeight(), type);
-        double miny = sector.getMinLatPercent();
-        double maxy = sector.getMaxLatPercent();
-        for (int y = 0; y < image.getHeight(); y++) {
-            double sy = 1.0 - y / (double)(image.getHeight() - 1);
-            Angle lat = Angle.fromRadians(sy * sector.getDeltaLatRadians() + sector.getMinLatitude().radians);
-            double dy = 1.0 - (MercatorSector.gudermannianInverse(lat) - miny) / (maxy - miny);
-            dy = Math.max(0.0, Math.min(1.0, dy));
-            int iy = (int)(dy * (image.getHeight() - 1));
-
-            for (int x = 0; x < image.getWidth(); x++) {
-                trans.setRGB(x, y, image.getRGB(x, iy));
-            }
-        }
-
-        return trans;
-    }
 }
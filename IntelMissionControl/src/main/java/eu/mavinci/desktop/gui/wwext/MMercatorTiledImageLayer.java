@@ -181,7 +181,7 @@ public abstract class MMercatorTiledImageLayer extends AbstractLayer {
         this.drawBoundingVolumes = drawBoundingVolumes;
     }
 
-    protected LevelSet getLevels() {
+    public LevelSet getLevels() {
         return levels;
     }
 
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jogamp.opengl.util.texture.spi.DDSImage;
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.layers.mercator.MercatorSector;
+import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reprojects downloaded Mercator tiles to the geographic tiles rendered by WorldWind.
+ *
+ * <p>The reprojection only moves rows, the source row of every target row depends on the latitudes of the tile but
+ * not on its longitudes, so it is computed once per tile row and shared by all tiles of that row. Rows are copied in
+ * bulk on the data buffers of the images.
+ */
+public final class MercatorTileReprojection {
+
+    /** Writes a file, see {@link #writeAtomically(File, FileWriter)}. */
+    public interface FileWriter {
+        void write(File file) throws IOException;
+    }
+
+    /**
+     * The latitudes a row map is computed from. Layers can divide the world into different sectors, so the level and
+     * the row of a tile are not enough to tell its latitudes.
+     */
+    private static final class RowMapKey {
+        final double minLatPercent;
+        final double maxLatPercent;
+        final double minLatitude;
+        final double maxLatitude;
+        final int height;
+
+        RowMapKey(MercatorSector sector, int height) {
+            this.minLatPercent = sector.getMinLatPercent();
+            this.maxLatPercent = sector.getMaxLatPercent();
+            this.minLatitude = sector.getMinLatitude().radians;
+            this.maxLatitude = sector.getMaxLatitude().radians;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RowMapKey)) {
+                return false;
+            }
+
+            RowMapKey other = (RowMapKey)obj;
+            return minLatPercent == other.minLatPercent
+                && maxLatPercent == other.maxLatPercent
+                && minLatitude == other.minLatitude
+                && maxLatitude == other.maxLatitude
+                && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minLatPercent, maxLatPercent, minLatitude, maxLatitude, height);
+        }
+    }
+
+    private static final Cache<RowMapKey, int[]> ROW_MAPS = CacheBuilder.newBuilder().maximumSize(4096).build();
+
+    private MercatorTileReprojection() {}
+
+    /** @return for every row of a reprojected tile the row of the Mercator tile it is copied from */
+    static int[] getRowMap(MercatorTextureTile tile, int height) {
+        MercatorSector sector = tile.getMercatorSector();
+        try {
+            return ROW_MAPS.get(new RowMapKey(sector, height), () -> computeRowMap(sector, height));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static int[] computeRowMap(MercatorSector sector, int height) {
+        int[] rowMap = new int[height];
+        double miny = sector.getMinLatPercent();
+        double maxy = sector.getMaxLatPercent();
+        for (int y = 0; y < height; y++) {
+            double sy = 1.0 - y / (double)(height - 1);
+            Angle lat = Angle.fromRadians(sy * sector.getDeltaLatRadians() + sector.getMinLatitude().radians);
+            double dy = 1.0 - (MercatorSector.gudermannianInverse(lat) - miny) / (maxy - miny);
+            dy = Math.max(0.0, Math.min(1.0, dy));
+            rowMap[y] = (int)(dy * (height - 1));
+        }
+
+        return rowMap;
+    }
+
+    /** @return a new image of the same type with the Mercator tile reprojected to its geographic sector */
+    public static BufferedImage reproject(BufferedImage image, MercatorTextureTile tile) {
+        return reproject(image, getRowMap(tile, image.getHeight()));
+    }
+
+    static BufferedImage reproject(BufferedImage image, int[] rowMap) {
+        WritableRaster source = image.getRaster();
+        SampleModel sampleModel = source.getSampleModel();
+        Object sourceData = getData(source);
+        int stride = getScanlineStride(sampleModel);
+        if (sourceData != null
+                && stride > 0
+                && sampleModel.getWidth() == source.getWidth()
+                && sampleModel.getHeight() == source.getHeight()) {
+            // same sample model, so the rows of both data buffers have the same layout
+            WritableRaster target = Raster.createWritableRaster(sampleModel, null);
+            Object targetData = getData(target);
+            int sourceLength = source.getDataBuffer().getSize();
+            int targetLength = target.getDataBuffer().getSize();
+            for (int y = 0; y < rowMap.length; y++) {
+                int sourceStart = rowMap[y] * stride;
+                int targetStart = y * stride;
+                // the last row of a data buffer can be shorter than the stride
+                int length = Math.min(stride, Math.min(sourceLength - sourceStart, targetLength - targetStart));
+                System.arraycopy(sourceData, sourceStart, targetData, targetStart, length);
+            }
+
+            return new BufferedImage(image.getColorModel(), target, image.isAlphaPremultiplied(), null);
+        }
+
+        WritableRaster target = source.createCompatibleWritableRaster();
+        Object row = null;
+        int width = source.getWidth();
+        for (int y = 0; y < rowMap.length; y++) {
+            row = source.getDataElements(0, rowMap[y], width, 1, row);
+            target.setDataElements(0, y, width, 1, row);
+        }
+
+        return new BufferedImage(image.getColorModel(), target, image.isAlphaPremultiplied(), null);
+    }
+
+    /** @return the array of a raster whose pixels start at the beginning of its only bank, or null */
+    private static Object getData(Raster raster) {
+        DataBuffer buffer = raster.getDataBuffer();
+        if (buffer.getNumBanks() != 1
+                || buffer.getOffset() != 0
+                || raster.getSampleModelTranslateX() != 0
+                || raster.getSampleModelTranslateY() != 0) {
+            return null;
+        }
+
+        if (buffer instanceof DataBufferByte) {
+            return ((DataBufferByte)buffer).getData();
+        } else if (buffer instanceof DataBufferInt) {
+            return ((DataBufferInt)buffer).getData();
+        } else if (buffer instanceof DataBufferUShort) {
+            return ((DataBufferUShort)buffer).getData();
+        } else if (buffer instanceof DataBufferShort) {
+            return ((DataBufferShort)buffer).getData();
+        }
+
+        return null;
+    }
+
+    private static int getScanlineStride(SampleModel sampleModel) {
+        if (sampleModel instanceof ComponentSampleModel) {
+            return ((ComponentSampleModel)sampleModel).getScanlineStride();
+        } else if (sampleModel instanceof SinglePixelPackedSampleModel) {
+            return ((SinglePixelPackedSampleModel)sampleModel).getScanlineStride();
+        } else if (sampleModel instanceof MultiPixelPackedSampleModel) {
+            return ((MultiPixelPackedSampleModel)sampleModel).getScanlineStride();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reprojects a Mercator tile and saves it as an uncompressed DDS texture, which is loaded without decoding an
+     * image. Images with alpha are saved as RGBA, all others as RGB.
+     */
+    public static void saveRawTexture(BufferedImage image, MercatorTextureTile tile, File file) throws IOException {
+        saveRawTexture(image, getRowMap(tile, image.getHeight()), file);
+    }
+
+    static void saveRawTexture(BufferedImage image, int[] rowMap, File file) throws IOException {
+        boolean alpha = image.getColorModel().hasAlpha();
+        int bytesPerPixel = alpha ? 4 : 3;
+        int rowLength = image.getWidth() * bytesPerPixel;
+        byte[] pixels = toPixelBytes(image, alpha);
+        ByteBuffer texture = ByteBuffer.allocate(rowLength * rowMap.length);
+        for (int sourceRow : rowMap) {
+            texture.put(pixels, sourceRow * rowLength, rowLength);
+        }
+
+        texture.flip();
+        DDSImage ddsImage =
+            DDSImage.createFromData(
+                alpha ? DDSImage.D3DFMT_A8R8G8B8 : DDSImage.D3DFMT_R8G8B8,
+                image.getWidth(),
+                rowMap.length,
+                new ByteBuffer[] {texture});
+        writeAtomically(file, ddsImage::write);
+    }
+
+    /** @return the pixels of the image row by row, in the RGB or RGBA order the texture loader expects */
+    private static byte[] toPixelBytes(BufferedImage image, boolean alpha) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int bytesPerPixel = alpha ? 4 : 3;
+        byte[] pixels = new byte[width * height * bytesPerPixel];
+        Raster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && getData(raster) != null) {
+            // what JPEG tiles are decoded to
+            byte[] bgr = (byte[])getData(raster);
+            int stride = getScanlineStride(raster.getSampleModel());
+            for (int y = 0; y < height; y++) {
+                int in = y * stride;
+                int out = y * width * 3;
+                for (int x = 0; x < width; x++, in += 3, out += 3) {
+                    pixels[out] = bgr[in + 2];
+                    pixels[out + 1] = bgr[in + 1];
+                    pixels[out + 2] = bgr[in];
+                }
+            }
+
+            return pixels;
+        }
+
+        int[] row = new int[width];
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int argb : row) {
+                pixels[out++] = (byte)(argb >> 16);
+                pixels[out++] = (byte)(argb >> 8);
+                pixels[out++] = (byte)argb;
+                if (alpha) {
+                    pixels[out++] = (byte)(argb >> 24);
+                }
+            }
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Writes a temporary file next to the given one and moves it in place, so a concurrent reader either finds the
+     * previous file or the complete new one and no lock is needed.
+     */
+    public static void writeAtomically(File file, FileWriter writer) throws IOException {
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            writer.write(temp);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import gov.nasa.worldwind.geom.Position;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simplified versions of a long line at a fixed set of tolerances, so a line can be rendered with as many positions as
+ * its size on screen requires.
+ *
+ * <p>The positions are split into chunks of {@link #CHUNK_SIZE} positions. For every chunk the Douglas-Peucker
+ * algorithm is run once, recording for every position the largest tolerance at which the algorithm would keep it. The
+ * simplified line of a level then consists of all positions above the tolerance of the level. Chunks are only
+ * simplified once they are complete, so appending positions, or moving the last one, only touches the last chunk,
+ * which is simplified whenever the positions of a level are requested.
+ */
+public class PolylineLevelOfDetail {
+
+    static final int CHUNK_SIZE = 256;
+
+    /** tolerance of level 0, every further level has a four times larger tolerance */
+    public static final double MIN_TOLERANCE_METERS = 0.05;
+
+    public static final int LEVEL_COUNT = 14;
+
+    /** the level of the full line */
+    public static final int FULL_DETAIL = -1;
+
+    private static final double EARTH_RADIUS = 6378137;
+
+    private final ArrayList<Position> positions = new ArrayList<>();
+    private double[] points = new double[3 * CHUNK_SIZE];
+
+    /** the positions of the complete chunks above the tolerance of each level, without the end of the last chunk */
+    private final List<List<Position>> levels = new ArrayList<>(LEVEL_COUNT);
+    private int completeChunks;
+
+    public PolylineLevelOfDetail() {
+        for (int i = 0; i != LEVEL_COUNT; i++) {
+            levels.add(new ArrayList<>());
+        }
+    }
+
+    /** @return the level whose tolerance is at most the given one, or {@link #FULL_DETAIL} */
+    public static int getLevel(double toleranceMeters) {
+        if (!(toleranceMeters >= MIN_TOLERANCE_METERS)) {
+            return FULL_DETAIL;
+        }
+
+        int level = (int)Math.floor(Math.log(toleranceMeters / MIN_TOLERANCE_METERS) / Math.log(4));
+        return Math.min(level, LEVEL_COUNT - 1);
+    }
+
+    public static double getTolerance(int level) {
+        return level < 0 ? 0 : MIN_TOLERANCE_METERS * Math.pow(4, level);
+    }
+
+    public synchronized void setPositions(Iterable<? extends Position> positions) {
+        this.positions.clear();
+        completeChunks = 0;
+        for (List<Position> level : levels) {
+            level.clear();
+        }
+
+        if (positions != null) {
+            for (Position position : positions) {
+                addPosition(position);
+            }
+        }
+    }
+
+    public synchronized void addPosition(Position position) {
+        int index = positions.size();
+        positions.add(position);
+        if (3 * index + 3 > points.length) {
+            points = Arrays.copyOf(points, 2 * points.length);
+        }
+
+        setPoint(index, position);
+
+        // a chunk is complete once its end isn't the last position any more
+        int chunkEnd = (completeChunks + 1) * CHUNK_SIZE;
+        if (index > chunkEnd) {
+            completeChunk();
+        }
+    }
+
+    /** Moves the last position, the line must not be empty. */
+    public synchronized void setLastPosition(Position position) {
+        int index = positions.size() - 1;
+        positions.set(index, position);
+        setPoint(index, position);
+    }
+
+    public synchronized int size() {
+        return positions.size();
+    }
+
+    /**
+     * @param level the level of detail, or {@link #FULL_DETAIL}
+     * @return a new list of the positions of the line simplified at the tolerance of the level
+     */
+    public synchronized List<Position> getPositions(int level) {
+        List<Position> result = new ArrayList<>(getPositionCount(level) + CHUNK_SIZE);
+        appendPositions(level, 0, result);
+        return result;
+    }
+
+    /**
+     * Appends the positions of the line simplified at the tolerance of the level to a list, starting with the one at
+     * the given index. Except for {@link #FULL_DETAIL}, only the positions from {@link #getPositionCount(int)} on
+     * change when positions are appended or the last one is moved, so a copy of a level can be kept up to date by
+     * replacing them.
+     *
+     * @param level the level of detail, or {@link #FULL_DETAIL}
+     * @param from index of the first position to append, at most {@link #getPositionCount(int)}
+     */
+    public synchronized void appendPositions(int level, int from, List<Position> target) {
+        if (level < 0 || positions.size() <= 2) {
+            target.addAll(positions.subList(from, positions.size()));
+            return;
+        }
+
+        List<Position> complete = levels.get(level);
+        target.addAll(complete.subList(from, complete.size()));
+        int tailStart = completeChunks * CHUNK_SIZE;
+        double[] importance = computeImportance(tailStart, positions.size() - 1);
+        double tolerance = getTolerance(level);
+        for (int i = 0; i != importance.length; i++) {
+            if (importance[i] > tolerance) {
+                target.add(positions.get(tailStart + i));
+            }
+        }
+    }
+
+    /** @return the number of all positions for {@link #FULL_DETAIL}, otherwise of the simplified complete chunks */
+    public synchronized int getPositionCount(int level) {
+        return level < 0 ? positions.size() : levels.get(level).size();
+    }
+
+    private void setPoint(int index, Position position) {
+        // a sphere is precise enough to measure the deviation of close positions
+        double radius = EARTH_RADIUS + position.elevation;
+        double cosLat = Math.cos(position.latitude.radians);
+        points[3 * index] = radius * cosLat * Math.cos(position.longitude.radians);
+        points[3 * index + 1] = radius * cosLat * Math.sin(position.longitude.radians);
+        points[3 * index + 2] = radius * Math.sin(position.latitude.radians);
+    }
+
+    private void completeChunk() {
+        int start = completeChunks * CHUNK_SIZE;
+        double[] importance = computeImportance(start, start + CHUNK_SIZE);
+        for (int level = 0; level != LEVEL_COUNT; level++) {
+            double tolerance = getTolerance(level);
+            List<Position> levelPositions = levels.get(level);
+            // the end of the chunk is the start of the next one
+            for (int i = 0; i != CHUNK_SIZE; i++) {
+                if (importance[i] > tolerance) {
+                    levelPositions.add(positions.get(start + i));
+                }
+            }
+        }
+
+        completeChunks++;
+    }
+
+    /**
+     * Runs the Douglas-Peucker algorithm on the positions from first to last, both inclusive.
+     *
+     * @return for each position the largest tolerance at which it is kept, infinity for the first and the last one
+     */
+    private double[] computeImportance(int first, int last) {
+        double[] importance = new double[last - first + 1];
+        importance[0] = Double.POSITIVE_INFINITY;
+        importance[importance.length - 1] = Double.POSITIVE_INFINITY;
+        int[] stack = new int[2 * CHUNK_SIZE + 2];
+        int stackSize = 0;
+        stack[stackSize++] = first;
+        stack[stackSize++] = last;
+        while (stackSize > 0) {
+            int end = stack[--stackSize];
+            int start = stack[--stackSize];
+            if (end - start < 2) {
+                continue;
+            }
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegmentSquared(i, start, end);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            // a position can only be kept if the split which leads to it is done
+            double parentImportance = Math.min(importance[start - first], importance[end - first]);
+            importance[farthest - first] = Math.min(Math.sqrt(maxDistance), parentImportance);
+            stack[stackSize++] = start;
+            stack[stackSize++] = farthest;
+            stack[stackSize++] = farthest;
+            stack[stackSize++] = end;
+        }
+
+        return importance;
+    }
+
+    private double distanceToSegmentSquared(int point, int start, int end) {
+        double sx = points[3 * start];
+        double sy = points[3 * start + 1];
+        double sz = points[3 * start + 2];
+        double dx = points[3 * end] - sx;
+        double dy = points[3 * end + 1] - sy;
+        double dz = points[3 * end + 2] - sz;
+        double px = points[3 * point] - sx;
+        double py = points[3 * point + 1] - sy;
+        double pz = points[3 * point + 2] - sz;
+        double lengthSquared = dx * dx + dy * dy + dz * dz;
+        double t = lengthSquared == 0 ? 0 : (px * dx + py * dy + pz * dz) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        double ez = pz - t * dz;
+        return ex * ex + ey * ey + ez * ez;
+    }
+
+}
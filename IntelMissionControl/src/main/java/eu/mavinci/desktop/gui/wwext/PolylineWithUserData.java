@@ -6,13 +6,29 @@
 
 package eu.mavinci.desktop.gui.wwext;
 
+import gov.nasa.worldwind.geom.Extent;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.render.Highlightable;
 import gov.nasa.worldwind.render.Polyline;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PolylineWithUserData extends Polyline implements IWWRenderableWithUserData, Highlightable {
 
+    /** the deviation of a simplified line from the original one, in pixels */
+    private static final double MAX_SCREEN_ERROR_PIXELS = 0.5;
+
     private Object o = null;
 
+    private PolylineLevelOfDetail levelOfDetail;
+    private int renderedLevel = PolylineLevelOfDetail.FULL_DETAIL;
+    /** number of rendered positions which don't change when appending, see {@link PolylineLevelOfDetail} */
+    private int renderedPrefix;
+    private boolean measurerOutdated;
+
     @Override
     public Object getUserData() {
         return o;
@@ -94,4 +110,157 @@ public class PolylineWithUserData extends Polyline implements IWWRenderableWithU
     public void setHighlightableEvenWithoutSelectability(boolean isHighlightable) {
         this.isHighlightable = isHighlightable;
     }
+
+    /**
+     * Renders the line with as many positions as its size on screen requires, for long lines like tracks. The
+     * positions are kept and simplified by a {@link PolylineLevelOfDetail}, {@link #getPositions()} returns the
+     * simplified positions which are currently rendered.
+     */
+    public synchronized void setLevelOfDetailEnabled(boolean enabled) {
+        if (enabled == (levelOfDetail != null)) {
+            return;
+        }
+
+        Iterable<? extends Position> positions = getPositions();
+        levelOfDetail = enabled ? new PolylineLevelOfDetail() : null;
+        renderedLevel = PolylineLevelOfDetail.FULL_DETAIL;
+        setPositions(positions);
+    }
+
+    public synchronized boolean isLevelOfDetailEnabled() {
+        return levelOfDetail != null;
+    }
+
+    @Override
+    public synchronized void setPositions(Iterable<? extends Position> inPositions) {
+        if (levelOfDetail == null) {
+            super.setPositions(inPositions);
+            return;
+        }
+
+        levelOfDetail.setPositions(inPositions);
+        super.setPositions(levelOfDetail.getPositions(renderedLevel));
+        renderedPrefix = levelOfDetail.getPositionCount(renderedLevel);
+    }
+
+    @Override
+    public synchronized void setPositions(Iterable<? extends LatLon> inPositions, double altitude) {
+        if (levelOfDetail == null) {
+            super.setPositions(inPositions, altitude);
+            return;
+        }
+
+        List<Position> positions = new ArrayList<>();
+        if (inPositions != null) {
+            for (LatLon position : inPositions) {
+                positions.add(new Position(position, altitude));
+            }
+        }
+
+        setPositions(positions);
+    }
+
+    /**
+     * Appends a position. Other than {@link #setPositions(Iterable)}, this doesn't copy all positions, only the
+     * simplified positions after the last complete chunk of the level of detail are replaced. The positions are changed
+     * in place, so {@link #getPositions()} has to be iterated while holding the lock of the line if positions are
+     * appended from another thread.
+     */
+    public synchronized void addPosition(Position position) {
+        if (levelOfDetail != null) {
+            levelOfDetail.addPosition(position);
+        }
+
+        if (levelOfDetail == null || renderedLevel == PolylineLevelOfDetail.FULL_DETAIL) {
+            positions.add(position);
+        } else {
+            replaceSimplifiedTail();
+        }
+
+        positionsChanged();
+    }
+
+    /** Moves the last position, the line must not be empty. */
+    public synchronized void setLastPosition(Position position) {
+        if (levelOfDetail != null) {
+            levelOfDetail.setLastPosition(position);
+        }
+
+        if (levelOfDetail == null || renderedLevel == PolylineLevelOfDetail.FULL_DETAIL) {
+            positions.set(positions.size() - 1, position);
+        } else {
+            replaceSimplifiedTail();
+        }
+
+        positionsChanged();
+    }
+
+    private void replaceSimplifiedTail() {
+        positions.subList(renderedPrefix, positions.size()).clear();
+        levelOfDetail.appendPositions(renderedLevel, renderedPrefix, positions);
+        renderedPrefix = levelOfDetail.getPositionCount(renderedLevel);
+    }
+
+    /** Invalidates what {@link Polyline#setPositions(Iterable)} invalidates, after the positions changed in place. */
+    private void positionsChanged() {
+        currentSpans = null;
+        extents.clear();
+        measurerOutdated = true;
+        if (surfaceShape != null) {
+            setSurfaceShapeLocations();
+        }
+    }
+
+    @Override
+    public synchronized double getLength() {
+        updateMeasurer();
+        return super.getLength();
+    }
+
+    @Override
+    public synchronized double getLength(Globe globe) {
+        updateMeasurer();
+        return super.getLength(globe);
+    }
+
+    /** the measurer computes the bounds of all positions, so it is only updated when a length is needed */
+    private void updateMeasurer() {
+        if (measurerOutdated) {
+            measurerOutdated = false;
+            measurer.setPositions(positions);
+        }
+    }
+
+    /** Sets the level whose positions are rendered, {@link #render(DrawContext)} picks it by the size on screen. */
+    synchronized void setRenderedLevel(int level) {
+        if (levelOfDetail == null || level == renderedLevel) {
+            return;
+        }
+
+        renderedLevel = level;
+        super.setPositions(levelOfDetail.getPositions(level));
+        renderedPrefix = levelOfDetail.getPositionCount(level);
+    }
+
+    /** Holds the lock while rendering and picking, since appending changes the positions in place. */
+    @Override
+    public synchronized void render(DrawContext dc) {
+        if (levelOfDetail != null) {
+            setRenderedLevel(PolylineLevelOfDetail.getLevel(computeToleranceMeters(dc)));
+        }
+
+        super.render(dc);
+    }
+
+    /** @return the size of {@link #MAX_SCREEN_ERROR_PIXELS} at the part of the line closest to the eye */
+    private double computeToleranceMeters(DrawContext dc) {
+        Extent extent = getExtent(dc);
+        if (extent == null || dc.getView() == null) {
+            return 0;
+        }
+
+        double distance = dc.getView().getEyePoint().distanceTo3(extent.getCenter()) - extent.getRadius();
+        return dc.getView().computePixelSizeAtDistance(Math.max(1, distance)) * MAX_SCREEN_ERROR_PIXELS;
+    }
+
 }
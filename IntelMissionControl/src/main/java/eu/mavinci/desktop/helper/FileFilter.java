@@ -81,6 +81,7 @@ public enum FileFilter {
     THREED_SURVEY_APPLICATION("3D Survey", "*.exe"),
     CSV("CSV", "*.CSV"),
     OBJ("OBJ", "*.obj"),
+    JFR("Java Flight Recording", "*.jfr"),
     RAW("RAW", "*.tif", "*.tiff"),
     JPEG_RAW_XMP("JPEG, RAW, XMP", "*.jpg", "*.jpeg", "*.tif", "*.tiff", "*.xmp")
     ;
@@ -6,6 +6,8 @@
 
 package eu.mavinci.desktop.helper;
 
+import com.intel.missioncontrol.diagnostics.LatencyHistograms;
+import com.intel.missioncontrol.diagnostics.RecomputeEvent;
 import com.intel.missioncontrol.helper.Ensure;
 import eu.mavinci.core.desktop.listener.WeakListenerList;
 import eu.mavinci.desktop.main.debug.Debug;
@@ -68,6 +70,9 @@ public class Recomputer implements IRecomputerListenerManager {
                 long thisRun = noRuns;
                 noRuns++;
                 long start = System.currentTimeMillis();
+                long startNanos = System.nanoTime();
+                RecomputeEvent event = new RecomputeEvent(runnableClass.getName(), thisRun, noTrigger);
+                event.begin();
                 try {
                     Runnable run = r.get();
                     if (run == null) {
@@ -120,6 +125,8 @@ public class Recomputer implements IRecomputerListenerManager {
                     // triggered here!
                     // System.out.println("gc took: " + (System.currentTimeMillis()-t));
                 } finally {
+                    event.commit();
+                    LatencyHistograms.RECOMPUTE.record(System.nanoTime() - startNanos);
                     endRecomp(thisRun);
                     Debug.getLog()
                         .log(
@@ -6,6 +6,7 @@
 
 package eu.mavinci.desktop.main.debug.profiling;
 
+import com.intel.missioncontrol.diagnostics.ProfilingRequestEvent;
 import com.logicstyle.samplr.Request;
 import eu.mavinci.core.obfuscation.IKeepClassname;
 
@@ -13,6 +14,7 @@ public abstract class MRequest extends Request implements IKeepClassname {
 
     long requestLengthSamplingThreshold;
     long maximalRequestToSample;
+    private ProfilingRequestEvent event;
 
     public MRequest(long requestLengthSamplingThreshold, long maximalRequestToSample) {
         this.requestLengthSamplingThreshold = requestLengthSamplingThreshold;
@@ -35,4 +37,42 @@ public abstract class MRequest extends Request implements IKeepClassname {
     public abstract boolean isSlowestUpToNow(long duration);
 
     public abstract long getCountUpToNow();
+
+    /** @return what the request works on, e.g. the name of the mission, for the flight recording */
+    public String getSubject() {
+        return null;
+    }
+
+    /** @return the size of the subject, e.g. the number of flight plans, for the flight recording */
+    public long getItemCount() {
+        return 0;
+    }
+
+    /** @return the area of the subject in m^2, for the flight recording */
+    public double getArea() {
+        return 0;
+    }
+
+    void beginEvent() {
+        event = new ProfilingRequestEvent(getClass().getSimpleName());
+        event.begin();
+    }
+
+    void commitEvent() {
+        ProfilingRequestEvent event = this.event;
+        if (event == null) {
+            return;
+        }
+
+        this.event = null;
+        event.end();
+        if (event.shouldCommit()) {
+            // the subject is described at the end, e.g. a mission is loaded by then
+            event.setSubject(getSubject());
+            event.setItemCount(getItemCount());
+            event.setArea(getArea());
+            event.commit();
+        }
+    }
+
 }
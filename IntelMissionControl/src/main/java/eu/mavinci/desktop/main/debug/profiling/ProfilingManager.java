@@ -57,6 +57,11 @@ public class ProfilingManager implements IProfilingManager, IAppListener {
     public boolean uiReadyLoaded = false;
 
     public void requestStarting(Request request) {
+        // the flight recording is always on, also during the startup
+        if (request instanceof MRequest) {
+            ((MRequest)request).beginEvent();
+        }
+
         if (!uiReadyLoaded) {
             return;
         }
@@ -68,6 +73,10 @@ public class ProfilingManager implements IProfilingManager, IAppListener {
     }
 
     public void requestFinished(Request request) {
+        if (request instanceof MRequest) {
+            ((MRequest)request).commitEvent();
+        }
+
         if (!uiReadyLoaded) {
             return;
         }
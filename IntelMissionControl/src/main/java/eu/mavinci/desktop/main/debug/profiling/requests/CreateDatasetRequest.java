@@ -17,6 +17,11 @@ public class CreateDatasetRequest extends MRequest {
         return "Create dataset profile request" + ": " + name;
     }
 
+    @Override
+    public String getSubject() {
+        return name;
+    }
+
     @Override
     public synchronized boolean isSlowestUpToNow(long duration) {
         if (duration > slowest) {
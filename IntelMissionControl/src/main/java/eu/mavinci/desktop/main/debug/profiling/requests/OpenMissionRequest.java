@@ -18,6 +18,16 @@ public class OpenMissionRequest extends MRequest {
         return "Open mission profile request" + ": " + mission.getName();
     }
 
+    @Override
+    public String getSubject() {
+        return mission.getName();
+    }
+
+    @Override
+    public long getItemCount() {
+        return mission.flightPlansProperty().size();
+    }
+
     @Override
     public synchronized boolean isSlowestUpToNow(long duration) {
         if (duration > slowest) {
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.mavinci.core.flightplan.CFlightplan;
+import eu.mavinci.core.flightplan.CPhotoSettings;
+import eu.mavinci.core.flightplan.CPicArea;
+import eu.mavinci.core.flightplan.PlanType;
+import eu.mavinci.core.flightplan.visitors.ExtractPicAreasVisitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the flight lines of all areas of interest of a flight plan. Areas whose corners, camera and settings didn't
+ * change since their last computation are skipped, the others are computed concurrently if they don't depend on each
+ * other. Every area keeps its own results, and the ids of the waypoints are picked one area after another in statement
+ * order once all of them are computed, so they end up the same as when computing the areas one after another. Areas
+ * whose overlap has to be reduced because the camera can't trigger fast enough are computed again on the calling
+ * thread at that point, since reducing the overlap changes the flight plan.
+ */
+public class FlightLinesRecomputer {
+
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService EXECUTOR =
+        Executors.newFixedThreadPool(
+            THREADS, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("flight-lines-%d").build());
+
+    private FlightLinesRecomputer() {}
+
+    /**
+     * @return true if the flight lines of all areas are computed, false if the computation of one of them failed, see
+     *     {@link PicArea#getLastError()}
+     */
+    public static boolean computeFlightLines(CFlightplan flightplan, boolean silent) {
+        ExtractPicAreasVisitor vis = new ExtractPicAreasVisitor();
+        vis.startVisit(flightplan);
+        List<PicArea> changed = getOutdated(vis.picAreas);
+        boolean concurrently = changed.size() >= 2 && THREADS > 1 && areIndependent(flightplan, changed);
+        return computeFlightLines(changed, concurrently, silent);
+    }
+
+    /** @return the areas whose flight lines have to be computed, in statement order */
+    static List<PicArea> getOutdated(List<? extends CPicArea> picAreas) {
+        List<PicArea> outdated = new ArrayList<>();
+        for (CPicArea cPicArea : picAreas) {
+            if (cPicArea instanceof PicArea) {
+                PicArea picArea = (PicArea)cPicArea;
+                if (!picArea.isFlightLinesUpToDate()) {
+                    outdated.add(picArea);
+                }
+            }
+        }
+
+        return outdated;
+    }
+
+    static boolean computeFlightLines(List<PicArea> picAreas, boolean concurrently, boolean silent) {
+        if (!concurrently) {
+            boolean result = true;
+            for (PicArea picArea : picAreas) {
+                result &= picArea.computeFlightLines(silent);
+            }
+
+            return result;
+        }
+
+        // the areas only share what they read, so the order in which their geometry is computed doesn't matter. The
+        // ids depend on the other statements of the flight plan, they are picked one area after another afterwards.
+        List<Future<Boolean>> futures = new ArrayList<>(picAreas.size());
+        for (PicArea picArea : picAreas) {
+            futures.add(EXECUTOR.submit(() -> picArea.computeFlightLineGeometry(silent)));
+        }
+
+        boolean[] computed = new boolean[picAreas.size()];
+        Throwable failure = null;
+        for (int i = 0; i != futures.size(); i++) {
+            try {
+                computed[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(false));
+                return false;
+            } catch (ExecutionException e) {
+                // report the failure of the first area in statement order, like the sequential computation
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new IllegalStateException("flight line computation failed", failure);
+        }
+
+        boolean result = true;
+        for (int i = 0; i != picAreas.size(); i++) {
+            PicArea picArea = picAreas.get(i);
+            if (picArea.isOverlapReductionPending()) {
+                // reducing the overlap changes the area and notifies the flight plan, so it happens on this thread
+                result &= picArea.computeFlightLines(silent);
+            } else {
+                result &= computed[i] && picArea.finishFlightLines(silent);
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean areIndependent(CFlightplan flightplan, List<PicArea> picAreas) {
+        CPhotoSettings photoSettings = flightplan.getPhotoSettings();
+        if (photoSettings.getMaxGroundSpeedAutomatic().isAutomaticallyAdjusting()) {
+            // every area may lower the speed of the whole flight plan for the next one
+            return false;
+        }
+
+        for (PicArea picArea : picAreas) {
+            PlanType planType = picArea.getPlanType();
+            if (!planType.canDoMultiPlans() && photoSettings.isMultiFP()) {
+                // done by the computation of this area anyway, but it has to happen before any other area is computed
+                photoSettings.setMultiFP(false);
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -69,6 +69,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.OptionalDouble;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -350,6 +351,27 @@ public class Flightplan extends CFlightplan implements ISectorReferenced, IResou
         return secVis.getSector();
     }
 
+    /**
+     * The positions to check against restricted countries: the center and corners of the sector, and every waypoint,
+     * since the sector points alone can miss a plan that only crosses into a country between its corners.
+     */
+    public List<LatLon> getCountryCheckPositions() {
+        List<LatLon> positions = new ArrayList<>();
+        Sector sector = getSector();
+        if (sector != null) {
+            positions.add(sector.getCentroid());
+            positions.addAll(Arrays.asList(sector.getCorners()));
+        }
+
+        CollectsTypeVisitor<Waypoint> vis = new CollectsTypeVisitor<>(Waypoint.class);
+        vis.startVisit(this);
+        for (Waypoint waypoint : vis.matches) {
+            positions.add(waypoint.getLatLon());
+        }
+
+        return positions;
+    }
+
     @Override
     public OptionalDouble getMaxElev() {
         startSecVis();
@@ -497,7 +519,7 @@ public class Flightplan extends CFlightplan implements ISectorReferenced, IResou
 
     @Override
     public boolean doSubRecalculationStage1() {
-        if (!StaticInjector.getInstance(ICountryDetector.class).allowProceed(getSector())) {
+        if (!StaticInjector.getInstance(ICountryDetector.class).allowProceed(getCountryCheckPositions(), false)) {
             return false;
         }
 
@@ -8,8 +8,6 @@ package eu.mavinci.flightplan;
 
 import eu.mavinci.core.flightplan.CFlightplan;
 import eu.mavinci.core.flightplan.CFlightplanManager;
-import eu.mavinci.core.flightplan.CPicArea;
-import eu.mavinci.core.flightplan.visitors.ExtractPicAreasVisitor;
 import eu.mavinci.core.plane.AirplaneCacheEmptyException;
 import eu.mavinci.core.plane.listeners.IAirplaneListenerGuiClose;
 import eu.mavinci.desktop.helper.FileHelper;
@@ -37,14 +35,7 @@ public class FlightplanManager extends CFlightplanManager implements IAirplaneLi
     }
 
     public void resetupFlightplan(CFlightplan fp) {
-        ExtractPicAreasVisitor vis = new ExtractPicAreasVisitor();
-        vis.startVisit(fp);
-        for (CPicArea cPicArea : vis.picAreas) {
-            if (cPicArea instanceof PicArea) {
-                PicArea picArea = (PicArea)cPicArea;
-                picArea.computeFlightLines(true);
-            }
-        }
+        FlightLinesRecomputer.computeFlightLines(fp, true);
     }
 
     @Override
@@ -8,10 +8,13 @@ package eu.mavinci.flightplan;
 
 import com.intel.missioncontrol.IApplicationContext;
 import com.intel.missioncontrol.StaticInjector;
+import com.intel.missioncontrol.diagnostics.ProfilingRequestEvent;
 import com.intel.missioncontrol.hardware.IGenericCameraConfiguration;
 import com.intel.missioncontrol.hardware.IGenericCameraDescription;
 import com.intel.missioncontrol.hardware.IHardwareConfiguration;
 import com.intel.missioncontrol.hardware.ILensDescription;
+import com.intel.missioncontrol.hardware.IPayloadConfiguration;
+import com.intel.missioncontrol.hardware.IPayloadMountConfiguration;
 import com.intel.missioncontrol.hardware.IPlatformDescription;
 import com.intel.missioncontrol.helper.DoubleHelper;
 import com.intel.missioncontrol.helper.Ensure;
@@ -48,6 +51,7 @@ import eu.mavinci.core.flightplan.visitors.NextOfTypeVisitor;
 import eu.mavinci.core.flightplan.visitors.PreviousOfTypeVisitor;
 import eu.mavinci.core.flightplan.visitors.UnsusedIdVisitor;
 import eu.mavinci.core.helper.MinMaxPair;
+import eu.mavinci.core.helper.Pair;
 import eu.mavinci.core.helper.StringHelper;
 import eu.mavinci.core.helper.VectorNonEqual;
 import eu.mavinci.desktop.gui.doublepanel.camerasettings.CameraHelper;
@@ -84,6 +88,7 @@ import gov.nasa.worldwind.globes.Globe;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.OptionalDouble;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -176,6 +181,12 @@ public class PicArea extends CPicArea implements ISectorReferenced, ITransformat
     private double minX; // unknown, max of what?
     private double overlapInFlightMaxPossible;
     private boolean checkOverlapPossibleWarning;
+    // fingerprint of the inputs of the last successful computeFlightLines(), 0 if unknown
+    private volatile long flightLinesInputHash;
+    // set while computeFlightLineGeometry() runs, which must leave the overlap as it is
+    private boolean overlapReductionDeferred;
+    // computeFlightLineGeometry() would have reduced the overlap, see isOverlapReductionPending()
+    private boolean overlapReductionPending;
 
     public PicArea(IFlightplanContainer parent) {
         super(parent);
@@ -828,7 +839,12 @@ public class PicArea extends CPicArea implements ISectorReferenced, ITransformat
     }
 
     public boolean computeFlightLinesNotSpreading(boolean silent) {
+        return computeFlightLinesNotSpreading(silent, true);
+    }
+
+    private boolean computeFlightLinesNotSpreading(boolean silent, boolean assignIds) {
         // System.out.println("computeFlightLinesNotSpreading:" + silent);
+        flightLinesInputHash = 0;
         this.distMinComputed = DIST_MIN_DEFAULT;
         int minCorners = planType.getMinCorners();
         if (getCorners().sizeOfFlightplanContainer() < minCorners) {
@@ -994,30 +1010,10 @@ public class PicArea extends CPicArea implements ISectorReferenced, ITransformat
         // FirstPicAreaVisitor vis = new FirstPicAreaVisitor();
         // vis.startVisit(getFlightplan());
 
-        UnsusedIdVisitor vis = new UnsusedIdVisitor(this);
-        vis.startVisit(flightplan);
-        vis.minMaxId.update(0); // make sure it's valid
-        int firstFreeID = Math.max((int)vis.minMaxId.max + 1, -ReentryPointID.MAXIMAL_ALLOWED_NEGATIVE_ID);
-        int firstFreeLineNo = vis.minMaxLineNo.isValid() ? (int)vis.minMaxLineNo.max + 1 : 0;
-
-        if (firstFreeID >= ReentryPointID.maxValidID && firstFreeLineNo >= ReentryPointID.maxNoLines) {
-            if (!silent) {
-                Debug.getLog()
-                    .severe(
-                        "normal ids are already as large as autoMultiFP IDs. try to restart with an new empty mission!");
-                lastError = RecomputeErrors.MSG_TOO_MANY_POINTS;
-            }
-
+        if (assignIds && !assignFlightLineIds(silent)) {
             return false;
         }
 
-        // int firstFreeID = getFlightplan().getUnusedId();
-        idForInitPhoto =
-            firstFreeID; // platz für init phot on und +1-3 ggf. für assert Hinweg alt, und für alte AP compatibilitäts
-        // Photo
-        // On stuff
-        // firstFreeID = ReentryPointID.createNextPureID(firstFreeID+12);
-
         // Vector<Vec4> points = new Vector<Vec4>();
         flightLines = new Vector<FlightLine>();
         // Vector<Integer> ids = new Vector<Integer>();
@@ -2908,6 +2904,12 @@ public class PicArea extends CPicArea implements ISectorReferenced, ITransformat
                 return false;
             }
 
+            if (overlapReductionDeferred) {
+                // changing the overlap notifies the flight plan, this is done by the caller
+                overlapReductionPending = true;
+                return true;
+            }
+
             try {
                 setMute(true);
                 setOverlapInFlight(reducedOverlapInFlightDirection);
@@ -2923,17 +2925,266 @@ public class PicArea extends CPicArea implements ISectorReferenced, ITransformat
     }
 
     public boolean computeFlightLines(boolean silent) {
+        return computeFlightLines(silent, true);
+    }
+
+    /**
+     * Computes the flight lines without picking the ids of their waypoints, which depend on the other statements of the
+     * flight plan. Areas of a flight plan can be computed this way concurrently, {@link #finishFlightLines(boolean)} has
+     * to be called for each of them in statement order afterwards. The area itself isn't changed, if its overlap has to
+     * be reduced, the result is discarded and {@link #isOverlapReductionPending()} is true.
+     */
+    boolean computeFlightLineGeometry(boolean silent) {
+        overlapReductionPending = false;
+        overlapReductionDeferred = true;
+        try {
+            return computeFlightLines(silent, false);
+        } finally {
+            overlapReductionDeferred = false;
+        }
+    }
+
+    /**
+     * @return true if the last {@link #computeFlightLineGeometry(boolean)} found that the camera can't trigger fast
+     *     enough for the overlap. Its flight lines have to be computed again by {@link #computeFlightLines(boolean)},
+     *     which reduces the overlap.
+     */
+    boolean isOverlapReductionPending() {
+        return overlapReductionPending;
+    }
+
+    private boolean computeFlightLines(boolean silent, boolean assignIds) {
         if (planType == PlanType.INSPECTION_POINTS) {
             return true;
         }
 
-        if (!computeFlightLinesNotSpreading(silent)) {
+        ProfilingRequestEvent event = new ProfilingRequestEvent("ComputeFlightLines");
+        event.begin();
+        try {
+            if (!computeFlightLinesNotSpreading(silent, assignIds)) {
+                return false;
+            }
+
+            // after the computation, since it may reduce the overlap
+            if (assignIds) {
+                flightLinesInputHash = computeFlightLinesInputHash();
+            }
+
+            return true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Flightplan flightplan = getFlightplan();
+                event.setSubject(flightplan != null ? flightplan.getName() : null);
+                event.setItemCount(corners.sizeOfFlightplanContainer());
+                event.setArea(getArea());
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Picks the ids of flight lines computed by {@link #computeFlightLineGeometry(boolean)}.
+     *
+     * @return false if the flight plan has no free ids left
+     */
+    boolean finishFlightLines(boolean silent) {
+        if (planType == PlanType.INSPECTION_POINTS) {
+            return true;
+        }
+
+        if (!assignFlightLineIds(silent)) {
+            return false;
+        }
+
+        flightLinesInputHash = computeFlightLinesInputHash();
+        return true;
+    }
+
+    /**
+     * Picks the first free id for the waypoints of this area, above the ids of all other statements of the flight plan.
+     *
+     * @return false if the flight plan has no free ids left
+     */
+    private boolean assignFlightLineIds(boolean silent) {
+        UnsusedIdVisitor vis = new UnsusedIdVisitor(this);
+        vis.startVisit(getFlightplan());
+        vis.minMaxId.update(0); // make sure it's valid
+        int firstFreeID = Math.max((int)vis.minMaxId.max + 1, -ReentryPointID.MAXIMAL_ALLOWED_NEGATIVE_ID);
+        int firstFreeLineNo = vis.minMaxLineNo.isValid() ? (int)vis.minMaxLineNo.max + 1 : 0;
+
+        if (firstFreeID >= ReentryPointID.maxValidID && firstFreeLineNo >= ReentryPointID.maxNoLines) {
+            if (!silent) {
+                Debug.getLog()
+                    .severe(
+                        "normal ids are already as large as autoMultiFP IDs. try to restart with an new empty mission!");
+                lastError = RecomputeErrors.MSG_TOO_MANY_POINTS;
+            }
+
             return false;
         }
 
+        // int firstFreeID = getFlightplan().getUnusedId();
+        idForInitPhoto =
+            firstFreeID; // platz für init phot on und +1-3 ggf. für assert Hinweg alt, und für alte AP compatibilitäts
+        // Photo
+        // On stuff
+        // firstFreeID = ReentryPointID.createNextPureID(firstFreeID+12);
         return true;
     }
 
+    /**
+     * @return true if the flight lines were computed by {@link #computeFlightLines(boolean)} from the current corners,
+     *     camera and settings, so computing them again would give the same result
+     */
+    public boolean isFlightLinesUpToDate() {
+        long hash = flightLinesInputHash;
+        return hash != 0 && hash == computeFlightLinesInputHash();
+    }
+
+    private static long hash(long hash, double value) {
+        return (hash + Double.doubleToLongBits(value)) * 0x9E3779B97F4A7C15L;
+    }
+
+    /** the hash codes of strings, boxed primitives and enum names are the same in every run, so it can be stored */
+    private static long hash(long hash, Object value) {
+        return hash(hash, value instanceof Enum ? ((Enum<?>)value).name().hashCode() : Objects.hashCode(value));
+    }
+
+    private static long hash(long hash, IHardwareConfiguration hardwareConfiguration) {
+        hash = hash(hash, hardwareConfiguration.getPlatformDescription().getId());
+        for (IPayloadMountConfiguration payloadMount : hardwareConfiguration.getPayloadMounts()) {
+            for (IPayloadConfiguration payload : payloadMount.getPayloads()) {
+                if (payload instanceof IGenericCameraConfiguration) {
+                    IGenericCameraConfiguration camera = (IGenericCameraConfiguration)payload;
+                    hash = hash(hash, camera.getDescription().getId());
+                    hash = hash(hash, camera.getLens().getDescription().getId());
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    @Override
+    public long getFlightLinesInputHash() {
+        return flightLinesInputHash;
+    }
+
+    @Override
+    public int getFlightLinesFirstId() {
+        return idForInitPhoto;
+    }
+
+    @Override
+    public void restoreFlightLinesInputHash(long hash, int firstId) {
+        idForInitPhoto = firstId;
+        flightLinesInputHash = hash;
+    }
+
+    private long computeFlightLinesInputHash() {
+        Flightplan flightplan = getFlightplan();
+        if (flightplan == null) {
+            return 0;
+        }
+
+        long hash = 17;
+        for (IFlightplanStatement corner : corners) {
+            Point point = (Point)corner;
+            hash = hash(hash, point.getLat());
+            hash = hash(hash, point.getLon());
+            hash = hash(hash, point.getAltitude());
+        }
+
+        hash = hash(hash, gsd);
+        hash = hash(hash, alt);
+        hash = hash(hash, overlapInFlight);
+        hash = hash(hash, overlapInFlightMin);
+        hash = hash(hash, overlapParallel);
+        hash = hash(hash, corridorMinLines);
+        hash = hash(hash, corridorWidthInMeter);
+        hash = hash(hash, planType);
+        hash = hash(hash, addCeiling);
+        hash = hash(hash, cropHeightMin);
+        hash = hash(hash, cropHeightMax);
+        hash = hash(hash, enableCropHeightMin);
+        hash = hash(hash, enableCropHeightMax);
+        hash = hash(hash, minObjectDistance);
+        hash = hash(hash, maxObjectDistance);
+        hash = hash(hash, minGroundDistance);
+        hash = hash(hash, modelFilePath);
+        hash = hash(hash, modelSource);
+        hash = hash(hash, modelScale);
+        hash = hash(hash, modelAxisAlignmentX);
+        hash = hash(hash, modelAxisAlignmentY);
+        hash = hash(hash, modelAxisAlignmentZ);
+        hash = hash(hash, modelAxisOffsetX);
+        hash = hash(hash, modelAxisOffsetY);
+        hash = hash(hash, modelAxisOffsetZ);
+        hash = hash(hash, modelReferencePoint.getLat());
+        hash = hash(hash, modelReferencePoint.getLon());
+        hash = hash(hash, modelReferencePoint.getAltitude());
+        for (Pair<ModelAxis, ModelAxis> swap : modelAxisTransformations) {
+            hash = hash(hash, swap.first);
+            hash = hash(hash, swap.second);
+        }
+
+        hash = hash(hash, facadeScanningSide);
+        hash = hash(hash, objectHeight);
+        hash = hash(hash, circleLeftTrueRightFalse);
+        hash = hash(hash, circleCount);
+        hash = hash(hash, scanDirection);
+        hash = hash(hash, startCapture);
+        hash = hash(hash, jumpPattern);
+        hash = hash(hash, verticalScanPattern);
+        hash = hash(hash, startCaptureVertically);
+        hash = hash(hash, onlySingleDirection);
+        hash = hash(hash, getYaw());
+        hash = hash(hash, cameraTiltToggleEnable);
+        hash = hash(hash, cameraTiltToggleDegrees);
+        hash = hash(hash, cameraPitchOffsetDegrees);
+        hash = hash(hash, cameraRollToggleEnable);
+        hash = hash(hash, cameraRollToggleDegrees);
+        hash = hash(hash, cameraRollOffsetDegrees);
+        hash = hash(hash, maxYawRollChange);
+        hash = hash(hash, maxPitchChange);
+        hash = hash(hash, restrictionCeiling);
+        hash = hash(hash, restrictionCeilingEnabled);
+        hash = hash(hash, restrictionCeilingRef);
+        hash = hash(hash, restrictionFloor);
+        hash = hash(hash, restrictionFloorEnabled);
+        hash = hash(hash, restrictionFloorRef);
+        hash = hash(hash, pitchOffsetLineBegin);
+        hash = hash(hash, getWindmillHubDiameter());
+        hash = hash(hash, getWindmillHubLength());
+        hash = hash(hash, getWindmillNumberOfBlades());
+        hash = hash(hash, getWindmillBladeLength());
+        hash = hash(hash, getWindmillBladeDiameter());
+        hash = hash(hash, getWindmillBladeThinRadius());
+        hash = hash(hash, getWindmillBladePitch());
+        hash = hash(hash, getWindmillBladeStartRotation());
+        hash = hash(hash, getWindmillBladeCoverLength());
+
+        CPhotoSettings photoSettings = flightplan.getPhotoSettings();
+        hash = hash(hash, photoSettings.getMaxNick());
+        hash = hash(hash, photoSettings.getMaxRoll());
+        hash = hash(hash, photoSettings.getMinTimeInterval());
+        hash = hash(hash, photoSettings.getAltitudeAdjustMode());
+        hash = hash(hash, photoSettings.getMaxGroundSpeedMPSec());
+        hash = hash(hash, photoSettings.getMaxGroundSpeedAutomatic());
+        hash = hash(hash, photoSettings.isStoppingAtWaypoints());
+        hash = hash(hash, photoSettings.getGsdTolerance());
+        hash = hash(hash, photoSettings.isMultiFP());
+        hash = hash(hash, flightplan.getHardwareConfiguration());
+        hash = hash(hash, flightplan.getRefPoint().getLat());
+        hash = hash(hash, flightplan.getRefPoint().getLon());
+        hash = hash(hash, flightplan.getRefPointAltWgs84WithElevation());
+
+        // only the ids this area got, the ids of the other statements change whenever one of them is recomputed
+        hash = hash(hash, idForInitPhoto);
+        return hash == 0 ? 1 : hash;
+    }
+
     /**
      * ask if nessesary, if FP should be split and store result in member var
      *
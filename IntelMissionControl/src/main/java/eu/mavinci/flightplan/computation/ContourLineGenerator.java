@@ -7,16 +7,107 @@
 package eu.mavinci.flightplan.computation;
 
 import eu.mavinci.core.helper.MinMaxPair;
-import eu.mavinci.core.helper.Pair;
 import gov.nasa.worldwind.geom.Vec4;
-import eu.mavinci.core.helper.MinMaxPair;
-import eu.mavinci.core.helper.Pair;
-
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Marching squares contour lines of an elevation grid.
+ *
+ * <p>All levels are extracted in one sweep over the grid: for every cell only the levels between the lowest and the
+ * highest of its corners are looked at, so no per level threshold grids are needed. Every cell emits its segments as
+ * pairs of the grid edges they cross, and the segments of a level are stitched into polylines by looking up the edge
+ * ids in a hash table. Bands of rows are swept and levels are stitched in parallel.
+ */
 public class ContourLineGenerator {
-    // needs WWFactory.init();
+
+    /** A contour line in grid coordinates: x is the first index into the elevation grid, y the second. */
+    public static final class Polyline {
+        private final double level;
+        private final double[] coordinates;
+        private final boolean closed;
+
+        Polyline(double level, double[] coordinates, boolean closed) {
+            this.level = level;
+            this.coordinates = coordinates;
+            this.closed = closed;
+        }
+
+        public double getLevel() {
+            return level;
+        }
+
+        /** @return the number of points, the first point of a closed line isn't repeated at the end */
+        public int size() {
+            return coordinates.length / 2;
+        }
+
+        public double getX(int i) {
+            return coordinates[2 * i];
+        }
+
+        public double getY(int i) {
+            return coordinates[2 * i + 1];
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    // rows per band of the parallel sweep
+    private static final int BAND_ROWS = 64;
+
+    // cell edges: bottom (i,j)-(i+1,j), top (i,j+1)-(i+1,j+1), left (i,j)-(i,j+1), right (i+1,j)-(i+1,j+1)
+    private static final int BOTTOM = 0;
+    private static final int TOP = 1;
+    private static final int LEFT = 2;
+    private static final int RIGHT = 3;
+
+    // corner bits of the case index: 1 = (i,j), 2 = (i+1,j), 4 = (i,j+1), 8 = (i+1,j+1)
+    private static final int SADDLE_ANTI_DIAGONAL = 2 | 4;
+    private static final int SADDLE_DIAGONAL = 1 | 8;
+    private static final int[][] CASE_EDGES = new int[16][];
+
+    static {
+        for (int caseIndex = 1; caseIndex < 15; caseIndex++) {
+            // the saddles cross all four edges and are resolved separately
+            if (caseIndex == SADDLE_ANTI_DIAGONAL || caseIndex == SADDLE_DIAGONAL) {
+                continue;
+            }
+
+            int[] edges = new int[2];
+            int count = 0;
+            if (((caseIndex & 1) != 0) != ((caseIndex & 2) != 0)) {
+                edges[count++] = BOTTOM;
+            }
+
+            if (((caseIndex & 4) != 0) != ((caseIndex & 8) != 0)) {
+                edges[count++] = TOP;
+            }
+
+            if (((caseIndex & 1) != 0) != ((caseIndex & 4) != 0)) {
+                edges[count++] = LEFT;
+            }
+
+            if (((caseIndex & 2) != 0) != ((caseIndex & 8) != 0)) {
+                edges[count++] = RIGHT;
+            }
+
+            CASE_EDGES[caseIndex] = edges;
+        }
+    }
+
+    /**
+     * Contour lines every dz over the range of zdata. Grid points of Double.NEGATIVE_INFINITY are unknown, the lines
+     * end at them.
+     *
+     * @return the lines as positions in grid coordinates with the level as z, closed lines end with their first point
+     */
     public static Vector<Vector<Vec4>> getAllContours(double[][] zdata, double dz, MinMaxPair zRange) {
         if ((zdata.length == 0) || (zdata[0].length == 0)) {
             return new Vector<Vector<Vec4>>(0);
@@ -28,294 +119,297 @@ public class ContourLineGenerator {
             dz = zRange.size() / stepCount;
         }
 
-        Vector<Double> zcVec = new Vector<Double>();
+        double[] levels = new double[stepCount + 1];
         for (int i = 0; i <= stepCount; i++) {
-            zcVec.add(zRange.min + (i * dz));
+            levels[i] = zRange.min + (i * dz);
         }
 
-        // "Marching squares" algorithm
-        // for all dz's, get grid with thresholds and find contours
-        Vector<Vector<Vec4>> posVecAll = new Vector<Vector<Vec4>>(zcVec.size());
-        for (int c = 0; c < zcVec.size(); c++) {
-            LinkedList<Vector<Vec4>> segments = new LinkedList<Vector<Vec4>>();
+        List<Polyline> polylines = getContours(zdata, levels);
+        Vector<Vector<Vec4>> posVecAll = new Vector<Vector<Vec4>>(polylines.size());
+        for (Polyline polyline : polylines) {
+            Vector<Vec4> posVec = new Vector<Vec4>(polyline.size() + 1);
+            for (int i = 0; i != polyline.size(); i++) {
+                posVec.add(new Vec4(polyline.getX(i), polyline.getY(i), polyline.getLevel()));
+            }
 
-            boolean[][] thresholdGrid = new boolean[zdata.length][zdata[0].length];
-            for (int i = 0; i < zdata.length; i++) {
-                for (int j = 0; j < zdata[i].length; j++) {
-                    thresholdGrid[i][j] = (zdata[i][j] >= zcVec.get(c));
-                }
+            if (polyline.isClosed()) {
+                posVec.add(posVec.firstElement());
             }
 
-            // there might be multiple (closed) contour lines per zc ==> track
-            // all grid points in "finished" grid
-            // also invalidate unused points
-            boolean[][] finished = new boolean[zdata.length][zdata[0].length];
-            for (int i = 0; i < zdata.length; i++) {
-                for (int j = 0; j < zdata[i].length; j++) {
-                    if (zdata[i][j] == Double.NEGATIVE_INFINITY) {
-                        thresholdGrid[i][j] = false;
-                    }
+            posVecAll.add(posVec);
+        }
 
-                    int id = getID(thresholdGrid, i, j);
-                    finished[i][j] = isInvalid(zdata, i, j) || (id == -1) || (id == 0) || (id == 15);
-                }
-            }
+        return posVecAll;
+    }
 
-            // choose next starting point:
-            for (int i0 = 0; i0 < finished.length; i0++) {
-                for (int j0 = 0; j0 < finished[i0].length; j0++) {
-                    if (finished[i0][j0]) {
-                        continue;
-                    }
+    /**
+     * Contour lines of a rectangular elevation grid at the given levels. Grid points of Double.NEGATIVE_INFINITY or NaN
+     * are unknown, the lines end at them.
+     *
+     * @return the lines ordered by level
+     */
+    public static List<Polyline> getContours(double[][] zdata, double[] levels) {
+        int rows = zdata.length;
+        int columns = rows > 0 ? zdata[0].length : 0;
+        if (rows < 2 || columns < 2 || levels.length == 0) {
+            return new ArrayList<>();
+        }
 
-                    // calculate contours with starting grid indices i0, j0
-                    Vector<Pair<Integer, Integer>> contourIndices = getContourIndices(thresholdGrid, i0, j0);
-                    Vector<Vec4> posVec = new Vector<Vec4>(contourIndices.size());
+        if ((long)rows * columns * 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("elevation grid too large: " + rows + "x" + columns);
+        }
 
-                    for (int q = 0; q < contourIndices.size(); q++) {
-                        int i = contourIndices.get(q).first;
-                        int j = contourIndices.get(q).second;
-                        if ((i >= 0) && (j >= 0)) {
-                            finished[i][j] = true;
-                        }
+        double[] sortedLevels = Arrays.stream(levels).filter(level -> !Double.isNaN(level)).sorted().distinct().toArray();
+        int bands = (rows - 1 + BAND_ROWS - 1) / BAND_ROWS;
+        List<SegmentBuffer[]> bandSegments =
+            IntStream.range(0, bands)
+                .parallel()
+                .mapToObj(
+                    band ->
+                        sweep(zdata, sortedLevels, band * BAND_ROWS, Math.min(rows - 1, (band + 1) * BAND_ROWS)))
+                .collect(Collectors.toList());
+
+        return IntStream.range(0, sortedLevels.length)
+            .parallel()
+            .mapToObj(level -> stitch(zdata, sortedLevels[level], level, bandSegments))
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
 
-                        if (isInvalid(zdata, i, j)) {
-                            if (posVec.size() >= 1) {
-                                segments.add(posVec);
-                            }
+    /** The segments of one level, each as the ids of the two grid edges it connects. */
+    private static final class SegmentBuffer {
+        int[] edges = new int[64];
+        int size;
 
-                            posVec = new Vector<Vec4>(contourIndices.size() - q);
-                        } else {
-                            posVec.add(getInterpolatedContourPosition(zdata, i, j, zcVec.get(c)));
-                        }
-                    }
+        void add(int edge0, int edge1) {
+            if (size + 2 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+
+            edges[size++] = edge0;
+            edges[size++] = edge1;
+        }
+    }
+
+    private static boolean isInvalid(double z) {
+        return z == Double.NEGATIVE_INFINITY || Double.isNaN(z);
+    }
 
-                    if (posVec.size() > 0) {
-                        segments.add(posVec);
+    /** Emits the segments of all levels in the cells of rows [i0, i1). */
+    private static SegmentBuffer[] sweep(double[][] zdata, double[] levels, int i0, int i1) {
+        SegmentBuffer[] buffers = new SegmentBuffer[levels.length];
+        int columns = zdata[0].length;
+        for (int i = i0; i < i1; i++) {
+            double[] row = zdata[i];
+            double[] nextRow = zdata[i + 1];
+            for (int j = 0; j < columns - 1; j++) {
+                double z0 = row[j];
+                double z1 = nextRow[j];
+                double z2 = row[j + 1];
+                double z3 = nextRow[j + 1];
+                if (isInvalid(z0) || isInvalid(z1) || isInvalid(z2) || isInvalid(z3)) {
+                    continue;
+                }
+
+                double min = Math.min(Math.min(z0, z1), Math.min(z2, z3));
+                double max = Math.max(Math.max(z0, z1), Math.max(z2, z3));
+
+                // a level crosses the cell if some corner is below it and some is not
+                int level = Arrays.binarySearch(levels, min);
+                level = level >= 0 ? level + 1 : -level - 1;
+                for (; level < levels.length && levels[level] <= max; level++) {
+                    double zc = levels[level];
+                    int caseIndex = (z0 >= zc ? 1 : 0) | (z1 >= zc ? 2 : 0) | (z2 >= zc ? 4 : 0) | (z3 >= zc ? 8 : 0);
+                    SegmentBuffer buffer = buffers[level];
+                    if (buffer == null) {
+                        buffer = buffers[level] = new SegmentBuffer();
                     }
 
-                    if (segments.size() >= 1) {
-                        // Add all contours on current z
-                        posVecAll.addAll(segments);
+                    if (caseIndex == SADDLE_ANTI_DIAGONAL || caseIndex == SADDLE_DIAGONAL) {
+                        // the center decides whether the two corners above the level are connected, if so the
+                        // corners below are cut off, otherwise the corners above
+                        boolean centerAbove = (z0 + z1 + z2 + z3) / 4 >= zc;
+                        if (centerAbove == (caseIndex == SADDLE_ANTI_DIAGONAL)) {
+                            buffer.add(edgeId(i, j, BOTTOM, columns), edgeId(i, j, LEFT, columns));
+                            buffer.add(edgeId(i, j, RIGHT, columns), edgeId(i, j, TOP, columns));
+                        } else {
+                            buffer.add(edgeId(i, j, BOTTOM, columns), edgeId(i, j, RIGHT, columns));
+                            buffer.add(edgeId(i, j, LEFT, columns), edgeId(i, j, TOP, columns));
+                        }
+                    } else {
+                        int[] edges = CASE_EDGES[caseIndex];
+                        buffer.add(edgeId(i, j, edges[0], columns), edgeId(i, j, edges[1], columns));
                     }
                 }
             }
         }
 
-        return posVecAll;
+        return buffers;
     }
 
-    private static Vec4 getVec4Point(double[][] zdata, int i, int j) {
-        // Average z of all 4 points around edge
-        double z;
-        if (i + 1 < zdata.length) {
-            if (j + 1 < zdata[0].length) {
-                z = (zdata[i][j] + zdata[i + 1][j] + zdata[i][j + 1] + zdata[i + 1][j + 1]) / 4.0;
-            } else {
-                z = (zdata[i][j] + zdata[i + 1][j]) / 2.0;
-            }
-        } else {
-            if (j + 1 < zdata[0].length) {
-                z = (zdata[i][j] + zdata[i][j + 1]) / 2.0;
-            } else {
-                z = zdata[i][j];
-            }
+    /**
+     * Edges along the first index get even ids, edges along the second index odd ids, so every edge of the grid has one
+     * id no matter from which of its two cells it is seen.
+     */
+    private static int edgeId(int i, int j, int edge, int columns) {
+        switch (edge) {
+        case BOTTOM:
+            return 2 * (i * columns + j);
+        case TOP:
+            return 2 * (i * columns + j + 1);
+        case LEFT:
+            return 2 * (i * columns + j) + 1;
+        default:
+            return 2 * ((i + 1) * columns + j) + 1;
         }
-
-        return new Vec4(i + 0.5, j + 0.5, z);
     }
 
-    private static boolean isInvalid(double[][] zdata, int i, int j) {
-        if ((i < 0) || (j < 0) || (i >= zdata.length - 1) || (j >= zdata[0].length - 1)) {
-            return true;
+    /** Joins the segments of one level into polylines. Every edge is shared by at most two segments of a level. */
+    private static List<Polyline> stitch(double[][] zdata, double zc, int level, List<SegmentBuffer[]> bandSegments) {
+        int segmentCount = 0;
+        for (SegmentBuffer[] buffers : bandSegments) {
+            segmentCount += buffers[level] != null ? buffers[level].size / 2 : 0;
         }
 
-        if ((zdata[i][j] == Double.NEGATIVE_INFINITY)
-                || (zdata[i + 1][j] == Double.NEGATIVE_INFINITY)
-                || (zdata[i][j + 1] == Double.NEGATIVE_INFINITY)
-                || (zdata[i + 1][j + 1] == Double.NEGATIVE_INFINITY)) {
-            return true;
+        List<Polyline> polylines = new ArrayList<>();
+        if (segmentCount == 0) {
+            return polylines;
         }
 
-        return false;
-    }
-
-    private static Vec4 getInterpolatedContourPosition(double zdata[][], int i, int j, double zc) {
-        // Bilinear interpolation would be better, but expensive... using interpolation between center and edge with min
-        // or max z
-        double zs[] = new double[] {zdata[i][j], zdata[i + 1][j], zdata[i][j + 1], zdata[i + 1][j + 1]};
-
-        Vec4 center = getVec4Point(zdata, i, j);
-        int s2 = 0;
-        if (center.z > zc) {
-            // find min:
-            double zsmin = Double.MAX_VALUE;
-            for (int s = 0; s < 4; s++) {
-                if (zs[s] < zsmin) {
-                    zsmin = zs[s];
-                    s2 = s;
-                }
+        // the nodes of the polylines are the crossed edges, segmentNodes are the two nodes of every segment
+        EdgeIndex index = new EdgeIndex(2 * segmentCount);
+        int[] segmentNodes = new int[2 * segmentCount];
+        int segment = 0;
+        for (SegmentBuffer[] buffers : bandSegments) {
+            SegmentBuffer buffer = buffers[level];
+            if (buffer == null) {
+                continue;
             }
-        } else if (center.z < zc) {
-            // find max:
-            int smax = 0;
-            double zsmax = Double.MIN_VALUE;
-            for (int s = 0; s < 4; s++) {
-                if (zs[s] > zsmax) {
-                    zsmax = zs[s];
-                    s2 = s;
-                }
+
+            for (int k = 0; k < buffer.size; k += 2, segment++) {
+                segmentNodes[2 * segment] = index.link(buffer.edges[k], segment);
+                segmentNodes[2 * segment + 1] = index.link(buffer.edges[k + 1], segment);
             }
-        } else {
-            return center;
         }
 
-        Vec4 pos2;
-        switch (s2) {
-        case 0:
-            pos2 = new Vec4(i, j, zs[s2]);
-            break;
-        case 1:
-            pos2 = new Vec4(i + 1, j, zs[s2]);
-            break;
-        case 2:
-            pos2 = new Vec4(i, j + 1, zs[s2]);
-            break;
-        default:
-            pos2 = new Vec4(i + 1, j + 1, zs[s2]);
-            break;
-        }
+        boolean[] done = new boolean[segmentCount];
+        int columns = zdata[0].length;
+        PointBuffer points = new PointBuffer();
 
-        double z1 = center.z;
-        double z2 = zs[s2];
+        // open lines start at a node with only one segment, e.g. at the border of the grid or of unknown data
+        for (int node = 0; node != index.nodeCount; node++) {
+            if (index.segment1[node] < 0 && !done[index.segment0[node]]) {
+                trace(zdata, zc, columns, index, segmentNodes, done, node, index.segment0[node], points);
+                polylines.add(new Polyline(zc, points.toArray(), false));
+            }
+        }
 
-        double interpolationFactor = (zc - z1) / (z2 - z1);
-        // if ((interpolationFactor < 0) || (interpolationFactor > 1)) {
-        // return null;
-        // }
+        for (int start = 0; start != segmentCount; start++) {
+            if (!done[start]) {
+                trace(zdata, zc, columns, index, segmentNodes, done, segmentNodes[2 * start], start, points);
+                // the walk ended where it started
+                points.size -= 2;
+                polylines.add(new Polyline(zc, points.toArray(), true));
+            }
+        }
 
-        // linearly interpolate
-        return center.add3((pos2.subtract3(center)).multiply3(interpolationFactor));
+        return polylines;
     }
 
-    /*
-     * number each grid point with ID depending on its neighbors
-     */
-    private static int getID(boolean[][] thresholdGrid, int i, int j) {
-        int sum = 0;
-        if (isAboveThreshold(thresholdGrid, i, j)) {
-            sum += 1;
+    private static void trace(
+            double[][] zdata,
+            double zc,
+            int columns,
+            EdgeIndex index,
+            int[] segmentNodes,
+            boolean[] done,
+            int node,
+            int segment,
+            PointBuffer points) {
+        points.size = 0;
+        addPoint(zdata, zc, columns, index.edges[node], points);
+        while (segment >= 0 && !done[segment]) {
+            done[segment] = true;
+            node = segmentNodes[2 * segment] == node ? segmentNodes[2 * segment + 1] : segmentNodes[2 * segment];
+            addPoint(zdata, zc, columns, index.edges[node], points);
+            segment = index.segment0[node] == segment ? index.segment1[node] : index.segment0[node];
         }
+    }
 
-        if (isAboveThreshold(thresholdGrid, i + 1, j)) {
-            sum += 2;
+    /** Adds the point where the level crosses an edge, interpolated linearly between its two grid points. */
+    private static void addPoint(double[][] zdata, double zc, int columns, int edge, PointBuffer points) {
+        int node = edge >>> 1;
+        int i = node / columns;
+        int j = node % columns;
+        double z0 = zdata[i][j];
+        if ((edge & 1) == 0) {
+            double z1 = zdata[i + 1][j];
+            points.add(i + (zc - z0) / (z1 - z0), j);
+        } else {
+            double z1 = zdata[i][j + 1];
+            points.add(i, j + (zc - z0) / (z1 - z0));
         }
+    }
 
-        if (isAboveThreshold(thresholdGrid, i, j + 1)) {
-            sum += 4;
-        }
+    private static final class PointBuffer {
+        double[] coordinates = new double[64];
+        int size;
 
-        if (isAboveThreshold(thresholdGrid, i + 1, j + 1)) {
-            sum += 8;
-        }
+        void add(double x, double y) {
+            if (size + 2 > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
 
-        return sum;
-    }
+            coordinates[size++] = x;
+            coordinates[size++] = y;
+        }
 
-    private static boolean isAboveThreshold(boolean[][] thresholdGrid, int i, int j) {
-        if (i < 0 || i >= thresholdGrid.length || j < 0 || j >= thresholdGrid[0].length) {
-            return false;
-        } else {
-            return thresholdGrid[i][j];
+        double[] toArray() {
+            return Arrays.copyOf(coordinates, size);
         }
     }
 
-    private static Vector<Pair<Integer, Integer>> getContourIndices(boolean[][] thresholdGrid, int i0, int j0) {
-        int i = i0;
-        int j = j0;
-
-        boolean stop = false;
-        int lastID = -1;
-
-        Vector<Pair<Integer, Integer>> contourIndices = new Vector<Pair<Integer, Integer>>();
-
-        do {
-            contourIndices.add(new Pair<Integer, Integer>(i, j));
-
-            // N: j--
-            // S: j++
-            // W: i--
-            // E: i++
-
-            int id = getID(thresholdGrid, i, j);
-
-            switch (id) {
-            case 1:
-                j--; // N
-                break;
-            case 2:
-                i++; // E
-                break;
-            case 3:
-                i++; // E
-                break;
-            case 4:
-                i--; // W
-                break;
-            case 5:
-                j--; // N
-                break;
-            case 6:
-                if ((lastID == 1) || (lastID == 5) || (lastID == 13)) { // N
-                    i--; // W
-                    id = 4;
-                } else {
-                    i++; // E
-                    id = 2;
-                }
+    /** Open addressing hash table from edge ids to nodes, each with the (at most two) segments crossing the edge. */
+    private static final class EdgeIndex {
+        final int[] slots;
+        final int mask;
+        final int shift;
+        final int[] edges;
+        final int[] segment0;
+        final int[] segment1;
+        int nodeCount;
+
+        EdgeIndex(int maxNodes) {
+            int capacity = Integer.highestOneBit(Math.max(4, maxNodes * 2 - 1)) << 1;
+            slots = new int[capacity];
+            Arrays.fill(slots, -1);
+            mask = capacity - 1;
+            shift = Integer.numberOfLeadingZeros(mask);
+            edges = new int[maxNodes];
+            segment0 = new int[maxNodes];
+            segment1 = new int[maxNodes];
+        }
 
-                break;
-            case 7:
-                i++; // E
-                break;
-            case 8:
-                j++; // S
-                break;
-            case 9:
-                if ((lastID == 2) || (lastID == 3) || (lastID == 7)) { // E
-                    j--; // N
-                    id = 1;
-                } else {
-                    j++; // S
-                    id = 8;
+        /** @return the node of the edge, which is created on the first segment crossing the edge */
+        int link(int edge, int segment) {
+            int slot = (edge * 0x9E3779B9) >>> shift;
+            while (slots[slot] >= 0) {
+                int node = slots[slot];
+                if (edges[node] == edge) {
+                    segment1[node] = segment;
+                    return node;
                 }
 
-                break;
-            case 10:
-                j++; // S
-                break;
-            case 11:
-                j++; // S
-                break;
-            case 12:
-                i--; // W
-                break;
-            case 13:
-                j--; // N
-                break;
-            case 14:
-                i--; // W
-                break;
-            default:
-                throw new IllegalStateException("Contour algorithm error");
+                slot = (slot + 1) & mask;
             }
 
-            lastID = id;
-        } while ((i != i0) || (j != j0));
-
-        // close loop
-        contourIndices.add(contourIndices.firstElement());
-
-        return contourIndices;
+            int node = nodeCount++;
+            slots[slot] = node;
+            edges[node] = edge;
+            segment0[node] = segment;
+            segment1[node] = -1;
+            return node;
+        }
     }
+
 }
@@ -10,12 +10,17 @@ import com.intel.missioncontrol.INotificationObject;
 import com.intel.missioncontrol.StaticInjector;
 import com.intel.missioncontrol.map.elevation.ElevationModelRequestException;
 import com.intel.missioncontrol.map.elevation.IEgmModel;
+import com.intel.missioncontrol.map.elevation.IElevationLayer;
 import com.intel.missioncontrol.map.elevation.IElevationModel;
+import com.intel.missioncontrol.map.elevation.IElevationModelsManager;
+import com.intel.missioncontrol.map.worldwind.IWWGlobes;
 import com.intel.missioncontrol.measure.Unit;
 import com.intel.missioncontrol.networking.INetworkInformation;
 import com.intel.missioncontrol.settings.AirspacesProvidersSettings;
+import com.intel.missioncontrol.settings.ElevationModelSettings;
 import com.intel.missioncontrol.settings.ExpertSettings;
 import com.intel.missioncontrol.settings.ISettingsManager;
+import com.intel.missioncontrol.utils.IVersionProvider;
 import de.saxsys.mvvmfx.MvvmFX;
 import de.saxsys.mvvmfx.utils.notifications.NotificationObserver;
 import de.saxsys.mvvmfx.utils.notifications.WeakNotificationObserver;
@@ -23,6 +28,7 @@ import eu.mavinci.airspace.AirspaceComperatorFloor;
 import eu.mavinci.airspace.EAirspaceManager;
 import eu.mavinci.airspace.IAirspace;
 import eu.mavinci.airspace.IAirspaceListener;
+import eu.mavinci.core.flightplan.CDump;
 import eu.mavinci.core.flightplan.CFlightplan;
 import eu.mavinci.core.flightplan.CPhoto;
 import eu.mavinci.core.flightplan.IFlightplanChangeListener;
@@ -58,21 +64,30 @@ import eu.mavinci.flightplan.PicArea;
 import eu.mavinci.flightplan.Point;
 import eu.mavinci.plane.simjava.AirplaneSim;
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.globes.Earth;
 import gov.nasa.worldwind.globes.ElevationModel;
 import gov.nasa.worldwind.terrain.CompoundElevationModel;
+import java.io.File;
 import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.logging.Level;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.beans.value.WeakChangeListener;
 import org.asyncfx.collections.ArraySet;
+import org.asyncfx.collections.LockedList;
+import org.asyncfx.concurrent.FutureExecutorService;
 
 public class FPsim extends Recomputer
         implements IFlightplanChangeListener, IRecomputerListenerManager, INotificationObject.ChangeListener {
@@ -538,7 +553,42 @@ public class FPsim extends Recomputer
 
             visPic.startVisit(fp);
             allPicAreas = visPic.filterResults;
-            simSingleFP(fp);
+
+            byte[] cacheKey = computeCacheKey(tmpSimResult.airspaceList);
+            File cacheFolder = cacheKey == null ? null : fp.getFile().getParentFile();
+            if (cacheKey != null) {
+                List<IAirspace> airspaceList = tmpSimResult.airspaceList;
+                if (SimResultCache.read(
+                        cacheFolder,
+                        cacheKey,
+                        tmpSimResult,
+                        getAllObjects(fp),
+                        allPicAreas,
+                        airspaceList,
+                        getElevationModels())) {
+                    Debug.getLog().fine("Mission simulation of " + this + " restored from cache");
+                    return;
+                }
+
+                // the result may be filled partially
+                tmpSimResult = new SimResultData();
+                tmpSimResult.airspaceList = airspaceList;
+            }
+
+            Flightplan simulated = simSingleFP(fp);
+            computeLineOfSight();
+            if (cacheKey != null
+                    && tmpSimResult.elevationDataAvaliable
+                    && Arrays.equals(cacheKey, computeCacheKey(tmpSimResult.airspaceList))) {
+                SimResultCache.write(
+                    cacheFolder,
+                    cacheKey,
+                    tmpSimResult,
+                    getAllObjects(simulated),
+                    allPicAreas,
+                    tmpSimResult.airspaceList,
+                    getElevationModels());
+            }
             // System.out.println("photosReady:"+tmpSimResult.pic_count);
             // System.out.println("curthread:" + Thread.currentThread());
         } finally {
@@ -553,7 +603,103 @@ public class FPsim extends Recomputer
         }
     }
 
-    private void simSingleFP(Flightplan fp) {
+    private static List<IFlightplanRelatedObject> getAllObjects(Flightplan fp) {
+        ExtractTypeVisitor<IFlightplanRelatedObject> vis = new ExtractTypeVisitor<>(IFlightplanRelatedObject.class);
+        vis.startVisit(fp);
+        return vis.filterResults;
+    }
+
+    /** @return the elevation models of the globe, the sources of the elevation data of the simulated positions */
+    private static List<ElevationModel> getElevationModels() {
+        ElevationModel globeModel = StaticInjector.getInstance(IWWGlobes.class).getDefaultGlobe().getElevationModel();
+        if (globeModel instanceof CompoundElevationModel) {
+            return ((CompoundElevationModel)globeModel).getElevationModels();
+        }
+
+        return Collections.singletonList(globeModel);
+    }
+
+    /**
+     * Hashes everything the simulation result depends on: the flight plan with its computed waypoints, the elevation
+     * settings and models, the geoid and the airspaces. Results of the same key can be taken from the {@link
+     * SimResultCache}.
+     *
+     * @return null if the flight plan isn't saved yet or the key can't be computed
+     */
+    private byte[] computeCacheKey(List<IAirspace> airspaces) {
+        if (fp.getFile() == null) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder state = new StringBuilder();
+            IVersionProvider versionProvider = StaticInjector.getInstance(IVersionProvider.class);
+            state.append(SimResultCache.VERSION)
+                .append('|')
+                .append(versionProvider.getAppVersion())
+                .append('|')
+                .append(versionProvider.getCommitID());
+
+            // the settings are hashed on their own as well, the elevation models only follow them once they changed
+            ElevationModelSettings elevationModelSettings =
+                StaticInjector.getInstance(ISettingsManager.class).getSection(ElevationModelSettings.class);
+            state.append('|')
+                .append(elevationModelSettings.useSurfaceDataForPlanningProperty().get())
+                .append(elevationModelSettings.useDefaultElevationModelProperty().get())
+                .append(elevationModelSettings.useGeoTIFFProperty().get());
+
+            // the geoid converts the simulated altitudes for the airspace checks, its offset at the center of the plan
+            // tells whether it was loaded and which data it has
+            Sector sector = fp.getSector();
+            state.append('|').append(egmModel.getClass().getName());
+            if (sector != null) {
+                state.append(',').append(egmModel.getEGM96Offset(sector.getCentroid()));
+            }
+
+            IElevationModelsManager elevationModelsManager =
+                StaticInjector.getInstance(IElevationModelsManager.class);
+            state.append('|')
+                .append(elevationModelsManager.terrainEnabledProperty().get())
+                .append(elevationModelsManager.useTerrainBaselayerProperty().get())
+                .append(elevationModelsManager.useGeoTiffsProperty().get());
+            try (LockedList<IElevationLayer> layers = elevationModelsManager.layersProperty().lock()) {
+                for (IElevationLayer layer : layers) {
+                    state.append('|')
+                        .append(layer.enabledProperty().get())
+                        .append(',')
+                        .append(layer.nameProperty().get())
+                        .append(',')
+                        .append(layer.getShift())
+                        .append(',')
+                        .append(layer.elevationModelShiftTypeProperty().get())
+                        .append(',')
+                        .append(layer.sourceModifyedDateProperty().get());
+                }
+            }
+
+            state.append('|')
+                .append(
+                    StaticInjector.getInstance(ISettingsManager.class)
+                        .getSection(AirspacesProvidersSettings.class)
+                        .useAirspaceDataForPlanningProperty()
+                        .get());
+            for (IAirspace airspace : airspaces) {
+                state.append('|').append(airspace.getId()).append(',').append(airspace.getName());
+            }
+
+            digest.update(state.toString().getBytes(StandardCharsets.UTF_8));
+            // comments are left out, the header contains the date of saving
+            digest.update(CDump.removeHashDumpAndCommentsFromXML(fp.toXML()).getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (Exception e) {
+            Debug.getLog().log(Level.FINE, "could not compute simulation cache key of " + this, e);
+            return null;
+        }
+    }
+
+    /** @return the simulated snapshot of the flight plan */
+    private Flightplan simSingleFP(Flightplan fp) {
         // Debug.printStackTrace("sim single FP" , fp);
         tmpSimResult.firstFPobj = null;
         sim.setNativeHardwareConfiguration(fp.getHardwareConfiguration());
@@ -588,6 +734,45 @@ public class FPsim extends Recomputer
         tmpSimResult.flightTime += sim.simTime - sim.simStartTime;
         tmpSimResult.distance += sim.flightDistance;
         // System.out.println("imgCnt " + tmpSimResult.photos.size());
+        return fp;
+    }
+
+    /** flags all airborne positions of the simulated path which are hidden from the pilot behind terrain */
+    private void computeLineOfSight() {
+        List<SimDistance> airborne = new ArrayList<>();
+        List<Position> targets = new ArrayList<>();
+        for (SimDistance simDistance : tmpSimResult.simDistances) {
+            if (simDistance.flightPhase == AirplaneFlightphase.airborne) {
+                airborne.add(simDistance);
+                targets.add(simDistance.position);
+            }
+        }
+
+        LatLon observer = fp.getTakeoff().getLatLon();
+        TerrainLineOfSight terrain = TerrainLineOfSight.sample(elevationModel, observer, targets);
+        if (terrain == null) {
+            return;
+        }
+
+        boolean[] occluded;
+        try {
+            occluded =
+                terrain.computeOccluded(
+                    terrain.getObserverPosition(observer), targets, FutureExecutorService.getInstance());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        tmpSimResult.lineOfSightCheckedCount = occluded.length;
+        for (int i = 0; i != occluded.length; i++) {
+            if (occluded[i]) {
+                airborne.get(i).lineOfSightOccluded = true;
+                if (tmpSimResult.lineOfSightOccludedCount++ == 0) {
+                    tmpSimResult.firstPosLineOfSightOccluded = targets.get(i);
+                }
+            }
+        }
     }
 
     @Override
@@ -716,6 +901,7 @@ public class FPsim extends Recomputer
         public double airspaceDistanceMeter = Double.POSITIVE_INFINITY;
         public Set<PicArea> aoiCollisions = new ArraySet<>();
         public AirplaneFlightphase flightPhase;
+        public boolean lineOfSightOccluded;
 
         public AirplaneFlightphase getFlightPhase() {
             return flightPhase;
@@ -753,6 +939,10 @@ public class FPsim extends Recomputer
         public Set<PicArea> aoiCollisions = new ArraySet<>();
         public Set<PicArea> aoiCollisionsTakeoff = new ArraySet<>();
         public boolean simulatedTimeValid;
+        // number of airborne positions whose line of sight was checked
+        public int lineOfSightCheckedCount = 0;
+        public int lineOfSightOccludedCount = 0;
+        public Position firstPosLineOfSightOccluded = null;
     }
 
     public SimResultData getSimResult() {
@@ -0,0 +1,481 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import eu.mavinci.airspace.IAirspace;
+import eu.mavinci.core.flightplan.IFlightplanPositionReferenced;
+import eu.mavinci.core.flightplan.IFlightplanRelatedObject;
+import eu.mavinci.core.helper.MinMaxPair;
+import eu.mavinci.core.plane.AirplaneFlightphase;
+import eu.mavinci.core.plane.sendableobjects.PhotoData;
+import eu.mavinci.flightplan.PicArea;
+import eu.mavinci.flightplan.computation.FPsim.SimDistance;
+import eu.mavinci.flightplan.computation.FPsim.SimResultData;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.globes.ElevationModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simulation results of flight plans, stored in the .cache folder next to the flight plans of a mission, so a mission
+ * opens without simulating every flight plan again.
+ *
+ * <p>The cache is content addressed: the name of every file is the hex encoded key of the simulation, a hash of
+ * everything the result depends on (see {@link FPsim}). A file is never updated, a changed flight plan gets a new
+ * file, and only the most recently used files are kept.
+ *
+ * <p>Objects of the flight plan are stored as their index in the order in which a visitor finds them, areas of
+ * interest, airspaces and elevation models as their index in the lists the simulation used.
+ */
+final class SimResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimResultCache.class);
+
+    static final String FOLDER_NAME = ".cache";
+    static final String FILE_EXTENSION = ".sim";
+
+    static final int MAGIC = 0x4D495346; // "FSIM"
+    static final int VERSION = 2;
+
+    static final int MAX_FILES = 64;
+
+    private static final Field[] PHOTO_FIELDS = getPhotoFields();
+
+    private SimResultCache() {}
+
+    private static Field[] getPhotoFields() {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : PhotoData.class.getFields()) {
+            Class<?> type = field.getType();
+            if (!Modifier.isStatic(field.getModifiers())
+                    && (type == int.class
+                        || type == float.class
+                        || type == double.class
+                        || type == boolean.class
+                        || type == long.class)) {
+                fields.add(field);
+            }
+        }
+
+        // getFields() has no defined order
+        fields.sort(Comparator.comparing(Field::getName));
+        return fields.toArray(new Field[0]);
+    }
+
+    static File getCacheFile(File folder, byte[] key) {
+        StringBuilder name = new StringBuilder(2 * key.length + FILE_EXTENSION.length());
+        for (byte b : key) {
+            name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return new File(new File(folder, FOLDER_NAME), name.append(FILE_EXTENSION).toString());
+    }
+
+    /**
+     * Reads the cached result of a simulation into an empty result.
+     *
+     * @param objects all objects of the flight plan, in the order of a visitor
+     * @param picAreas the areas of interest of the flight plan
+     * @param airspaces the airspaces around the flight plan
+     * @param elevationModels the elevation models the elevation data may come from
+     * @return false if there is no cached result, or it doesn't fit the flight plan, or it is broken
+     */
+    static boolean read(
+            File folder,
+            byte[] key,
+            SimResultData result,
+            List<? extends IFlightplanRelatedObject> objects,
+            List<PicArea> picAreas,
+            List<IAirspace> airspaces,
+            List<ElevationModel> elevationModels) {
+        File file = getCacheFile(folder, key);
+        if (!file.isFile()) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            DataInputStream data = new DataInputStream(new CheckedInputStream(in, crc));
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                return false;
+            }
+
+            byte[] storedKey = new byte[data.readInt()];
+            data.readFully(storedKey);
+            if (!Arrays.equals(key, storedKey)
+                    || data.readInt() != objects.size()
+                    || data.readInt() != picAreas.size()
+                    || data.readInt() != airspaces.size()) {
+                LOG.debug("ignoring simulation cache {} of another flight plan", file);
+                return false;
+            }
+
+            Reader reader = new Reader(data, objects, picAreas, airspaces, elevationModels);
+            reader.readResult(result);
+            long expectedCrc = crc.getValue();
+            if (new DataInputStream(in).readLong() != expectedCrc) {
+                LOG.warn("ignoring broken simulation cache {}", file);
+                return false;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("could not read simulation cache " + file, e);
+            return false;
+        }
+
+        // keep it from being evicted
+        file.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Stores the result of a simulation, written to a temporary file first, so a cache file is never seen half
+     * written.
+     *
+     * @param objects all objects of the simulated flight plan, in the order of a visitor
+     */
+    static void write(
+            File folder,
+            byte[] key,
+            SimResultData result,
+            List<? extends IFlightplanRelatedObject> objects,
+            List<PicArea> picAreas,
+            List<IAirspace> airspaces,
+            List<ElevationModel> elevationModels) {
+        File file = getCacheFile(folder, key);
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            CRC32 crc = new CRC32();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath()))) {
+                DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, crc));
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(key.length);
+                data.write(key);
+                data.writeInt(objects.size());
+                data.writeInt(picAreas.size());
+                data.writeInt(airspaces.size());
+                new Writer(data, objects, picAreas, airspaces, elevationModels).writeResult(result);
+                data.flush();
+                new DataOutputStream(out).writeLong(crc.getValue());
+            }
+
+            Files.move(
+                tmpFile.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("could not write simulation cache " + file, e);
+            tmpFile.delete();
+            return;
+        }
+
+        evict(file.getParentFile());
+    }
+
+    private static void evict(File cacheFolder) {
+        File[] files = cacheFolder.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null || files.length <= MAX_FILES) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAX_FILES; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    private static final class Writer {
+        private final DataOutputStream data;
+        private final Map<Object, Integer> objectIndices = new IdentityHashMap<>();
+        private final Map<Object, Integer> picAreaIndices = new IdentityHashMap<>();
+        private final Map<Object, Integer> airspaceIndices = new IdentityHashMap<>();
+        private final Map<Object, Integer> elevationModelIndices = new IdentityHashMap<>();
+
+        Writer(
+                DataOutputStream data,
+                List<? extends IFlightplanRelatedObject> objects,
+                List<PicArea> picAreas,
+                List<IAirspace> airspaces,
+                List<ElevationModel> elevationModels) {
+            this.data = data;
+            index(objects, objectIndices);
+            index(picAreas, picAreaIndices);
+            index(airspaces, airspaceIndices);
+            index(elevationModels, elevationModelIndices);
+        }
+
+        private static void index(List<?> list, Map<Object, Integer> indices) {
+            for (int i = 0; i != list.size(); i++) {
+                indices.putIfAbsent(list.get(i), i);
+            }
+        }
+
+        private static int indexOf(Map<Object, Integer> indices, Object value) {
+            if (value == null) {
+                return -1;
+            }
+
+            Integer index = indices.get(value);
+            if (index == null) {
+                throw new IllegalArgumentException("unknown object " + value);
+            }
+
+            return index;
+        }
+
+        void writeResult(SimResultData result) throws IOException {
+            data.writeDouble(result.distance);
+            data.writeDouble(result.flightTime);
+            writeMinMax(result.minMaxDistanceToGround);
+            writeMinMax(result.minMaxDistanceToMSL);
+            writeMinMax(result.minMaxHeightOverTakeoff);
+            writeMinMax(result.minMaxDistanceToTakeoff);
+            writePosition(result.worstPostGroundDistance);
+            data.writeInt(indexOf(objectIndices, result.first));
+            data.writeInt(indexOf(objectIndices, result.last));
+            data.writeInt(indexOf(objectIndices, result.firstFPobj));
+            data.writeInt(indexOf(airspaceIndices, result.lowestAirspace));
+            data.writeDouble(result.minDistanceToFloor);
+            writePosition(result.worstPostAispraceDistance);
+            writePicAreas(result.aoiCollisions);
+            writePicAreas(result.aoiCollisionsTakeoff);
+            data.writeInt(result.lineOfSightCheckedCount);
+            data.writeInt(result.lineOfSightOccludedCount);
+            writePosition(result.firstPosLineOfSightOccluded);
+
+            data.writeInt(result.progressMap.size());
+            for (Map.Entry<Integer, Double> entry : result.progressMap.entrySet()) {
+                data.writeInt(entry.getKey());
+                data.writeDouble(entry.getValue());
+            }
+
+            data.writeInt(result.posMap.size());
+            for (Map.Entry<Integer, IFlightplanPositionReferenced> entry : result.posMap.entrySet()) {
+                data.writeInt(entry.getKey());
+                data.writeInt(indexOf(objectIndices, entry.getValue()));
+            }
+
+            data.writeInt(result.photos.size());
+            for (PhotoData photo : result.photos) {
+                writePhoto(photo);
+            }
+
+            data.writeInt(result.simDistances.size());
+            for (SimDistance simDistance : result.simDistances) {
+                data.writeUTF(simDistance.flightPhase == null ? "" : simDistance.flightPhase.name());
+                data.writeInt(indexOf(objectIndices, simDistance.fpRelObjectHeading));
+                writePosition(simDistance.position);
+                data.writeBoolean(simDistance.positionOverGround == simDistance.position);
+                if (simDistance.positionOverGround != simDistance.position) {
+                    writePosition(simDistance.positionOverGround);
+                }
+
+                ElevationModel elevationSource =
+                    simDistance.elevationSource == null ? null : simDistance.elevationSource.get();
+                Integer elevationModelIndex = elevationModelIndices.get(elevationSource);
+                data.writeInt(elevationModelIndex == null ? -1 : elevationModelIndex);
+                data.writeDouble(simDistance.groundDistanceMeter);
+                data.writeDouble(simDistance.airspaceDistanceMeter);
+                data.writeInt(indexOf(airspaceIndices, simDistance.lowestAirspace));
+                data.writeBoolean(simDistance.lineOfSightOccluded);
+                writePicAreas(simDistance.aoiCollisions);
+            }
+        }
+
+        private void writeMinMax(MinMaxPair minMax) throws IOException {
+            data.writeDouble(minMax.min);
+            data.writeDouble(minMax.max);
+        }
+
+        private void writePosition(Position position) throws IOException {
+            data.writeBoolean(position != null);
+            if (position != null) {
+                data.writeDouble(position.latitude.degrees);
+                data.writeDouble(position.longitude.degrees);
+                data.writeDouble(position.elevation);
+            }
+        }
+
+        private void writePicAreas(Set<PicArea> picAreas) throws IOException {
+            data.writeInt(picAreas.size());
+            for (PicArea picArea : picAreas) {
+                data.writeInt(indexOf(picAreaIndices, picArea));
+            }
+        }
+
+        private void writePhoto(PhotoData photo) throws IOException {
+            try {
+                for (Field field : PHOTO_FIELDS) {
+                    Class<?> type = field.getType();
+                    if (type == int.class) {
+                        data.writeInt(field.getInt(photo));
+                    } else if (type == float.class) {
+                        data.writeFloat(field.getFloat(photo));
+                    } else if (type == double.class) {
+                        data.writeDouble(field.getDouble(photo));
+                    } else if (type == boolean.class) {
+                        data.writeBoolean(field.getBoolean(photo));
+                    } else {
+                        data.writeLong(field.getLong(photo));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream data;
+        private final List<? extends IFlightplanRelatedObject> objects;
+        private final List<PicArea> picAreas;
+        private final List<IAirspace> airspaces;
+        private final List<ElevationModel> elevationModels;
+
+        Reader(
+                DataInputStream data,
+                List<? extends IFlightplanRelatedObject> objects,
+                List<PicArea> picAreas,
+                List<IAirspace> airspaces,
+                List<ElevationModel> elevationModels) {
+            this.data = data;
+            this.objects = objects;
+            this.picAreas = picAreas;
+            this.airspaces = airspaces;
+            this.elevationModels = elevationModels;
+        }
+
+        private static <T> T get(List<T> list, int index) {
+            return index < 0 ? null : list.get(index);
+        }
+
+        void readResult(SimResultData result) throws IOException {
+            result.distance = data.readDouble();
+            result.flightTime = data.readDouble();
+            readMinMax(result.minMaxDistanceToGround);
+            readMinMax(result.minMaxDistanceToMSL);
+            readMinMax(result.minMaxHeightOverTakeoff);
+            readMinMax(result.minMaxDistanceToTakeoff);
+            result.worstPostGroundDistance = readPosition();
+            result.first = (IFlightplanPositionReferenced)get(objects, data.readInt());
+            result.last = (IFlightplanPositionReferenced)get(objects, data.readInt());
+            result.firstFPobj = get(objects, data.readInt());
+            result.lowestAirspace = get(airspaces, data.readInt());
+            result.minDistanceToFloor = data.readDouble();
+            result.worstPostAispraceDistance = readPosition();
+            readPicAreas(result.aoiCollisions);
+            readPicAreas(result.aoiCollisionsTakeoff);
+            result.lineOfSightCheckedCount = data.readInt();
+            result.lineOfSightOccludedCount = data.readInt();
+            result.firstPosLineOfSightOccluded = readPosition();
+
+            for (int i = data.readInt(); i > 0; i--) {
+                result.progressMap.put(data.readInt(), data.readDouble());
+            }
+
+            for (int i = data.readInt(); i > 0; i--) {
+                int reentryPoint = data.readInt();
+                result.posMap.put(reentryPoint, (IFlightplanPositionReferenced)get(objects, data.readInt()));
+            }
+
+            int photoCount = data.readInt();
+            result.photos.ensureCapacity(photoCount);
+            for (int i = 0; i != photoCount; i++) {
+                result.photos.add(readPhoto());
+            }
+
+            int simDistanceCount = data.readInt();
+            result.simDistances.ensureCapacity(simDistanceCount);
+            for (int i = 0; i != simDistanceCount; i++) {
+                SimDistance simDistance = new SimDistance();
+                String flightPhase = data.readUTF();
+                simDistance.flightPhase = flightPhase.isEmpty() ? null : AirplaneFlightphase.valueOf(flightPhase);
+                simDistance.fpRelObjectHeading = get(objects, data.readInt());
+                simDistance.position = readPosition();
+                simDistance.positionOverGround = data.readBoolean() ? simDistance.position : readPosition();
+                simDistance.elevationSource = new WeakReference<>(get(elevationModels, data.readInt()));
+                simDistance.groundDistanceMeter = data.readDouble();
+                simDistance.airspaceDistanceMeter = data.readDouble();
+                simDistance.lowestAirspace = get(airspaces, data.readInt());
+                simDistance.lineOfSightOccluded = data.readBoolean();
+                readPicAreas(simDistance.aoiCollisions);
+                result.simDistances.add(simDistance);
+            }
+        }
+
+        private void readMinMax(MinMaxPair minMax) throws IOException {
+            minMax.min = data.readDouble();
+            minMax.max = data.readDouble();
+        }
+
+        private Position readPosition() throws IOException {
+            if (!data.readBoolean()) {
+                return null;
+            }
+
+            double lat = data.readDouble();
+            double lon = data.readDouble();
+            return Position.fromDegrees(lat, lon, data.readDouble());
+        }
+
+        private void readPicAreas(Set<PicArea> result) throws IOException {
+            for (int i = data.readInt(); i > 0; i--) {
+                result.add(picAreas.get(data.readInt()));
+            }
+        }
+
+        private PhotoData readPhoto() throws IOException {
+            PhotoData photo = new PhotoData();
+            try {
+                for (Field field : PHOTO_FIELDS) {
+                    Class<?> type = field.getType();
+                    if (type == int.class) {
+                        field.setInt(photo, data.readInt());
+                    } else if (type == float.class) {
+                        field.setFloat(photo, data.readFloat());
+                    } else if (type == double.class) {
+                        field.setDouble(photo, data.readDouble());
+                    } else if (type == boolean.class) {
+                        field.setBoolean(photo, data.readBoolean());
+                    } else {
+                        field.setLong(photo, data.readLong());
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return photo;
+        }
+    }
+
+}
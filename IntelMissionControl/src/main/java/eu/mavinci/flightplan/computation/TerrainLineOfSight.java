@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import com.intel.missioncontrol.map.elevation.IElevationModel;
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globes.Earth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Terrain occlusion between an observer (pilot / ground station) and many targets (positions along the flight path).
+ *
+ * <p>The terrain of the whole area is sampled once into a regular lat/lon grid with a single bulk request to the
+ * elevation model, afterwards every sight line is ray marched through that grid with half a cell step width and
+ * bilinear interpolation, taking the earth curvature into account. No further elevation model requests are done, so
+ * the sight lines can be checked concurrently.
+ */
+public class TerrainLineOfSight {
+
+    /** height of the eyes / antenna of the pilot over ground */
+    public static final double OBSERVER_HEIGHT_OVER_GROUND = 2;
+
+    static final int MAX_CELLS_PER_DIRECTION = 256;
+    static final double MIN_CELL_SIZE_METER = IElevationModel.ELEVATION_SAMPLE_DISTANCE;
+
+    private static final int MIN_TARGETS_PER_TASK = 64;
+
+    private final double minLatRad;
+    private final double minLonRad;
+    private final double cellLatRad;
+    private final double cellLonRad;
+    private final int rows;
+    private final int cols;
+    private final float[] elevations;
+    private final double metersPerRadLat;
+    private final double metersPerRadLon;
+
+    TerrainLineOfSight(Sector sector, int rows, int cols, float[] elevations) {
+        if (rows < 2 || cols < 2 || elevations.length != rows * cols) {
+            throw new IllegalArgumentException("invalid grid " + rows + "x" + cols);
+        }
+
+        this.minLatRad = sector.getMinLatitude().radians;
+        this.minLonRad = sector.getMinLongitude().radians;
+        this.cellLatRad = sector.getDeltaLatRadians() / (rows - 1);
+        this.cellLonRad = sector.getDeltaLonRadians() / (cols - 1);
+        this.rows = rows;
+        this.cols = cols;
+        this.elevations = elevations;
+        this.metersPerRadLat = Earth.WGS84_EQUATORIAL_RADIUS;
+        this.metersPerRadLon = Earth.WGS84_EQUATORIAL_RADIUS * Math.cos(sector.getCentroid().latitude.radians);
+    }
+
+    /**
+     * Samples the terrain covering the observer and all targets.
+     *
+     * @return the sampled terrain, or null if there is nothing to sample
+     */
+    public static TerrainLineOfSight sample(
+            IElevationModel elevationModel, LatLon observer, List<? extends LatLon> targets) {
+        if (targets.isEmpty()) {
+            return null;
+        }
+
+        List<LatLon> all = new ArrayList<>(targets.size() + 1);
+        all.addAll(targets);
+        all.add(observer);
+        Sector sector = Sector.boundingSector(all);
+
+        double cosLat = Math.max(0.01, Math.cos(sector.getCentroid().latitude.radians));
+        double heightMeter = sector.getDeltaLatRadians() * Earth.WGS84_EQUATORIAL_RADIUS;
+        double widthMeter = sector.getDeltaLonRadians() * Earth.WGS84_EQUATORIAL_RADIUS * cosLat;
+        double cellSize =
+            Math.max(MIN_CELL_SIZE_METER, Math.max(heightMeter, widthMeter) / (MAX_CELLS_PER_DIRECTION - 3));
+
+        // one cell of margin around everything, so that no position is at the very border of the grid
+        double cellLat = cellSize / Earth.WGS84_EQUATORIAL_RADIUS;
+        double cellLon = cellLat / cosLat;
+        sector =
+            Sector.fromRadians(
+                sector.getMinLatitude().radians - cellLat,
+                sector.getMaxLatitude().radians + cellLat,
+                sector.getMinLongitude().radians - cellLon,
+                sector.getMaxLongitude().radians + cellLon);
+
+        int rows = Math.max(2, (int)Math.ceil(sector.getDeltaLatRadians() / cellLat) + 1);
+        int cols = Math.max(2, (int)Math.ceil(sector.getDeltaLonRadians() / cellLon) + 1);
+        List<LatLon> grid = new ArrayList<>(rows * cols);
+        for (int row = 0; row != rows; row++) {
+            double lat = sector.getMinLatitude().radians + row * sector.getDeltaLatRadians() / (rows - 1);
+            for (int col = 0; col != cols; col++) {
+                double lon = sector.getMinLongitude().radians + col * sector.getDeltaLonRadians() / (cols - 1);
+                grid.add(LatLon.fromRadians(lat, lon));
+            }
+        }
+
+        double[] buffer = new double[grid.size()];
+        elevationModel.getElevations(sector, grid, cellLat, buffer, null);
+        float[] elevations = new float[buffer.length];
+        for (int i = 0; i != buffer.length; i++) {
+            elevations[i] = (float)buffer[i];
+        }
+
+        return new TerrainLineOfSight(sector, rows, cols, elevations);
+    }
+
+    /** Ground elevation (WGS84) at a location, interpolated from the sampled grid. */
+    public double getElevation(LatLon latLon) {
+        return interpolate(toRow(latLon.latitude), toCol(latLon.longitude));
+    }
+
+    /** The observer is placed {@link #OBSERVER_HEIGHT_OVER_GROUND} above the sampled terrain. */
+    public Position getObserverPosition(LatLon observer) {
+        return new Position(observer, getElevation(observer) + OBSERVER_HEIGHT_OVER_GROUND);
+    }
+
+    /**
+     * @param from absolute position (WGS84 elevation)
+     * @param to absolute position (WGS84 elevation)
+     * @return true if no terrain is between both positions
+     */
+    public boolean isVisible(Position from, Position to) {
+        double row0 = toRow(from.latitude);
+        double col0 = toCol(from.longitude);
+        double dRow = toRow(to.latitude) - row0;
+        double dCol = toCol(to.longitude) - col0;
+        double distance = Math.hypot(dRow * cellLatRad * metersPerRadLat, dCol * cellLonRad * metersPerRadLon);
+        int steps = (int)Math.ceil(Math.max(Math.abs(dRow), Math.abs(dCol)) * 2);
+
+        double h0 = from.elevation;
+        double dh = to.elevation - from.elevation;
+        double curvature = distance * distance / (2 * Earth.WGS84_EQUATORIAL_RADIUS);
+        // the first and last cell are skipped: the grid can't resolve the terrain any closer to the ends, and targets
+        // close to the ground (e.g. during takeoff and landing) would be occluded by the ground they are standing on
+        for (int i = 2; i <= steps - 2; i++) {
+            double t = (double)i / steps;
+            // the earth is bulging up between both ends of the line, by t(1-t)d^2/2R
+            double ground = interpolate(row0 + t * dRow, col0 + t * dCol) + t * (1 - t) * curvature;
+            if (ground > h0 + t * dh) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks the sight lines from the observer to all targets, split into tasks on the given (shared) executor.
+     *
+     * @return for every target whether it is hidden behind terrain
+     */
+    public boolean[] computeOccluded(final Position observer, final List<Position> targets, ExecutorService executor)
+            throws InterruptedException {
+        final boolean[] occluded = new boolean[targets.size()];
+        int tasks =
+            Math.max(
+                1,
+                Math.min(Runtime.getRuntime().availableProcessors(), targets.size() / MIN_TARGETS_PER_TASK));
+        if (tasks == 1) {
+            computeOccluded(observer, targets, occluded, 0, targets.size());
+            return occluded;
+        }
+
+        List<Callable<Void>> callables = new ArrayList<>(tasks);
+        for (int i = 0; i != tasks; i++) {
+            final int start = (int)((long)targets.size() * i / tasks);
+            final int end = (int)((long)targets.size() * (i + 1) / tasks);
+            callables.add(
+                () -> {
+                    computeOccluded(observer, targets, occluded, start, end);
+                    return null;
+                });
+        }
+
+        for (Future<Void> future : executor.invokeAll(callables)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("line of sight computation failed", e.getCause());
+            }
+        }
+
+        return occluded;
+    }
+
+    private void computeOccluded(Position observer, List<Position> targets, boolean[] occluded, int start, int end) {
+        for (int i = start; i != end; i++) {
+            occluded[i] = !isVisible(observer, targets.get(i));
+        }
+    }
+
+    private double toRow(Angle latitude) {
+        return (latitude.radians - minLatRad) / cellLatRad;
+    }
+
+    private double toCol(Angle longitude) {
+        return (longitude.radians - minLonRad) / cellLonRad;
+    }
+
+    private double interpolate(double row, double col) {
+        row = Math.max(0, Math.min(rows - 1, row));
+        col = Math.max(0, Math.min(cols - 1, col));
+        int r = Math.min(rows - 2, (int)row);
+        int c = Math.min(cols - 2, (int)col);
+        double fr = row - r;
+        double fc = col - c;
+        int i = r * cols + c;
+        double bottom = elevations[i] + (elevations[i + 1] - elevations[i]) * fc;
+        double top = elevations[i + cols] + (elevations[i + cols + 1] - elevations[i + cols]) * fc;
+        return bottom + (top - bottom) * fr;
+    }
+
+}
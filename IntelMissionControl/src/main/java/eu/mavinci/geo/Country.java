@@ -7,15 +7,11 @@
 package eu.mavinci.geo;
 
 import eu.mavinci.airspace.Airspace;
-import eu.mavinci.airspace.Point;
 import eu.mavinci.core.helper.MinMaxPair;
 import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.globes.Earth;
-import eu.mavinci.core.helper.MinMaxPair;
-
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -200,41 +196,106 @@ public class Country extends GeoRestriction {
         return sRough;
     }
 
-    private List<Point> getXYVertices(ArrayList<LatLon> border, double ref_lat_radians, double ref_lon_radians) {
-        List<LatLon> pol_vertices = border;
-        List<Point> xy_vertices = new LinkedList<Point>();
-        for (LatLon p : pol_vertices) {
-            double angular_dist_lat = p.getLatitude().getRadians() - ref_lat_radians;
-            double angular_dist_lon = p.getLongitude().getRadians() - ref_lon_radians;
-            double x_meters = angular_dist_lon * 180 / Math.PI * 60 * Airspace.NM_TO_METER * Math.cos(ref_lat_radians);
-            double y_meters = angular_dist_lat * 180 / Math.PI * 60 * Airspace.NM_TO_METER;
-            xy_vertices.add(new Point(x_meters, y_meters));
+    /** meter per radian of latitude, in the flat projection around the reference point used by distance() */
+    private static final double METER_PER_RADIAN = 180 / Math.PI * 60 * Airspace.NM_TO_METER;
+
+    /**
+     * A border as arrays of radians with its bounding box. Containment and distance are computed on these arrays
+     * without creating a list of projected points per border and query, and a whole border is skipped if its bounding
+     * box is already too far away.
+     */
+    private static final class Border {
+        final double[] lat;
+        final double[] lon;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+
+        Border(List<LatLon> border) {
+            int n = border.size();
+            lat = new double[n];
+            lon = new double[n];
+            for (int i = 0; i < n; i++) {
+                LatLon p = border.get(i);
+                lat[i] = p.getLatitude().getRadians();
+                lon[i] = p.getLongitude().getRadians();
+                minLat = Math.min(minLat, lat[i]);
+                maxLat = Math.max(maxLat, lat[i]);
+                minLon = Math.min(minLon, lon[i]);
+                maxLon = Math.max(maxLon, lon[i]);
+            }
         }
 
-        return xy_vertices;
+        boolean isOutside(double ref_lat_radians, double ref_lon_radians) {
+            return ref_lat_radians < minLat
+                || ref_lat_radians > maxLat
+                || ref_lon_radians < minLon
+                || ref_lon_radians > maxLon;
+        }
+
+        /** @return a lower bound of the distance of the reference point to this border */
+        double getMinDistance(double ref_lat_radians, double ref_lon_radians, double cos_ref_lat) {
+            return getMinDistance(ref_lat_radians, ref_lon_radians, cos_ref_lat, minLat, maxLat, minLon, maxLon);
+        }
+
+        /**
+         * Every projected vertex is at least as far away from the reference point as the bounding box along each axis.
+         * The bound is lowered a tiny bit, so rounding of the projection never makes it larger than the exact distance.
+         */
+        static double getMinDistance(
+                double ref_lat_radians,
+                double ref_lon_radians,
+                double cos_ref_lat,
+                double minLat,
+                double maxLat,
+                double minLon,
+                double maxLon) {
+            double dLat = Math.max(0, Math.max(minLat - ref_lat_radians, ref_lat_radians - maxLat));
+            double dLon = Math.max(0, Math.max(minLon - ref_lon_radians, ref_lon_radians - maxLon));
+            return Math.max(dLat * METER_PER_RADIAN, dLon * METER_PER_RADIAN * cos_ref_lat) * (1 - 1e-9);
+        }
     }
 
-    private void getCoordinateArray(List<Point> xy_vertices, double[] x, double[] y) {
-        int k = 0;
-        for (Point v : xy_vertices) {
-            x[k] = v.x;
-            y[k] = v.y;
-            k++;
+    private Border[] preparedBorders;
+    private double minLat;
+    private double maxLat;
+    private double minLon;
+    private double maxLon;
+
+    /** @return the borders as arrays, prepared again if borders were added since the last call */
+    private synchronized Border[] getPreparedBorders() {
+        if (preparedBorders == null || preparedBorders.length != borders.size()) {
+            s = null;
+            sRough = null;
+            Border[] prepared = new Border[borders.size()];
+            minLat = Double.POSITIVE_INFINITY;
+            maxLat = Double.NEGATIVE_INFINITY;
+            minLon = Double.POSITIVE_INFINITY;
+            maxLon = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < prepared.length; i++) {
+                prepared[i] = new Border(borders.get(i));
+                minLat = Math.min(minLat, prepared[i].minLat);
+                maxLat = Math.max(maxLat, prepared[i].maxLat);
+                minLon = Math.min(minLon, prepared[i].minLon);
+                maxLon = Math.max(maxLon, prepared[i].maxLon);
+            }
+
+            preparedBorders = prepared;
         }
-        // close the polygon by adding the first point again at the last
-        // position
-        x[k] = xy_vertices.get(0).x;
-        y[k] = xy_vertices.get(0).y;
+
+        return preparedBorders;
     }
 
     public boolean contains(LatLon latLon) {
+        Border[] prepared = getPreparedBorders();
         if (!getSector().contains(latLon)) {
             return false;
         }
 
         double ref_lat_radians = latLon.getLatitude().getRadians();
         double ref_lon_radians = latLon.getLongitude().getRadians();
-        for (ArrayList<LatLon> border : borders) {
+        for (Border border : prepared) {
             if (contains(ref_lat_radians, ref_lon_radians, border)) {
                 return true;
             }
@@ -244,10 +305,29 @@ public class Country extends GeoRestriction {
     }
 
     public boolean contains(double ref_lat_radians, double ref_lon_radians, ArrayList<LatLon> border) {
-        List<Point> xy_vertices = getXYVertices(border, ref_lat_radians, ref_lon_radians);
-        double x[] = new double[xy_vertices.size() + 1];
-        double y[] = new double[xy_vertices.size() + 1];
-        getCoordinateArray(xy_vertices, x, y);
+        return contains(ref_lat_radians, ref_lon_radians, new Border(border));
+    }
+
+    private static boolean contains(double ref_lat_radians, double ref_lon_radians, Border border) {
+        // a point outside of the bounding box is outside of the polygon, whichever way the ray is cast
+        if (border.isOutside(ref_lat_radians, ref_lon_radians)) {
+            return false;
+        }
+
+        int n = border.lat.length;
+        double[] x = new double[n + 1];
+        double[] y = new double[n + 1];
+        double cos_ref_lat = Math.cos(ref_lat_radians);
+        for (int i = 0; i < n; i++) {
+            double angular_dist_lat = border.lat[i] - ref_lat_radians;
+            double angular_dist_lon = border.lon[i] - ref_lon_radians;
+            x[i] = angular_dist_lon * 180 / Math.PI * 60 * Airspace.NM_TO_METER * cos_ref_lat;
+            y[i] = angular_dist_lat * 180 / Math.PI * 60 * Airspace.NM_TO_METER;
+        }
+        // close the polygon by adding the first point again at the last
+        // position
+        x[n] = x[0];
+        y[n] = y[0];
 
         double c, s; // Ray direction
         // First try: Ray directly upwards:
@@ -258,7 +338,7 @@ public class Country extends GeoRestriction {
         boolean special_case = false;
         do {
             special_case = false;
-            for (int i = 0; i < xy_vertices.size(); i++) {
+            for (int i = 0; i < n; i++) {
                 // Does the ray hit a vertex, then select another ray
                 if (c * (y[i]) == s * (x[i])) {
                     special_case = true;
@@ -268,40 +348,55 @@ public class Country extends GeoRestriction {
             if (special_case) {
                 // if we hit a vertex, randomly select another ray direction
                 // in first quadrant until we not hit a vertex
-                // System.out.println("Hit vertex");
                 c = Math.random();
             }
         } while (special_case);
 
         int hits = 0;
-        for (int i = 0; i < xy_vertices.size(); i++) {
+        for (int i = 0; i < n; i++) {
             double d = c * (y[i] - y[i + 1]) - s * (x[i] - x[i + 1]);
             double a = x[i] * (y[i] - y[i + 1]) - y[i] * (x[i] - x[i + 1]);
             double m = c * y[i] - s * x[i];
-            // System.out.println("Checking ("+(int)c+","+(int)s+") ray bewteen ("+(int)x[i]+","+(int)y[i]+") and
-            // ("+(int)x[i+1]+","+(int)y[i+1]+")");
             if (((d > 0) && (a > 0) && (m > 0) && (m < d)) || ((d < 0) && (a < 0) && (m < 0) && (m > d))) {
                 hits++;
             }
         }
 
-        if (hits % 2 == 0) {
-            return false;
-        } else {
-            return true;
-        }
+        return hits % 2 != 0;
     }
 
     public boolean withinSafetyDistance(LatLon latLon) {
-        return distance(latLon) <= SAFETY_MARGIN;
+        return withinSafetyDistance(latLon, SAFETY_MARGIN);
     }
 
     public boolean withinSafetyDistance(LatLon latLon, double safetDistance) {
+        // outside of the bounding box the distance is positive and at least the one to the box
+        getPreparedBorders();
+        double ref_lat_radians = latLon.getLatitude().getRadians();
+        double ref_lon_radians = latLon.getLongitude().getRadians();
+        double minDistance =
+            Border.getMinDistance(
+                ref_lat_radians, ref_lon_radians, Math.cos(ref_lat_radians), minLat, maxLat, minLon, maxLon);
+        if (minDistance > safetDistance) {
+            return false;
+        }
+
         return distance(latLon) <= safetDistance;
     }
 
     public boolean withinSafetyDistance(Sector sector) {
-        return distance(sector) <= SAFETY_MARGIN;
+        // same as distance(sector) <= SAFETY_MARGIN, but stops at the first point which is close enough
+        if (withinSafetyDistance(sector.getCentroid())) {
+            return true;
+        }
+
+        for (LatLon corner : sector.getCorners()) {
+            if (withinSafetyDistance(corner)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -322,46 +417,60 @@ public class Country extends GeoRestriction {
     }
 
     public double distance(LatLon latLon) {
-        // if (!getSafetySector().contains(latLon)) return SAFETY_MARGIN+1;
         int sign = contains(latLon) ? -1 : 1;
-        MinMaxPair p = new MinMaxPair();
         double ref_lat_radians = latLon.getLatitude().getRadians();
         double ref_lon_radians = latLon.getLongitude().getRadians();
-        for (ArrayList<LatLon> border : borders) {
-            p.update(distance(ref_lat_radians, ref_lon_radians, border));
+        double cos_ref_lat = Math.cos(ref_lat_radians);
+        double min = Double.POSITIVE_INFINITY;
+        for (Border border : getPreparedBorders()) {
+            if (border.getMinDistance(ref_lat_radians, ref_lon_radians, cos_ref_lat) <= min) {
+                min = Math.min(min, distance(ref_lat_radians, ref_lon_radians, cos_ref_lat, border));
+            }
         }
 
-        return sign * p.min;
+        return sign * min;
     }
 
-    private double distance(double ref_lat_radians, double ref_lon_radians, ArrayList<LatLon> border) {
-        List<Point> xy_vertices = getXYVertices(border, ref_lat_radians, ref_lon_radians);
-        double x[] = new double[xy_vertices.size() + 1];
-        double y[] = new double[xy_vertices.size() + 1];
-        getCoordinateArray(xy_vertices, x, y);
-        MinMaxPair minMax = new MinMaxPair();
-        // ref point is in center (0,0)
-        for (int i = 0; i < xy_vertices.size(); i++) {
-            double dx = (x[i + 1] - x[i]);
-            double dy = (y[i + 1] - y[i]);
-            double len2 = (dx * dx + dy * dy);
-            if (len2 == 0) {
-                continue;
+    private static double distance(
+            double ref_lat_radians, double ref_lon_radians, double cos_ref_lat, Border border) {
+        int n = border.lat.length;
+        if (n == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        // ref point is in center (0,0), the last vertex is connected to the first one
+        double x0 = (border.lon[0] - ref_lon_radians) * 180 / Math.PI * 60 * Airspace.NM_TO_METER * cos_ref_lat;
+        double y0 = (border.lat[0] - ref_lat_radians) * 180 / Math.PI * 60 * Airspace.NM_TO_METER;
+        double xi = x0;
+        double yi = y0;
+        for (int i = 0; i < n; i++) {
+            double xj = x0;
+            double yj = y0;
+            if (i + 1 < n) {
+                xj = (border.lon[i + 1] - ref_lon_radians) * 180 / Math.PI * 60 * Airspace.NM_TO_METER * cos_ref_lat;
+                yj = (border.lat[i + 1] - ref_lat_radians) * 180 / Math.PI * 60 * Airspace.NM_TO_METER;
             }
 
-            double t = (-x[i] * dx - y[i] * dy) / len2;
-            if (t <= 0) {
-                minMax.update(Math.sqrt(x[i] * x[i] + y[i] * y[i]));
-            } else if (t >= 1) {
-                minMax.update(Math.sqrt(x[i] * x[i] + y[i] * y[i]));
-            } else {
-                double xp = x[i] + t * dx;
-                double yp = y[i] + t * dy;
-                minMax.update(Math.sqrt(xp * xp + yp * yp));
+            double dx = (xj - xi);
+            double dy = (yj - yi);
+            double len2 = (dx * dx + dy * dy);
+            if (len2 != 0) {
+                double t = (-xi * dx - yi * dy) / len2;
+                if (t <= 0 || t >= 1) {
+                    min = Math.min(min, Math.sqrt(xi * xi + yi * yi));
+                } else {
+                    double xp = xi + t * dx;
+                    double yp = yi + t * dy;
+                    min = Math.min(min, Math.sqrt(xp * xp + yp * yp));
+                }
             }
+
+            xi = xj;
+            yi = yj;
         }
 
-        return minMax.min;
+        return min;
     }
 
     public boolean intersect(Sector sector) {
@@ -15,6 +15,7 @@ import com.intel.missioncontrol.settings.ISettingsManager;
 import com.intel.missioncontrol.settings.OperationLevel;
 import com.intel.missioncontrol.ui.notifications.Toast;
 import com.intel.missioncontrol.ui.notifications.ToastType;
+import eu.mavinci.airspace.Airspace;
 import eu.mavinci.core.helper.IGeoFenceDetector;
 import eu.mavinci.desktop.main.debug.Debug;
 import gov.nasa.worldwind.geom.LatLon;
@@ -23,10 +24,13 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeMap;
 import java.util.logging.Level;
+import java.util.stream.IntStream;
 
 public class CountryDetector implements ICountryDetector {
 
@@ -107,6 +111,18 @@ public class CountryDetector implements ICountryDetector {
 
     public final TreeMap<String, Country> countries;
 
+    /** lists of positions at least this long are checked in parallel */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * The countries which are within their safety distance of any point of a 1° x 1° cell, in the order of {@link
+     * #countries}, so a query only has to look at the few countries of its cell instead of all of them. The index is
+     * built once for the countries the detector is created with.
+     */
+    private final Country[] countryByIndex;
+
+    private final int[][] cells = new int[180 * 360][];
+
     public CountryDetector() {
         this(loadData());
     }
@@ -114,6 +130,8 @@ public class CountryDetector implements ICountryDetector {
     public CountryDetector(TreeMap<String, Country> countries) {
         this.countries = countries;
         setupRegulations();
+        countryByIndex = countries.values().toArray(new Country[0]);
+        buildIndex();
     }
 
     private static TreeMap<String, Country> loadData() {
@@ -192,6 +210,78 @@ public class CountryDetector implements ICountryDetector {
         myCountry.radioRegulation = RadioRegulation.ce; // TODO fixme
     }
 
+    private void buildIndex() {
+        List<List<Integer>> candidates = new ArrayList<>(cells.length);
+        for (int i = 0; i < cells.length; i++) {
+            candidates.add(new ArrayList<>());
+        }
+
+        for (int index = 0; index < countryByIndex.length; index++) {
+            Country c = countryByIndex[index];
+            if (c.borders.isEmpty()) {
+                continue;
+            }
+
+            Sector sector = c.getSector();
+            // one degree of latitude is 60 nautical miles, one degree of longitude is shorter by the cosine of the
+            // latitude. The margin gets a bit extra, so the index never misses a country the exact check would find.
+            double marginDeg = c.SAFETY_MARGIN / (60 * Airspace.NM_TO_METER) * 1.01 + 0.01;
+            int minRow = getRow(sector.getMinLatitude().degrees - marginDeg);
+            int maxRow = getRow(sector.getMaxLatitude().degrees + marginDeg);
+            for (int row = minRow; row <= maxRow; row++) {
+                double cos = Math.cos(Math.toRadians(Math.max(Math.abs(row - 90), Math.abs(row - 89))));
+                double marginLonDeg = marginDeg / cos;
+                int minCol = 0;
+                int maxCol = 359;
+                if (cos > 0.01 && marginLonDeg < 180) {
+                    minCol = getColumn(sector.getMinLongitude().degrees - marginLonDeg);
+                    maxCol = getColumn(sector.getMaxLongitude().degrees + marginLonDeg);
+                }
+
+                for (int col = minCol; col <= maxCol; col++) {
+                    candidates.get(row * 360 + col).add(index);
+                }
+            }
+        }
+
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = candidates.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int getRow(double lat) {
+        return Math.max(0, Math.min(179, (int)Math.floor(lat + 90)));
+    }
+
+    private static int getColumn(double lon) {
+        return Math.max(0, Math.min(359, (int)Math.floor(lon + 180)));
+    }
+
+    /** @return the indices of the countries which might be within their safety distance of the given position */
+    private int[] getCandidates(LatLon latLon) {
+        return cells[getRow(latLon.latitude.degrees) * 360 + getColumn(latLon.longitude.degrees)];
+    }
+
+    /** @return the indices of the countries which might be within their safety distance of any of the positions */
+    private BitSet getCandidates(List<? extends LatLon> positions) {
+        BitSet candidates = new BitSet(countryByIndex.length);
+        for (LatLon latLon : positions) {
+            for (int index : getCandidates(latLon)) {
+                candidates.set(index);
+            }
+        }
+
+        return candidates;
+    }
+
+    /** the centroid and the corners of the sector, the positions of which the distance to a country is estimated */
+    private static List<LatLon> getCheckPositions(Sector sector) {
+        List<LatLon> positions = new ArrayList<>(5);
+        positions.add(sector.getCentroid());
+        positions.addAll(Arrays.asList(sector.getCorners()));
+        return positions;
+    }
+
     public static final String KEY = "eu.mavinci.geo.CountryDetector";
 
     private static final ILanguageHelper languageHelper = StaticInjector.getInstance(ILanguageHelper.class);
@@ -232,15 +322,14 @@ public class CountryDetector implements ICountryDetector {
             return true;
         }
 
-        for (Country c : countries.values()) {
-            if (c.withinSafetyDistance(latLon)) {
-                if (c.isRestricted) {
-                    if (!silent) {
-                        showWarning(c);
-                    }
-
-                    return false;
+        for (int index : getCandidates(latLon)) {
+            Country c = countryByIndex[index];
+            if (c.isRestricted && c.withinSafetyDistance(latLon)) {
+                if (!silent) {
+                    showWarning(c);
                 }
+
+                return false;
             }
         }
 
@@ -262,6 +351,15 @@ public class CountryDetector implements ICountryDetector {
             return true;
         }
 
+        return allowProceed(getCheckPositions(sector), silent);
+    }
+
+    @Override
+    public boolean allowProceed(List<? extends LatLon> positions, boolean silent) {
+        if (positions == null || positions.isEmpty()) {
+            return true;
+        }
+
         if (StaticInjector.getInstance(ISettingsManager.class).getSection(GeneralSettings.class).getOperationLevel()
                 == OperationLevel.DEBUG) {
             return true;
@@ -271,17 +369,11 @@ public class CountryDetector implements ICountryDetector {
             return true;
         }
 
-        boolean ok = !GeoFencing.isRestricted(sector.getCentroid());
-        // System.out.println("center "+sector.getCentroid()+" restricted:"+ok);
-        if (ok) {
-            for (LatLon corner : sector.getCorners()) {
-                if (GeoFencing.isRestricted(corner)) {
-                    // System.out.println("this corner "+corner+" restricted " + corner);
-                    ok = false;
-                    break;
-                    // } else {
-                    // System.out.println("this corner "+corner+" UNrestricted " );
-                }
+        boolean ok = true;
+        for (LatLon latLon : positions) {
+            if (GeoFencing.isRestricted(latLon)) {
+                ok = false;
+                break;
             }
         }
 
@@ -289,15 +381,15 @@ public class CountryDetector implements ICountryDetector {
             return true;
         }
 
-        for (Country c : countries.values()) {
-            if (c.withinSafetyDistance(sector)) {
-                if (c.isRestricted) {
-                    if (!silent) {
-                        showWarning(c);
-                    }
-
-                    return false;
+        BitSet candidates = getCandidates(positions);
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            Country c = countryByIndex[index];
+            if (c.isRestricted && isWithinSafetyDistance(c, positions)) {
+                if (!silent) {
+                    showWarning(c);
                 }
+
+                return false;
             }
         }
 
@@ -308,13 +400,24 @@ public class CountryDetector implements ICountryDetector {
         return false;
     }
 
+    private static boolean isWithinSafetyDistance(Country c, List<? extends LatLon> positions) {
+        for (LatLon latLon : positions) {
+            if (c.withinSafetyDistance(latLon)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public Country getFirstCountry(LatLon latLon) {
         if (latLon == null) {
             return null;
         }
 
-        for (Country c : countries.values()) {
+        for (int index : getCandidates(latLon)) {
+            Country c = countryByIndex[index];
             if (c.withinSafetyDistance(latLon)) {
                 return c;
             }
@@ -329,8 +432,11 @@ public class CountryDetector implements ICountryDetector {
             return null;
         }
 
-        for (Country c : countries.values()) {
-            if (c.withinSafetyDistance(sector)) {
+        List<LatLon> positions = getCheckPositions(sector);
+        BitSet candidates = getCandidates(positions);
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            Country c = countryByIndex[index];
+            if (isWithinSafetyDistance(c, positions)) {
                 return c;
             }
         }
@@ -338,6 +444,22 @@ public class CountryDetector implements ICountryDetector {
         return null;
     }
 
+    @Override
+    public List<Country> getFirstCountries(List<? extends LatLon> positions) {
+        if (positions == null) {
+            return null;
+        }
+
+        Country[] result = new Country[positions.size()];
+        IntStream indices = IntStream.range(0, result.length);
+        if (result.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+
+        indices.forEach(i -> result[i] = getFirstCountry(positions.get(i)));
+        return Arrays.asList(result);
+    }
+
     public List<Country> getAllCountries(LatLon latLon, double distance) {
         if (latLon == null) {
             return null;
@@ -359,7 +481,8 @@ public class CountryDetector implements ICountryDetector {
         }
 
         ArrayList<Country> l = new ArrayList<Country>();
-        for (Country c : countries.values()) {
+        for (int index : getCandidates(latLon)) {
+            Country c = countryByIndex[index];
             if (c.withinSafetyDistance(latLon)) {
                 l.add(c);
             }
@@ -373,9 +496,12 @@ public class CountryDetector implements ICountryDetector {
             return null;
         }
 
+        List<LatLon> positions = getCheckPositions(sector);
+        BitSet candidates = getCandidates(positions);
         ArrayList<Country> l = new ArrayList<Country>();
-        for (Country c : countries.values()) {
-            if (c.withinSafetyDistance(sector)) {
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            Country c = countryByIndex[index];
+            if (isWithinSafetyDistance(c, positions)) {
                 l.add(c);
             }
         }
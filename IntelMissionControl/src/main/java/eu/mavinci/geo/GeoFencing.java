@@ -10,10 +10,10 @@ import eu.mavinci.desktop.main.debug.Debug;
 import eu.mavinci.geo.CountryDetector.RadioRegulation;
 import gov.nasa.worldwind.geom.LatLon;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.logging.Level;
 
 public class GeoFencing {
@@ -21,27 +21,12 @@ public class GeoFencing {
     public static int[] fenceArr;
 
     public static void readFile(InputStream is) {
-        // fenceArr = new int[(int) fileDat.length() / 4];
-        LinkedList<Integer> lst = new LinkedList<Integer>();
-        try (DataInputStream in = new DataInputStream(is)) {
-            int i = 0;
-            while (in.available() > 0) {
-                lst.add(in.readInt());
-                i++;
-            }
-
-            fenceArr = new int[i];
-            i = 0;
-            for (int n : lst) {
-                fenceArr[i] = n;
-                // System.out.print(n+",");
-                i++;
-            }
-            // for (i = 0; i != 10; i++){
-            // System.out.print(fenceArr[i]+",");
-            // }
-            // System.out.println();
-            // System.out.println("fenceLen:" + fenceArr.length);
+        // the whole file is read at once, since reading it int by int was most of the startup time of the detector
+        try (InputStream in = is) {
+            IntBuffer ints = ByteBuffer.wrap(in.readAllBytes()).asIntBuffer();
+            int[] arr = new int[ints.remaining()];
+            ints.get(arr);
+            fenceArr = arr;
             Debug.getLog().log(Level.FINE, "GeoFence successuflly loaded with " + fenceArr.length + " entries.");
         } catch (IOException e1) {
             Debug.getLog().log(Level.SEVERE, "could not read restrictions database", e1);
@@ -8,6 +8,7 @@ package eu.mavinci.geo;
 
 import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Sector;
+import java.util.List;
 
 public interface ICountryDetector {
 
@@ -23,4 +24,15 @@ public interface ICountryDetector {
 
     Country getFirstCountry(Sector sector);
 
+    /**
+     * Checks all positions at once, e.g. the waypoints of a flight plan. Only one warning is shown, for the first
+     * restricted country close to any of them.
+     *
+     * @return false if any of the positions is in or close to a restricted country
+     */
+    boolean allowProceed(List<? extends LatLon> positions, boolean silent);
+
+    /** @return the first country within its safety distance of each position, or null entries where there is none */
+    List<Country> getFirstCountries(List<? extends LatLon> positions);
+
 }
@@ -74,10 +74,13 @@ public abstract class ALogReader extends AAirplaneConnector
     protected Vector<Line> lines = new Vector<Line>();
     protected double totalTime;
 
+    /** lines of uncompressed text logs, which are not read into {@link #lines} */
+    private LogLineIndex index;
+
     protected ProtocolInvoker invoker = new ProtocolInvoker();
 
     public int getLineCount() {
-        return lines.size();
+        return index != null ? index.size() : lines.size();
     }
 
     public int getCurrentLine() {
@@ -86,7 +89,7 @@ public abstract class ALogReader extends AAirplaneConnector
 
     public boolean hasMoreLines() {
         if (m_sim_speed >= 0) {
-            return lineNumber < lines.size() - 1;
+            return lineNumber < getLineCount() - 1;
         } else {
             return lineNumber > 0;
         }
@@ -94,7 +97,7 @@ public abstract class ALogReader extends AAirplaneConnector
 
     public void jumpToLine(int lineNumber) {
         // System.out.println("jump to Line:" + lineNumber);
-        if (lineNumber < 0 || lineNumber >= lines.size()) {
+        if (lineNumber < 0 || lineNumber >= getLineCount()) {
             return;
         }
 
@@ -105,7 +108,7 @@ public abstract class ALogReader extends AAirplaneConnector
         this.lineNumber = lineNumber;
         try {
             processCurrentLine();
-            elapsedSimTime((lines.get(lineNumber).time - m_start_timestamp) / 1000., totalTime / 1000.);
+            elapsedSimTime((getLineTime(lineNumber) - m_start_timestamp) / 1000., totalTime / 1000.);
         } catch (InterruptedException e) {
             // ignore
         } catch (Exception e) {
@@ -132,11 +135,11 @@ public abstract class ALogReader extends AAirplaneConnector
     }
 
     public String getCurrentLineString() {
-        return (String)lines.get(lineNumber).line;
+        return index != null ? index.getLine(lineNumber) : (String)lines.get(lineNumber).line;
     }
 
     public Object getCurrentLineObject() {
-        return lines.get(lineNumber).line;
+        return index != null ? index.getLine(lineNumber) : lines.get(lineNumber).line;
     }
 
     /**
@@ -145,7 +148,12 @@ public abstract class ALogReader extends AAirplaneConnector
      * @return
      */
     public double getCurrentLineTime() {
-        return lines.get(lineNumber).time;
+        return getLineTime(lineNumber);
+    }
+
+    /** in milliseconds */
+    protected double getLineTime(int lineNumber) {
+        return index != null ? index.getTime(lineNumber) : lines.get(lineNumber).time;
     }
 
     public boolean isSkippingPhase() {
@@ -192,6 +200,38 @@ public abstract class ALogReader extends AAirplaneConnector
         m_zip = file_name.toLowerCase().endsWith(".zip");
         assert (inputFile.canRead());
 
+        lineNumber = -1;
+        lines.clear();
+        closeIndex();
+        if (!m_zip) {
+            try {
+                index = LogLineIndex.open(inputFile, this::extractTimestamp);
+                if (index.size() == 0) {
+                    Debug.getLog().log(Debug.WARNING, "Logfile contains no data:" + file_name);
+                }
+            } catch (IOException | RuntimeException e) {
+                Debug.getLog().log(Level.WARNING, "Could not index logfile " + file_name + ", reading it completely", e);
+                index = null;
+            }
+        }
+
+        if (index == null) {
+            readAllLines();
+        }
+
+        if (getLineCount() != 0) {
+            double startTime = getLineTime(0);
+            double endTime = getLineTime(getLineCount() - 1);
+            totalTime = endTime - startTime;
+        }
+
+        int ESTIMATOR_QUE_SIZE = getEstimatorQueSize();
+        que_realtime = new FiniteQue<Double>(ESTIMATOR_QUE_SIZE);
+        que_timestamp = new FiniteQue<Double>(ESTIMATOR_QUE_SIZE);
+    }
+
+    private void readAllLines() {
+        String file_name = inputFile.getName();
         BufferedReader reader = null;
         try (InputStream fis = new FileInputStream(inputFile)) {
             InputStream in;
@@ -203,8 +243,6 @@ public abstract class ALogReader extends AAirplaneConnector
             }
 
             reader = new BufferedReader(new InputStreamReader(in, ProtocolTokens.encoding));
-            lineNumber = -1;
-            lines.clear();
             String line;
             while (reader.ready() && (line = reader.readLine()) != null) {
                 addLine(line.trim());
@@ -221,7 +259,6 @@ public abstract class ALogReader extends AAirplaneConnector
                     e);
         } catch (FileNotFoundException e) {
             Debug.getLog().log(Level.WARNING, "Logfile not found", e);
-            return;
         } catch (IOException e) {
             Debug.getLog()
                 .log(
@@ -237,17 +274,7 @@ public abstract class ALogReader extends AAirplaneConnector
                 } catch (IOException e) {
                 }
             }
-
-            if (lines.size() != 0) {
-                double startTime = lines.get(0).time;
-                double endTime = lines.get(lines.size() - 1).time;
-                totalTime = endTime - startTime;
-            }
         }
-
-        int ESTIMATOR_QUE_SIZE = getEstimatorQueSize();
-        que_realtime = new FiniteQue<Double>(ESTIMATOR_QUE_SIZE);
-        que_timestamp = new FiniteQue<Double>(ESTIMATOR_QUE_SIZE);
     }
 
     protected abstract int getEstimatorQueSize();
@@ -433,7 +460,7 @@ public abstract class ALogReader extends AAirplaneConnector
 
         private long calculateSleepTime(boolean phase_change) {
             double m_last_timestamp = m_cur_timestamp;
-            m_cur_timestamp = lines.get(lineNumber).time;
+            m_cur_timestamp = getLineTime(lineNumber);
             if (m_last_timestamp == -1) {
                 return 0;
             }
@@ -937,6 +964,21 @@ public abstract class ALogReader extends AAirplaneConnector
         isClosed = true;
         stopSimulation();
         plane.unsetAirplaneConnector();
+        closeIndex();
+    }
+
+    private void closeIndex() {
+        if (index == null) {
+            return;
+        }
+
+        try {
+            index.close();
+        } catch (IOException e) {
+            Debug.getLog().log(Level.FINE, "could not close logfile " + inputFile, e);
+        }
+
+        index = null;
     }
 
     @Override
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.plane.logfile;
+
+import eu.mavinci.core.plane.protocol.ProtocolTokens;
+import eu.mavinci.desktop.main.debug.Debug;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Index of the replayable lines of an uncompressed log file, which are read from the file when they are replayed
+ * instead of being kept in memory.
+ *
+ * <p>For every line only its byte range and timestamp are kept, the line itself is read and decoded when it is
+ * replayed. The index is built on the first open, which is the only time every line is decoded, and stored next to the
+ * log (flight.flg.idx next to flight.flg), so opening the log again only has to read the index.
+ *
+ * <p>The log is not memory mapped, since a mapping is only released by the garbage collector and keeps the log locked
+ * on Windows until then, and it is not read through a FileChannel either, since interrupting the replay thread would
+ * close the channel. The file is released by {@link #close()}.
+ */
+class LogLineIndex implements Closeable {
+
+    static final String FILE_EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x494C474C; // "LGLI"
+    private static final int VERSION = 2;
+    private static final Charset CHARSET = Charset.forName(ProtocolTokens.encoding);
+
+    interface TimestampExtractor {
+        /** @return timestamp of the line in milliseconds */
+        double extractTimestamp(String line) throws Exception;
+    }
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final RandomAccessFile file;
+    private final int fileSize;
+    private int size;
+    private int[] starts;
+    private int[] lengths;
+    private double[] times;
+
+    private LogLineIndex(RandomAccessFile file, int fileSize) {
+        this.file = file;
+        this.fileSize = fileSize;
+    }
+
+    static File getIndexFile(File logFile) {
+        return new File(logFile.getPath() + FILE_EXTENSION);
+    }
+
+    /**
+     * Opens the log file and reads its index, or builds the index if there is no index for the current version of the
+     * log file. The returned index keeps the log open until it is closed.
+     */
+    static LogLineIndex open(File logFile, TimestampExtractor extractor) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        RandomAccessFile file = new RandomAccessFile(logFile, "r");
+        LogLineIndex index;
+        try {
+            if (file.length() > Integer.MAX_VALUE) {
+                throw new IOException("logfile too large to be indexed: " + logFile);
+            }
+
+            index = new LogLineIndex(file, (int)file.length());
+            if (index.read(indexFile, logFile)) {
+                return index;
+            }
+
+            index.build(extractor);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+
+        try {
+            index.write(indexFile, logFile);
+        } catch (IOException e) {
+            // e.g. the log is on a read-only medium, the index is just built again next time
+            Debug.getLog().log(Level.FINE, "could not store logfile index " + indexFile, e);
+            indexFile.delete();
+        }
+
+        return index;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** @return timestamp of line i in milliseconds */
+    double getTime(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("line " + i + " of " + size);
+        }
+
+        return times[i];
+    }
+
+    /** @return line i, trimmed */
+    String getLine(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("line " + i + " of " + size);
+        }
+
+        return decode(starts[i], lengths[i]);
+    }
+
+    /** Releases the log file, the lines can't be read anymore afterwards. */
+    @Override
+    public void close() throws IOException {
+        synchronized (file) {
+            file.close();
+        }
+    }
+
+    private String decode(int start, int length) {
+        byte[] bytes = new byte[length];
+        try {
+            synchronized (file) {
+                file.seek(start);
+                file.readFully(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new String(bytes, CHARSET);
+    }
+
+    /** Same lines as reading the log with a BufferedReader, trimming every line and dropping empty and # lines. */
+    private void build(TimestampExtractor extractor) throws IOException {
+        int capacity = 1024;
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        times = new double[capacity];
+        size = 0;
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        int lineStart = 0;
+        int position = 0;
+        int read;
+        file.seek(0);
+        while (position < fileSize && (read = file.read(chunk, 0, Math.min(CHUNK_SIZE, fileSize - position))) >= 0) {
+            for (int i = 0; i != read; i++) {
+                byte b = chunk[i];
+                if (b == '\n' || b == '\r') {
+                    addLine(line, lineLength, lineStart, extractor);
+                    lineLength = 0;
+                    lineStart = position + i + 1;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, 2 * lineLength);
+                    }
+
+                    line[lineLength++] = b;
+                }
+            }
+
+            position += read;
+        }
+
+        addLine(line, lineLength, lineStart, extractor);
+    }
+
+    private void addLine(byte[] line, int lineLength, int lineStart, TimestampExtractor extractor) {
+        int start = 0;
+        int end = lineLength;
+        while (start < end && (line[start] & 0xFF) <= ' ') {
+            start++;
+        }
+
+        while (end > start && (line[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+
+        if (start == end || line[start] == '#') {
+            return;
+        }
+
+        double time;
+        try {
+            time = extractor.extractTimestamp(new String(line, start, end - start, CHARSET));
+        } catch (Exception e) {
+            return;
+        }
+
+        if (size == starts.length) {
+            int capacity = 2 * size;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+
+        starts[size] = lineStart + start;
+        lengths[size] = end - start;
+        times[size] = time;
+        size++;
+    }
+
+    private boolean read(File indexFile, File logFile) {
+        if (!indexFile.isFile()) {
+            return false;
+        }
+
+        try (DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 64 * 1024))) {
+            if (in.readInt() != MAGIC
+                    || in.readInt() != VERSION
+                    || in.readLong() != logFile.length()
+                    || in.readLong() != logFile.lastModified()) {
+                return false;
+            }
+
+            int count = in.readInt();
+            int[] lineStarts = new int[count];
+            int[] lineLengths = new int[count];
+            double[] lineTimes = new double[count];
+            for (int i = 0; i != count; i++) {
+                lineStarts[i] = in.readInt();
+                lineLengths[i] = in.readInt();
+                lineTimes[i] = in.readDouble();
+                if (lineStarts[i] < 0 || lineLengths[i] < 0 || lineStarts[i] + lineLengths[i] > fileSize) {
+                    return false;
+                }
+            }
+
+            starts = lineStarts;
+            lengths = lineLengths;
+            times = lineTimes;
+            size = count;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Debug.getLog().log(Level.FINE, "ignoring broken logfile index " + indexFile, e);
+            return false;
+        }
+    }
+
+    private void write(File indexFile, File logFile) throws IOException {
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logFile.length());
+            out.writeLong(logFile.lastModified());
+            out.writeInt(size);
+            for (int i = 0; i != size; i++) {
+                out.writeInt(starts[i]);
+                out.writeInt(lengths[i]);
+                out.writeDouble(times[i]);
+            }
+        }
+
+        indexFile.delete();
+        if (!tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+            throw new IOException("could not rename " + tempFile);
+        }
+    }
+
+}
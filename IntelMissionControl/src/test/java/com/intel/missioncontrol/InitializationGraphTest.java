@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol;
+
+import com.intel.missioncontrol.diagnostics.StartupProfiler;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class InitializationGraphTest {
+
+    private final StartupProfiler profiler = new StartupProfiler();
+
+    @Test
+    void stepsRunAfterTheirDependencies() throws Exception {
+        List<String> done = new CopyOnWriteArrayList<>();
+        new InitializationGraph(profiler)
+            .add("a", () -> done.add("a"))
+            .add("b", () -> done.add("b"), "a")
+            .add("c", () -> done.add("c"), "a", "b")
+            .run(4);
+
+        Assertions.assertEquals(List.of("a", "b", "c"), done);
+        String timeline = profiler.formatTimeline();
+        Assertions.assertTrue(timeline.contains(" a "), timeline);
+        Assertions.assertTrue(timeline.contains(" c "), timeline);
+    }
+
+    @Test
+    void independentStepsRunConcurrently() throws Exception {
+        // each step waits for the other one, which only works if they run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+        InitializationGraph.Step step =
+            () -> {
+                latch.countDown();
+                Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            };
+        new InitializationGraph(profiler).add("a", step).add("b", step).run(2);
+    }
+
+    @Test
+    void failureSkipsDependentStepsAndIsThrown() {
+        List<String> done = new CopyOnWriteArrayList<>();
+        IOException failure = new IOException("failed");
+        InitializationGraph graph =
+            new InitializationGraph(profiler)
+                .add(
+                    "a",
+                    () -> {
+                        throw failure;
+                    })
+                .add("b", () -> done.add("b"), "a")
+                .add("c", () -> done.add("c"));
+
+        Assertions.assertSame(failure, Assertions.assertThrows(IOException.class, () -> graph.run(2)));
+        Assertions.assertEquals(List.of("c"), done);
+    }
+
+    @Test
+    void unknownOrDuplicateStepsAreRejected() {
+        InitializationGraph graph = new InitializationGraph(profiler).add("a", () -> {});
+        Assertions.assertThrows(IllegalArgumentException.class, () -> graph.add("a", () -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> graph.add("b", () -> {}, "c"));
+    }
+
+}
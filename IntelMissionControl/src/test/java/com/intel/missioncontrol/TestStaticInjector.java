@@ -0,0 +1,19 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol;
+
+import com.google.inject.Guice;
+import com.google.inject.Module;
+
+/** Sets up the {@link StaticInjector} for tests of classes which look up their services when they are initialized. */
+public class TestStaticInjector {
+
+    public static void initialize(Module... modules) {
+        StaticInjector.initialize(Guice.createInjector(modules));
+    }
+
+}
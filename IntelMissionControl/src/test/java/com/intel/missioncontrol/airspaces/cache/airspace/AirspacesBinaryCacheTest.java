@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airspaces.cache.airspace;
+
+import com.intel.missioncontrol.airspaces.sources.OpenAirAirspacesSource;
+import eu.mavinci.airspace.IAirspace;
+import eu.mavinci.airspace.OpenAirspaceParser;
+import gov.nasa.worldwind.geom.Sector;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AirspacesBinaryCacheTest {
+
+    private static final Sector WORLD = Sector.fromDegrees(-90, 90, -180, 179.9);
+    private static final String BUILD = "1.0|abc";
+
+    @TempDir
+    Path folder;
+
+    private File copyBundle(String fileName, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        File file = directory.resolve(fileName).toFile();
+        try (InputStream is =
+            ClassLoader.getSystemResourceAsStream("com/intel/missioncontrol/airspaces/bundles/openair/" + fileName)) {
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return file;
+    }
+
+    @Test
+    void cachedAirspacesEqualTheParsedOnes() throws IOException {
+        File file = copyBundle("Switzerland_170507_CH.txt", folder);
+        List<IAirspace> parsed;
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            parsed = new OpenAirspaceParser(is).getAirspaces();
+        }
+
+        byte[] hash = AirspacesBinaryCache.hash(file);
+        Path cacheFolder = folder.resolve("cache");
+        Assertions.assertNull(AirspacesBinaryCache.open(cacheFolder, hash, BUILD));
+        Assertions.assertTrue(AirspacesBinaryCache.write(cacheFolder, hash, BUILD, parsed));
+
+        AirspacesBinaryCache cache = AirspacesBinaryCache.open(cacheFolder, hash, BUILD);
+        Assertions.assertNotNull(cache);
+        Assertions.assertEquals(parsed.size(), cache.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            IAirspace airspace = cache.get(i);
+            Assertions.assertEquals(parsed.get(i), airspace);
+            Assertions.assertEquals(parsed.get(i).getClass(), airspace.getClass());
+            Assertions.assertEquals(parsed.get(i).getName(), airspace.getName());
+            Assertions.assertEquals(parsed.get(i).getPolygon(), airspace.getPolygon());
+            Assertions.assertEquals(parsed.get(i).getBoundingBox(), cache.getBoundingBox(i));
+            Assertions.assertEquals(parsed.get(i).getBoundingBox(), airspace.getBoundingBox());
+            Assertions.assertSame(airspace, cache.get(i));
+        }
+    }
+
+    @Test
+    void changedOrBrokenCacheIsIgnored() throws IOException {
+        File file = copyBundle("Switzerland_170507_CH.txt", folder);
+        List<IAirspace> parsed;
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            parsed = new OpenAirspaceParser(is).getAirspaces();
+        }
+
+        byte[] hash = AirspacesBinaryCache.hash(file);
+        Path cacheFolder = folder.resolve("cache");
+        AirspacesBinaryCache.write(cacheFolder, hash, BUILD, parsed);
+        // a cache written by another build, which may have parsed the file differently
+        Assertions.assertNull(AirspacesBinaryCache.open(cacheFolder, hash, "1.0|def"));
+        Files.write(file.toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+        Assertions.assertNull(AirspacesBinaryCache.open(cacheFolder, AirspacesBinaryCache.hash(file), BUILD));
+
+        // a cache which is cut off
+        File cacheFile = AirspacesBinaryCache.getCacheFile(cacheFolder, hash);
+        byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+        Files.write(cacheFile.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertNull(AirspacesBinaryCache.open(cacheFolder, hash, BUILD));
+    }
+
+    @Test
+    void sourceIsLoadedFromCacheOnTheNextStart() throws IOException {
+        Path bundles = folder.resolve("bundles");
+        Path cacheFolder = folder.resolve("cache");
+        copyBundle("Switzerland_170507_CH.txt", bundles);
+        File germany = copyBundle("Germany_CW29_2017.txt", bundles);
+
+        List<IAirspace> parsed =
+            new OpenAirAirspacesSource(bundles.toFile(), new AirspacesGeometryIndex(), cacheFolder, BUILD)
+                .getAirspacesWithin(WORLD);
+        Assertions.assertEquals(2, countFiles(cacheFolder));
+
+        List<IAirspace> cached =
+            new OpenAirAirspacesSource(bundles.toFile(), new AirspacesGeometryIndex(), cacheFolder, BUILD)
+                .getAirspacesWithin(WORLD);
+        Assertions.assertEquals(sorted(parsed), sorted(cached));
+
+        // a search only finds the airspaces around Zurich, and the cache of a removed file is deleted
+        Files.delete(germany.toPath());
+        OpenAirAirspacesSource source =
+            new OpenAirAirspacesSource(bundles.toFile(), new AirspacesGeometryIndex(), cacheFolder, BUILD);
+        Sector zurich = Sector.fromDegrees(47.3, 47.5, 8.4, 8.7);
+        List<IAirspace> found = source.getAirspacesWithin(zurich);
+        Assertions.assertFalse(found.isEmpty());
+        for (IAirspace airspace : found) {
+            Assertions.assertTrue(airspace.getBoundingBox().intersects(zurich));
+        }
+
+        Assertions.assertEquals(1, countFiles(cacheFolder));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static List<String> sorted(List<IAirspace> airspaces) {
+        return airspaces
+            .stream()
+            .map(airspace -> airspace.getName() + " " + airspace.getBoundingBox() + " " + airspace.getPolygon())
+            .sorted(Comparator.naturalOrder())
+            .collect(Collectors.toList());
+    }
+
+}
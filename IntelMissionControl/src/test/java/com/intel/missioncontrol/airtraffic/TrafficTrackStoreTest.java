@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.airtraffic;
+
+import com.intel.missioncontrol.airtraffic.dto.AirtrafficObject;
+import com.intel.missioncontrol.airtraffic.dto.AittrafficObjectProperties;
+import com.intel.missioncontrol.airtraffic.dto.Geometry;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TrafficTrackStoreTest {
+
+    private static final long NOW = 1_600_000_000_000L;
+
+    private static AirtrafficObject report(
+            String identifier, double lat, double lon, int alt, double course, double speed, long timeMs) {
+        return new AirtrafficObject(
+            new Geometry(List.of(lon, lat), "Point"),
+            identifier.hashCode(),
+            new AittrafficObjectProperties(
+                alt, alt, 0., identifier, 1, identifier, new Date(timeMs), false, 1, course, speed, 0));
+    }
+
+    @Test
+    void reportsAreMergedByAircraft() {
+        TrafficTrackStore store = new TrafficTrackStore(15_000);
+        TrafficTrackStore.Changes changes =
+            store.merge(
+                List.of(report("A", 47, 11, 1000, 90, 100, NOW), report("B", 48, 11, 1000, 90, 100, NOW)), NOW);
+        Assertions.assertEquals(2, changes.added.size());
+        Assertions.assertEquals(2, store.size());
+
+        // the same positions again only refresh the tracks
+        changes =
+            store.merge(
+                List.of(report("A", 47, 11, 1000, 90, 100, NOW), report("B", 48, 11, 1000, 90, 100, NOW)),
+                NOW + 5_000);
+        Assertions.assertTrue(changes.isEmpty());
+
+        changes = store.merge(List.of(report("A", 47, 11.1, 1000, 90, 100, NOW + 10_000)), NOW + 10_000);
+        Assertions.assertEquals(1, changes.updated.size());
+        Assertions.assertEquals(11.1, changes.updated.get(0).getLon());
+        Assertions.assertEquals(1, store.query(47, 11.1, 1000).size());
+        Assertions.assertTrue(store.query(47, 11, 1000).isEmpty());
+
+        changes = store.merge(List.of(report("A", 47, 11.1, 1000, 90, 100, NOW + 10_000)), NOW + 21_000);
+        Assertions.assertEquals(1, changes.removed.size());
+        Assertions.assertEquals("1:B", changes.removed.get(0).getKey());
+        Assertions.assertEquals(1, store.size());
+    }
+
+    @Test
+    void queryFindsTheSameTracksAsComparingAll() {
+        TrafficTrackStore store = new TrafficTrackStore(15_000);
+        store.merge(new MockAirtraffic(5_000, 42).getTraffic(47, 11, Double.POSITIVE_INFINITY, 10), NOW);
+        Assertions.assertEquals(5_000, store.size());
+
+        double[][] centers = {{47, 11}, {47.5, 11.5}, {46.2, 10.1}, {47.9, 12.3}};
+        for (double[] center : centers) {
+            for (double radius : new double[] {1_000, 10_000, 30_000}) {
+                Set<TrafficTrack> expected = new HashSet<>();
+                double cosLat = Math.cos(Math.toRadians(center[0]));
+                for (TrafficTrack track : store.getTracks()) {
+                    double north = (track.getLat() - center[0]) * TrafficTrack.METERS_PER_DEGREE;
+                    double east = (track.getLon() - center[1]) * TrafficTrack.METERS_PER_DEGREE * cosLat;
+                    if (Math.hypot(north, east) <= radius) {
+                        expected.add(track);
+                    }
+                }
+
+                Assertions.assertEquals(expected, new HashSet<>(store.query(center[0], center[1], radius)));
+            }
+        }
+    }
+
+    @Test
+    void queryWrapsAroundTheAntimeridian() {
+        TrafficTrackStore store = new TrafficTrackStore(15_000);
+        store.merge(List.of(report("A", 0, 179.99, 1000, 0, 0, NOW), report("B", 0, -179.99, 1000, 0, 0, NOW)), NOW);
+        Assertions.assertEquals(2, store.query(0, 180, 5_000).size());
+        Assertions.assertEquals(2, store.query(0, -179.999, 5_000).size());
+    }
+
+    @Test
+    void conflictsArePredictedAlongTheVelocity() {
+        TrafficTrack own = new TrafficTrack("drone");
+        own.updatePosition(47, 11, 500, NOW);
+
+        // 10 km east of the drone, flying west at 100 m/s
+        double lon = 11 + 10_000 / (TrafficTrack.METERS_PER_DEGREE * Math.cos(Math.toRadians(47)));
+        TrafficTrackStore store = new TrafficTrackStore(15_000);
+        store.merge(List.of(report("A", 47, lon, 600, 270, 100, NOW)), NOW);
+        TrafficTrack traffic = store.get("1:A");
+
+        Assertions.assertNull(new ConflictPredictor(3_000, 300, 0).predict(own, traffic, NOW));
+        Assertions.assertNull(new ConflictPredictor(3_000, 300, 60).predict(own, traffic, NOW));
+
+        ConflictPredictor.Conflict conflict = new ConflictPredictor(3_000, 300, 120).predict(own, traffic, NOW);
+        Assertions.assertNotNull(conflict);
+        Assertions.assertEquals(70, conflict.getTimeToConflict(), 0.5);
+        Assertions.assertEquals(100, conflict.getTimeOfClosestApproach(), 0.5);
+        Assertions.assertEquals(0, conflict.getHorizontalDistance(), 50);
+        Assertions.assertEquals(100, conflict.getVerticalDistance(), 1e-6);
+        Assertions.assertEquals(47, conflict.getTrafficLocation().latitude.degrees, 1e-3);
+        Assertions.assertEquals(11, conflict.getTrafficLocation().longitude.degrees, 1e-3);
+        Assertions.assertEquals(1, new ConflictPredictor(3_000, 300, 120).predict(own, store, NOW).size());
+
+        // the report is 20 s old, so the aircraft is already 2 km closer
+        Assertions.assertEquals(
+            50, new ConflictPredictor(3_000, 300, 120).predict(own, traffic, NOW + 20_000).getTimeToConflict(), 0.5);
+
+        // vertically separated
+        Assertions.assertNull(new ConflictPredictor(3_000, 50, 120).predict(own, traffic, NOW));
+
+        // flying away
+        store.merge(List.of(report("A", 47, lon, 600, 90, 100, NOW)), NOW);
+        Assertions.assertNull(new ConflictPredictor(3_000, 300, 120).predict(own, traffic, NOW));
+
+        // the drone flies towards the hovering aircraft
+        store.merge(List.of(report("A", 47, lon, 600, 0, 0, NOW)), NOW);
+        own.updatePosition(47, 11 + (lon - 11) / 10, 500, NOW + 10_000);
+        conflict = new ConflictPredictor(3_000, 300, 120).predict(own, traffic, NOW + 10_000);
+        Assertions.assertNotNull(conflict);
+        Assertions.assertEquals(60, conflict.getTimeToConflict(), 0.5);
+    }
+
+}
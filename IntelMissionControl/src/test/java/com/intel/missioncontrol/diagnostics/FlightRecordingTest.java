@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import gov.nasa.worldwind.event.RenderingEvent;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightRecordingTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void eventsOfTheApplicationAreRecorded() throws Exception {
+        // the first frame loads the classes, which could make it slow
+        WorldWindProfiler profiler = new WorldWindProfiler();
+        renderFrame(profiler, 0);
+        try (FlightRecording flightRecording = new FlightRecording(true)) {
+            flightRecording.start();
+            Assertions.assertTrue(flightRecording.isRecording());
+
+            ProfilingRequestEvent request = new ProfilingRequestEvent("OpenMissionRequest");
+            request.begin();
+            request.setSubject("mission");
+            request.setItemCount(3);
+            request.commit();
+
+            UiStallEvent fast = new UiStallEvent("fast");
+            fast.begin();
+            fast.commit();
+
+            UiStallEvent slow = new UiStallEvent("slow");
+            slow.begin();
+            Thread.sleep(150);
+            slow.commit();
+
+            renderFrame(profiler, 0);
+            renderFrame(profiler, 80);
+
+            MavlinkMessageRateEvent.count(String.class);
+            MavlinkMessageRateEvent.count(String.class);
+            MavlinkMessageRateEvent.emit();
+
+            Path file = folder.resolve("recording" + FlightRecording.FILE_EXTENSION);
+            flightRecording.dump(file);
+            List<RecordedEvent> events =
+                RecordingFile.readAllEvents(file)
+                    .stream()
+                    .filter(event -> event.getEventType().getName().startsWith("com.intel.missioncontrol."))
+                    .collect(Collectors.toList());
+
+            RecordedEvent recordedRequest = find(events, "com.intel.missioncontrol.ProfilingRequest");
+            Assertions.assertEquals("OpenMissionRequest", recordedRequest.getString("request"));
+            Assertions.assertEquals("mission", recordedRequest.getString("subject"));
+            Assertions.assertEquals(3, recordedRequest.getLong("itemCount"));
+
+            // stalls below the threshold are left out
+            List<RecordedEvent> stalls =
+                events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.intel.missioncontrol.UiStall"))
+                    .collect(Collectors.toList());
+            Assertions.assertEquals(1, stalls.size());
+            Assertions.assertEquals("slow", stalls.get(0).getString("dispatcher"));
+
+            // frames below the threshold are left out
+            Assertions.assertEquals(
+                1,
+                events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.intel.missioncontrol.RenderFrame"))
+                    .count());
+
+            RecordedEvent rate = find(events, "com.intel.missioncontrol.MavlinkMessageRate");
+            Assertions.assertEquals("String", rate.getString("message"));
+            Assertions.assertEquals(2, rate.getLong("count"));
+        }
+    }
+
+    private static void renderFrame(WorldWindProfiler profiler, long millis) throws InterruptedException {
+        profiler.stageChanged(new RenderingEvent(profiler, RenderingEvent.BEFORE_RENDERING));
+        Thread.sleep(millis);
+        profiler.stageChanged(new RenderingEvent(profiler, RenderingEvent.AFTER_BUFFER_SWAP));
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError(name + " not recorded"));
+    }
+
+    @Test
+    void disabledRecordingRecordsNothing() {
+        try (FlightRecording flightRecording = new FlightRecording(false)) {
+            flightRecording.start();
+            Assertions.assertFalse(flightRecording.isRecording());
+            Assertions.assertThrows(
+                IllegalStateException.class, () -> flightRecording.dump(folder.resolve("recording.jfr")));
+        }
+    }
+
+}
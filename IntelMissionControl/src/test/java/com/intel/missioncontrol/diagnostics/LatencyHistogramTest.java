@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.diagnostics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverAllValuesWithoutGaps() {
+        for (long value = 0; value < 100_000; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            Assertions.assertTrue(LatencyHistogram.lowestValueOfBucket(bucket) <= value);
+            Assertions.assertTrue(LatencyHistogram.highestValueOfBucket(bucket) >= value);
+        }
+
+        int lastBucket = LatencyHistogram.bucketOf(LatencyHistogram.MAX_VALUE);
+        Assertions.assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highestValueOfBucket(lastBucket));
+        for (int bucket = 0; bucket < lastBucket; bucket++) {
+            Assertions.assertEquals(
+                LatencyHistogram.highestValueOfBucket(bucket) + 1, LatencyHistogram.lowestValueOfBucket(bucket + 1));
+        }
+    }
+
+    @Test
+    void percentilesAreAccurateToThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        Assertions.assertEquals(1000, snapshot.getTotalCount());
+        Assertions.assertEquals(500, snapshot.getValueAtPercentileMillis(50), 500 * 0.03);
+        Assertions.assertEquals(990, snapshot.getValueAtPercentileMillis(99), 990 * 0.03);
+        Assertions.assertEquals(1000, snapshot.getValueAtPercentileMillis(100), 0);
+        Assertions.assertEquals(1000, snapshot.getMaxMillis(), 0);
+        Assertions.assertEquals(500.5, snapshot.getMeanMillis(), 1e-9);
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getSnapshot().getTotalCount());
+        Assertions.assertEquals(0, histogram.getSnapshot().getValueAtPercentileMillis(99), 0);
+    }
+
+    @Test
+    void csvHasALinePerHistogram() throws IOException {
+        LatencyHistograms.resetAll();
+        LatencyHistograms.RECOMPUTE.recordMicros(1500);
+
+        StringWriter writer = new StringWriter();
+        LatencyHistograms.writeCsv(writer);
+        String[] lines = writer.toString().split("\n");
+
+        Assertions.assertEquals("name,count,mean,p50,p90,p99,p99.9,max", lines[0]);
+        Assertions.assertEquals(LatencyHistograms.getAll().size() + 1, lines.length);
+        Assertions.assertTrue(
+            writer.toString().contains("\nRecompute,1,1.500,1.500,1.500,1.500,1.500,1.500\n"), writer.toString());
+        LatencyHistograms.resetAll();
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.livevideo;
+
+import com.intel.missioncontrol.ui.livevideo.IUILiveVideoStream;
+import com.sun.jna.Memory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LiveVideoStreamTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int FRAMES = 5_000;
+
+    /** Stands in for the FX application thread, runs the queued deliveries whenever the test "pulses". */
+    private static class PulseExecutor implements Executor {
+        final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        int pulse() {
+            int count = 0;
+            Runnable runnable;
+            while ((runnable = queue.poll()) != null) {
+                runnable.run();
+                count++;
+            }
+
+            return count;
+        }
+    }
+
+    private static class RecordingListener implements IUILiveVideoStream.IUILiveVideoStreamListener {
+        final List<Integer> frameNumbers = new ArrayList<>();
+        final List<IUILiveVideoStream.ImageFrame.Event> events = new ArrayList<>();
+
+        @Override
+        public void updateFrame(IUILiveVideoStream.ImageFrame frame) {
+            events.add(frame.event);
+            if (frame.event != IUILiveVideoStream.ImageFrame.Event.NEW_DATA) {
+                return;
+            }
+
+            // a torn frame would contain pixels of different frames
+            ByteBuffer pixels = frame.getPixelBuffer().duplicate().order(ByteOrder.nativeOrder());
+            int number = pixels.getInt(0);
+            for (int i = 0; i < WIDTH * HEIGHT * 4; i += 4) {
+                Assertions.assertEquals(number, pixels.getInt(i), "torn frame");
+            }
+
+            frameNumbers.add(number);
+        }
+
+        @Override
+        public void cancelled() {}
+    }
+
+    private static LiveVideoStream startStream(PulseExecutor executor) {
+        LiveVideoStream stream = new LiveVideoStream(null, executor);
+        stream.stateUpdate(
+            MinAvProtobuf.StateDescription.newBuilder()
+                .setState(MinAvProtobuf.State.RUNNING)
+                .setWidth(WIDTH)
+                .setHeight(HEIGHT)
+                .build());
+        return stream;
+    }
+
+    /** Synthetic decoder, writes the frame number into every pixel. */
+    private static void decode(LiveVideoStream stream, int number) {
+        Assertions.assertTrue(stream.newData());
+        Memory memory = stream.getGetSettings().getMemory();
+        for (int i = 0; i < WIDTH * HEIGHT * 4; i += 4) {
+            memory.setInt(i, number);
+        }
+
+        stream.frameDecoded();
+    }
+
+    @Test
+    void exchangeKeepsOnlyTheNewestFrame() {
+        FrameExchange<String> exchange = new FrameExchange<>("a", "b", "c");
+        Assertions.assertNull(exchange.acquire());
+
+        String first = exchange.getBack();
+        Assertions.assertFalse(exchange.publish(1));
+        String second = exchange.getBack();
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertTrue(exchange.publish(2));
+
+        Assertions.assertEquals(second, exchange.acquire());
+        Assertions.assertEquals(2, exchange.getFrontTimestamp());
+        Assertions.assertNull(exchange.acquire());
+
+        // the frame on display is never handed back to the decoder
+        for (int i = 0; i != 10; i++) {
+            Assertions.assertNotEquals(second, exchange.getBack());
+            exchange.publish(3 + i);
+        }
+
+        Assertions.assertNotNull(exchange.acquire());
+        Assertions.assertEquals(12, exchange.getFrontTimestamp());
+    }
+
+    @Test
+    void oneDeliveryPerPulseWithTheNewestFrame() {
+        PulseExecutor executor = new PulseExecutor();
+        LiveVideoStream stream = startStream(executor);
+        RecordingListener listener = new RecordingListener();
+        stream.addVideoStreamListener(listener);
+
+        for (int i = 1; i <= 5; i++) {
+            decode(stream, i);
+        }
+
+        Assertions.assertEquals(1, executor.queue.size());
+        Assertions.assertEquals(1, executor.pulse());
+        Assertions.assertEquals(List.of(5), listener.frameNumbers);
+
+        decode(stream, 6);
+        Assertions.assertEquals(1, executor.pulse());
+        Assertions.assertEquals(List.of(5, 6), listener.frameNumbers);
+        Assertions.assertEquals(0, executor.pulse());
+
+        LiveVideoStream.Statistics statistics = stream.getStatistics();
+        Assertions.assertEquals(6, statistics.getDecodedFrames());
+        Assertions.assertEquals(2, statistics.getDisplayedFrames());
+        Assertions.assertEquals(4, statistics.getDroppedFrames());
+        Assertions.assertTrue(statistics.getMaxLatencyMs() >= statistics.getLastLatencyMs());
+    }
+
+    @Test
+    void eventsAreDeliveredInOrderWithFrames() {
+        PulseExecutor executor = new PulseExecutor();
+        LiveVideoStream stream = startStream(executor);
+        RecordingListener listener = new RecordingListener();
+        stream.addVideoStreamListener(listener);
+
+        // with a listener the stream connects
+        Assertions.assertEquals(LiveVideoStream.TakeAction.ACTIVATE, stream.getAction());
+        decode(stream, 1);
+        executor.pulse();
+        Assertions.assertEquals(
+            List.of(IUILiveVideoStream.ImageFrame.Event.CONNECTING, IUILiveVideoStream.ImageFrame.Event.NEW_DATA),
+            listener.events);
+
+        // a late listener gets the last frame right away
+        RecordingListener lateListener = new RecordingListener();
+        stream.addVideoStreamListener(lateListener);
+        Assertions.assertEquals(List.of(1), lateListener.frameNumbers);
+    }
+
+    @Test
+    void concurrentDecoderNeverTearsFrames() throws InterruptedException {
+        PulseExecutor executor = new PulseExecutor();
+        LiveVideoStream stream = startStream(executor);
+        RecordingListener listener = new RecordingListener();
+        stream.addVideoStreamListener(listener);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread decoder =
+            new Thread(
+                () -> {
+                    try {
+                        for (int i = 1; i <= FRAMES; i++) {
+                            decode(stream, i);
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                });
+        decoder.start();
+        while (decoder.isAlive()) {
+            executor.pulse();
+            Thread.yield();
+        }
+
+        decoder.join();
+        executor.pulse();
+        Assertions.assertNull(failure.get());
+
+        List<Integer> numbers = listener.frameNumbers;
+        Assertions.assertFalse(numbers.isEmpty());
+        Assertions.assertEquals(FRAMES, (int)numbers.get(numbers.size() - 1));
+        for (int i = 1; i < numbers.size(); i++) {
+            Assertions.assertTrue(numbers.get(i) > numbers.get(i - 1));
+        }
+
+        LiveVideoStream.Statistics statistics = stream.getStatistics();
+        Assertions.assertEquals(FRAMES, statistics.getDecodedFrames());
+        Assertions.assertEquals(numbers.size(), statistics.getDisplayedFrames());
+        Assertions.assertEquals(FRAMES, statistics.getDisplayedFrames() + statistics.getDroppedFrames());
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.kml;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KmlStreamParserTest {
+
+    private static final String KML =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n"
+            + "<Document><name>document</name>\n"
+            + "<Style id=\"s\"><LineStyle><color>ff00ffff</color></LineStyle></Style>\n"
+            + "<Placemark><name> tower </name><Point><coordinates>11.5,47.25,600</coordinates></Point></Placemark>\n"
+            + "<Folder><name>lines</name>\n"
+            + "<Placemark><name>road</name><LineString><tessellate>1</tessellate><coordinates>\n"
+            + "  11.0,47.0 11.1,47.1,10\n\t11.2,47.0\n"
+            + "</coordinates></LineString></Placemark>\n"
+            + "<Placemark><name>parcel</name><MultiGeometry><Polygon>\n"
+            + "<outerBoundaryIs><LinearRing><coordinates>8,50 8.1,50 8.1,50.1 8,50 </coordinates></LinearRing>"
+            + "</outerBoundaryIs>\n"
+            + "<innerBoundaryIs><LinearRing><coordinates>8.01,50.01 8.02,50.01 8.02,50.02 8.01,50.01</coordinates>"
+            + "</LinearRing></innerBoundaryIs>\n"
+            + "</Polygon><Point><coordinates>8.05,50.05</coordinates></Point></MultiGeometry></Placemark>\n"
+            + "<Placemark><ExtendedData><Data name=\"id\"><value>1</value></Data></ExtendedData>"
+            + "<LineString><coordinates>-0.5,-0.5 0.5,0.5</coordinates></LineString></Placemark>\n"
+            + "</Folder></Document></kml>\n";
+
+    private static List<KmlFeature> parse(byte[] content) throws Exception {
+        List<KmlFeature> features = new ArrayList<>();
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(content));
+        Assertions.assertTrue(new KmlStreamParser(features::add, () -> false).parse(in));
+        return features;
+    }
+
+    private static void assertCoordinates(KmlFeature feature, double... latLon) {
+        Assertions.assertEquals(latLon.length, feature.coordinates.length);
+        for (int i = 0; i != latLon.length; i++) {
+            Assertions.assertEquals(latLon[i], KmlFeature.toDegrees(feature.coordinates[i]), 1e-7);
+        }
+    }
+
+    @Test
+    void readsTheGeometriesOfAllPlacemarks() throws Exception {
+        List<KmlFeature> features = parse(KML.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(6, features.size());
+
+        Assertions.assertEquals("tower", features.get(0).name);
+        Assertions.assertTrue(features.get(0).isPoint());
+        assertCoordinates(features.get(0), 47.25, 11.5);
+
+        Assertions.assertEquals("road", features.get(1).name);
+        Assertions.assertFalse(features.get(1).closed);
+        assertCoordinates(features.get(1), 47.0, 11.0, 47.1, 11.1, 47.0, 11.2);
+
+        Assertions.assertEquals("parcel", features.get(2).name);
+        Assertions.assertTrue(features.get(2).closed);
+        Assertions.assertEquals(4, features.get(2).getPointCount());
+        Assertions.assertEquals("parcel", features.get(3).name);
+        Assertions.assertTrue(features.get(3).closed);
+        Assertions.assertEquals("parcel", features.get(4).name);
+        Assertions.assertTrue(features.get(4).isPoint());
+
+        Assertions.assertNull(features.get(5).name);
+        assertCoordinates(features.get(5), -0.5, -0.5, 0.5, 0.5);
+        Assertions.assertEquals(KmlFeature.toUnits(1), features.get(5).getExtent());
+    }
+
+    @Test
+    void readsTheKmlDocumentOfKmzArchives() throws Exception {
+        ByteArrayOutputStream kmz = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(kmz)) {
+            zip.putNextEntry(new ZipEntry("files/icon.png"));
+            zip.write(new byte[] {1, 2, 3});
+            zip.putNextEntry(new ZipEntry("doc.kml"));
+            zip.write(KML.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<KmlFeature> features = parse(kmz.toByteArray());
+        Assertions.assertEquals(6, features.size());
+        Assertions.assertEquals("road", features.get(1).name);
+    }
+
+    @Test
+    void stopsWhenCancelled() throws Exception {
+        List<KmlFeature> features = new ArrayList<>();
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(KML.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(new KmlStreamParser(features::add, () -> !features.isEmpty()).parse(in));
+        Assertions.assertEquals(1, features.size());
+    }
+
+    @Test
+    void simplificationKeepsThePointsOutsideOfTheTolerance() {
+        // a peak with some noise on both sides
+        int[] coordinates = new int[2 * 101];
+        for (int i = 0; i <= 100; i++) {
+            coordinates[2 * i] = 10 * Math.min(i, 100 - i) + (i % 2) * 3;
+            coordinates[2 * i + 1] = 1000 * i;
+        }
+
+        KmlFeature line = new KmlFeature("line", false, coordinates);
+        Assertions.assertSame(coordinates, line.simplify(0));
+        Assertions.assertArrayEquals(new int[] {0, 0, 500, 50_000, 0, 100_000}, line.simplify(10));
+        Assertions.assertArrayEquals(new int[] {0, 0, 0, 100_000}, line.simplify(1000));
+        Assertions.assertTrue(line.simplify(1).length > 6);
+
+        int[] ring = {0, 0, 0, 10, 10, 10, 10, 0, 0, 0};
+        Assertions.assertSame(ring, new KmlFeature("ring", true, ring).simplify(1000));
+    }
+
+    @Test
+    void indexFindsTheFeaturesIntersectingTheView() {
+        KmlTileIndex index = new KmlTileIndex();
+        List<KmlFeature> features = new ArrayList<>();
+        for (int i = 0; i != 100; i++) {
+            int lat = KmlFeature.toUnits(47 + i * 0.01);
+            int lon = KmlFeature.toUnits(11 + i * 0.01);
+            features.add(new KmlFeature("line" + i, false, new int[] {lat, lon, lat + 1000, lon + 1000}));
+        }
+
+        KmlFeature large = new KmlFeature("large", false, new int[] {0, 0, KmlFeature.toUnits(60), 0});
+        int[] pointCoordinates = {KmlFeature.toUnits(47.5), KmlFeature.toUnits(11.5)};
+        KmlFeature point = new KmlFeature("point", false, pointCoordinates);
+        features.add(large);
+        features.add(point);
+        index.addAll(features);
+        Assertions.assertEquals(102, index.size());
+        Assertions.assertArrayEquals(
+            new int[] {0, KmlFeature.toUnits(60), 0, KmlFeature.toUnits(11.99) + 1000}, index.getBounds());
+
+        for (int run = 0; run != 2; run++) {
+            List<KmlFeature> result = new ArrayList<>();
+            int minLat = KmlFeature.toUnits(47.195);
+            int maxLat = KmlFeature.toUnits(47.505);
+            index.query(minLat, maxLat, KmlFeature.toUnits(11.195), KmlFeature.toUnits(11.5), 0, 1000, result);
+            List<String> names = new ArrayList<>();
+            result.forEach(feature -> names.add(feature.name));
+            names.sort(null);
+            List<String> expected = new ArrayList<>();
+            for (int i = 20; i <= 50; i++) {
+                expected.add("line" + i);
+            }
+
+            expected.add("point");
+            expected.sort(null);
+            Assertions.assertEquals(expected, names);
+
+            // the large feature ends at longitude 0
+            result.clear();
+            index.query(minLat, maxLat, -1000, 1000, 0, 1000, result);
+            Assertions.assertEquals(List.of(large), result);
+        }
+
+        List<KmlFeature> result = new ArrayList<>();
+        int min = Integer.MIN_VALUE / 2;
+        int max = Integer.MAX_VALUE / 2;
+        index.query(min, max, min, max, 0, 10, result);
+        Assertions.assertEquals(10, result.size());
+
+        // lines smaller than the minimal extent are left out, points not
+        result.clear();
+        index.query(0, KmlFeature.toUnits(50), 0, KmlFeature.toUnits(12), 2000, 1000, result);
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertTrue(result.contains(large));
+        Assertions.assertTrue(result.contains(point));
+    }
+
+}
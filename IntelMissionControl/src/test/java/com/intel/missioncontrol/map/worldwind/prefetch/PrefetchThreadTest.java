@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.missioncontrol.map.worldwind.prefetch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.avlist.AVListImpl;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.event.BulkRetrievalEvent;
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.layers.mercator.MercatorSector;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.util.Tile;
+import gov.nasa.worldwind.util.TileUrlBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrefetchThreadTest {
+
+    /** around Munich, a few kilometers */
+    private static final List<Sector> SECTORS = Collections.singletonList(Sector.fromDegrees(48.1, 48.15, 11.5, 11.6));
+
+    private static final int LEVELS = 12;
+
+    @TempDir
+    File folder;
+
+    private HttpServer server;
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile int responseCode = 200;
+    private volatile long responseDelay;
+    private FileStore fileStore;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        File store = new File(folder, "store");
+        Assertions.assertTrue(store.mkdirs());
+        fileStore = new BasicDataFileStore(store);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    /** a tile server with web map tile coordinates, /z/x/y.png */
+    private void handle(HttpExchange exchange) throws IOException {
+        int concurrent = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            requested.add(path);
+            requestCount.incrementAndGet();
+            if (responseDelay > 0) {
+                Thread.sleep(responseDelay);
+            }
+
+            byte[] body = ("tile " + path).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=3600");
+            if (responseCode != 200) {
+                exchange.sendResponseHeaders(responseCode, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private LevelSet createLevels() {
+        String base = "http://localhost:" + server.getAddress().getPort();
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_CACHE_NAME, "Test/Mercator");
+        params.setValue(AVKey.SERVICE, base);
+        params.setValue(AVKey.DATASET_NAME, "*");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".png");
+        params.setValue(AVKey.NUM_LEVELS, LEVELS);
+        params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        params.setValue(AVKey.TILE_WIDTH, 256);
+        params.setValue(AVKey.TILE_HEIGHT, 256);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, new LatLon(Angle.fromDegrees(180), Angle.fromDegrees(360)));
+        params.setValue(AVKey.SECTOR, new MercatorSector(-1, 1, Angle.NEG180, Angle.POS180));
+        params.setValue(
+            AVKey.TILE_URL_BUILDER,
+            (TileUrlBuilder)
+                (tile, format) -> {
+                    int z = tile.getLevelNumber();
+                    int y = (1 << z) - tile.getRow() - 1;
+                    return new URL(base + "/" + z + "/" + tile.getColumn() + "/" + y + ".png");
+                });
+        return new LevelSet(params);
+    }
+
+    private PrefetchSource createFileStoreSource() {
+        return new FileStoreSource(
+            "test",
+            createLevels(),
+            1000,
+            new OkHttpClient(),
+            (tile, contentType, data, file) -> {
+                Files.write(file.toPath(), data.array());
+                return true;
+            });
+    }
+
+    private static PrefetchThread prefetch(PrefetchSource source, FileStore fileStore, int maxConcurrent)
+            throws InterruptedException {
+        PrefetchThread thread = new PrefetchThread(source, SECTORS, 0, fileStore, null, maxConcurrent);
+        thread.start();
+        thread.join(60_000);
+        Assertions.assertFalse(thread.isAlive());
+        return thread;
+    }
+
+    @Test
+    void tilesAreDownloadedOnceAndFoundLocallyAfterwards() throws Exception {
+        PrefetchSource source = createFileStoreSource();
+        long tileCount = source.countTiles(SECTORS, LEVELS - 1);
+        Assertions.assertEquals(tileCount * 1000, source.getEstimatedMissingDataSize(SECTORS, 0, fileStore));
+
+        PrefetchThread thread = prefetch(source, fileStore, 4);
+        Assertions.assertEquals(tileCount, requestCount.get());
+        Assertions.assertEquals(tileCount, thread.getProgress().getCurrentCount());
+        Assertions.assertEquals(tileCount, thread.getProgress().getTotalCount());
+        Assertions.assertTrue(thread.getProgress().getCurrentSize() > 0);
+        Assertions.assertEquals(thread.getProgress().getCurrentSize(), thread.getProgress().getTotalSize());
+        Assertions.assertEquals(0, thread.getFailedCount());
+        for (int level = 0; level < LEVELS; level++) {
+            for (Tile tile : source.getTiles(SECTORS, level)) {
+                Assertions.assertNotNull(fileStore.findFile(tile.getPath(), false), tile.getPath());
+            }
+        }
+
+        Assertions.assertEquals(0, source.getEstimatedMissingDataSize(SECTORS, 0, fileStore));
+        requestCount.set(0);
+        thread = prefetch(createFileStoreSource(), fileStore, 4);
+        Assertions.assertEquals(0, requestCount.get());
+        Assertions.assertEquals(tileCount, thread.getProgress().getCurrentCount());
+    }
+
+    @Test
+    void tilesAreTheWebMapTilesOfTheSector() throws Exception {
+        prefetch(createFileStoreSource(), fileStore, 4);
+        for (int z = 0; z < LEVELS; z++) {
+            // the web map tiles of the corners of the sector
+            String level = "/" + z + "/";
+            int n = 1 << z;
+            int minX = (int)Math.floor((11.5 + 180) / 360 * n);
+            int maxX = (int)Math.floor((11.6 + 180) / 360 * n);
+            int minY = webMapRow(48.15, n);
+            int maxY = webMapRow(48.1, n);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    String path = level + x + "/" + y + ".png";
+                    Assertions.assertTrue(requested.contains(path), path);
+                }
+            }
+
+            long count = requested.stream().filter(path -> path.startsWith(level)).count();
+            Assertions.assertEquals((maxX - minX + 1) * (maxY - minY + 1), count);
+        }
+    }
+
+    private static int webMapRow(double latitude, int n) {
+        double lat = Math.toRadians(latitude);
+        return (int)Math.floor((1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2 * n);
+    }
+
+    @Test
+    void downloadsAreBounded() throws Exception {
+        responseDelay = 20;
+        PrefetchSource source = createFileStoreSource();
+        prefetch(source, fileStore, 2);
+        Assertions.assertEquals(source.countTiles(SECTORS, LEVELS - 1), requestCount.get());
+        Assertions.assertTrue(maxConcurrentRequests.get() <= 2, "concurrent requests " + maxConcurrentRequests.get());
+    }
+
+    @Test
+    void missingTilesAreSkippedAndFailedTilesAreRetried() throws Exception {
+        responseCode = 404;
+        PrefetchSource source = createFileStoreSource();
+        long tileCount = source.countTiles(SECTORS, LEVELS - 1);
+        PrefetchThread thread = prefetch(source, fileStore, 4);
+        Assertions.assertEquals(0, thread.getProgress().getTotalCount());
+        Assertions.assertEquals(0, thread.getFailedCount());
+        Assertions.assertTrue(source.getLevels().isResourceAbsent(source.getTiles(SECTORS, 3).get(0)));
+
+        responseCode = 500;
+        source = createFileStoreSource();
+        List<String> failed = new CopyOnWriteArrayList<>();
+        thread = new PrefetchThread(source, SECTORS, 0, fileStore, null, 4);
+        thread.addRetrievalListener(
+            event -> {
+                if (BulkRetrievalEvent.RETRIEVAL_FAILED.equals(event.getEventType())) {
+                    failed.add(event.getItem());
+                }
+            });
+        thread.start();
+        thread.join(60_000);
+        Assertions.assertEquals(tileCount, thread.getFailedCount());
+        Assertions.assertEquals(tileCount, failed.size());
+        Assertions.assertEquals(0, thread.getProgress().getCurrentCount());
+
+        responseCode = 200;
+        requestCount.set(0);
+        thread = prefetch(createFileStoreSource(), fileStore, 4);
+        Assertions.assertEquals(tileCount, requestCount.get());
+        Assertions.assertEquals(0, thread.getFailedCount());
+    }
+
+    @Test
+    void tilesAreCachedByTheHttpClient() throws Exception {
+        OkHttpClient client =
+            new OkHttpClient.Builder().cache(new Cache(new File(folder, "cache"), 10_000_000)).build();
+        PrefetchSource source = new HttpCacheSource("test", createLevels(), client);
+        long tileCount = source.countTiles(SECTORS, LEVELS - 1);
+        prefetch(source, fileStore, 4);
+        Assertions.assertEquals(tileCount, requestCount.get());
+        Assertions.assertEquals(0, source.getEstimatedMissingDataSize(SECTORS, 0, fileStore));
+
+        requestCount.set(0);
+        PrefetchThread thread = prefetch(new HttpCacheSource("test", createLevels(), client), fileStore, 4);
+        Assertions.assertEquals(0, requestCount.get());
+        Assertions.assertEquals(tileCount, thread.getProgress().getCurrentCount());
+        Assertions.assertTrue(client.cache().hitCount() >= tileCount);
+    }
+
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.listeners;
+
+import eu.mavinci.core.desktop.listener.WeakListenerArray;
+import eu.mavinci.core.plane.protocol.ObjectPacking;
+import eu.mavinci.core.plane.protocol.ObjectParser;
+import eu.mavinci.core.plane.protocol.ProtocolCodec;
+import eu.mavinci.core.plane.protocol.ProtocolInvoker;
+import eu.mavinci.core.plane.protocol.ProtocolTokens;
+import eu.mavinci.core.plane.sendableobjects.PositionData;
+import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+class AirplaneListenerDelegatorTest {
+
+    private static class PositionListener implements IAirplaneListenerPosition, IAirplaneListenerPositionOrientation {
+        final String name;
+        final List<String> calls;
+        Runnable onPosition;
+        PositionOrientationData lastPositionOrientation;
+        int positionOrientationCount;
+
+        PositionListener(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public void recv_position(PositionData p) {
+            calls.add(name);
+            if (onPosition != null) {
+                onPosition.run();
+            }
+        }
+
+        @Override
+        public void recv_positionOrientation(PositionOrientationData po) {
+            lastPositionOrientation = po;
+            positionOrientationCount++;
+        }
+    }
+
+    /** Encodes the message like the connector sends it, it doesn't send the flight time. */
+    private static String encodePositionOrientation(PositionOrientationData po, String typeName) throws Exception {
+        StringBuffer members = new StringBuffer();
+        for (Field field : PositionOrientationData.class.getFields()) {
+            if (field.getType() == long.class) {
+                continue;
+            }
+
+            if (members.length() > 0) {
+                members.append(ProtocolTokens.sepael);
+            }
+
+            new ObjectPacking().encodeObject(field.get(po), field.getName(), members);
+        }
+
+        return ProtocolTokens.mbegin
+            + ObjectParser.recv_positionOrientationToken
+            + ProtocolTokens.sep
+            + typeName
+            + ProtocolTokens.seppar
+            + "po"
+            + ProtocolTokens.seppar
+            + ProtocolTokens.sbegin
+            + members
+            + ProtocolTokens.send;
+    }
+
+    private static PositionOrientationData createPositionOrientation(Random random, int i) {
+        PositionOrientationData po = new PositionOrientationData();
+        po.time_sec = 1_600_000_000 + i / 10;
+        po.time_usec = (i % 10) * 100_000;
+        po.altitude = random.nextInt(20_000);
+        po.lat = 47 + random.nextDouble() / 100;
+        po.lon = 11 + random.nextDouble() / 100;
+        po.roll = random.nextGaussian() * 10;
+        po.pitch = random.nextGaussian() * 5;
+        po.yaw = random.nextDouble() * 360;
+        po.cameraPitch = random.nextDouble() * 90;
+        po.flightmode = random.nextInt(3);
+        po.flightphase = random.nextInt(8);
+        po.reentrypoint = i;
+        po.batteryVoltage = 14 + random.nextFloat() * 3;
+        po.batteryPercent = random.nextFloat() * 100;
+        po.gpsLossFallback = random.nextBoolean();
+        return po;
+    }
+
+    private static void assertPositionOrientationEquals(PositionOrientationData expected, Object actual)
+            throws IllegalAccessException {
+        Assertions.assertTrue(actual instanceof PositionOrientationData);
+        for (Field field : PositionOrientationData.class.getFields()) {
+            Assertions.assertEquals(field.get(expected), field.get(actual), field.getName());
+        }
+    }
+
+    @Test
+    void listenersKeepTheirOrder() {
+        List<String> calls = new ArrayList<>();
+        PositionListener a = new PositionListener("a", calls);
+        PositionListener b = new PositionListener("b", calls);
+        PositionListener c = new PositionListener("c", calls);
+        PositionListener d = new PositionListener("d", calls);
+
+        AirplaneListenerDelegator delegator = new AirplaneListenerDelegator();
+        delegator.addListener(a);
+        delegator.addListener(b);
+        delegator.addListener(a);
+        delegator.addListenerAtBegin(c);
+        delegator.addListenerAtSecond(d);
+        delegator.recv_position(new PositionData());
+        Assertions.assertEquals(List.of("c", "d", "a", "b"), calls);
+
+        calls.clear();
+        delegator.removeListener(d);
+        delegator.recv_position(new PositionData());
+        Assertions.assertEquals(List.of("c", "a", "b"), calls);
+    }
+
+    @Test
+    void modificationsDuringAnEventApplyToTheNextOne() {
+        List<String> calls = new ArrayList<>();
+        PositionListener a = new PositionListener("a", calls);
+        PositionListener b = new PositionListener("b", calls);
+        PositionListener c = new PositionListener("c", calls);
+
+        AirplaneListenerDelegator delegator = new AirplaneListenerDelegator();
+        delegator.addListener(a);
+        delegator.addListener(b);
+        a.onPosition =
+            () -> {
+                delegator.removeListener(b);
+                delegator.addListener(c);
+            };
+
+        delegator.recv_position(new PositionData());
+        Assertions.assertEquals(List.of("a", "b"), calls);
+
+        calls.clear();
+        a.onPosition = null;
+        delegator.recv_position(new PositionData());
+        Assertions.assertEquals(List.of("a", "c"), calls);
+    }
+
+    @Test
+    void collectedListenersAreSkipped() throws InterruptedException {
+        List<String> calls = new ArrayList<>();
+        WeakListenerArray<IAirplaneListenerPosition> listeners = new WeakListenerArray<>("test");
+        PositionListener kept = new PositionListener("kept", calls);
+        PositionListener collected = new PositionListener("collected", calls);
+        WeakReference<?> probe = new WeakReference<>(collected);
+        listeners.add(collected);
+        listeners.add(kept);
+
+        collected = null;
+        for (int i = 0; i != 50 && probe.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assumptions.assumeTrue(probe.get() == null, "listener wasn't collected");
+
+        WeakListenerArray.Snapshot<IAirplaneListenerPosition> snapshot = listeners.snapshot();
+        Assertions.assertEquals(2, snapshot.size());
+        for (int i = 0; i != snapshot.size(); i++) {
+            IAirplaneListenerPosition listener = snapshot.get(i);
+            if (listener != null) {
+                listener.recv_position(null);
+            }
+        }
+
+        Assertions.assertEquals(List.of("kept"), calls);
+        listeners.add(new PositionListener("added", calls));
+        Assertions.assertEquals(2, listeners.size());
+        Assertions.assertTrue(listeners.contains(kept));
+    }
+
+    @Test
+    void fastPathDecodesLikeTheGenericParser() throws Exception {
+        Random random = new Random(1);
+        ProtocolInvoker invoker = new ProtocolInvoker();
+        for (int i = 0; i != 200; i++) {
+            PositionOrientationData po = createPositionOrientation(random, i);
+            if (i % 7 == 0) {
+                po.cameraRoll = Double.POSITIVE_INFINITY;
+                po.batteryPercent = Float.NaN;
+            }
+
+            String msg = encodePositionOrientation(po, "PositionOrientationData");
+            invoker.processMessage(msg, null);
+            Assertions.assertTrue(invoker.isDataOk());
+
+            ObjectParser parser = new ObjectParser();
+            parser.decodeObject(msg.substring(msg.indexOf(ProtocolTokens.sep) + 1));
+            assertPositionOrientationEquals((PositionOrientationData)parser.value, invoker.arguments[0]);
+            Assertions.assertArrayEquals(new Class<?>[] {PositionOrientationData.class}, invoker.parameterTypes);
+        }
+    }
+
+    @Test
+    void unusualDataFallsBackToTheGenericParser() throws Exception {
+        PositionOrientationData po = createPositionOrientation(new Random(2), 0);
+        ProtocolInvoker invoker = new ProtocolInvoker();
+
+        // the type name was lower case in older connectors
+        String msg = encodePositionOrientation(po, "positionOrientationData");
+        Assertions.assertTrue(new ProtocolCodec().decode(msg));
+        invoker.processMessage(msg, null);
+        assertPositionOrientationEquals(po, invoker.arguments[0]);
+
+        // integer values in double members are converted
+        msg = encodePositionOrientation(po, "PositionOrientationData");
+        msg = msg.replace("D!altitude!" + po.altitude, "I!altitude!" + (int)po.altitude);
+        Assertions.assertTrue(new ProtocolCodec().decode(msg));
+        invoker.processMessage(msg, null);
+        assertPositionOrientationEquals(po, invoker.arguments[0]);
+
+        // errors are still reported by the generic parser
+        String unknownMember = msg.replace("I!altitude!", "I!unknownMember!");
+        Assertions.assertFalse(new ProtocolCodec().decode(unknownMember));
+        Assertions.assertThrows(Exception.class, () -> invoker.processMessage(unknownMember, null));
+        String wrongType = msg.replace("I!flightmode!", "D!flightmode!");
+        Assertions.assertFalse(new ProtocolCodec().decode(wrongType));
+        Assertions.assertThrows(Exception.class, () -> invoker.processMessage(wrongType, null));
+    }
+
+}
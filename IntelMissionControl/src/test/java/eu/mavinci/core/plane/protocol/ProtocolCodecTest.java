@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.core.plane.protocol;
+
+import eu.mavinci.core.plane.listeners.IAirplaneListenerBackend;
+import eu.mavinci.core.plane.listeners.IAirplaneListenerMsg;
+import eu.mavinci.core.plane.sendableobjects.AndroidState;
+import eu.mavinci.core.plane.sendableobjects.Backend;
+import eu.mavinci.core.plane.sendableobjects.BackendInfo;
+import eu.mavinci.core.plane.sendableobjects.Config_variables;
+import eu.mavinci.core.plane.sendableobjects.DebugData;
+import eu.mavinci.core.plane.sendableobjects.HealthData;
+import eu.mavinci.core.plane.sendableobjects.LinkInfo;
+import eu.mavinci.core.plane.sendableobjects.MObject;
+import eu.mavinci.core.plane.sendableobjects.MVector;
+import eu.mavinci.core.plane.sendableobjects.OrientationData;
+import eu.mavinci.core.plane.sendableobjects.PhotoData;
+import eu.mavinci.core.plane.sendableobjects.PlaneInfo;
+import eu.mavinci.core.plane.sendableobjects.PlaneInfoLight;
+import eu.mavinci.core.plane.sendableobjects.Port;
+import eu.mavinci.core.plane.sendableobjects.PositionData;
+import eu.mavinci.core.plane.sendableobjects.PositionOrientationData;
+import eu.mavinci.core.plane.sendableobjects.SimulationSettings;
+import eu.mavinci.core.plane.sendableobjects.SingleHealthDescription;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ProtocolCodecTest {
+
+    private static final Class<?>[] SENDABLE_CLASSES = {
+        AndroidState.class, Backend.class, BackendInfo.class, Config_variables.class, DebugData.class,
+        HealthData.class, LinkInfo.class, OrientationData.class, PhotoData.class, PlaneInfo.class,
+        PlaneInfoLight.class, Port.class, PositionData.class, PositionOrientationData.class, SimulationSettings.class,
+        SingleHealthDescription.class
+    };
+
+    private static double randomDouble(Random random) {
+        switch (random.nextInt(6)) {
+        case 0:
+            return random.nextGaussian() * 1000;
+        case 1:
+            // few digits, like most values the connector sends
+            return Math.round(random.nextGaussian() * 1e6) / 1e3;
+        case 2:
+            return random.nextInt(100_000) / 1e7;
+        case 3:
+            return random.nextBoolean() ? -0.0 : Double.POSITIVE_INFINITY;
+        case 4:
+            return random.nextInt();
+        default:
+            return random.nextDouble() * 1e-9;
+        }
+    }
+
+    private static float randomFloat(Random random) {
+        switch (random.nextInt(4)) {
+        case 0:
+            return (float)random.nextGaussian() * 100;
+        case 1:
+            return Math.round(random.nextGaussian() * 1e4) / 1e2f;
+        case 2:
+            return random.nextBoolean() ? Float.NaN : Float.POSITIVE_INFINITY;
+        default:
+            return random.nextFloat() * 1e-6f;
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(3) == 0 ? 0 : random.nextInt(20);
+        for (int i = 0; i != length; i++) {
+            builder.append((char)(' ' + random.nextInt(95)));
+        }
+
+        return builder.toString();
+    }
+
+    /** Sets all members ObjectPacking supports to random values. */
+    @SuppressWarnings("unchecked")
+    private static <T> T randomize(T value, Random random) throws ReflectiveOperationException {
+        for (Field field : value.getClass().getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                continue;
+            }
+
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                field.setInt(value, random.nextInt(3) == 0 ? random.nextInt() : random.nextInt(1000) - 500);
+            } else if (type == double.class) {
+                field.setDouble(value, randomDouble(random));
+            } else if (type == float.class) {
+                field.setFloat(value, randomFloat(random));
+            } else if (type == boolean.class || type == Boolean.class) {
+                field.set(value, random.nextBoolean());
+            } else if (type == String.class) {
+                field.set(value, randomString(random));
+            } else if (MObject.class.isAssignableFrom(type) && field.get(value) != null) {
+                randomize(field.get(value), random);
+            } else if (type == MVector.class && field.get(value) != null) {
+                MVector<Object> vector = (MVector<Object>)field.get(value);
+                Class<?> elementType = vector.getClassOfMembers();
+                vector.clear();
+                for (int i = 0, count = 1 + random.nextInt(4); i != count; i++) {
+                    if (elementType == Integer.class) {
+                        vector.add(random.nextInt());
+                    } else if (elementType == Double.class) {
+                        vector.add(randomDouble(random));
+                    } else if (elementType == Float.class) {
+                        vector.add(randomFloat(random));
+                    } else {
+                        vector.add(randomize(elementType.getConstructor().newInstance(), random));
+                    }
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Encodes an object like {@link ObjectPacking#encodeObject}, but without the members ObjectPacking can't encode
+     * (long members, empty vectors and enums), which the connector doesn't send either.
+     */
+    private static String encodeArgument(Object value, String name) throws Exception {
+        StringBuffer members = new StringBuffer();
+        for (Field field : value.getClass().getFields()) {
+            Object member = field.get(value);
+            if (Modifier.isStatic(field.getModifiers())
+                    || member == null
+                    || member instanceof Long
+                    || member instanceof Enum
+                    || (member instanceof Vector && ((Vector<?>)member).isEmpty())) {
+                continue;
+            }
+
+            if (members.length() > 0) {
+                members.append(ProtocolTokens.sepael);
+            }
+
+            new ObjectPacking().encodeObject(member, field.getName(), members);
+        }
+
+        return value.getClass().getSimpleName()
+            + ProtocolTokens.seppar
+            + name
+            + ProtocolTokens.seppar
+            + ProtocolTokens.sbegin
+            + members
+            + ProtocolTokens.send;
+    }
+
+    private static List<Object> decodeGeneric(String msg, List<Class<?>> types) throws Exception {
+        List<Object> arguments = new ArrayList<>();
+        String[] parts = msg.trim().split(String.valueOf(ProtocolTokens.sep));
+        for (int i = 1; i != parts.length; i++) {
+            ObjectParser parser = new ObjectParser();
+            parser.decodeObject(parts[i]);
+            arguments.add(parser.value);
+            types.add(parser.type);
+        }
+
+        return arguments;
+    }
+
+    private static void assertSameAsGeneric(String msg) throws Exception {
+        ProtocolCodec codec = new ProtocolCodec();
+        Assertions.assertTrue(codec.decode(msg), msg);
+
+        List<Class<?>> types = new ArrayList<>();
+        List<Object> expected = decodeGeneric(msg, types);
+        Assertions.assertEquals(expected, Arrays.asList(codec.getArguments()), msg);
+        Assertions.assertEquals(types, Arrays.asList(codec.getParameterTypes()), msg);
+        Assertions.assertEquals(msg.substring(1, msg.indexOf(ProtocolTokens.sep)), codec.getFunctionName());
+    }
+
+    @Test
+    void allSendableObjectsAreDecodedLikeTheGenericParser() throws Exception {
+        Random random = new Random(1);
+        for (Class<?> type : SENDABLE_CLASSES) {
+            for (int i = 0; i != 50; i++) {
+                Object value = randomize(type.getConstructor().newInstance(), random);
+                assertSameAsGeneric("#recv_test" + ProtocolTokens.sep + encodeArgument(value, "value"));
+            }
+        }
+    }
+
+    @Test
+    void primitiveAndArrayArgumentsAreDecodedLikeTheGenericParser() throws Exception {
+        Vector<Object> arguments = new Vector<>();
+        Vector<String> names = new Vector<>();
+        arguments.add(42);
+        names.add("i");
+        arguments.add("hello; world!");
+        names.add("s");
+        arguments.add(1.5f);
+        names.add("f");
+        arguments.add(-0.001);
+        names.add("d");
+        arguments.add(true);
+        names.add("b");
+        arguments.add('x');
+        names.add("c");
+        arguments.add(new Vector<>(List.of(1, 2, 3)));
+        names.add("ints");
+        arguments.add(new Vector<>(List.of(randomize(new SingleHealthDescription(), new Random(2)))));
+        names.add("structs");
+        assertSameAsGeneric(ObjectPacking.encodeFkt("recv_test", arguments, names));
+        assertSameAsGeneric(ObjectPacking.encodeFkt("recv_test", "", "empty"));
+
+        // like the generic parser, an empty array has no member type, so MVector.equals() can't compare it
+        ProtocolCodec codec = new ProtocolCodec();
+        Assertions.assertTrue(codec.decode("#recv_test;I!empty!()\r\n"));
+        Assertions.assertTrue(((MVector<?>)codec.getArguments()[0]).isEmpty());
+        Assertions.assertNull(((MVector<?>)codec.getArguments()[0]).getClassOfMembers());
+        Assertions.assertEquals(MVector.class, codec.getParameterTypes()[0]);
+
+        Assertions.assertTrue(codec.decode(ObjectPacking.encodeFkt("recv_guiClose")));
+        Assertions.assertEquals(0, codec.getArguments().length);
+    }
+
+    @Test
+    void numbersAreParsedLikeTheJdk() {
+        Random random = new Random(3);
+        List<String> numbers =
+            new ArrayList<>(
+                List.of("0", "-0", "-0.0", "5.", ".5", "007", "1e5", "-1.5E-7", "Infinity", "NaN", "+1", "1.0000001"));
+        for (int i = 0; i != 100_000; i++) {
+            int digits = 1 + random.nextInt(18);
+            StringBuilder builder = new StringBuilder(random.nextBoolean() ? "-" : "");
+            int dot = random.nextInt(digits + 1);
+            for (int j = 0; j != digits; j++) {
+                if (j == dot) {
+                    builder.append('.');
+                }
+
+                builder.append((char)('0' + random.nextInt(10)));
+            }
+
+            numbers.add(builder.toString());
+            numbers.add(Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(10))));
+            numbers.add(Float.toString((float)random.nextGaussian() * random.nextInt(1000)));
+        }
+
+        for (String number : numbers) {
+            String padded = "x" + number + "y";
+            Assertions.assertEquals(
+                Double.doubleToRawLongBits(Double.parseDouble(number)),
+                Double.doubleToRawLongBits(ProtocolCodec.parseDouble(padded, 1, padded.length() - 1)),
+                number);
+            Assertions.assertEquals(
+                Float.floatToRawIntBits(Float.parseFloat(number)),
+                Float.floatToRawIntBits(ProtocolCodec.parseFloat(padded, 1, padded.length() - 1)),
+                number);
+        }
+    }
+
+    @Test
+    void brokenMessagesAreLeftToTheGenericParser() throws Exception {
+        String valid = "#recv_test" + ProtocolTokens.sep + encodeArgument(new PositionData(), "p");
+        Assertions.assertTrue(new ProtocolCodec().decode(valid));
+
+        String[] broken = {
+            "",
+            "recv_test;I!i!1",
+            "#recv_test;I!i!",
+            "#recv_test;I!i!x",
+            "#recv_test;I!i!1)",
+            "#recv_test;B!b!2",
+            "#recv_test;Unknown!u!(I!i!1)",
+            "#recv_test;I!!1",
+            valid.replace("I!time_sec!", "I!time_secs!"),
+            valid.replace("I!time_sec!", "S!time_sec!"),
+            valid.substring(0, valid.length() - 1)
+        };
+        for (String msg : broken) {
+            Assertions.assertFalse(new ProtocolCodec().decode(msg), msg);
+        }
+    }
+
+    @Test
+    void invokerDispatchesDecodedMessages() throws Exception {
+        List<Object> received = new ArrayList<>();
+        class Handler implements IInvokeable, IAirplaneListenerBackend, IAirplaneListenerMsg {
+            @Override
+            public void recv_backend(Backend host, MVector<Port> ports) {
+                received.add(host);
+                received.add(ports);
+            }
+
+            @Override
+            public void recv_msg(Integer lvl, String data) {
+                received.add(lvl);
+                received.add(data);
+            }
+        }
+
+        Random random = new Random(4);
+        Backend backend = randomize(new Backend(), random);
+        MVector<Port> ports = new MVector<>(Port.class);
+        ports.add(randomize(new Port(), random));
+        ports.add(randomize(new Port(), random));
+        Vector<Object> arguments = new Vector<>(List.of(backend, ports));
+        Vector<String> names = new Vector<>(List.of("host", "ports"));
+
+        ProtocolInvoker invoker = new ProtocolInvoker();
+        Handler handler = new Handler();
+        for (int i = 0; i != 3; i++) {
+            invoker.processMessage(ObjectPacking.encodeFkt("recv_backend", arguments, names), null);
+            invoker.fireEventsDirectly(handler);
+            invoker.processMessage("#recv_msg;I!lvl!" + i + ";S!data!" + Base64.encodeString("message " + i), null);
+            invoker.fireEventsDirectly(handler);
+        }
+
+        Assertions.assertEquals(12, received.size());
+        Assertions.assertEquals(backend, received.get(0));
+        @SuppressWarnings("unchecked")
+        MVector<Port> receivedPorts = (MVector<Port>)received.get(1);
+        Assertions.assertEquals(2, receivedPorts.size());
+        Assertions.assertSame(received.get(0), receivedPorts.get(0).backend);
+        Assertions.assertEquals(2, received.get(10));
+        Assertions.assertEquals("message 2", received.get(11));
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thebuzzmedia.exiftool.ExifTool.Tag;
+
+class InPlaceExifWriterTest {
+
+    @TempDir
+    Path folder;
+
+    private final InPlaceExifWriter writer = new InPlaceExifWriter();
+
+    @Test
+    void writesExifAndXmpIntoPlainJpeg() throws IOException {
+        File file = createJpeg("plain.jpg", null);
+        Map<Tag, String> tags = geotag(47.5, -11.25, 512.5);
+        tags.put(Tag.ORIENTATION, "1");
+        tags.put(Tag.PITCH, "-12.5");
+        tags.put(Tag.USER_COMMENT, "$PHOTO;1;2;3");
+        tags.put(Tag.DATE_TIME_ORIGINAL, "2020:01:02 03:04:05");
+        tags.put(Tag.GPS_MAP_DATUM, "");
+
+        Assertions.assertTrue(writer.write(file, tags));
+        Assertions.assertEquals(0, writer.verify(file, tags).size());
+        Assertions.assertEquals("W", writer.read(file, Tag.GPS_LONGITUDE_REF).get(Tag.GPS_LONGITUDE_REF));
+        Assertions.assertEquals(64, ImageIO.read(file).getWidth());
+        // the geotag went into a new EXIF segment, only the camera angles are XMP
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+        Assertions.assertTrue(content.contains("Exif\0\0"));
+        Assertions.assertTrue(content.contains("Camera:Pitch"));
+        Assertions.assertFalse(content.contains("GPSLatitude"));
+
+        // second write fits into the padding of the first one
+        long length = file.length();
+        tags.putAll(geotag(-33.125, 151.0625, 10));
+        Assertions.assertTrue(writer.write(file, tags));
+        Assertions.assertEquals(length, file.length());
+        Assertions.assertEquals(0, writer.verify(file, tags).size());
+        Assertions.assertEquals(64, ImageIO.read(file).getWidth());
+    }
+
+    @Test
+    void patchesExistingExifFields() throws IOException {
+        File file = createJpeg("exif.jpg", createTiff());
+        Map<Tag, String> tags = geotag(-12.345678, 98.765432, 100);
+        tags.put(Tag.DATE_TIME_ORIGINAL, "2021:06:07 08:09:10");
+
+        Assertions.assertTrue(writer.write(file, tags));
+        Assertions.assertEquals(0, writer.verify(file, tags).size());
+        Map<Tag, String> exif = writer.read(file, Tag.GPS_LATITUDE_REF, Tag.DATE_TIME_ORIGINAL);
+        Assertions.assertEquals("S", exif.get(Tag.GPS_LATITUDE_REF));
+        Assertions.assertEquals("2021:06:07 08:09:10", exif.get(Tag.DATE_TIME_ORIGINAL));
+        Assertions.assertEquals(64, ImageIO.read(file).getWidth());
+    }
+
+    @Test
+    void addsGpsDirectoryAndMissingEntries() throws IOException {
+        File file = createJpeg("camera.jpg", createCameraTiff());
+        Map<Tag, String> tags = geotag(52.25, 13.5, 42.75);
+        tags.put(Tag.DATE_TIME_ORIGINAL_BACKUP, "2000:01:01 00:00:00");
+        tags.put(Tag.GPS_MAP_DATUM, "WGS-84");
+        tags.put(Tag.GPS_PITCH_ANGLE, "-3.5");
+
+        Assertions.assertTrue(writer.write(file, tags));
+        Assertions.assertEquals(0, writer.verify(file, tags).size());
+        Assertions.assertEquals(
+            "2000:01:01 00:00:00", writer.read(file, Tag.DATE_TIME_ORIGINAL).get(Tag.DATE_TIME_ORIGINAL));
+        Assertions.assertEquals("1", writer.read(file, Tag.ORIENTATION).get(Tag.ORIENTATION));
+        Assertions.assertFalse(
+            new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1).contains("GPSLatitude"));
+        Assertions.assertEquals(64, ImageIO.read(file).getWidth());
+
+        // now all entries exist and are patched in place
+        long length = file.length();
+        tags.putAll(geotag(-1.5, -2.5, 3.5));
+        Assertions.assertTrue(writer.write(file, tags));
+        Assertions.assertEquals(length, file.length());
+        Assertions.assertEquals(0, writer.verify(file, tags).size());
+    }
+
+    @Test
+    void refusesToRemoveExifFields() throws IOException {
+        File file = createJpeg("exif.jpg", createTiff());
+        byte[] before = Files.readAllBytes(file.toPath());
+        Map<Tag, String> tags = new TreeMap<>();
+        tags.put(Tag.DATE_TIME_ORIGINAL, "");
+
+        Assertions.assertFalse(writer.write(file, tags));
+        Assertions.assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+    }
+
+    private static Map<Tag, String> geotag(double lat, double lon, double alt) {
+        Map<Tag, String> tags = new TreeMap<>();
+        tags.put(Tag.GPS_LATITUDE, Math.abs(lat) + "");
+        tags.put(Tag.GPS_LATITUDE_REF, lat >= 0 ? "N" : "S");
+        tags.put(Tag.GPS_LONGITUDE, Math.abs(lon) + "");
+        tags.put(Tag.GPS_LONGITUDE_REF, lon >= 0 ? "E" : "W");
+        tags.put(Tag.GPS_ALTITUDE, Math.abs(alt) + "");
+        tags.put(Tag.GPS_ALTITUDE_REF, alt >= 0 ? "0" : "1");
+        return tags;
+    }
+
+    private File createJpeg(String name, byte[] tiff) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        byte[] bytes = jpeg.toByteArray();
+        File file = folder.resolve(name).toFile();
+        if (tiff == null) {
+            Files.write(file.toPath(), bytes);
+            return file;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(bytes, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        int length = 2 + 6 + tiff.length;
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(tiff);
+        out.write(bytes, 2, bytes.length - 2);
+        Files.write(file.toPath(), out.toByteArray());
+        return file;
+    }
+
+    /** IFD0 pointing to an EXIF IFD with DateTimeOriginal and a GPS IFD with latitude and longitude. */
+    private static byte[] createTiff() {
+        ByteBuffer tiff = ByteBuffer.allocate(178).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte)'I').put((byte)'I').putShort((short)42).putInt(8);
+        tiff.putShort((short)2);
+        entry(tiff, 0x8769, 4, 1, 38);
+        entry(tiff, 0x8825, 4, 1, 56);
+        tiff.putInt(0);
+        tiff.putShort((short)1);
+        entry(tiff, 0x9003, 2, 20, 110);
+        tiff.putInt(0);
+        tiff.putShort((short)4);
+        entry(tiff, 0x0001, 2, 2, 'N');
+        entry(tiff, 0x0002, 5, 3, 130);
+        entry(tiff, 0x0003, 2, 2, 'E');
+        entry(tiff, 0x0004, 5, 3, 154);
+        tiff.putInt(0);
+        tiff.put("2000:01:01 00:00:00\0".getBytes(StandardCharsets.ISO_8859_1));
+        for (int i = 0; i < 12; i++) {
+            tiff.putInt(i % 2 == 0 ? 0 : 1);
+        }
+
+        return tiff.array();
+    }
+
+    /** Like a camera image: IFD0 with orientation and make, and an EXIF IFD with DateTimeOriginal, but no GPS. */
+    private static byte[] createCameraTiff() {
+        ByteBuffer tiff = ByteBuffer.allocate(94).order(ByteOrder.BIG_ENDIAN);
+        tiff.put((byte)'M').put((byte)'M').putShort((short)42).putInt(8);
+        tiff.putShort((short)3);
+        entry(tiff, 0x010F, 2, 6, 68);
+        entry(tiff, 0x0112, 3, 1, 1 << 16);
+        entry(tiff, 0x8769, 4, 1, 50);
+        tiff.putInt(0);
+        tiff.putShort((short)1);
+        entry(tiff, 0x9003, 2, 20, 74);
+        tiff.putInt(0);
+        tiff.put("Intel\0".getBytes(StandardCharsets.ISO_8859_1));
+        tiff.put("2000:01:01 00:00:00\0".getBytes(StandardCharsets.ISO_8859_1));
+        return tiff.array();
+    }
+
+    private static void entry(ByteBuffer tiff, int tag, int type, int count, int value) {
+        tiff.putShort((short)tag).putShort((short)type).putInt(count).putInt(value);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JpegPreviewReaderTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsSizeAndEmbeddedThumbnail() throws IOException {
+        byte[] thumbnail = encode(createImage(160, 120));
+        File file = createJpeg("thumbnail.jpg", 1600, 1200, thumbnail);
+
+        JpegPreviewReader reader = JpegPreviewReader.open(file);
+        Assertions.assertNotNull(reader);
+        Assertions.assertEquals(1600, reader.getWidth());
+        Assertions.assertEquals(1200, reader.getHeight());
+        Assertions.assertArrayEquals(thumbnail, reader.getThumbnail());
+        Assertions.assertEquals(160, reader.readPreview(160).getWidth());
+    }
+
+    @Test
+    void decodesSubsampledIfThumbnailIsTooSmall() throws IOException {
+        File file = createJpeg("small.jpg", 1600, 1200, encode(createImage(160, 120)));
+        BufferedImage preview = JpegPreviewReader.open(file).readPreview(300);
+        Assertions.assertEquals(400, preview.getWidth());
+        Assertions.assertEquals(300, preview.getHeight());
+
+        file = createJpeg("none.jpg", 1600, 1200, null);
+        JpegPreviewReader reader = JpegPreviewReader.open(file);
+        Assertions.assertNull(reader.getThumbnail());
+        preview = reader.readPreview(160);
+        Assertions.assertEquals(200, preview.getWidth());
+        Assertions.assertEquals(150, preview.getHeight());
+        // the top left quarter is red, the rest blue
+        Assertions.assertTrue(new Color(preview.getRGB(20, 20)).getRed() > 200);
+        Assertions.assertTrue(new Color(preview.getRGB(180, 130)).getBlue() > 200);
+    }
+
+    @Test
+    void choosesLargestSubsamplingKeepingTheWidth() {
+        Assertions.assertEquals(8, JpegPreviewReader.getSubsampling(4000, 160));
+        Assertions.assertEquals(8, JpegPreviewReader.getSubsampling(1280, 160));
+        Assertions.assertEquals(4, JpegPreviewReader.getSubsampling(1272, 160));
+        Assertions.assertEquals(2, JpegPreviewReader.getSubsampling(400, 160));
+        Assertions.assertEquals(1, JpegPreviewReader.getSubsampling(300, 160));
+    }
+
+    @Test
+    void ignoresOtherFiles() throws IOException {
+        File file = folder.resolve("image.png").toFile();
+        ImageIO.write(createImage(64, 48), "png", file);
+        Assertions.assertNull(JpegPreviewReader.open(file));
+    }
+
+    @Test
+    void createsPreviewFileWithoutExifTool() throws Exception {
+        File file = createJpeg("IMG_0001.JPG", 1600, 900, encode(createImage(160, 120)));
+        File target = folder.resolve("prev_IMG_0001.jpg").toFile();
+        PhotoFile.PREVIEW_WIDTH = 160;
+
+        new PhotoFile(file, null).extractThumbnail(target);
+
+        // the black borders the camera added to the 4:3 thumbnail of the 16:9 image are cropped
+        BufferedImage preview = ImageIO.read(target);
+        Assertions.assertEquals(160, preview.getWidth());
+        Assertions.assertEquals(90, preview.getHeight());
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width / 2, height / 2);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    /** A JPEG image with an EXIF segment in front, which contains the thumbnail in IFD1 if there is one. */
+    private File createJpeg(String name, int width, int height, byte[] thumbnail) throws IOException {
+        byte[] bytes = encode(createImage(width, height));
+        byte[] tiff = createTiff(thumbnail);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(bytes, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        int length = 2 + 6 + tiff.length;
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(tiff);
+        out.write(bytes, 2, bytes.length - 2);
+        File file = folder.resolve(name).toFile();
+        Files.write(file.toPath(), out.toByteArray());
+        return file;
+    }
+
+    /** An empty IFD0, followed by IFD1 pointing to the thumbnail if there is one. */
+    private static byte[] createTiff(byte[] thumbnail) {
+        if (thumbnail == null) {
+            ByteBuffer tiff = ByteBuffer.allocate(14).order(ByteOrder.BIG_ENDIAN);
+            tiff.put((byte)'M').put((byte)'M').putShort((short)42).putInt(8);
+            tiff.putShort((short)0).putInt(0);
+            return tiff.array();
+        }
+
+        ByteBuffer tiff = ByteBuffer.allocate(44 + thumbnail.length).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte)'I').put((byte)'I').putShort((short)42).putInt(8);
+        tiff.putShort((short)0).putInt(14);
+        tiff.putShort((short)2);
+        entry(tiff, 0x0201, 4, 1, 44);
+        entry(tiff, 0x0202, 4, 1, thumbnail.length);
+        tiff.putInt(0);
+        tiff.put(thumbnail);
+        return tiff.array();
+    }
+
+    private static void entry(ByteBuffer tiff, int tag, int type, int count, int value) {
+        tiff.putShort((short)tag).putShort((short)type).putInt(count).putInt(value);
+    }
+}
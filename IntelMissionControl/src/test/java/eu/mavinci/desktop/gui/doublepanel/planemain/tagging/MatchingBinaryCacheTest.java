@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.intel.missioncontrol.TestStaticInjector;
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.GPSFixType;
+import eu.mavinci.core.flightplan.Orientation;
+import eu.mavinci.core.flightplan.PhotoLogLineType;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MatchingBinaryCacheTest {
+
+    private static final int BANDS = 2;
+    private static final int COUNT = 50;
+
+    @TempDir
+    File folder;
+
+    private File xmlFile;
+    private final List<CPhotoLogLine> lines = new ArrayList<>();
+    private final List<String[]> paths = new ArrayList<>();
+    private final List<ExifInfos[]> exifs = new ArrayList<>();
+
+    @BeforeAll
+    static void setUpInjector() {
+        // ExifInfos needs a language helper when it is initialized
+        TestStaticInjector.initialize(new PhotoFileTest.LanguageModule());
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        xmlFile = new File(folder, "dataset.ptg");
+        Files.write(xmlFile.toPath(), "<matching/>".getBytes(StandardCharsets.UTF_8));
+
+        Random random = new Random(42);
+        for (int i = 0; i != COUNT; i++) {
+            CPhotoLogLine line =
+                new CPhotoLogLine(
+                    47 + random.nextDouble(),
+                    11 + random.nextDouble(),
+                    500 * random.nextDouble(),
+                    new Orientation(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+            line.imageNumber = i;
+            line.lineNumber = random.nextInt(100);
+            line.groundSpeed_cms = random.nextInt(2000);
+            line.cameraRollRate = random.nextGaussian();
+            line.cameraPitchRate = random.nextGaussian();
+            line.cameraYawRate = random.nextGaussian();
+            line.planeRoll = random.nextGaussian();
+            line.planePitch = random.nextGaussian();
+            line.planeYaw = random.nextGaussian();
+            line.setTimestampRaw(1.5e9 + i * 1.25);
+            line.gps_ellipsoid_cm = random.nextGaussian();
+            line.gps_altitude_cm = random.nextGaussian();
+            line.heading = random.nextDouble() * 360;
+            line.latTakeoff = 47.5;
+            line.lonTakeoff = 11.5;
+            line.gps_altitude_takeoff_cm = 51234;
+            line.time_since_last_fix = random.nextInt(1000);
+            line.type = PhotoLogLineType.values()[i % PhotoLogLineType.values().length];
+            line.fixType = i % 3 == 0 ? null : GPSFixType.values()[i % GPSFixType.values().length];
+            lines.add(line);
+
+            String[] bandPaths = new String[BANDS];
+            ExifInfos[] bandExifs = new ExifInfos[BANDS];
+            for (int band = 0; band != BANDS; band++) {
+                bandPaths[band] = "./images/band" + band + "/IMG_" + i + (i == 7 ? "_äöü" : "") + ".JPG";
+                ExifInfos exif = new ExifInfos();
+                exif.timestamp = 1.5e9 + i * 1.25 + band * 0.001;
+                exif.focalLengthMM = 35;
+                exif.exposureSec = 1 / 1000.;
+                exif.model = i % 5 == 0 ? null : "Model " + band;
+                exif.aperture = 2.8;
+                exif.iso = 100 * (band + 1);
+                bandExifs[band] = exif;
+            }
+
+            paths.add(bandPaths);
+            exifs.add(bandExifs);
+        }
+    }
+
+    private MatchingBinaryCache.Builder createBuilder() {
+        MatchingBinaryCache.Builder builder = new MatchingBinaryCache.Builder(BANDS);
+        for (int i = 0; i != COUNT; i++) {
+            builder.add(lines.get(i), paths.get(i), exifs.get(i));
+        }
+
+        return builder;
+    }
+
+    @Test
+    void roundTripKeepsAllValues() throws IOException {
+        Assertions.assertNull(MatchingBinaryCache.read(xmlFile));
+        Assertions.assertTrue(createBuilder().write(xmlFile));
+
+        MatchingBinaryCache cache = MatchingBinaryCache.read(xmlFile);
+        Assertions.assertNotNull(cache);
+        Assertions.assertEquals(BANDS, cache.getBandCount());
+        Assertions.assertEquals(COUNT, cache.size());
+        for (int i = 0; i != COUNT; i++) {
+            CPhotoLogLine expected = lines.get(i);
+            CPhotoLogLine actual = new CPhotoLogLine(0, 0, 0, new Orientation());
+            cache.readLine(i, actual);
+            Assertions.assertEquals(expected.imageNumber, actual.imageNumber);
+            Assertions.assertEquals(expected.lineNumber, actual.lineNumber);
+            Assertions.assertEquals(expected.lat, actual.lat);
+            Assertions.assertEquals(expected.lon, actual.lon);
+            Assertions.assertEquals(expected.alt, actual.alt);
+            Assertions.assertEquals(expected.groundSpeed_cms, actual.groundSpeed_cms);
+            Assertions.assertEquals(expected.cameraRollRate, actual.cameraRollRate);
+            Assertions.assertEquals(expected.cameraPitchRate, actual.cameraPitchRate);
+            Assertions.assertEquals(expected.cameraYawRate, actual.cameraYawRate);
+            Assertions.assertEquals(expected.cameraRoll, actual.cameraRoll);
+            Assertions.assertEquals(expected.cameraPitch, actual.cameraPitch);
+            Assertions.assertEquals(expected.cameraYaw, actual.cameraYaw);
+            Assertions.assertEquals(expected.planeRoll, actual.planeRoll);
+            Assertions.assertEquals(expected.planePitch, actual.planePitch);
+            Assertions.assertEquals(expected.planeYaw, actual.planeYaw);
+            Assertions.assertEquals(expected.getTimestampRaw(), actual.getTimestampRaw());
+            Assertions.assertEquals(expected.gps_ellipsoid_cm, actual.gps_ellipsoid_cm);
+            Assertions.assertEquals(expected.gps_altitude_cm, actual.gps_altitude_cm);
+            Assertions.assertEquals(expected.heading, actual.heading);
+            Assertions.assertEquals(expected.latTakeoff, actual.latTakeoff);
+            Assertions.assertEquals(expected.lonTakeoff, actual.lonTakeoff);
+            Assertions.assertEquals(expected.gps_altitude_takeoff_cm, actual.gps_altitude_takeoff_cm);
+            Assertions.assertEquals(expected.time_since_last_fix, actual.time_since_last_fix);
+            Assertions.assertEquals(expected.type, actual.type);
+            Assertions.assertEquals(expected.fixType, actual.fixType);
+
+            for (int band = 0; band != BANDS; band++) {
+                ExifInfos expectedExif = exifs.get(i)[band];
+                ExifInfos actualExif = cache.getExif(i, band);
+                Assertions.assertEquals(paths.get(i)[band], cache.getPath(i, band));
+                Assertions.assertEquals(expectedExif.timestamp, actualExif.timestamp);
+                Assertions.assertEquals(Math.round(expectedExif.timestamp * 1000), actualExif.datetime.getTime());
+                Assertions.assertEquals(expectedExif.focalLengthMM, actualExif.focalLengthMM);
+                Assertions.assertEquals(expectedExif.exposureSec, actualExif.exposureSec);
+                Assertions.assertEquals(expectedExif.model, actualExif.model);
+                Assertions.assertEquals(expectedExif.aperture, actualExif.aperture);
+                Assertions.assertEquals(expectedExif.iso, actualExif.iso);
+            }
+        }
+    }
+
+    @Test
+    void changedXmlInvalidatesCache() throws IOException {
+        createBuilder().write(xmlFile);
+        Files.write(xmlFile.toPath(), "<matching></matching>".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertNull(MatchingBinaryCache.read(xmlFile));
+
+        // same records: only the header is updated for the new XML
+        Assertions.assertFalse(createBuilder().write(xmlFile));
+        Assertions.assertNotNull(MatchingBinaryCache.read(xmlFile));
+
+        lines.get(3).lat += 1e-9;
+        Assertions.assertTrue(createBuilder().write(xmlFile));
+        MatchingBinaryCache cache = MatchingBinaryCache.read(xmlFile);
+        CPhotoLogLine line = new CPhotoLogLine(0, 0, 0, new Orientation());
+        cache.readLine(3, line);
+        Assertions.assertEquals(lines.get(3).lat, line.lat);
+    }
+
+    @Test
+    void brokenCacheIsIgnored() throws IOException {
+        createBuilder().write(xmlFile);
+        File cacheFile = MatchingBinaryCache.getCacheFile(xmlFile);
+        long lastModified = xmlFile.lastModified();
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+            file.seek(file.length() / 2);
+            int b = file.read();
+            file.seek(file.length() / 2);
+            file.write(b ^ 0xFF);
+        }
+
+        Assertions.assertEquals(lastModified, xmlFile.lastModified());
+        Assertions.assertNull(MatchingBinaryCache.read(xmlFile));
+
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+            file.setLength(30);
+        }
+
+        Assertions.assertNull(MatchingBinaryCache.read(xmlFile));
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.google.inject.AbstractModule;
+import com.intel.missioncontrol.TestStaticInjector;
+import com.intel.missioncontrol.map.elevation.IElevationModel;
+import com.intel.missioncontrol.map.worldwind.IWWGlobes;
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.GPSFixType;
+import eu.mavinci.core.flightplan.Orientation;
+import eu.mavinci.desktop.gui.doublepanel.planemain.tree.maplayers.IMapLayer;
+import eu.mavinci.desktop.gui.doublepanel.planemain.wwd.AerialPinholeKnownImage;
+import eu.mavinci.desktop.gui.doublepanel.planemain.wwd.ComputeCornerData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class MatchingColumnsTest {
+
+    @BeforeAll
+    static void setUpInjector() {
+        // the image classes look up their services when they are initialized, the mocks are never asked for them
+        TestStaticInjector.initialize(
+            new PhotoFileTest.LanguageModule(),
+            new AbstractModule() {
+                @Override
+                protected void configure() {
+                    bind(IElevationModel.class).toInstance(Mockito.mock(IElevationModel.class));
+                    bind(IWWGlobes.class).toInstance(Mockito.mock(IWWGlobes.class, Mockito.RETURNS_MOCKS));
+                }
+            });
+    }
+
+    private static MapLayerMatch createMatch(double lat, double alt, Double altOverCenter, boolean elevationReady) {
+        CPhotoLogLine line = new CPhotoLogLine(lat, 8.5, alt, new Orientation(1, 2, 3));
+        line.fixType = GPSFixType.rtkFixedBL;
+        MapLayerMatch match = Mockito.mock(MapLayerMatch.class);
+        match.line = line;
+        Mockito.when(match.getPhotoLogLine()).thenReturn(line);
+        Mockito.when(match.isPassFilter()).thenReturn(true);
+        Mockito.when(match.getAreaPassFilter()).thenReturn(true);
+        Mockito.when(match.getRangePassFilter()).thenReturn(true);
+        Mockito.when(match.getRollPassFilter()).thenReturn(true);
+        Mockito.when(match.getPitchPassFilter()).thenReturn(true);
+        Mockito.when(match.getYawPassFilter()).thenReturn(true);
+        if (altOverCenter != null || elevationReady) {
+            ComputeCornerData computeCornerData = Mockito.mock(ComputeCornerData.class);
+            Mockito.when(computeCornerData.getAltOverCenter()).thenReturn(altOverCenter);
+            Mockito.when(computeCornerData.isElevationDataReady()).thenReturn(elevationReady);
+            match.img = Mockito.mock(AerialPinholeKnownImage.class);
+            Mockito.when(match.img.getComputeCornerData()).thenReturn(computeCornerData);
+        }
+
+        return match;
+    }
+
+    @Test
+    void copiesTheValuesOfTheMatches() {
+        List<IMapLayer> layers = new ArrayList<>();
+        layers.add(createMatch(47.1, 100, 80.0, true));
+        layers.add(Mockito.mock(IMapLayer.class));
+        layers.add(createMatch(47.2, 120, null, true));
+
+        MatchingColumns columns = MatchingColumns.of(layers);
+        Assertions.assertEquals(2, columns.size());
+        Assertions.assertSame(layers.get(2), columns.getMatch(1));
+        Assertions.assertEquals(47.2, columns.getLat(1));
+        Assertions.assertEquals(80.0, columns.getAlt(0));
+        // the altitude over the takeoff, as long as the one over the footprint center is not known
+        Assertions.assertEquals(columns.getMatch(1).getPhotoLogLine().getAltInM(), columns.getAlt(1));
+        Assertions.assertEquals(columns.getMatch(1).getPhotoLogLine().cameraRoll, columns.getRoll(1));
+        Assertions.assertEquals(columns.getMatch(1).getPhotoLogLine().cameraPitch, columns.getPitch(1));
+        Assertions.assertEquals(columns.getMatch(1).getPhotoLogLine().cameraYaw, columns.getYaw(1));
+        Assertions.assertEquals(GPSFixType.rtkFixedBL, columns.getFixType(0));
+        Assertions.assertEquals(MatchingColumns.ALL_PASS, columns.getFlags(0));
+    }
+
+    @Test
+    void imagesWithoutFootprintDontWaitForElevation() {
+        List<IMapLayer> layers = new ArrayList<>();
+        MapLayerMatch withoutImage = createMatch(47.1, 100, null, false);
+        layers.add(withoutImage);
+        layers.add(createMatch(47.2, 120, 90.0, true));
+        MatchingColumns columns = MatchingColumns.of(layers);
+        Assertions.assertTrue(columns.refreshAltitudes());
+
+        // an image with footprint, but its elevation is still loading
+        layers.add(createMatch(47.3, 120, 85.0, false));
+        Assertions.assertFalse(MatchingColumns.of(layers).refreshAltitudes());
+    }
+
+    @Test
+    void refreshedAltitudesAreUsed() {
+        MapLayerMatch match = createMatch(47.1, 100, 70.0, true);
+        List<IMapLayer> layers = new ArrayList<>();
+        layers.add(match);
+        MatchingColumns columns = MatchingColumns.of(layers);
+        Assertions.assertEquals(70.0, columns.getAlt(0));
+
+        Mockito.when(match.img.getComputeCornerData().getAltOverCenter()).thenReturn(65.0);
+        columns.refreshAltitudes();
+        Assertions.assertEquals(65.0, columns.getAlt(0));
+    }
+
+    @Test
+    void flagsArePublishedToTheMatches() {
+        List<IMapLayer> layers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            layers.add(createMatch(47 + i, 100, null, true));
+        }
+
+        MatchingColumns columns = MatchingColumns.of(layers);
+        MapLayerMatch match = columns.getMatch(2);
+        Mockito.when(match.setPassFilter(false)).thenReturn(true);
+        byte flags = (byte)(MatchingColumns.ALL_PASS & ~MatchingColumns.PASS & ~MatchingColumns.ROLL_PASS);
+        Assertions.assertTrue(columns.setFlags(2, flags));
+        Mockito.verify(match).setPassFilter(false);
+        Mockito.verify(match).setRollPassFilter(false);
+        Mockito.verify(match).setPitchPassFilter(true);
+        Mockito.verify(match).setAreaPassFilter(true);
+
+        columns.setFlags(3, (byte)(MatchingColumns.ALL_PASS & ~MatchingColumns.PASS & ~MatchingColumns.YAW_PASS));
+        Assertions.assertFalse(columns.isPassFilter(2));
+        Assertions.assertTrue(columns.isPassFilter(1));
+        Assertions.assertEquals(2, columns.countMissing(MatchingColumns.PASS));
+        Assertions.assertEquals(1, columns.countMissing(MatchingColumns.ROLL_PASS));
+        Assertions.assertEquals(1, columns.countMissing(MatchingColumns.YAW_PASS));
+        Assertions.assertEquals(0, columns.countMissing(MatchingColumns.AREA_PASS));
+    }
+
+}
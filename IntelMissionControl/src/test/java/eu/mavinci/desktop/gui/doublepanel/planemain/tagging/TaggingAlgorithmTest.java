@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import com.intel.missioncontrol.TestStaticInjector;
+import eu.mavinci.core.flightplan.CPhotoLogLine;
+import eu.mavinci.core.flightplan.Orientation;
+import eu.mavinci.core.flightplan.PhotoLogLineType;
+import eu.mavinci.core.flightplan.camera.GPStype;
+import java.io.File;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TaggingAlgorithmTest {
+
+    private static final double CAMERA_CLOCK_OFFSET = -42.3;
+
+    @BeforeAll
+    static void setUpInjector() {
+        // ExifInfos needs a language helper when it is initialized
+        TestStaticInjector.initialize(new PhotoFileTest.LanguageModule());
+    }
+
+    /** a trigger every 1.5 s, every 100th image is lost, and every 150th line of the log if logLinesLost is set */
+    private static void createFlight(TaggingAlgorithmA algorithm, int count, boolean logLinesLost) {
+        Random random = new Random(count);
+        double time = 1.5e9;
+        for (int i = 0; i != count; i++) {
+            time += 1.5 + 0.3 * (random.nextDouble() - 0.5);
+            if (!logLinesLost || i % 150 != 75) {
+                CPhotoLogLine line = new CPhotoLogLine(47.37 + i * 1e-5, 8.54, 100, new Orientation(0, 0, 0));
+                line.imageNumber = i;
+                line.type = PhotoLogLineType.TIGGER;
+                line.setTimestampRaw(time);
+                algorithm.getLogsAll().add(line);
+            }
+
+            if (i % 100 != 50) {
+                ExifInfos exif = new ExifInfos();
+                exif.timestamp = time + CAMERA_CLOCK_OFFSET + 0.2 * (random.nextDouble() - 0.5);
+                File file = new File(String.format("IMG_%05d.JPG", i));
+                algorithm.getPhotosAll().add(new PhotoCube(new PhotoFile(file, exif)));
+            }
+        }
+    }
+
+    private static void assertMatchedToOwnTrigger(TaggingAlgorithmA algorithm, int expectedMatches) {
+        Assertions.assertEquals(expectedMatches, algorithm.getPhotosMatched().size());
+        for (PhotoCube photo : algorithm.getPhotosMatched()) {
+            Assertions.assertEquals(
+                String.format("IMG_%05d.JPG", photo.logTmp.imageNumber), photo.photoFiles[0].getFile().getName());
+        }
+    }
+
+    @Test
+    void shiftQualityIsTheSameAsWhenApplied() {
+        TaggingAlgorithmGreedyNoLogsMissing algorithm = new TaggingAlgorithmGreedyNoLogsMissing();
+        createFlight(algorithm, 300, false);
+        double[] logTimes = TaggingAlgorithmA.getLogTimestamps(algorithm.getLogsAll());
+        double[] photoTimes = TaggingAlgorithmA.getPhotoTimestamps(algorithm.getPhotosAll());
+        for (double shift = 40; shift < 45; shift += 0.01) {
+            Assertions.assertEquals(
+                algorithm.applyShift(shift, 1, Double.POSITIVE_INFINITY),
+                TaggingAlgorithmGreedyNoLogsMissing.evaluateShift(logTimes, photoTimes, shift, 1));
+        }
+    }
+
+    @Test
+    void missingMatchesAreTheSameAsWhenApplied() throws Exception {
+        TaggingAlgorithmGreedyLogsAndImagesMissing algorithm = new TaggingAlgorithmGreedyLogsAndImagesMissing();
+        createFlight(algorithm, 300, true);
+        // fills the indexed logs and images which applyShift walks
+        algorithm.optimizeMatching(1, GPStype.GPS, null, null);
+        double[] logTimes = TaggingAlgorithmA.getLogTimestamps(algorithm.getLogsAll());
+        double[] photoTimes = TaggingAlgorithmA.getPhotoTimestamps(algorithm.getPhotosAll());
+        int[] bounds = {Integer.MAX_VALUE, 1, 4, 8, 16, 64};
+        for (int noRemoveImg = 0; noRemoveImg != 12; noRemoveImg++) {
+            for (int noRemoveLog = 0; noRemoveLog != 12; noRemoveLog++) {
+                for (int bound : bounds) {
+                    Assertions.assertEquals(
+                        algorithm.applyShift(noRemoveImg, noRemoveLog, 1, bound),
+                        TaggingAlgorithmGreedyLogsAndImagesMissing.countMissingMatches(
+                            logTimes, photoTimes, noRemoveImg, noRemoveLog, 1, bound),
+                        "noRemoveImg=" + noRemoveImg + ", noRemoveLog=" + noRemoveLog + ", bound=" + bound);
+                }
+            }
+        }
+    }
+
+    @Test
+    void imagesAreMatchedToTheirTriggerWhenImagesAreMissing() throws Exception {
+        TaggingAlgorithmGreedyNoLogsMissing algorithm = new TaggingAlgorithmGreedyNoLogsMissing();
+        createFlight(algorithm, 300, false);
+        algorithm.optimizeMatching(1, GPStype.GPS, null, null);
+
+        assertMatchedToOwnTrigger(algorithm, 297);
+        Assertions.assertEquals(-CAMERA_CLOCK_OFFSET, algorithm.getShift(), 0.1);
+        Assertions.assertEquals(3, algorithm.getLogsUnmatched().size());
+    }
+
+    @Test
+    void imagesAreMatchedToTheirTriggerWhenImagesAndLogLinesAreMissing() throws Exception {
+        TaggingAlgorithmGreedyLogsAndImagesMissing algorithm = new TaggingAlgorithmGreedyLogsAndImagesMissing();
+        createFlight(algorithm, 300, true);
+        algorithm.optimizeMatching(1, GPStype.GPS, null, null);
+
+        assertMatchedToOwnTrigger(algorithm, 295);
+        Assertions.assertEquals(2, algorithm.getPhotosUnmatched().size());
+        Assertions.assertEquals(3, algorithm.getLogsUnmatched().size());
+        Assertions.assertTrue(algorithm.getMinMaxPair().size() <= 1);
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.doublepanel.planemain.tagging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void copiesOfAnImageHaveTheSameKey() throws IOException {
+        File image = createFile("image.jpg", 300_000, 1);
+        File copy = folder.resolve("copy.jpg").toFile();
+        Files.copy(image.toPath(), copy.toPath());
+        String key = ThumbnailCache.getKey(image, 160);
+
+        Assertions.assertEquals(key, ThumbnailCache.getKey(copy, 160));
+        Assertions.assertNotEquals(key, ThumbnailCache.getKey(image, 320));
+        Assertions.assertNotEquals(key, ThumbnailCache.getKey(createFile("other.jpg", 300_000, 2), 160));
+        Assertions.assertNotEquals(
+            ThumbnailCache.getKey(createFile("a.jpg", 100, 3), 160),
+            ThumbnailCache.getKey(createFile("b.jpg", 101, 3), 160));
+    }
+
+    @Test
+    void keepsPreviewsUntilTrimmed() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(folder.resolve("cache"));
+        Assertions.assertNull(cache.get("00aa"));
+
+        File old = createFile("old.jpg", 1000, 4);
+        File recent = createFile("recent.jpg", 1000, 5);
+        cache.put("00aa", old);
+        cache.put("11bb", recent);
+        Assertions.assertArrayEquals(Files.readAllBytes(old.toPath()), Files.readAllBytes(cache.get("00aa").toPath()));
+        Files.setLastModifiedTime(cache.get("00aa").toPath(), FileTime.fromMillis(1000));
+
+        cache.trim(1500);
+        Assertions.assertNull(cache.get("00aa"));
+        Assertions.assertNotNull(cache.get("11bb"));
+    }
+
+    private File createFile(String name, int size, long seed) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        File file = folder.resolve(name).toFile();
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+}
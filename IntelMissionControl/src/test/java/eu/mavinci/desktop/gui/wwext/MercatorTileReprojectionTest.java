@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import com.jogamp.opengl.util.texture.spi.DDSImage;
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.layers.mercator.MercatorSector;
+import gov.nasa.worldwind.layers.mercator.MercatorTextureTile;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class MercatorTileReprojectionTest {
+
+    private static final MercatorSector SECTOR = new MercatorSector(0.25, 0.5, Angle.ZERO, Angle.fromDegrees(45));
+
+    @TempDir
+    File folder;
+
+    private static BufferedImage createImage(int type, int size, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(size, size, type);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        return image;
+    }
+
+    /** the pixel by pixel reprojection the row copies replaced */
+    private static BufferedImage transformPerPixel(BufferedImage image, MercatorSector sector) {
+        int type = image.getType();
+        if (type == 0) {
+            type = BufferedImage.TYPE_INT_RGB;
+        }
+
+        BufferedImage trans = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        double miny = sector.getMinLatPercent();
+        double maxy = sector.getMaxLatPercent();
+        for (int y = 0; y < image.getHeight(); y++) {
+            double sy = 1.0 - y / (double)(image.getHeight() - 1);
+            Angle lat = Angle.fromRadians(sy * sector.getDeltaLatRadians() + sector.getMinLatitude().radians);
+            double dy = 1.0 - (MercatorSector.gudermannianInverse(lat) - miny) / (maxy - miny);
+            dy = Math.max(0.0, Math.min(1.0, dy));
+            int iy = (int)(dy * (image.getHeight() - 1));
+
+            for (int x = 0; x < image.getWidth(); x++) {
+                trans.setRGB(x, y, image.getRGB(x, iy));
+            }
+        }
+
+        return trans;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void rowCopiesMatchThePixelByPixelReprojection() {
+        int[] types = {
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_USHORT_565_RGB,
+            BufferedImage.TYPE_BYTE_GRAY
+        };
+        for (int type : types) {
+            BufferedImage image = createImage(type, 256, type);
+            int[] rowMap = MercatorTileReprojection.computeRowMap(SECTOR, image.getHeight());
+            BufferedImage reprojected = MercatorTileReprojection.reproject(image, rowMap);
+            Assertions.assertEquals(type, reprojected.getType());
+            assertSamePixels(transformPerPixel(image, SECTOR), reprojected);
+        }
+    }
+
+    @Test
+    void rowsOfSubimagesAreCopiedThroughTheRaster() {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, 300, 1).getSubimage(20, 30, 200, 200);
+        int[] rowMap = MercatorTileReprojection.computeRowMap(SECTOR, image.getHeight());
+        assertSamePixels(transformPerPixel(image, SECTOR), MercatorTileReprojection.reproject(image, rowMap));
+    }
+
+    @Test
+    void rawTexturesContainTheReprojectedPixels() throws IOException {
+        for (int type : new int[] {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_ARGB}) {
+            BufferedImage image = createImage(type, 64, type);
+            int[] rowMap = MercatorTileReprojection.computeRowMap(SECTOR, image.getHeight());
+            BufferedImage expected = transformPerPixel(image, SECTOR);
+            File file = new File(folder, "tile" + type + ".jpg");
+            MercatorTileReprojection.saveRawTexture(image, rowMap, file);
+
+            boolean alpha = type == BufferedImage.TYPE_INT_ARGB;
+            DDSImage ddsImage = DDSImage.read(file);
+            try {
+                Assertions.assertEquals(
+                    alpha ? DDSImage.D3DFMT_A8R8G8B8 : DDSImage.D3DFMT_R8G8B8, ddsImage.getPixelFormat());
+                Assertions.assertEquals(64, ddsImage.getWidth());
+                Assertions.assertEquals(64, ddsImage.getHeight());
+                ByteBuffer data = ddsImage.getMipMap(0).getData();
+                for (int y = 0; y < 64; y++) {
+                    for (int x = 0; x < 64; x++) {
+                        int argb = expected.getRGB(x, y);
+                        Assertions.assertEquals((byte)(argb >> 16), data.get());
+                        Assertions.assertEquals((byte)(argb >> 8), data.get());
+                        Assertions.assertEquals((byte)argb, data.get());
+                        if (alpha) {
+                            Assertions.assertEquals((byte)(argb >> 24), data.get());
+                        }
+                    }
+                }
+            } finally {
+                ddsImage.close();
+            }
+        }
+    }
+
+    @Test
+    void filesAreReplacedWithoutLeavingTemporaryFiles() throws IOException {
+        File file = new File(folder, "tile.png");
+        Files.write(file.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+        MercatorTileReprojection.writeAtomically(
+            file, temp -> Files.write(temp.toPath(), "new".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals("new", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        Assertions.assertThrows(
+            IOException.class,
+            () ->
+                MercatorTileReprojection.writeAtomically(
+                    file,
+                    temp -> {
+                        Files.write(temp.toPath(), "partial".getBytes(StandardCharsets.UTF_8));
+                        throw new IOException("failed");
+                    }));
+        Assertions.assertEquals("new", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Assertions.assertArrayEquals(new String[] {"tile.png"}, folder.list());
+    }
+
+    @Test
+    void rowMapsDependOnTheSectorOfTheTile() {
+        // the same level and row in layers which divide the world differently
+        MercatorSector other = new MercatorSector(0.25, 0.375, Angle.ZERO, Angle.fromDegrees(30));
+        MercatorTextureTile tile = Mockito.mock(MercatorTextureTile.class);
+        Mockito.when(tile.getMercatorSector()).thenReturn(SECTOR);
+        MercatorTextureTile otherTile = Mockito.mock(MercatorTextureTile.class);
+        Mockito.when(otherTile.getMercatorSector()).thenReturn(other);
+
+        Assertions.assertArrayEquals(
+            MercatorTileReprojection.computeRowMap(SECTOR, 256), MercatorTileReprojection.getRowMap(tile, 256));
+        Assertions.assertArrayEquals(
+            MercatorTileReprojection.computeRowMap(other, 256), MercatorTileReprojection.getRowMap(otherTile, 256));
+        Assertions.assertSame(
+            MercatorTileReprojection.getRowMap(tile, 256), MercatorTileReprojection.getRowMap(tile, 256));
+        Assertions.assertEquals(128, MercatorTileReprojection.getRowMap(tile, 128).length);
+    }
+
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.desktop.gui.wwext;
+
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Position;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PolylineLevelOfDetailTest {
+
+    private static final double METERS_PER_DEGREE = 6378137 * Math.PI / 180;
+
+    /** a drone flying lines with some noise, turning every 500 positions */
+    private static List<Position> createTrack(int count, long seed) {
+        Random random = new Random(seed);
+        List<Position> track = new ArrayList<>(count);
+        double lat = 47;
+        double lon = 11;
+        double heading = 0;
+        for (int i = 0; i != count; i++) {
+            if (i % 500 == 0) {
+                heading = random.nextDouble() * 2 * Math.PI;
+            }
+
+            lat += (Math.cos(heading) + random.nextGaussian() * 0.1) / METERS_PER_DEGREE;
+            lon += (Math.sin(heading) + random.nextGaussian() * 0.1) / METERS_PER_DEGREE / Math.cos(Math.toRadians(47));
+            track.add(Position.fromDegrees(lat, lon, 500 + random.nextGaussian()));
+        }
+
+        return track;
+    }
+
+    private static double[] toPoint(Position position) {
+        double radius = 6378137 + position.elevation;
+        double cosLat = Math.cos(position.latitude.radians);
+        return new double[] {
+            radius * cosLat * Math.cos(position.longitude.radians),
+            radius * cosLat * Math.sin(position.longitude.radians),
+            radius * Math.sin(position.latitude.radians)
+        };
+    }
+
+    private static double distanceToSegment(Position position, Position start, Position end) {
+        double[] p = toPoint(position);
+        double[] s = toPoint(start);
+        double[] e = toPoint(end);
+        double[] d = new double[3];
+        double lengthSquared = 0;
+        double dot = 0;
+        for (int i = 0; i != 3; i++) {
+            d[i] = e[i] - s[i];
+            lengthSquared += d[i] * d[i];
+            dot += (p[i] - s[i]) * d[i];
+        }
+
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, dot / lengthSquared));
+        double distanceSquared = 0;
+        for (int i = 0; i != 3; i++) {
+            double delta = s[i] + t * d[i] - p[i];
+            distanceSquared += delta * delta;
+        }
+
+        return Math.sqrt(distanceSquared);
+    }
+
+    /** checks that the simplified line is a part of the track which doesn't deviate more than the tolerance */
+    private static void assertSimplification(List<Position> track, List<Position> simplified, double tolerance) {
+        Map<Position, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i != track.size(); i++) {
+            indices.put(track.get(i), i);
+        }
+
+        Assertions.assertSame(track.get(0), simplified.get(0));
+        Assertions.assertSame(track.get(track.size() - 1), simplified.get(simplified.size() - 1));
+        for (int j = 1; j < simplified.size(); j++) {
+            int start = indices.get(simplified.get(j - 1));
+            int end = indices.get(simplified.get(j));
+            Assertions.assertTrue(start < end);
+            for (int i = start + 1; i < end; i++) {
+                Assertions.assertTrue(
+                    distanceToSegment(track.get(i), track.get(start), track.get(end)) <= tolerance * (1 + 1e-9));
+            }
+        }
+    }
+
+    @Test
+    void simplifiedLinesStayWithinTheTolerance() {
+        List<Position> track = createTrack(10_000, 1);
+        PolylineLevelOfDetail levelOfDetail = new PolylineLevelOfDetail();
+        levelOfDetail.setPositions(track);
+        Assertions.assertEquals(track, levelOfDetail.getPositions(PolylineLevelOfDetail.FULL_DETAIL));
+
+        int previousSize = track.size();
+        for (int level = 0; level != PolylineLevelOfDetail.LEVEL_COUNT; level++) {
+            List<Position> simplified = levelOfDetail.getPositions(level);
+            assertSimplification(track, simplified, PolylineLevelOfDetail.getTolerance(level));
+            Assertions.assertTrue(simplified.size() <= previousSize);
+            previousSize = simplified.size();
+        }
+
+        // straight lines of 500 m with 0.1 m noise
+        Assertions.assertTrue(levelOfDetail.getPositions(4).size() < track.size() / 20);
+    }
+
+    @Test
+    void appendingGivesTheSameLinesAsSettingAllPositions() {
+        List<Position> track = createTrack(3 * PolylineLevelOfDetail.CHUNK_SIZE + 17, 2);
+        PolylineLevelOfDetail expected = new PolylineLevelOfDetail();
+        expected.setPositions(track);
+
+        // the last position is moved around a few times before the next one is added, like for a live track
+        PolylineLevelOfDetail appended = new PolylineLevelOfDetail();
+        Random random = new Random(3);
+        for (Position position : track) {
+            appended.addPosition(Position.fromDegrees(random.nextDouble(), random.nextDouble(), 0));
+            appended.setLastPosition(Position.fromDegrees(random.nextDouble(), random.nextDouble(), 0));
+            appended.setLastPosition(position);
+            for (int level = PolylineLevelOfDetail.FULL_DETAIL; level < PolylineLevelOfDetail.LEVEL_COUNT; level++) {
+                List<Position> simplified = appended.getPositions(level);
+                Assertions.assertSame(position, simplified.get(simplified.size() - 1));
+            }
+        }
+
+        Assertions.assertEquals(track.size(), appended.size());
+        for (int level = PolylineLevelOfDetail.FULL_DETAIL; level < PolylineLevelOfDetail.LEVEL_COUNT; level++) {
+            Assertions.assertEquals(expected.getPositions(level), appended.getPositions(level));
+        }
+    }
+
+    @Test
+    void shortLinesAreNotSimplified() {
+        PolylineLevelOfDetail levelOfDetail = new PolylineLevelOfDetail();
+        Assertions.assertTrue(levelOfDetail.getPositions(3).isEmpty());
+        Position first = Position.fromDegrees(47, 11, 0);
+        levelOfDetail.addPosition(first);
+        Assertions.assertEquals(List.of(first), levelOfDetail.getPositions(3));
+        Position second = Position.fromDegrees(47.001, 11, 0);
+        levelOfDetail.addPosition(second);
+        Assertions.assertEquals(List.of(first, second), levelOfDetail.getPositions(3));
+        levelOfDetail.setPositions(null);
+        Assertions.assertEquals(0, levelOfDetail.size());
+    }
+
+    @Test
+    void levelsMatchTheirTolerance() {
+        Assertions.assertEquals(PolylineLevelOfDetail.FULL_DETAIL, PolylineLevelOfDetail.getLevel(0));
+        Assertions.assertEquals(PolylineLevelOfDetail.FULL_DETAIL, PolylineLevelOfDetail.getLevel(Double.NaN));
+        Assertions.assertEquals(PolylineLevelOfDetail.FULL_DETAIL, PolylineLevelOfDetail.getLevel(0.049));
+        Assertions.assertEquals(0, PolylineLevelOfDetail.getLevel(0.05));
+        Assertions.assertEquals(0, PolylineLevelOfDetail.getLevel(0.199));
+        Assertions.assertEquals(1, PolylineLevelOfDetail.getLevel(0.2));
+        Assertions.assertEquals(
+            PolylineLevelOfDetail.LEVEL_COUNT - 1, PolylineLevelOfDetail.getLevel(Double.POSITIVE_INFINITY));
+        for (int level = 0; level != PolylineLevelOfDetail.LEVEL_COUNT; level++) {
+            Assertions.assertTrue(
+                PolylineLevelOfDetail.getTolerance(level) < PolylineLevelOfDetail.getTolerance(level + 1));
+            Assertions.assertEquals(
+                level, PolylineLevelOfDetail.getLevel(PolylineLevelOfDetail.getTolerance(level) * 1.01));
+        }
+    }
+
+    @Test
+    void polylineRendersTheSimplifiedPositions() {
+        List<Position> track = createTrack(2000, 4);
+        PolylineWithUserData polyline = new PolylineWithUserData();
+        polyline.setPositions(track);
+        polyline.setLevelOfDetailEnabled(true);
+        Assertions.assertTrue(polyline.isLevelOfDetailEnabled());
+        Assertions.assertEquals(track, polyline.getPositions());
+
+        Position next = Position.fromDegrees(48, 12, 0);
+        polyline.addPosition(next);
+        Position moved = Position.fromDegrees(48, 12.001, 0);
+        polyline.setLastPosition(moved);
+        List<Position> positions = new ArrayList<>();
+        polyline.getPositions().forEach(positions::add);
+        Assertions.assertEquals(track.size() + 1, positions.size());
+        Assertions.assertSame(moved, positions.get(track.size()));
+
+        polyline.setLevelOfDetailEnabled(false);
+        polyline.addPosition(next);
+        positions.clear();
+        polyline.getPositions().forEach(positions::add);
+        Assertions.assertEquals(track.size() + 2, positions.size());
+    }
+
+    @Test
+    void settingLatLonsRendersTheSimplifiedPositions() {
+        List<Position> track = createTrack(2000, 5);
+        List<LatLon> latLons = new ArrayList<>(track);
+        PolylineLevelOfDetail expected = new PolylineLevelOfDetail();
+        List<Position> flat = new ArrayList<>();
+        for (LatLon latLon : latLons) {
+            flat.add(new Position(latLon, 100));
+        }
+
+        expected.setPositions(flat);
+        PolylineWithUserData polyline = new PolylineWithUserData();
+        polyline.setLevelOfDetailEnabled(true);
+        polyline.setRenderedLevel(3);
+        polyline.setPositions(latLons, 100);
+        List<Position> positions = new ArrayList<>();
+        polyline.getPositions().forEach(positions::add);
+        Assertions.assertEquals(expected.getPositions(3), positions);
+        Assertions.assertTrue(positions.size() < track.size());
+    }
+
+    @Test
+    void appendingUpdatesTheRenderedLevel() {
+        List<Position> track = createTrack(3 * PolylineLevelOfDetail.CHUNK_SIZE + 17, 6);
+        PolylineLevelOfDetail expected = new PolylineLevelOfDetail();
+        PolylineWithUserData polyline = new PolylineWithUserData();
+        polyline.setLevelOfDetailEnabled(true);
+        polyline.setRenderedLevel(3);
+        List<Position> positions = new ArrayList<>();
+        for (Position position : track) {
+            expected.addPosition(Position.fromDegrees(48, 12, 0));
+            polyline.addPosition(Position.fromDegrees(48, 12, 0));
+            expected.setLastPosition(position);
+            polyline.setLastPosition(position);
+            positions.clear();
+            polyline.getPositions().forEach(positions::add);
+            Assertions.assertEquals(expected.getPositions(3), positions);
+        }
+
+        // switching the level renders all positions of the new level
+        polyline.setRenderedLevel(PolylineLevelOfDetail.FULL_DETAIL);
+        polyline.addPosition(Position.fromDegrees(48, 12, 0));
+        positions.clear();
+        polyline.getPositions().forEach(positions::add);
+        Assertions.assertEquals(track.size() + 1, positions.size());
+        Assertions.assertEquals(track, positions.subList(0, track.size()));
+    }
+
+}
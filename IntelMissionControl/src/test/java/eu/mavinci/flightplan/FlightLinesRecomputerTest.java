@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan;
+
+import eu.mavinci.core.flightplan.CPicArea;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class FlightLinesRecomputerTest {
+
+    private static final int LINE_COUNT = 10;
+
+    /** the ids of the flight plan, which are picked by the areas one after another */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final Map<PicArea, String> lines = new ConcurrentHashMap<>();
+    private final Map<PicArea, Integer> firstIds = new ConcurrentHashMap<>();
+    private final Map<PicArea, Thread> overlapReducingThreads = new ConcurrentHashMap<>();
+
+    /**
+     * The areas finish their computation in the opposite order of the statements, the area at overlapReducedIndex
+     * can't keep its overlap.
+     */
+    private List<PicArea> createAreas(int count, int overlapReducedIndex) {
+        List<PicArea> picAreas = new ArrayList<>();
+        for (int i = 0; i != count; i++) {
+            int index = i;
+            boolean overlapReduced = i == overlapReducedIndex;
+            PicArea picArea = Mockito.mock(PicArea.class);
+            Mockito.when(picArea.computeFlightLineGeometry(Mockito.anyBoolean()))
+                .thenAnswer(
+                    invocation -> {
+                        Thread.sleep(2 * (count - index));
+                        lines.put(picArea, "lines of area " + index);
+                        return true;
+                    });
+            Mockito.when(picArea.isOverlapReductionPending()).thenReturn(overlapReduced);
+            Mockito.when(picArea.finishFlightLines(Mockito.anyBoolean()))
+                .thenAnswer(invocation -> pickIds(picArea));
+            Mockito.when(picArea.computeFlightLines(Mockito.anyBoolean()))
+                .thenAnswer(
+                    invocation -> {
+                        if (overlapReduced) {
+                            overlapReducingThreads.put(picArea, Thread.currentThread());
+                            lines.put(picArea, "lines of area " + index + " with reduced overlap");
+                        } else {
+                            lines.put(picArea, "lines of area " + index);
+                        }
+
+                        return pickIds(picArea);
+                    });
+            picAreas.add(picArea);
+        }
+
+        return picAreas;
+    }
+
+    private boolean pickIds(PicArea picArea) {
+        firstIds.put(picArea, nextId.getAndAdd(LINE_COUNT));
+        return true;
+    }
+
+    private void reset() {
+        nextId.set(0);
+        lines.clear();
+        firstIds.clear();
+        overlapReducingThreads.clear();
+    }
+
+    @Test
+    void concurrentComputationGivesTheSameLinesAndIdsAsTheSequentialOne() {
+        List<PicArea> picAreas = createAreas(6, 2);
+
+        Assertions.assertTrue(FlightLinesRecomputer.computeFlightLines(picAreas, false, true));
+        List<String> sequentialLines = new ArrayList<>();
+        List<Integer> sequentialIds = new ArrayList<>();
+        for (PicArea picArea : picAreas) {
+            sequentialLines.add(lines.get(picArea));
+            sequentialIds.add(firstIds.get(picArea));
+        }
+
+        reset();
+        Assertions.assertTrue(FlightLinesRecomputer.computeFlightLines(picAreas, true, true));
+        for (int i = 0; i != picAreas.size(); i++) {
+            Assertions.assertEquals(sequentialLines.get(i), lines.get(picAreas.get(i)));
+            Assertions.assertEquals(sequentialIds.get(i), firstIds.get(picAreas.get(i)));
+            Assertions.assertEquals(i * LINE_COUNT, (int)firstIds.get(picAreas.get(i)));
+        }
+    }
+
+    @Test
+    void overlapIsReducedOnTheCallingThread() {
+        List<PicArea> picAreas = createAreas(4, 1);
+
+        Assertions.assertTrue(FlightLinesRecomputer.computeFlightLines(picAreas, true, true));
+        Assertions.assertEquals(Thread.currentThread(), overlapReducingThreads.get(picAreas.get(1)));
+        Assertions.assertEquals("lines of area 1 with reduced overlap", lines.get(picAreas.get(1)));
+        Mockito.verify(picAreas.get(1), Mockito.never()).finishFlightLines(Mockito.anyBoolean());
+        Mockito.verify(picAreas.get(0), Mockito.never()).computeFlightLines(Mockito.anyBoolean());
+    }
+
+    @Test
+    void upToDateAreasAreSkipped() {
+        List<CPicArea> picAreas = new ArrayList<>();
+        for (int i = 0; i != 5; i++) {
+            PicArea picArea = Mockito.mock(PicArea.class);
+            Mockito.when(picArea.isFlightLinesUpToDate()).thenReturn(i % 2 == 0);
+            picAreas.add(picArea);
+        }
+
+        Assertions.assertEquals(
+            List.of(picAreas.get(1), picAreas.get(3)), FlightLinesRecomputer.getOutdated(picAreas));
+    }
+
+    @Test
+    void failureOfTheFirstAreaInStatementOrderIsReported() {
+        List<PicArea> picAreas = createAreas(4, -1);
+        Mockito.when(picAreas.get(1).computeFlightLineGeometry(Mockito.anyBoolean()))
+            .thenAnswer(
+                invocation -> {
+                    Thread.sleep(20);
+                    throw new IllegalArgumentException("area 1");
+                });
+        Mockito.when(picAreas.get(3).computeFlightLineGeometry(Mockito.anyBoolean()))
+            .thenThrow(new IllegalArgumentException("area 3"));
+
+        IllegalArgumentException e =
+            Assertions.assertThrows(
+                IllegalArgumentException.class, () -> FlightLinesRecomputer.computeFlightLines(picAreas, true, true));
+        Assertions.assertEquals("area 1", e.getMessage());
+        for (PicArea picArea : picAreas) {
+            Mockito.verify(picArea, Mockito.never()).finishFlightLines(Mockito.anyBoolean());
+        }
+
+        Assertions.assertEquals(0, nextId.get());
+    }
+
+    @Test
+    void checkedFailureIsWrapped() {
+        List<PicArea> picAreas = createAreas(3, -1);
+        Mockito.when(picAreas.get(2).computeFlightLineGeometry(Mockito.anyBoolean()))
+            .thenAnswer(
+                invocation -> {
+                    throw new IOException("area 2");
+                });
+
+        IllegalStateException e =
+            Assertions.assertThrows(
+                IllegalStateException.class, () -> FlightLinesRecomputer.computeFlightLines(picAreas, true, true));
+        Assertions.assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    void failedAreaGetsNoIds() {
+        List<PicArea> picAreas = createAreas(3, -1);
+        Mockito.when(picAreas.get(1).computeFlightLineGeometry(Mockito.anyBoolean())).thenReturn(false);
+
+        Assertions.assertFalse(FlightLinesRecomputer.computeFlightLines(picAreas, true, true));
+        Mockito.verify(picAreas.get(1), Mockito.never()).finishFlightLines(Mockito.anyBoolean());
+        Assertions.assertEquals(0, (int)firstIds.get(picAreas.get(0)));
+        Assertions.assertEquals(LINE_COUNT, (int)firstIds.get(picAreas.get(2)));
+    }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import eu.mavinci.core.helper.MinMaxPair;
+import gov.nasa.worldwind.geom.Vec4;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ContourLineGeneratorTest {
+
+    private static double[][] createHill(int size) {
+        double[][] zdata = new double[size][size];
+        double center = (size - 1) / 2.;
+        for (int i = 0; i != size; i++) {
+            for (int j = 0; j != size; j++) {
+                zdata[i][j] = 100 - Math.hypot(i - center, j - center);
+            }
+        }
+
+        return zdata;
+    }
+
+    private static double[][] createNoise(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[][] zdata = new double[rows][columns];
+        for (int i = 0; i != rows; i++) {
+            for (int j = 0; j != columns; j++) {
+                zdata[i][j] =
+                    200 * Math.sin(i / 37.) * Math.cos(j / 23.) + 20 * Math.sin((i + 2 * j) / 7.) + random.nextDouble();
+            }
+        }
+
+        return zdata;
+    }
+
+    @Test
+    void hillHasClosedCircles() {
+        double[][] zdata = createHill(101);
+        List<ContourLineGenerator.Polyline> polylines = ContourLineGenerator.getContours(zdata, new double[] {70, 90});
+        Assertions.assertEquals(2, polylines.size());
+        for (ContourLineGenerator.Polyline polyline : polylines) {
+            Assertions.assertTrue(polyline.isClosed());
+            double radius = 100 - polyline.getLevel();
+            for (int i = 0; i != polyline.size(); i++) {
+                Assertions.assertEquals(radius, Math.hypot(polyline.getX(i) - 50, polyline.getY(i) - 50), 0.1);
+            }
+        }
+
+        Assertions.assertEquals(70, polylines.get(0).getLevel());
+        Assertions.assertEquals(90, polylines.get(1).getLevel());
+    }
+
+    @Test
+    void unknownDataSplitsLines() {
+        double[][] zdata = new double[10][10];
+        for (int i = 0; i != 10; i++) {
+            for (int j = 0; j != 10; j++) {
+                zdata[i][j] = i;
+            }
+        }
+
+        List<ContourLineGenerator.Polyline> polylines = ContourLineGenerator.getContours(zdata, new double[] {2.5});
+        Assertions.assertEquals(1, polylines.size());
+        ContourLineGenerator.Polyline polyline = polylines.get(0);
+        Assertions.assertFalse(polyline.isClosed());
+        Assertions.assertEquals(10, polyline.size());
+        for (int i = 0; i != polyline.size(); i++) {
+            Assertions.assertEquals(2.5, polyline.getX(i), 1e-12);
+        }
+
+        zdata[2][5] = Double.NEGATIVE_INFINITY;
+        polylines = ContourLineGenerator.getContours(zdata, new double[] {2.5});
+        Assertions.assertEquals(2, polylines.size());
+        Assertions.assertEquals(9, polylines.get(0).size() + polylines.get(1).size());
+    }
+
+    @Test
+    void everyCrossedEdgeIsOnExactlyOneLine() {
+        double[][] zdata = createNoise(120, 90, 1);
+        zdata[30][40] = Double.NEGATIVE_INFINITY;
+        zdata[31][40] = Double.NaN;
+        double[] levels = {-150, -100, -50, -10, 0, 10, 50, 100, 150};
+        List<ContourLineGenerator.Polyline> polylines = ContourLineGenerator.getContours(zdata, levels);
+
+        for (double level : levels) {
+            int crossedEdges = 0;
+            for (int i = 0; i != zdata.length; i++) {
+                for (int j = 0; j != zdata[0].length; j++) {
+                    if (i + 1 < zdata.length && isCrossed(zdata[i][j], zdata[i + 1][j], level)) {
+                        crossedEdges++;
+                    }
+
+                    if (j + 1 < zdata[0].length && isCrossed(zdata[i][j], zdata[i][j + 1], level)) {
+                        crossedEdges++;
+                    }
+                }
+            }
+
+            int points = 0;
+            for (ContourLineGenerator.Polyline polyline : polylines) {
+                if (polyline.getLevel() != level) {
+                    continue;
+                }
+
+                points += polyline.size();
+                for (int k = 0; k != polyline.size(); k++) {
+                    double x = polyline.getX(k);
+                    double y = polyline.getY(k);
+                    Assertions.assertTrue(x == Math.rint(x) || y == Math.rint(y), "point not on a grid edge");
+
+                    int next = (k + 1) % polyline.size();
+                    if (next != 0 || polyline.isClosed()) {
+                        Assertions.assertTrue(Math.abs(polyline.getX(next) - x) <= 1);
+                        Assertions.assertTrue(Math.abs(polyline.getY(next) - y) <= 1);
+                    }
+                }
+            }
+
+            // crossed edges next to unknown data are only reached from the other side, if at all
+            Assertions.assertTrue(points <= crossedEdges);
+            Assertions.assertTrue(points >= crossedEdges - 8, "level " + level);
+        }
+    }
+
+    private static boolean isCrossed(double z0, double z1, double level) {
+        return Double.isFinite(z0) && Double.isFinite(z1) && (z0 >= level) != (z1 >= level);
+    }
+
+    @Test
+    void allContoursCloseTheirLoops() {
+        MinMaxPair zRange = new MinMaxPair(60, 90);
+        Vector<Vector<Vec4>> contours = ContourLineGenerator.getAllContours(createHill(101), 10, zRange);
+        Assertions.assertEquals(4, contours.size());
+        for (Vector<Vec4> contour : contours) {
+            Assertions.assertSame(contour.firstElement(), contour.lastElement());
+        }
+
+        Assertions.assertEquals(70, contours.get(1).get(0).z, 1e-9);
+    }
+
+}
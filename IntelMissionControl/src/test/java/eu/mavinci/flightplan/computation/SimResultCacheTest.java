@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import eu.mavinci.airspace.IAirspace;
+import eu.mavinci.core.flightplan.IFlightplanPositionReferenced;
+import eu.mavinci.core.flightplan.IFlightplanRelatedObject;
+import eu.mavinci.core.plane.AirplaneFlightphase;
+import eu.mavinci.core.plane.sendableobjects.PhotoData;
+import eu.mavinci.flightplan.PicArea;
+import eu.mavinci.flightplan.computation.FPsim.SimDistance;
+import eu.mavinci.flightplan.computation.FPsim.SimResultData;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.globes.ElevationModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class SimResultCacheTest {
+
+    private static final byte[] KEY = {1, 2, 3, (byte)0xfe};
+
+    @TempDir
+    File folder;
+
+    private final List<IFlightplanRelatedObject> objects = new ArrayList<>();
+    private final List<PicArea> picAreas = new ArrayList<>();
+    private final List<IAirspace> airspaces = new ArrayList<>();
+    private final List<ElevationModel> elevationModels = new ArrayList<>();
+
+    @BeforeEach
+    void createFlightplanObjects() {
+        for (int i = 0; i != 5; i++) {
+            objects.add(Mockito.mock(IFlightplanPositionReferenced.class));
+            objects.add(Mockito.mock(IFlightplanRelatedObject.class));
+        }
+
+        picAreas.add(Mockito.mock(PicArea.class));
+        picAreas.add(Mockito.mock(PicArea.class));
+        airspaces.add(Mockito.mock(IAirspace.class));
+        airspaces.add(Mockito.mock(IAirspace.class));
+        elevationModels.add(Mockito.mock(ElevationModel.class));
+        elevationModels.add(Mockito.mock(ElevationModel.class));
+    }
+
+    private SimResultData createResult() {
+        SimResultData result = new SimResultData();
+        result.distance = 1234.5;
+        result.flightTime = 321;
+        result.minMaxDistanceToGround.overwrite(12, 80);
+        result.minMaxDistanceToMSL.overwrite(500, 620.25);
+        result.worstPostGroundDistance = Position.fromDegrees(47.1, 11.2, 512);
+        result.firstFPobj = objects.get(1);
+        result.lowestAirspace = airspaces.get(1);
+        result.minDistanceToFloor = -3.5;
+        result.aoiCollisions.add(picAreas.get(1));
+        result.lineOfSightCheckedCount = 7;
+        result.lineOfSightOccludedCount = 2;
+        result.firstPosLineOfSightOccluded = Position.fromDegrees(47.2, 11.3, 600);
+
+        for (int i = 0; i != 10; i++) {
+            result.progressMap.put(i, i * 10.5);
+            result.posMap.put(i, (IFlightplanPositionReferenced)objects.get(2 * (i / 2)));
+
+            PhotoData photo = new PhotoData();
+            photo.number = i;
+            photo.lat = 47 + i / 1000.;
+            photo.lon = 11 + i / 1000.;
+            photo.alt = 10_000 + i;
+            photo.camera_pitch = i / 3f;
+            photo.reentrypoint = i;
+            result.photos.add(photo);
+
+            SimDistance simDistance = new SimDistance();
+            simDistance.flightPhase = i == 0 ? null : AirplaneFlightphase.airborne;
+            simDistance.fpRelObjectHeading = objects.get(i);
+            simDistance.position = Position.fromDegrees(photo.lat, photo.lon, 600 + i);
+            simDistance.positionOverGround =
+                i % 3 == 0 ? simDistance.position : Position.fromDegrees(photo.lat, photo.lon, 500);
+            simDistance.elevationSource = new WeakReference<>(i % 2 == 0 ? elevationModels.get(i % 4 / 2) : null);
+            simDistance.groundDistanceMeter = 100 - i;
+            simDistance.airspaceDistanceMeter = i == 5 ? -3.5 : Double.POSITIVE_INFINITY;
+            simDistance.lowestAirspace = i == 5 ? airspaces.get(1) : null;
+            simDistance.lineOfSightOccluded = i >= 8;
+            if (i == 4) {
+                simDistance.aoiCollisions.addAll(picAreas);
+            }
+
+            result.simDistances.add(simDistance);
+        }
+
+        return result;
+    }
+
+    private boolean read(SimResultData result) {
+        return SimResultCache.read(folder, KEY, result, objects, picAreas, airspaces, elevationModels);
+    }
+
+    private void write(byte[] key, SimResultData result) {
+        SimResultCache.write(folder, key, result, objects, picAreas, airspaces, elevationModels);
+    }
+
+    @Test
+    void restoresTheStoredResult() {
+        SimResultData expected = createResult();
+        write(KEY, expected);
+
+        SimResultData actual = new SimResultData();
+        Assertions.assertTrue(read(actual));
+        Assertions.assertEquals(expected.distance, actual.distance);
+        Assertions.assertEquals(expected.flightTime, actual.flightTime);
+        Assertions.assertEquals(expected.minMaxDistanceToGround.min, actual.minMaxDistanceToGround.min);
+        Assertions.assertEquals(expected.minMaxDistanceToMSL.max, actual.minMaxDistanceToMSL.max);
+        Assertions.assertEquals(expected.minMaxHeightOverTakeoff.min, actual.minMaxHeightOverTakeoff.min);
+        Assertions.assertEquals(expected.worstPostGroundDistance, actual.worstPostGroundDistance);
+        Assertions.assertNull(actual.worstPostAispraceDistance);
+        Assertions.assertNull(actual.first);
+        Assertions.assertSame(expected.firstFPobj, actual.firstFPobj);
+        Assertions.assertSame(expected.lowestAirspace, actual.lowestAirspace);
+        Assertions.assertEquals(expected.minDistanceToFloor, actual.minDistanceToFloor);
+        Assertions.assertEquals(expected.aoiCollisions, actual.aoiCollisions);
+        Assertions.assertTrue(actual.aoiCollisionsTakeoff.isEmpty());
+        Assertions.assertEquals(expected.lineOfSightCheckedCount, actual.lineOfSightCheckedCount);
+        Assertions.assertEquals(expected.lineOfSightOccludedCount, actual.lineOfSightOccludedCount);
+        Assertions.assertEquals(expected.firstPosLineOfSightOccluded, actual.firstPosLineOfSightOccluded);
+        Assertions.assertEquals(expected.progressMap, actual.progressMap);
+        Assertions.assertEquals(expected.posMap.size(), actual.posMap.size());
+        for (Map.Entry<Integer, IFlightplanPositionReferenced> entry : expected.posMap.entrySet()) {
+            Assertions.assertSame(entry.getValue(), actual.posMap.get(entry.getKey()));
+        }
+
+        Assertions.assertEquals(expected.photos.size(), actual.photos.size());
+        for (int i = 0; i != expected.photos.size(); i++) {
+            PhotoData expectedPhoto = expected.photos.get(i);
+            PhotoData actualPhoto = actual.photos.get(i);
+            Assertions.assertEquals(expectedPhoto.number, actualPhoto.number);
+            Assertions.assertEquals(expectedPhoto.lat, actualPhoto.lat);
+            Assertions.assertEquals(expectedPhoto.lon, actualPhoto.lon);
+            Assertions.assertEquals(expectedPhoto.alt, actualPhoto.alt);
+            Assertions.assertEquals(expectedPhoto.camera_pitch, actualPhoto.camera_pitch);
+            Assertions.assertEquals(expectedPhoto.reentrypoint, actualPhoto.reentrypoint);
+            Assertions.assertEquals(expectedPhoto.groundspeed, actualPhoto.groundspeed);
+        }
+
+        Assertions.assertEquals(expected.simDistances.size(), actual.simDistances.size());
+        for (int i = 0; i != expected.simDistances.size(); i++) {
+            SimDistance expectedDistance = expected.simDistances.get(i);
+            SimDistance actualDistance = actual.simDistances.get(i);
+            Assertions.assertEquals(expectedDistance.flightPhase, actualDistance.flightPhase);
+            Assertions.assertSame(expectedDistance.fpRelObjectHeading, actualDistance.fpRelObjectHeading);
+            Assertions.assertEquals(expectedDistance.position, actualDistance.position);
+            Assertions.assertEquals(expectedDistance.positionOverGround, actualDistance.positionOverGround);
+            Assertions.assertSame(expectedDistance.elevationSource.get(), actualDistance.elevationSource.get());
+            Assertions.assertEquals(expectedDistance.groundDistanceMeter, actualDistance.groundDistanceMeter);
+            Assertions.assertEquals(expectedDistance.airspaceDistanceMeter, actualDistance.airspaceDistanceMeter);
+            Assertions.assertSame(expectedDistance.lowestAirspace, actualDistance.lowestAirspace);
+            Assertions.assertEquals(expectedDistance.lineOfSightOccluded, actualDistance.lineOfSightOccluded);
+            Assertions.assertEquals(expectedDistance.aoiCollisions, actualDistance.aoiCollisions);
+        }
+    }
+
+    @Test
+    void resultsOfOtherFlightplansAreIgnored() {
+        write(KEY, createResult());
+        Assertions.assertFalse(
+            SimResultCache.read(
+                folder, new byte[] {1, 2, 3}, new SimResultData(), objects, picAreas, airspaces, elevationModels));
+
+        objects.remove(objects.size() - 1);
+        Assertions.assertFalse(read(new SimResultData()));
+        Assertions.assertFalse(
+            SimResultCache.read(
+                new File(folder, "other"), KEY, new SimResultData(), objects, picAreas, airspaces, elevationModels));
+    }
+
+    @Test
+    void brokenFilesAreIgnored() throws IOException {
+        write(KEY, createResult());
+        File file = SimResultCache.getCacheFile(folder, KEY);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int b = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 0x10);
+        }
+
+        Assertions.assertFalse(read(new SimResultData()));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 3);
+        }
+
+        Assertions.assertFalse(read(new SimResultData()));
+    }
+
+    @Test
+    void onlyTheMostRecentlyUsedFilesAreKept() {
+        SimResultData result = new SimResultData();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i != SimResultCache.MAX_FILES; i++) {
+            byte[] key = {(byte)i, 42};
+            write(key, result);
+            File file = SimResultCache.getCacheFile(folder, key);
+            Assertions.assertTrue(file.setLastModified(1_000_000_000_000L + i * 1000L));
+            files.add(file);
+        }
+
+        // the first one is used again, the second one is the oldest now
+        Assertions.assertTrue(
+            SimResultCache.read(
+                folder,
+                new byte[] {0, 42},
+                new SimResultData(),
+                objects,
+                picAreas,
+                airspaces,
+                Collections.emptyList()));
+        write(new byte[] {-1, 42}, result);
+
+        Assertions.assertTrue(files.get(0).isFile());
+        Assertions.assertFalse(files.get(1).isFile());
+        Assertions.assertTrue(files.get(2).isFile());
+        File[] remaining = files.get(0).getParentFile().listFiles();
+        Assertions.assertNotNull(remaining);
+        Assertions.assertEquals(SimResultCache.MAX_FILES, remaining.length);
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.flightplan.computation;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TerrainLineOfSightTest {
+
+    private static final int SIZE = 101;
+
+    // 0.01 degree ~ 1.1km, a 100m high north-south ridge in the middle
+    private static final Sector SECTOR = Sector.fromDegrees(47, 47.01, 11, 11.01);
+
+    private static TerrainLineOfSight createRidge() {
+        float[] elevations = new float[SIZE * SIZE];
+        for (int row = 0; row != SIZE; row++) {
+            for (int col = 0; col != SIZE; col++) {
+                elevations[row * SIZE + col] = 500 + (Math.abs(col - 50) <= 2 ? 100 : 0);
+            }
+        }
+
+        return new TerrainLineOfSight(SECTOR, SIZE, SIZE, elevations);
+    }
+
+    @Test
+    void ridgeBlocksLowTargets() {
+        TerrainLineOfSight terrain = createRidge();
+        Position observer = terrain.getObserverPosition(Position.fromDegrees(47.005, 11.001));
+        Assertions.assertEquals(502, observer.elevation, 1e-3);
+
+        Assertions.assertFalse(terrain.isVisible(observer, Position.fromDegrees(47.005, 11.009, 550)));
+        Assertions.assertTrue(terrain.isVisible(observer, Position.fromDegrees(47.005, 11.009, 800)));
+        Assertions.assertTrue(terrain.isVisible(observer, Position.fromDegrees(47.009, 11.004, 520)));
+    }
+
+    @Test
+    void targetsOnTheGroundAreVisibleOnFlatTerrain() {
+        TerrainLineOfSight terrain = createRidge();
+        Position observer = terrain.getObserverPosition(Position.fromDegrees(47.001, 11.001));
+        Assertions.assertTrue(terrain.isVisible(observer, Position.fromDegrees(47.009, 11.002, 500)));
+    }
+
+    @Test
+    void parallelComputationMatchesSequential() throws InterruptedException {
+        TerrainLineOfSight terrain = createRidge();
+        Position observer = terrain.getObserverPosition(Position.fromDegrees(47.005, 11.001));
+        List<Position> targets = new ArrayList<>();
+        for (int i = 0; i != 2000; i++) {
+            targets.add(
+                Position.fromDegrees(47.001 + (i % 40) * 0.0002, 11.0005 + (i / 40) * 0.00018, 520 + i % 7 * 20));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            boolean[] occluded = terrain.computeOccluded(observer, targets, executor);
+            for (int i = 0; i != targets.size(); i++) {
+                Assertions.assertEquals(!terrain.isVisible(observer, targets.get(i)), occluded[i]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
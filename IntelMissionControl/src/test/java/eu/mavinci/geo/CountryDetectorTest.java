@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.geo;
+
+import com.google.inject.AbstractModule;
+import com.intel.missioncontrol.TestStaticInjector;
+import com.intel.missioncontrol.helper.ILanguageHelper;
+import com.intel.missioncontrol.test.utils.MockLanguage;
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Sector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CountryDetectorTest {
+
+    private static CountryDetector detector;
+
+    @BeforeAll
+    static void setUp() {
+        // CountryDetector needs a language helper when it is initialized
+        TestStaticInjector.initialize(
+            new AbstractModule() {
+                @Override
+                protected void configure() {
+                    bind(ILanguageHelper.class).to(MockLanguage.class);
+                }
+            });
+        detector = new CountryDetector();
+    }
+
+    /** random positions all over the world, and as many close to the borders of random countries */
+    private static List<LatLon> createPositions(int count) {
+        Random random = new Random(count);
+        List<Country> countries = new ArrayList<>(detector.countries.values());
+        List<LatLon> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            positions.add(LatLon.fromDegrees(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180));
+            Country c = countries.get(random.nextInt(countries.size()));
+            List<LatLon> border = c.borders.get(random.nextInt(c.borders.size()));
+            LatLon vertex = border.get(random.nextInt(border.size()));
+            positions.add(
+                LatLon.fromDegrees(
+                    vertex.latitude.degrees + (random.nextDouble() - 0.5) * 0.5,
+                    vertex.longitude.degrees + (random.nextDouble() - 0.5) * 0.5));
+        }
+
+        return positions;
+    }
+
+    private static Country findFirstCountry(LatLon latLon) {
+        for (Country c : detector.countries.values()) {
+            if (c.distance(latLon) <= c.SAFETY_MARGIN) {
+                return c;
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    void indexFindsTheSameCountriesAsCheckingAll() {
+        List<LatLon> positions = createPositions(500);
+        List<Country> firstCountries = detector.getFirstCountries(positions);
+        Assertions.assertEquals(positions.size(), firstCountries.size());
+        for (int i = 0; i < positions.size(); i++) {
+            Country expected = findFirstCountry(positions.get(i));
+            Assertions.assertSame(expected, detector.getFirstCountry(positions.get(i)));
+            Assertions.assertSame(expected, firstCountries.get(i));
+        }
+    }
+
+    @Test
+    void sectorIsCheckedAtCentroidAndCorners() {
+        List<LatLon> positions = createPositions(100);
+        for (LatLon latLon : positions) {
+            double size = 0.2;
+            Sector sector =
+                Sector.fromDegrees(
+                    latLon.latitude.degrees,
+                    latLon.latitude.degrees + size,
+                    latLon.longitude.degrees,
+                    Math.min(180, latLon.longitude.degrees + size));
+            List<Country> expected = new ArrayList<>();
+            for (Country c : detector.countries.values()) {
+                if (c.distance(sector) <= c.SAFETY_MARGIN) {
+                    expected.add(c);
+                }
+            }
+
+            Assertions.assertEquals(expected, detector.getAllCountries(sector));
+            Assertions.assertSame(expected.isEmpty() ? null : expected.get(0), detector.getFirstCountry(sector));
+        }
+    }
+
+    @Test
+    void countryIsPreparedAgainWhenBordersAreAdded() {
+        Country c = new Country("XX", "Square");
+        c.addBorderFromKMLCoordinates("10,10 11,10 11,11 10,11");
+        Assertions.assertTrue(c.contains(LatLon.fromDegrees(10.5, 10.5)));
+        Assertions.assertFalse(c.contains(LatLon.fromDegrees(20.5, 20.5)));
+        Assertions.assertFalse(c.withinSafetyDistance(LatLon.fromDegrees(20.5, 20.5)));
+
+        c.addBorderFromKMLCoordinates("20,20 21,20 21,21 20,21");
+        Assertions.assertTrue(c.contains(LatLon.fromDegrees(20.5, 20.5)));
+        Assertions.assertTrue(c.distance(LatLon.fromDegrees(20.5, 20.5)) < 0);
+        // one nautical mile is a minute of latitude
+        Assertions.assertEquals(60 * 1852.0, c.distance(LatLon.fromDegrees(22, 20.5)), 1e-3);
+        Assertions.assertTrue(c.withinSafetyDistance(LatLon.fromDegrees(21.1, 20.5)));
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package eu.mavinci.plane.logfile;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogLineIndexTest {
+
+    private static final String LOG =
+        "# header comment\n"
+            + "1000;first line\r\n"
+            + "\n"
+            + "   1500;indented ä line  \n"
+            + "broken;no timestamp\n"
+            + "2000;third\r"
+            + "2000;fourth\n"
+            + "\t\n"
+            + "3000;last";
+
+    @TempDir
+    File folder;
+
+    private static double extractTimestamp(String line) {
+        return Double.parseDouble(line.substring(0, line.indexOf(';')));
+    }
+
+    private File writeLog(String content) throws IOException {
+        File log = new File(folder, "test.flg");
+        Files.write(log.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+        return log;
+    }
+
+    @Test
+    void sameLinesAsReadingTheWholeFile() throws IOException {
+        List<String> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(LOG))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("broken")) {
+                    expected.add(line);
+                }
+            }
+        }
+
+        LogLineIndex index = LogLineIndex.open(writeLog(LOG), LogLineIndexTest::extractTimestamp);
+        Assertions.assertEquals(expected.size(), index.size());
+        for (int i = 0; i != expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i), index.getLine(i));
+            Assertions.assertEquals(extractTimestamp(expected.get(i)), index.getTime(i));
+        }
+    }
+
+    @Test
+    void indexIsStoredAndInvalidatedWithTheLog() throws IOException {
+        File log = writeLog(LOG);
+        AtomicInteger decoded = new AtomicInteger();
+        LogLineIndex.TimestampExtractor extractor =
+            line -> {
+                decoded.incrementAndGet();
+                return extractTimestamp(line);
+            };
+
+        LogLineIndex.open(log, extractor);
+        Assertions.assertTrue(LogLineIndex.getIndexFile(log).isFile());
+        int decodedFirst = decoded.get();
+        Assertions.assertTrue(decodedFirst > 0);
+
+        LogLineIndex index = LogLineIndex.open(log, extractor);
+        Assertions.assertEquals(decodedFirst, decoded.get());
+        Assertions.assertEquals("3000;last", index.getLine(index.size() - 1));
+
+        // the log is still open, so it is only touched, not rewritten
+        Assertions.assertTrue(log.setLastModified(log.lastModified() - 60_000));
+        index = LogLineIndex.open(log, extractor);
+        Assertions.assertEquals(2 * decodedFirst, decoded.get());
+        Assertions.assertEquals("3000;last", index.getLine(index.size() - 1));
+    }
+
+    @Test
+    void linesAcrossReadChunks() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i != 20_000; i++) {
+            log.append(i).append(";line ").append(i).append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+
+        LogLineIndex index = LogLineIndex.open(writeLog(log.toString()), LogLineIndexTest::extractTimestamp);
+        Assertions.assertEquals(20_000, index.size());
+        for (int i = 0; i != 20_000; i++) {
+            Assertions.assertEquals(i + ";line " + i, index.getLine(i));
+        }
+    }
+
+    @Test
+    void closeReleasesTheLog() throws IOException {
+        File log = writeLog(LOG);
+        LogLineIndex index = LogLineIndex.open(log, LogLineIndexTest::extractTimestamp);
+        Assertions.assertEquals("1000;first line", index.getLine(0));
+        index.close();
+
+        Assertions.assertThrows(UncheckedIOException.class, () -> index.getLine(0));
+        Assertions.assertTrue(log.delete());
+    }
+
+}
@@ -247,8 +247,12 @@ class InsightContext {
                 var fileContent = File("$directory/upload_project_template").readText()
                 photoResponse = gson.fromJson(fileContent, PhotoPrep::class.java)
                 println("[InsightCLI]:\tCreated Photo-Upload-Request succesfully")
-                var progressLog = File("$directory/upload_project_progress").readLines()
-                startIndex = progressLog[0].split(",")[1].toInt()
+                var legacyProgressLog = File("$directory/upload_project_progress")
+                if (legacyProgressLog.exists()) {
+                    // written by older versions, which uploaded strictly in order
+                    startIndex = legacyProgressLog.readLines()[0].split(",")[1].toInt()
+                    legacyProgressLog.delete()
+                }
                 println("[InsightCLI]:\tContinuing from previous upload at image $startIndex")
                 continuePossibleFromPreviousUpload = true
             } catch (e: Exception) {
@@ -278,70 +282,23 @@ class InsightContext {
         }
 
 
-//        println("succ")
-
-        val N = photoResponse?.photos?.size
-        var i = 0
-        var progressLog = File("$directory/upload_project_progress")
-        progressLog.writeText("")
-
-        for (photo in photoResponse?.photos!!) {
-            if (i < startIndex) {
-                i = i + 1
-                continue;
-            }
+        val photos = photoResponse?.photos!!
+        val journal = UploadJournal(File("$directory/$UPLOAD_JOURNAL_FILE"))
+        if (!continuePossibleFromPreviousUpload) {
+            journal.delete()
+        }
 
-            i = i + 1
-
-            var id = photo.id
-            var seq = photo.seq
-            val myFile = File(photo.seq)
-            println("[InsightCLI]:\t Currently uploading id:$id,\t seq:$seq")
-
-            progressCallback?.progressMessage("uploading:" + myFile.name, i.toDouble() / N?.toDouble()!!)
-            var ins: InputStream = myFile.inputStream()
-
-            var content = ins.readBytes()
-
-            //headers = prepareHeaders(this.oauthResponse.accessToken.orEmpty())
-            //headers.put("Content-MD5",md5(content))
-            headers = HashMap<String, String>();
-            headers.put("Content-Type", "application/octet-stream");
-            headers.put("Authorization", "Bearer " + this.oauthResponse.accessToken.orEmpty());
-            headers.put("Pragma", "no-cache");
-            headers.put("Referer", "$targetHost/app/browse/projects");
-            headers.put("Origin", "$targetHost");
-            headers.put("host", "newdev.ixstack.net");
-            headers.put("Cache-Control", "no-cache");
-            headers.put("Accept", "*/*");
-            headers.put("Accept-Encoding", "gzip, deflate, br")
-            headers.put("Expires", "Sat, 01 Jan 2000 00:00:00 GMT")
-            headers.put("Accept-Language", "en-US,en;q=0.9")
-            headers.put("Connection", "keep-alive")
-            headers.put("Content-MD5", md5(content))
-            var size = content.size
-//            println(size)
-//            println(md5(content))
-            //headers.put("Content-Length","$size")
-//            headers.put(
-//                    "User-Agent",
-//                    "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/71.0.3578.98 Safari/537.36"
-//            )
-
-
-            var target = "$targetHost/dxds/" +
-                    "photos/jpg/$id"
-            var createProjectResponse = Unirest.put(target)
-                    .headers(headers)
-                    .body(content).asString()
-            if (createProjectResponse.status == 200) {
-                println("[InsightCLI]:\tCreated Photo Upload  succesfull\t Progress ${i}/${N}")
-                progressLog.writeText("")
-                progressLog.appendText("$id,${i},${N}")
-            } else {
-                System.err.println("[InsightCLI]:\t Photo Upload ${i}/${N} failed, Reason: ${createProjectResponse.status}, ${createProjectResponse.statusText}, ${createProjectResponse.body}")
-            }
+        val uploader = PhotoUploader(targetHost, this.oauthResponse.accessToken.orEmpty(), uploadConcurrency)
+        val result = try {
+            uploader.upload(photos.drop(startIndex), journal, progressCallback)
+        } finally {
+            journal.close()
+        }
 
+        if (result.failed.isEmpty()) {
+            println("[InsightCLI]:\tCreated Photo Upload  succesfull\t uploaded ${result.uploaded}, already uploaded ${result.skipped + startIndex}")
+        } else {
+            System.err.println("[InsightCLI]:\t Photo Upload of ${result.failed.size}/${photos.size} photos failed, they will be uploaded when continuing the upload")
         }
 
         var fid = photoUpload.flight?.orEmpty()
@@ -366,6 +323,13 @@ class InsightContext {
 
 
     lateinit var oauthResponse: OAuthResponse
+
+    /** number of photos uploaded concurrently by [preparePhotoUpload] */
+    var uploadConcurrency: Int = PhotoUploader.DEFAULT_MAX_IN_FLIGHT
+
+    companion object {
+        const val UPLOAD_JOURNAL_FILE = "upload_project_journal"
+    }
 }
 
 
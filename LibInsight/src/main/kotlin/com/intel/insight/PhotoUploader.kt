@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.insight
+
+import com.intel.insight.datastructures.IUploadProgress
+import com.intel.insight.datastructures.Photo
+import java.io.File
+import java.io.IOException
+import java.math.BigInteger
+import java.net.HttpURLConnection
+import java.net.URL
+import java.security.MessageDigest
+import java.util.Collections
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Uploads the photo files of a prepared photo upload with a bounded number of requests in flight.
+ *
+ * Files are never loaded into memory: the MD5 is computed by streaming the file once, so it can be sent as Content-MD5
+ * before the body, then the body is streamed from disk in chunks with a fixed content length. Failed transfers are
+ * retried with exponential backoff, every completed photo is recorded in the [UploadJournal] together with its MD5, so
+ * a later call with the same journal only uploads what is missing or has changed since.
+ */
+class PhotoUploader(
+        private val targetHost: String,
+        private val accessToken: String,
+        private val maxInFlight: Int = DEFAULT_MAX_IN_FLIGHT,
+        private val maxAttempts: Int = DEFAULT_MAX_ATTEMPTS,
+        private val retryDelayMs: Long = DEFAULT_RETRY_DELAY_MS
+) {
+
+    companion object {
+        const val DEFAULT_MAX_IN_FLIGHT = 4
+        const val DEFAULT_MAX_ATTEMPTS = 4
+        const val DEFAULT_RETRY_DELAY_MS = 1000L
+        private const val CHUNK_SIZE = 64 * 1024
+    }
+
+    class Result(val uploaded: Int, val skipped: Int, val failed: List<Photo>)
+
+    fun upload(photos: List<Photo>, journal: UploadJournal, progressCallback: IUploadProgress?): Result {
+        val total = photos.size
+        val completed = AtomicInteger(0)
+        val uploaded = AtomicInteger(0)
+        val skipped = AtomicInteger(0)
+        val failed = Collections.synchronizedList(ArrayList<Photo>())
+        val threadCount = AtomicInteger(0)
+        val executor = Executors.newFixedThreadPool(maxOf(1, maxInFlight)) { runnable ->
+            val thread = Thread(runnable, "insight-upload-" + threadCount.getAndIncrement())
+            thread.isDaemon = true
+            thread
+        }
+
+        try {
+            val futures = photos.map { photo ->
+                executor.submit(Runnable {
+                    val file = File(photo.seq!!)
+                    val id = photo.id!!
+                    val md5 = md5(file)
+                    if (journal.isDone(id, file, md5)) {
+                        skipped.incrementAndGet()
+                    } else {
+                        if (uploadWithRetries(id, file, md5)) {
+                            journal.markDone(id, file, md5)
+                            uploaded.incrementAndGet()
+                        } else {
+                            failed.add(photo)
+                        }
+                    }
+
+                    val done = completed.incrementAndGet()
+                    synchronized(this) {
+                        progressCallback?.progressMessage("uploading:" + file.name, done.toDouble() / total)
+                    }
+                })
+            }
+
+            for (future in futures) {
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        return Result(uploaded.get(), skipped.get(), ArrayList(failed))
+    }
+
+    /** @return false if all attempts failed */
+    fun uploadWithRetries(id: String, file: File, md5: String): Boolean {
+        var attempt = 1
+        while (true) {
+            try {
+                val status = put(id, file, md5)
+                if (status in 200..299) {
+                    return true
+                }
+
+                System.err.println("[InsightCLI]:\t Photo Upload $id failed (attempt $attempt), Reason: $status")
+                if (!isRetryable(status) || attempt >= maxAttempts) {
+                    return false
+                }
+            } catch (e: IOException) {
+                System.err.println("[InsightCLI]:\t Photo Upload $id failed (attempt $attempt), Reason: $e")
+                if (attempt >= maxAttempts) {
+                    return false
+                }
+            }
+
+            Thread.sleep(retryDelayMs shl (attempt - 1))
+            attempt++
+        }
+    }
+
+    private fun isRetryable(status: Int): Boolean {
+        return status == 408 || status == 429 || status >= 500
+    }
+
+    private fun put(id: String, file: File, md5: String): Int {
+        val connection = URL("$targetHost/dxds/photos/jpg/$id").openConnection() as HttpURLConnection
+        try {
+            connection.requestMethod = "PUT"
+            connection.doOutput = true
+            connection.setFixedLengthStreamingMode(file.length())
+            connection.setRequestProperty("Content-Type", "application/octet-stream")
+            connection.setRequestProperty("Authorization", "Bearer $accessToken")
+            connection.setRequestProperty("Pragma", "no-cache")
+            connection.setRequestProperty("Referer", "$targetHost/app/browse/projects")
+            connection.setRequestProperty("Origin", targetHost)
+            connection.setRequestProperty("Cache-Control", "no-cache")
+            connection.setRequestProperty("Accept", "*/*")
+            connection.setRequestProperty("Expires", "Sat, 01 Jan 2000 00:00:00 GMT")
+            connection.setRequestProperty("Accept-Language", "en-US,en;q=0.9")
+            connection.setRequestProperty("Content-MD5", md5)
+
+            connection.outputStream.use { out -> file.inputStream().use { it.copyTo(out, CHUNK_SIZE) } }
+
+            val status = connection.responseCode
+            // drain the response, so the keep-alive connection can be reused by the next upload
+            val body = if (status < 400) connection.inputStream else connection.errorStream
+            body?.use { it.readBytes() }
+            return status
+        } catch (e: IOException) {
+            connection.disconnect()
+            throw e
+        }
+    }
+}
+
+/** MD5 of a file in the same format as [md5], computed while streaming the file. */
+fun md5(file: File): String {
+    val md = MessageDigest.getInstance("MD5")
+    val buffer = ByteArray(64 * 1024)
+    file.inputStream().use { input ->
+        while (true) {
+            val read = input.read(buffer)
+            if (read < 0) {
+                break
+            }
+
+            md.update(buffer, 0, read)
+        }
+    }
+
+    return BigInteger(1, md.digest()).toString(16).padStart(32, '0')
+}
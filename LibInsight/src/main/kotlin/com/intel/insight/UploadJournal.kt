@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.insight
+
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+import com.google.gson.annotations.Expose
+import com.google.gson.annotations.SerializedName
+import java.io.File
+import java.io.FileOutputStream
+import java.io.RandomAccessFile
+import java.nio.charset.StandardCharsets
+
+/**
+ * Append-only record of the photos which were uploaded completely, one json object per line. Every entry is synced to
+ * the storage device before the upload counts as done, so an interrupted upload can be resumed from the journal even
+ * after a crash of the machine. A torn last line (crash while writing) is ignored on load and terminated before the
+ * next entry is appended.
+ */
+class UploadJournal(val file: File) {
+
+    class Entry {
+        @SerializedName("id")
+        @Expose
+        var id: String? = null
+
+        @SerializedName("seq")
+        @Expose
+        var seq: String? = null
+
+        @SerializedName("size")
+        @Expose
+        var size: Long = 0
+
+        @SerializedName("md5")
+        @Expose
+        var md5: String? = null
+    }
+
+    private val gson = Gson()
+    private val entries = HashMap<String, Entry>()
+    private var stream: FileOutputStream? = null
+
+    init {
+        if (file.exists()) {
+            file.forEachLine(StandardCharsets.UTF_8) { line ->
+                try {
+                    val entry = gson.fromJson(line, Entry::class.java)
+                    if (entry?.id != null) {
+                        entries[entry.id!!] = entry
+                    }
+                } catch (e: JsonSyntaxException) {
+                    System.err.println("[InsightCLI]:\tIgnoring broken upload journal line: $line")
+                }
+            }
+        }
+    }
+
+    /** A photo counts as uploaded if it is journaled with the same size and MD5 it has now. */
+    @Synchronized
+    fun isDone(id: String, photoFile: File, md5: String): Boolean {
+        val entry = entries[id] ?: return false
+        return entry.size == photoFile.length() && entry.md5 == md5
+    }
+
+    @Synchronized
+    fun markDone(id: String, photoFile: File, md5: String) {
+        val entry = Entry()
+        entry.id = id
+        entry.seq = photoFile.path
+        entry.size = photoFile.length()
+        entry.md5 = md5
+        entries[id] = entry
+
+        val out = stream ?: openForAppend().also { stream = it }
+        out.write((gson.toJson(entry) + "\n").toByteArray(StandardCharsets.UTF_8))
+        out.fd.sync()
+    }
+
+    private fun openForAppend(): FileOutputStream {
+        // terminate a torn last line, so the next entry starts on a line of its own
+        val tornLine = file.length() > 0 && RandomAccessFile(file, "r").use { raf ->
+            raf.seek(raf.length() - 1)
+            raf.read() != '\n'.toInt()
+        }
+        val out = FileOutputStream(file, true)
+        if (tornLine) {
+            out.write('\n'.toInt())
+        }
+
+        return out
+    }
+
+    @Synchronized
+    fun doneCount(): Int {
+        return entries.size
+    }
+
+    @Synchronized
+    fun close() {
+        stream?.close()
+        stream = null
+    }
+
+    @Synchronized
+    fun delete() {
+        close()
+        entries.clear()
+        file.delete()
+    }
+}
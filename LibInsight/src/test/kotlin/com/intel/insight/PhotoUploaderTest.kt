@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+
+package com.intel.insight
+
+import com.intel.insight.datastructures.Photo
+import com.sun.net.httpserver.HttpServer
+import java.io.File
+import java.math.BigInteger
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+/** Uploads against a local HTTP server standing in for the dxds photo endpoint. */
+class PhotoUploaderTest {
+
+    private lateinit var server: HttpServer
+    private lateinit var folder: File
+    private val received = ConcurrentHashMap<String, ByteArray>()
+    private val receivedMd5s = ConcurrentHashMap<String, String>()
+    private val requests = AtomicInteger()
+    /** number of requests to fail with 503 before accepting one, per photo id */
+    private val failures = ConcurrentHashMap<String, AtomicInteger>()
+
+    @Before
+    fun setUp() {
+        folder = Files.createTempDirectory("insight-upload").toFile()
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/dxds/photos/jpg/") { exchange ->
+            requests.incrementAndGet()
+            val id = exchange.requestURI.path.substringAfterLast('/')
+            val body = exchange.requestBody.use { it.readBytes() }
+            val status = if ((failures[id]?.getAndDecrement() ?: 0) > 0) 503 else 200
+            if (status == 200) {
+                received[id] = body
+                receivedMd5s[id] = exchange.requestHeaders.getFirst("Content-MD5")
+            }
+
+            exchange.sendResponseHeaders(status, -1)
+            exchange.close()
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.stop(0)
+        folder.deleteRecursively()
+    }
+
+    private fun uploader(): PhotoUploader {
+        return PhotoUploader("http://127.0.0.1:" + server.address.port, "token", 3, 3, 1)
+    }
+
+    private fun createPhotos(count: Int): List<Photo> {
+        return (0 until count).map { i ->
+            val file = File(folder, "IMG_$i.JPG")
+            file.writeBytes(ByteArray(100_000 + i) { (it * 31 + i).toByte() })
+            val photo = Photo()
+            photo.id = "photo$i"
+            photo.seq = file.path
+            photo
+        }
+    }
+
+    private fun md5(bytes: ByteArray): String {
+        return BigInteger(1, MessageDigest.getInstance("MD5").digest(bytes)).toString(16).padStart(32, '0')
+    }
+
+    @Test
+    fun uploadsAllPhotosAndJournalsThem() {
+        val photos = createPhotos(10)
+        val journal = UploadJournal(File(folder, "journal"))
+        val result = uploader().upload(photos, journal, null)
+        journal.close()
+
+        assertEquals(10, result.uploaded)
+        assertTrue(result.failed.isEmpty())
+        for (photo in photos) {
+            val bytes = File(photo.seq!!).readBytes()
+            assertTrue(bytes.contentEquals(received[photo.id!!]!!))
+            assertEquals(md5(bytes), receivedMd5s[photo.id!!])
+        }
+
+        // the journal on disk has every photo with the MD5 of the bytes sent
+        val reloaded = UploadJournal(File(folder, "journal"))
+        assertEquals(10, reloaded.doneCount())
+        val md5s = File(folder, "journal").readLines().map { it.substringAfter("\"md5\":\"").substringBefore('"') }
+        assertEquals(photos.map { md5(File(it.seq!!).readBytes()) }.sorted(), md5s.sorted())
+    }
+
+    @Test
+    fun retriesTransientFailures() {
+        val photos = createPhotos(3)
+        failures["photo1"] = AtomicInteger(2)
+        failures["photo2"] = AtomicInteger(5)
+        val journal = UploadJournal(File(folder, "journal"))
+        val result = uploader().upload(photos, journal, null)
+        journal.close()
+
+        // photo2 fails more often than attempts are allowed
+        assertEquals(2, result.uploaded)
+        assertEquals(listOf("photo2"), result.failed.map { it.id })
+        assertEquals(1 + 3 + 3, requests.get())
+        assertFalse(received.containsKey("photo2"))
+    }
+
+    @Test
+    fun continuesFromJournal() {
+        val photos = createPhotos(6)
+        val journalFile = File(folder, "journal")
+        val journal = UploadJournal(journalFile)
+        journal.markDone("photo1", File(photos[1].seq!!), md5(File(photos[1].seq!!).readBytes()))
+        journal.markDone("photo4", File(photos[4].seq!!), md5(File(photos[4].seq!!).readBytes()))
+        journal.close()
+        // a crash while writing the next entry
+        journalFile.appendText("{\"id\":\"photo5\",\"si")
+
+        val resumed = UploadJournal(journalFile)
+        val result = uploader().upload(photos, resumed, null)
+        resumed.close()
+
+        assertEquals(4, result.uploaded)
+        assertEquals(2, result.skipped)
+        assertEquals(setOf("photo0", "photo2", "photo3", "photo5"), received.keys)
+
+        // the entries appended after the torn line are not lost
+        assertEquals(6, UploadJournal(journalFile).doneCount())
+    }
+
+    @Test
+    fun changedPhotoIsUploadedAgain() {
+        val photos = createPhotos(2)
+        val journal = UploadJournal(File(folder, "journal"))
+        journal.markDone("photo0", File(photos[0].seq!!), md5(File(photos[0].seq!!).readBytes()))
+        File(photos[0].seq!!).appendBytes(ByteArray(10))
+
+        val result = uploader().upload(photos, journal, null)
+        journal.close()
+
+        assertEquals(2, result.uploaded)
+        assertEquals(setOf("photo0", "photo1"), received.keys)
+    }
+
+    @Test
+    fun photoChangedInPlaceIsUploadedAgain() {
+        val photos = createPhotos(1)
+        val file = File(photos[0].seq!!)
+        val journal = UploadJournal(File(folder, "journal"))
+        journal.markDone("photo0", file, md5(file.readBytes()))
+        val bytes = file.readBytes()
+        bytes[0] = (bytes[0] + 1).toByte()
+        file.writeBytes(bytes)
+
+        val result = uploader().upload(photos, journal, null)
+        journal.close()
+
+        assertEquals(1, result.uploaded)
+        assertEquals(0, result.skipped)
+        assertTrue(bytes.contentEquals(received["photo0"]!!))
+    }
+}
@@ -15,6 +15,7 @@ import java.util.ListIterator;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 public class AsyncFX {
@@ -44,6 +45,18 @@ public class AsyncFX {
 
             platformSubmitCount.getAndIncrement();
             platformSubmitNanos.getAndAdd(nanos);
+
+            LongConsumer listener = platformSubmitListener;
+            if (listener != null) {
+                listener.accept(nanos);
+            }
+        }
+
+        public static void trackPlatformQueueDelay(long nanos) {
+            LongConsumer listener = platformQueueDelayListener;
+            if (listener != null) {
+                listener.accept(nanos);
+            }
         }
 
         public static void trackAwaitPlatform(long nanos) {
@@ -79,6 +92,8 @@ public class AsyncFX {
     private static final AtomicLong platformAwaitedNanos = new AtomicLong();
     private static int breakAfterMillis;
     private static Runnable breakRequestHandler;
+    private static volatile LongConsumer platformSubmitListener;
+    private static volatile LongConsumer platformQueueDelayListener;
     private static boolean futureElisionOptimization = true;
     private static boolean verifyPropertyAccess = true;
     private static boolean runningTests;
@@ -129,6 +144,19 @@ public class AsyncFX {
         breakRequestHandler = handler;
     }
 
+    /** The listener is called on the platform thread with the duration of every task, in nanoseconds. */
+    public static void setPlatformSubmitListener(LongConsumer listener) {
+        platformSubmitListener = listener;
+    }
+
+    /**
+     * The listener is called on the platform thread with the time every task waited between being submitted and
+     * starting to run, in nanoseconds.
+     */
+    public static void setPlatformQueueDelayListener(LongConsumer listener) {
+        platformQueueDelayListener = listener;
+    }
+
     public static boolean isFutureElisionOptimizationEnabled() {
         return futureElisionOptimization;
     }
@@ -26,9 +26,11 @@ class PlatformFuture<V> extends CompletableFuture<V> {
                 command.run();
                 AsyncFX.Accessor.trackPlatformSubmit(System.nanoTime() - startTime);
             } else {
+                long submitTime = System.nanoTime();
                 Platform.runLater(
                     () -> {
                         long startTime = System.nanoTime();
+                        AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
                         command.run();
                         AsyncFX.Accessor.trackPlatformSubmit(System.nanoTime() - startTime);
                     });
@@ -28,9 +28,11 @@ class PlatformFutureFactory implements Executor {
 
     @Override
     public void execute(@NotNull Runnable command) {
+        long submitTime = System.nanoTime();
         Platform.runLater(
             () -> {
                 long startTime = System.nanoTime();
+                AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
                 command.run();
                 AsyncFX.Accessor.trackPlatformSubmit(System.nanoTime() - startTime);
             });
@@ -125,9 +127,11 @@ class PlatformFutureFactory implements Executor {
         cancellationSource.registerFuture(future);
 
         if (delay.isZero()) {
+            long submitTime = System.nanoTime();
             Platform.runLater(
                 () -> {
                     long startTime = System.nanoTime();
+                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                     try {
                         runnable.run();
@@ -152,9 +156,11 @@ class PlatformFutureFactory implements Executor {
                 () -> {
                     future.setFlag(ALREADY_EXECUTED);
 
+                    long submitTime = System.nanoTime();
                     Platform.runLater(
                         () -> {
                             long startTime = System.nanoTime();
+                            AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                             try {
                                 runnable.run();
@@ -203,9 +209,11 @@ class PlatformFutureFactory implements Executor {
         cancellationSource.registerFuture(future);
 
         if (delay.isZero()) {
+            long submitTime = System.nanoTime();
             Platform.runLater(
                 () -> {
                     long startTime = System.nanoTime();
+                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                     try {
                         runnable.run(future.getProgressInfo());
@@ -230,9 +238,11 @@ class PlatformFutureFactory implements Executor {
                 () -> {
                     future.setFlag(ALREADY_EXECUTED);
 
+                    long submitTime = System.nanoTime();
                     Platform.runLater(
                         () -> {
                             long startTime = System.nanoTime();
+                            AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                             try {
                                 runnable.run(future.getProgressInfo());
@@ -280,9 +290,11 @@ class PlatformFutureFactory implements Executor {
         cancellationSource.registerFuture(future);
 
         if (delay.isZero()) {
+            long submitTime = System.nanoTime();
             Platform.runLater(
                 () -> {
                     long startTime = System.nanoTime();
+                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                     try {
                         V value = supplier.get();
@@ -309,9 +321,11 @@ class PlatformFutureFactory implements Executor {
                         () -> {
                             future.setFlag(ALREADY_EXECUTED);
 
+                            long submitTime = System.nanoTime();
                             Platform.runLater(
                                 () -> {
                                     long startTime = System.nanoTime();
+                                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                                     try {
                                         V value = supplier.get();
@@ -355,9 +369,11 @@ class PlatformFutureFactory implements Executor {
         cancellationSource.registerFuture(future);
 
         if (delay.isZero()) {
+            long submitTime = System.nanoTime();
             Platform.runLater(
                 () -> {
                     long startTime = System.nanoTime();
+                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                     try {
                         V value = supplier.get(future.getProgressInfo());
@@ -384,9 +400,11 @@ class PlatformFutureFactory implements Executor {
                         () -> {
                             future.setFlag(ALREADY_EXECUTED);
 
+                            long submitTime = System.nanoTime();
                             Platform.runLater(
                                 () -> {
                                     long startTime = System.nanoTime();
+                                    AsyncFX.Accessor.trackPlatformQueueDelay(startTime - submitTime);
 
                                     try {
                                         V value = supplier.get(future.getProgressInfo());